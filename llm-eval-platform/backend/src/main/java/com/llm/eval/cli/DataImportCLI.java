@@ -1,38 +1,43 @@
 package com.llm.eval.cli;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.llm.eval.dto.DataImportResultDTO;
-import com.llm.eval.dto.RawQuestionImportDTO;
-import com.llm.eval.dto.StandardQAImportDTO;
-import com.llm.eval.service.DataImportService;
+import com.llm.eval.model.ImportTask;
+import com.llm.eval.service.impl.JsonLinesImporter;
+import com.llm.eval.service.impl.QAFileImporter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.util.Arrays;
-import java.util.List;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
 
 /**
  * 数据导入命令行工具
  * 使用方法: java -jar app.jar --import.enabled=true --import.type=raw-qa --import.file=/path/to/file.json
+ *
+ * 支持JSON数组和换行分隔JSON（JSONL）两种格式，均可为gzip压缩；默认按首个非空白字符识别格式，
+ * 也可用 --import.format=json|jsonl 指定。JSON数组逐条流式读取，JSONL文件并行解析、多线程写入，
+ * 线程数、批大小和提交间隔见 import.jsonl.* 配置，例如 --import.jsonl.writer-threads=8
  */
 @Component
 @ConditionalOnProperty(prefix = "import", name = "enabled", havingValue = "true")
 @Slf4j
 public class DataImportCLI implements CommandLineRunner {
 
-    private final DataImportService dataImportService;
-    private final ObjectMapper objectMapper;
+    private final QAFileImporter fileImporter;
+    private final JsonLinesImporter jsonLinesImporter;
 
     @Autowired
-    public DataImportCLI(DataImportService dataImportService, ObjectMapper objectMapper) {
-        this.dataImportService = dataImportService;
-        this.objectMapper = objectMapper;
+    public DataImportCLI(QAFileImporter fileImporter, JsonLinesImporter jsonLinesImporter) {
+        this.fileImporter = fileImporter;
+        this.jsonLinesImporter = jsonLinesImporter;
     }
 
     @Override
@@ -42,6 +47,7 @@ public class DataImportCLI implements CommandLineRunner {
         // 解析参数
         String importType = getArgValue(args, "--import.type=");
         String importFile = getArgValue(args, "--import.file=");
+        String importFormat = getArgValue(args, "--import.format=");
         
         if (importType == null || importFile == null) {
             log.error("缺少必要的参数，请指定 --import.type 和 --import.file");
@@ -54,26 +60,14 @@ public class DataImportCLI implements CommandLineRunner {
             return;
         }
         
-        log.info("导入类型: {}, 文件: {}", importType, importFile);
-        
-        // 读取文件内容
-        byte[] fileContent = Files.readAllBytes(Paths.get(importFile));
-        
-        DataImportResultDTO result;
-        
+        ImportTask.ImportType type;
         switch (importType) {
             case "raw-qa":
-                List<RawQuestionImportDTO> rawQAs = Arrays.asList(
-                        objectMapper.readValue(fileContent, RawQuestionImportDTO[].class)
-                );
-                result = dataImportService.importRawQuestions(rawQAs);
+                type = ImportTask.ImportType.RAW_QA;
                 break;
                 
             case "standard-qa":
-                List<StandardQAImportDTO> standardQAs = Arrays.asList(
-                        objectMapper.readValue(fileContent, StandardQAImportDTO[].class)
-                );
-                result = dataImportService.importStandardQAs(standardQAs);
+                type = ImportTask.ImportType.STANDARD_QA;
                 break;
                 
             default:
@@ -81,11 +75,43 @@ public class DataImportCLI implements CommandLineRunner {
                 return;
         }
         
+        Path path = file.toPath();
+        boolean jsonLines = importFormat != null ? "jsonl".equalsIgnoreCase(importFormat) : isJsonLines(path);
+        log.info("导入类型: {}, 格式: {}, 文件: {}", importType, jsonLines ? "jsonl" : "json", importFile);
+        
+        DataImportResultDTO result;
+        if (jsonLines) {
+            result = jsonLinesImporter.importFile(path, type);
+        } else {
+            try (InputStream in = openDecompressed(path)) {
+                result = fileImporter.importFile(in, type, 0, null);
+            }
+        }
+        
         log.info("导入结果: 成功={}, 消息={}, 导入={}, 失败={}, 总数={}",
                 result.isSuccess(), result.getMessage(), result.getImported(), 
                 result.getFailed(), result.getTotal());
     }
     
+    /**
+     * 首个非空白字符为 '[' 时是JSON数组，否则按JSONL处理
+     */
+    private boolean isJsonLines(Path path) throws IOException {
+        try (InputStream in = openDecompressed(path)) {
+            int c = in.read();
+            // 跳过UTF-8 BOM和空白
+            while (c == 0xEF || c == 0xBB || c == 0xBF || Character.isWhitespace(c)) {
+                c = in.read();
+            }
+            return c != '[';
+        }
+    }
+    
+    private InputStream openDecompressed(Path path) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(path), 64 * 1024);
+        return JsonLinesImporter.isGzip(path) ? new GZIPInputStream(in, 64 * 1024) : in;
+    }
+    
     private String getArgValue(String[] args, String prefix) {
         for (String arg : args) {
             if (arg.startsWith(prefix)) {
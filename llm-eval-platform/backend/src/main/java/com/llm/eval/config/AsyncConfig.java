@@ -0,0 +1,149 @@
+package com.llm.eval.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 异步任务线程池配置
+ * 批量评测等耗时任务在后台有界线程池中执行，避免阻塞HTTP请求线程
+ */
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * 批次评测工作线程池：每个线程循环领取并处理一个评测工作单元，所有节点从同一张工作单元表领取
+     */
+    @Bean(name = "batchWorkerExecutor")
+    public ThreadPoolTaskExecutor batchWorkerExecutor(
+            @Value("${evaluation.batch.unit-workers:2}") int unitWorkers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(unitWorkers);
+        executor.setMaxPoolSize(unitWorkers);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("batch-worker-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 工作单元租约心跳：单线程定时为本节点持有的单元续租
+     */
+    @Bean(name = "leaseHeartbeatScheduler")
+    public ThreadPoolTaskScheduler leaseHeartbeatScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("lease-heartbeat-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(false);
+        scheduler.initialize();
+        return scheduler;
+    }
+
+    /**
+     * 批次进度推送：单线程定时为被订阅的批次生成快照并推送给订阅者
+     */
+    @Bean(name = "progressPushScheduler")
+    public ThreadPoolTaskScheduler progressPushScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("progress-push-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(false);
+        scheduler.initialize();
+        return scheduler;
+    }
+
+    /**
+     * 回答生成调度线程池：每个正在生成回答的批次占用一个线程，模型请求本身异步发出
+     */
+    @Bean(name = "generationRunExecutor")
+    public ThreadPoolTaskExecutor generationRunExecutor(
+            @Value("${answer-generation.max-concurrent-runs:2}") int maxConcurrentRuns) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrentRuns);
+        executor.setMaxPoolSize(maxConcurrentRuns);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("answer-generation-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 评分工作线程池：有界队列，队列满时由提交线程自行执行，形成背压
+     */
+    @Bean(name = "evaluationExecutor")
+    public ThreadPoolTaskExecutor evaluationExecutor(
+            @Value("${evaluation.batch.worker-threads:8}") int workerThreads,
+            @Value("${evaluation.batch.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workerThreads);
+        executor.setMaxPoolSize(workerThreads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("evaluation-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 数据导入任务线程池：有界队列，队列满时拒绝提交
+     */
+    @Bean(name = "importExecutor")
+    public ThreadPoolTaskExecutor importExecutor(
+            @Value("${import.worker-threads:2}") int workerThreads,
+            @Value("${import.queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workerThreads);
+        executor.setMaxPoolSize(workerThreads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("import-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 导入文件校验线程池：读取线程提交过快时由调用方线程自行校验，形成背压
+     */
+    @Bean(name = "validationExecutor")
+    public ThreadPoolTaskExecutor validationExecutor(
+            @Value("${import.validation.threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(threads * 2);
+        executor.setThreadNamePrefix("import-validate-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 相似问题索引构建线程池：启动时并行计算存量问题的签名，线程数为0时取CPU核数
+     */
+    @Bean(name = "similarityExecutor")
+    public ThreadPoolTaskExecutor similarityExecutor(
+            @Value("${similarity.build-threads:0}") int buildThreads) {
+        int threads = buildThreads > 0 ? buildThreads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(threads * 2);
+        executor.setThreadNamePrefix("similarity-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
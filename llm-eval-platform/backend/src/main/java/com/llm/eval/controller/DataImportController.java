@@ -1,6 +1,7 @@
 package com.llm.eval.controller;
 
 import com.llm.eval.dto.DataImportResultDTO;
+import com.llm.eval.dto.DataValidationResultDTO;
 import com.llm.eval.dto.RawQuestionImportDTO;
 import com.llm.eval.dto.StandardQAImportDTO;
 import com.llm.eval.dto.RawQuestionOnlyDTO;
@@ -11,12 +12,15 @@ import com.llm.eval.dto.StandardQALinkDTO;
 import com.llm.eval.dto.LlmAnswerDTO;
 import com.llm.eval.dto.LlmModelDTO;
 import com.llm.eval.dto.DatasetVersionDTO;
+import com.llm.eval.dto.ImportTaskDTO;
 import com.llm.eval.service.DataImportService;
 import com.llm.eval.service.LlmAnswerService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -26,6 +30,7 @@ import java.util.List;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.core.type.TypeReference;
 import org.springframework.http.HttpStatus;
+import java.util.HashMap;
 import java.util.Map;
 
 @RestController
@@ -70,8 +75,12 @@ public class DataImportController {
     }
 
     @PostMapping("/standard-qa")
-    @Operation(summary = "导入标准问答数据", description = "上传JSON文件导入标准问答数据")
-    public ResponseEntity<DataImportResultDTO> importStandardQA(@RequestParam("file") MultipartFile file) {
+    @Operation(summary = "导入标准问答数据",
+            description = "上传JSON文件导入标准问答数据，可选标记或跳过与已有标准问题近似重复的记录")
+    public ResponseEntity<DataImportResultDTO> importStandardQA(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "nearDuplicate", required = false) String nearDuplicate,
+            @RequestParam(value = "similarityThreshold", required = false) Double similarityThreshold) {
         if(file.getOriginalFilename() != null && file.getOriginalFilename().contains("原始")) {
             return ResponseEntity.badRequest().body(
                 new DataImportResultDTO(false, "导入失败: 文件类型不对", 0, 1, 1)
@@ -80,7 +89,7 @@ public class DataImportController {
         
         try {
             log.info("接收到标准问答数据导入请求，文件名：{}", file.getOriginalFilename());
-            DataImportResultDTO result = dataImportService.importStandardQA(file);
+            DataImportResultDTO result = dataImportService.importStandardQA(file, nearDuplicate, similarityThreshold);
             return ResponseEntity.ok(result);
         } catch (IOException e) {
             log.error("导入标准问答数据失败", e);
@@ -90,6 +99,36 @@ public class DataImportController {
         }
     }
 
+    @PostMapping("/validate/raw-qa")
+    @Operation(summary = "验证原始问答数据", description = "流式校验原始问答JSON文件而不导入，错误数超过上限时提前结束")
+    public ResponseEntity<DataValidationResultDTO> validateRawQA(@RequestParam("file") MultipartFile file) {
+        try {
+            log.info("接收到原始问答数据验证请求，文件名：{}", file.getOriginalFilename());
+            return ResponseEntity.ok(dataImportService.validateRawQA(file));
+        } catch (IOException e) {
+            log.error("验证原始问答数据失败", e);
+            return ResponseEntity.badRequest().body(validationFailure(e));
+        } catch (Exception e) {
+            log.error("验证原始问答数据失败", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(validationFailure(e));
+        }
+    }
+
+    @PostMapping("/validate/standard-qa")
+    @Operation(summary = "验证标准问答数据", description = "流式校验标准问答JSON文件而不导入，错误数超过上限时提前结束")
+    public ResponseEntity<DataValidationResultDTO> validateStandardQA(@RequestParam("file") MultipartFile file) {
+        try {
+            log.info("接收到标准问答数据验证请求，文件名：{}", file.getOriginalFilename());
+            return ResponseEntity.ok(dataImportService.validateStandardQA(file));
+        } catch (IOException e) {
+            log.error("验证标准问答数据失败", e);
+            return ResponseEntity.badRequest().body(validationFailure(e));
+        } catch (Exception e) {
+            log.error("验证标准问答数据失败", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(validationFailure(e));
+        }
+    }
+
     @PostMapping("/raw-question")
     @Operation(summary = "导入单个原始问题", description = "导入单个原始问题及其答案")
     public ResponseEntity<DataImportResultDTO> importRawQuestion(@RequestBody RawQuestionImportDTO questionDTO) {
@@ -308,4 +347,92 @@ public class DataImportController {
             );
         }
     }
-} 
\ No newline at end of file
+
+    @PostMapping("/tasks")
+    @Operation(summary = "提交后台导入任务", description = "上传JSON文件后立即返回任务信息，由后台线程池执行导入，type为RAW_QA或STANDARD_QA")
+    public ResponseEntity<?> submitImportTask(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam("type") String type) {
+        try {
+            log.info("接收到后台导入任务请求，类型：{}，文件名：{}", type, file.getOriginalFilename());
+            ImportTaskDTO task = dataImportService.submitImportTask(file, type);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(task);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("提交导入任务失败", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "提交导入任务失败: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/tasks")
+    @Operation(summary = "获取导入任务历史记录")
+    public ResponseEntity<?> getImportHistory(
+            @RequestParam(value = "type", required = false) String type,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "10") int size) {
+        try {
+            Page<ImportTaskDTO> tasks = dataImportService.getImportHistory(type, PageRequest.of(page, size));
+            Map<String, Object> response = new HashMap<>();
+            response.put("content", tasks.getContent());
+            response.put("totalElements", tasks.getTotalElements());
+            response.put("totalPages", tasks.getTotalPages());
+            response.put("size", size);
+            response.put("number", page);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("获取导入任务历史失败", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "获取导入任务历史失败: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/tasks/{importId}")
+    @Operation(summary = "获取导入任务详情（含实时进度和日志）")
+    public ResponseEntity<?> getImportTaskDetail(@PathVariable("importId") Integer importId) {
+        ImportTaskDTO task = dataImportService.getImportTaskDetail(importId);
+        if (task == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "导入任务不存在"));
+        }
+        return ResponseEntity.ok(task);
+    }
+
+    @PostMapping("/tasks/{importId}/cancel")
+    @Operation(summary = "取消导入任务")
+    public ResponseEntity<?> cancelImportTask(@PathVariable("importId") Integer importId) {
+        try {
+            ImportTaskDTO task = dataImportService.cancelImportTask(importId);
+            if (task == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "导入任务不存在"));
+            }
+            return ResponseEntity.ok(task);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/tasks/{importId}/retry")
+    @Operation(summary = "重试导入任务", description = "从上次提交的记录偏移量继续导入")
+    public ResponseEntity<?> retryImportTask(@PathVariable("importId") Integer importId) {
+        try {
+            ImportTaskDTO task = dataImportService.retryImportTask(importId);
+            if (task == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "导入任务不存在"));
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(task);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private static DataValidationResultDTO validationFailure(Exception e) {
+        DataValidationResultDTO result = new DataValidationResultDTO();
+        result.setMessage("验证失败: " + e.getMessage());
+        return result;
+    }
+}
@@ -2,16 +2,24 @@ package com.llm.eval.controller;
 
 import com.llm.eval.dto.EvaluationDTO;
 import com.llm.eval.dto.EvaluationKeyPointDTO;
+import com.llm.eval.dto.EvaluationListItemDTO;
 import com.llm.eval.dto.LlmAnswerDTO;
+import com.llm.eval.dto.ModelComparisonDTO;
+import com.llm.eval.dto.UnevaluatedAnswerDTO;
 import com.llm.eval.model.LlmAnswer;
 import com.llm.eval.model.StandardQuestion;
 import com.llm.eval.model.StandardAnswer;
 import com.llm.eval.model.AnswerKeyPoint;
+import com.llm.eval.service.BatchEvaluationService;
 import com.llm.eval.service.EvaluationService;
 import com.llm.eval.service.LlmAnswerService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -33,11 +41,14 @@ public class EvaluationController {
 
     private final EvaluationService evaluationService;
     private final LlmAnswerService llmAnswerService;
+    private final BatchEvaluationService batchEvaluationService;
 
     @Autowired
-    public EvaluationController(EvaluationService evaluationService, LlmAnswerService llmAnswerService) {
+    public EvaluationController(EvaluationService evaluationService, LlmAnswerService llmAnswerService,
+                                BatchEvaluationService batchEvaluationService) {
         this.evaluationService = evaluationService;
         this.llmAnswerService = llmAnswerService;
+        this.batchEvaluationService = batchEvaluationService;
     }
 
     @GetMapping
@@ -53,31 +64,21 @@ public class EvaluationController {
             @RequestParam(value = "size", defaultValue = "10") int size,
             @RequestParam(value = "modelId", required = false) Integer modelId,
             @RequestParam(value = "datasetId", required = false) Integer datasetId,
-            @RequestParam(value = "method", required = false) String method) {
+            @RequestParam(value = "method", required = false) String method,
+            @RequestParam(value = "categoryId", required = false) Integer categoryId,
+            @RequestParam(value = "minScore", required = false) BigDecimal minScore,
+            @RequestParam(value = "maxScore", required = false) BigDecimal maxScore) {
         
         try {
-            // 获取所有评测结果
-            List<EvaluationDTO> evaluations = evaluationService.getAllEvaluations();
-            
-            // 应用筛选条件
-            List<EvaluationDTO> filteredEvaluations = evaluations.stream()
-                .filter(eval -> modelId == null || (eval.getLlmAnswer() != null && 
-                    eval.getLlmAnswer().getModel() != null && 
-                    eval.getLlmAnswer().getModel().getModelId().equals(modelId)))
-                .filter(eval -> method == null || (eval.getMethod() != null && eval.getMethod().equals(method)))
-                .collect(Collectors.toList());
-            
-            // 手动分页
-            int fromIndex = page * size;
-            int toIndex = Math.min(fromIndex + size, filteredEvaluations.size());
-            
-            List<EvaluationDTO> pagedEvaluations = fromIndex < filteredEvaluations.size() ? 
-                    filteredEvaluations.subList(fromIndex, toIndex) : 
-                    List.of();
+            // 筛选与分页均在数据库端完成
+            Pageable pageable = PageRequest.of(Math.max(page, 0), Math.max(size, 1),
+                    Sort.by(Sort.Direction.ASC, "evaluationId"));
+            Page<EvaluationListItemDTO> evaluationPage = evaluationService.findEvaluations(
+                    modelId, datasetId, method, categoryId, minScore, maxScore, pageable);
             
             // 转换为前端需要的格式，确保包含所有必要信息
             List<Map<String, Object>> resultList = new ArrayList<>();
-            for (EvaluationDTO eval : pagedEvaluations) {
+            for (EvaluationListItemDTO eval : evaluationPage.getContent()) {
                 Map<String, Object> item = new HashMap<>();
                 item.put("evaluationId", eval.getEvaluationId());
                 item.put("score", eval.getScore());
@@ -85,43 +86,22 @@ public class EvaluationController {
                 item.put("comments", eval.getComments());
                 item.put("createdAt", eval.getCreatedAt());
                 
-                // 添加模型信息
-                if (eval.getLlmAnswer() != null && eval.getLlmAnswer().getModel() != null) {
-                    item.put("modelId", eval.getLlmAnswer().getModel().getModelId());
-                    item.put("modelName", eval.getLlmAnswer().getModel().getName());
-                    item.put("modelVersion", eval.getLlmAnswer().getModel().getVersion());
-                } else {
-                    item.put("modelId", null);
-                    item.put("modelName", "未知模型");
-                    item.put("modelVersion", "");
-                }
+                // 模型信息
+                item.put("modelId", eval.getModelId());
+                item.put("modelName", eval.getModelName() != null ? eval.getModelName() : "未知模型");
+                item.put("modelVersion", eval.getModelVersion() != null ? eval.getModelVersion() : "");
                 
-                // 添加问题和数据集信息
-                if (eval.getLlmAnswer() != null && eval.getLlmAnswer().getStandardQuestion() != null) {
-                    item.put("questionId", eval.getLlmAnswer().getStandardQuestion().getStandardQuestionId());
-                    item.put("question", eval.getLlmAnswer().getStandardQuestion().getQuestion());
-                    
-                    // 数据集信息 - 由于DTO中没有直接的dataset字段，这里使用一个占位符
-                    // 实际项目中应该通过服务层获取数据集信息
-                    item.put("datasetId", null);
-                    item.put("datasetName", "未知数据集");
-                    
-                    // 分类信息
-                    if (eval.getLlmAnswer().getStandardQuestion().getCategoryId() != null) {
-                        item.put("categoryId", eval.getLlmAnswer().getStandardQuestion().getCategoryId());
-                        item.put("categoryName", ""); // 分类名称需要另外获取
-                    } else {
-                        item.put("categoryId", null);
-                        item.put("categoryName", "未分类");
-                    }
-                } else {
-                    item.put("questionId", null);
-                    item.put("question", "");
-                    item.put("datasetId", null);
-                    item.put("datasetName", "未知数据集");
-                    item.put("categoryId", null);
-                    item.put("categoryName", "未分类");
-                }
+                // 问题信息
+                item.put("questionId", eval.getQuestionId());
+                item.put("question", eval.getQuestion() != null ? eval.getQuestion() : "");
+                
+                // 数据集信息
+                item.put("datasetId", eval.getDatasetId());
+                item.put("datasetName", eval.getDatasetName() != null ? eval.getDatasetName() : "未知数据集");
+                
+                // 分类信息
+                item.put("categoryId", eval.getCategoryId());
+                item.put("categoryName", eval.getCategoryName() != null ? eval.getCategoryName() : "未分类");
                 
                 resultList.add(item);
             }
@@ -129,8 +109,8 @@ public class EvaluationController {
             // 构建响应
             Map<String, Object> response = new HashMap<>();
             response.put("content", resultList);
-            response.put("totalElements", filteredEvaluations.size());
-            response.put("totalPages", (int) Math.ceil((double) filteredEvaluations.size() / size));
+            response.put("totalElements", evaluationPage.getTotalElements());
+            response.put("totalPages", evaluationPage.getTotalPages());
             response.put("size", size);
             response.put("number", page);
             
@@ -327,10 +307,105 @@ public class EvaluationController {
     }
 
     @PostMapping("/batch/{batchId}/run")
-    @Operation(summary = "执行批次评测")
-    public ResponseEntity<List<EvaluationDTO>> runBatchEvaluation(@PathVariable("batchId") Integer batchId) {
-        List<EvaluationDTO> evaluations = evaluationService.evaluateBatch(batchId);
-        return ResponseEntity.status(HttpStatus.CREATED).body(evaluations);
+    @Operation(summary = "执行批次评测（后台异步运行，进度写入批次的metricsSummary）")
+    public ResponseEntity<?> runBatchEvaluation(@PathVariable("batchId") Integer batchId) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            batchEvaluationService.startBatchEvaluation(batchId);
+            response.put("batchId", batchId);
+            response.put("status", "IN_PROGRESS");
+            response.put("message", "批次评测已在后台启动");
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (IllegalStateException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (Exception e) {
+            e.printStackTrace();
+            response.put("error", "启动批次评测失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    @PostMapping("/batch/{batchId}/resume")
+    @Operation(summary = "从检查点恢复中断或失败的批次评测")
+    public ResponseEntity<?> resumeBatchEvaluation(@PathVariable("batchId") Integer batchId) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            int requeuedUnits = batchEvaluationService.resumeBatchEvaluation(batchId);
+            response.put("batchId", batchId);
+            response.put("status", "IN_PROGRESS");
+            response.put("requeuedUnits", requeuedUnits);
+            response.put("message", "批次评测已从检查点恢复");
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (IllegalStateException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (Exception e) {
+            e.printStackTrace();
+            response.put("error", "恢复批次评测失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    @GetMapping("/batch/{batchId}/progress")
+    @Operation(summary = "获取批次的实时进度（吞吐量、预计剩余时间和滚动评分统计）")
+    public ResponseEntity<?> getBatchProgress(@PathVariable("batchId") Integer batchId) {
+        try {
+            return ResponseEntity.ok(batchEvaluationService.getBatchProgress(batchId));
+        } catch (Exception e) {
+            e.printStackTrace();
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "获取批次进度失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+
+    @GetMapping("/batch/{batchId}/progress/stream")
+    @Operation(summary = "以Server-Sent Events订阅批次的实时进度，批次结束后连接关闭")
+    public ResponseEntity<?> streamBatchProgress(@PathVariable("batchId") Integer batchId) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            return ResponseEntity.ok(batchEvaluationService.subscribeBatchProgress(batchId));
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (IllegalStateException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        } catch (Exception e) {
+            e.printStackTrace();
+            response.put("error", "订阅批次进度失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    @GetMapping("/cache/stats")
+    @Operation(summary = "获取评测缓存命中统计")
+    public ResponseEntity<Map<String, Object>> getEvaluationCacheStats() {
+        return ResponseEntity.ok(evaluationService.getEvaluationCacheStats());
+    }
+
+    @GetMapping("/batch/{batchId}/judge-tasks")
+    @Operation(summary = "按状态统计裁判模型批次的任务数量")
+    public ResponseEntity<?> getJudgeTaskCounts(@PathVariable("batchId") Integer batchId) {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("batchId", batchId);
+            response.put("running", batchEvaluationService.isBatchRunning(batchId));
+            response.put("counts", batchEvaluationService.getJudgeTaskCounts(batchId));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            e.printStackTrace();
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "获取裁判任务统计失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
     }
 
     @GetMapping("/unevaluated")
@@ -343,26 +418,19 @@ public class EvaluationController {
             @RequestParam(value = "categoryId", required = false) Integer categoryId) {
         
         try {
-            // 获取未评测的回答列表
-            List<LlmAnswer> unevaluatedAnswers = evaluationService.getUnevaluatedAnswers(
-                    modelId, questionType, categoryId);
-            
-            // 手动分页
-            int fromIndex = page * size;
-            int toIndex = Math.min(fromIndex + size, unevaluatedAnswers.size());
-            
-            List<LlmAnswer> pagedAnswers = fromIndex < unevaluatedAnswers.size() ? 
-                    unevaluatedAnswers.subList(fromIndex, toIndex) : 
-                    List.of();
+            // 反连接查询，筛选和分页均在数据库端完成
+            Page<UnevaluatedAnswerDTO> answerPage = evaluationService.getUnevaluatedAnswers(
+                    modelId, questionType, categoryId,
+                    PageRequest.of(Math.max(page, 0), Math.max(size, 1), Sort.by(Sort.Direction.ASC, "llmAnswerId")));
             
             // 转换为前端需要的格式
-            List<Map<String, Object>> result = pagedAnswers.stream().map(answer -> {
+            List<Map<String, Object>> result = answerPage.getContent().stream().map(answer -> {
                 Map<String, Object> item = new HashMap<>();
-                item.put("answerId", answer.getLlmAnswerId());
-                item.put("questionId", answer.getStandardQuestion().getStandardQuestionId());
-                item.put("question", answer.getStandardQuestion().getQuestion());
-                item.put("modelId", answer.getModel().getModelId());
-                item.put("modelName", answer.getModel().getName() + " " + answer.getModel().getVersion());
+                item.put("answerId", answer.getAnswerId());
+                item.put("questionId", answer.getQuestionId());
+                item.put("question", answer.getQuestion());
+                item.put("modelId", answer.getModelId());
+                item.put("modelName", answer.getModelName() + " " + answer.getModelVersion());
                 item.put("status", "pending");
                 return item;
             }).collect(Collectors.toList());
@@ -370,8 +438,8 @@ public class EvaluationController {
             // 构建响应
             Map<String, Object> response = new HashMap<>();
             response.put("content", result);
-            response.put("totalElements", unevaluatedAnswers.size());
-            response.put("totalPages", (int) Math.ceil((double) unevaluatedAnswers.size() / size));
+            response.put("totalElements", answerPage.getTotalElements());
+            response.put("totalPages", answerPage.getTotalPages());
             response.put("size", size);
             response.put("number", page);
             
@@ -708,68 +776,12 @@ public class EvaluationController {
     
     @GetMapping("/model/statistics")
     @Operation(summary = "获取模型评测统计数据")
-    public ResponseEntity<?> getModelEvaluationStatistics() {
+    public ResponseEntity<?> getModelEvaluationStatistics(
+            @RequestParam(value = "datasetId", required = false) Integer datasetId,
+            @RequestParam(value = "batchId", required = false) Integer batchId,
+            @RequestParam(value = "categoryId", required = false) Integer categoryId) {
         try {
-            // 获取所有评测结果
-            List<EvaluationDTO> evaluations = evaluationService.getAllEvaluations();
-            
-            // 按模型分组
-            Map<Integer, List<EvaluationDTO>> evaluationsByModel = evaluations.stream()
-                .filter(eval -> eval.getLlmAnswer() != null && 
-                    eval.getLlmAnswer().getModel() != null)
-                .collect(Collectors.groupingBy(eval -> eval.getLlmAnswer().getModel().getModelId()));
-            
-            // 计算每个模型的统计数据
-            List<Map<String, Object>> statistics = new ArrayList<>();
-            
-            evaluationsByModel.forEach((modelId, modelEvaluations) -> {
-                Map<String, Object> modelStat = new HashMap<>();
-                modelStat.put("modelId", modelId);
-                
-                // 获取模型名称
-                String modelName = modelEvaluations.stream()
-                    .map(eval -> {
-                        if (eval.getLlmAnswer() != null && eval.getLlmAnswer().getModel() != null) {
-                            String name = eval.getLlmAnswer().getModel().getName();
-                            String version = eval.getLlmAnswer().getModel().getVersion();
-                            if (version != null && !version.isEmpty()) {
-                                return name + " " + version;
-                            }
-                            return name;
-                        }
-                        return null;
-                    })
-                    .filter(name -> name != null && !name.isEmpty())
-                    .findFirst()
-                    .orElse("未知模型");
-                
-                modelStat.put("modelName", modelName);
-                modelStat.put("evaluationCount", modelEvaluations.size());
-                
-                // 计算平均分
-                double avgScore = modelEvaluations.stream()
-                    .filter(eval -> eval.getScore() != null)
-                    .mapToDouble(eval -> eval.getScore().doubleValue())
-                    .average()
-                    .orElse(0.0);
-                
-                modelStat.put("avgScore", avgScore);
-                
-                // 计算评测维度平均分
-                Map<String, Double> dimensions = new HashMap<>();
-                dimensions.put("accuracy", 0.0);
-                dimensions.put("completeness", 0.0);
-                dimensions.put("clarity", 0.0);
-                
-                // 这里需要根据实际情况计算维度得分
-                // 假设评测维度信息存储在评测的comments字段中
-                
-                modelStat.put("dimensions", dimensions);
-                
-                statistics.add(modelStat);
-            });
-            
-            return ResponseEntity.ok(statistics);
+            return ResponseEntity.ok(evaluationService.getModelScoreStatistics(datasetId, batchId, categoryId));
         } catch (Exception e) {
             e.printStackTrace();
             Map<String, Object> errorResponse = new HashMap<>();
@@ -778,6 +790,40 @@ public class EvaluationController {
         }
     }
 
+    @GetMapping("/model/leaderboard")
+    @Operation(summary = "获取模型排行榜", description = "由同一问题下的评分胜负和显式比较拟合 Bradley-Terry/Elo 评级，可选 bootstrap 置信区间")
+    public ResponseEntity<?> getModelLeaderboard(
+            @RequestParam(value = "bootstrap", defaultValue = "0") int bootstrapRounds,
+            @RequestParam(value = "refresh", defaultValue = "false") boolean refresh) {
+        try {
+            return ResponseEntity.ok(evaluationService.getModelLeaderboard(refresh, bootstrapRounds));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "获取模型排行榜失败: " + e.getMessage()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "获取模型排行榜失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+
+    @PostMapping("/model/comparisons")
+    @Operation(summary = "记录两个模型回答的比较结果")
+    public ResponseEntity<?> recordModelComparison(@RequestBody ModelComparisonDTO comparison) {
+        try {
+            Integer comparisonId = evaluationService.recordModelComparison(comparison);
+            comparison.setComparisonId(comparisonId);
+            return ResponseEntity.status(HttpStatus.CREATED).body(comparison);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "记录模型比较失败: " + e.getMessage()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "记录模型比较失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+
     @PostMapping("/evaluate")
     @Operation(summary = "对单个回答进行评测")
     public ResponseEntity<?> evaluateAnswer(@RequestBody Map<String, Object> evaluationRequest) {
@@ -805,58 +851,10 @@ public class EvaluationController {
                 return ResponseEntity.badRequest().body(Map.of("error", "标准答案不存在"));
             }
             
-            // 创建评测DTO
-            EvaluationDTO evaluationDTO = new EvaluationDTO();
-            evaluationDTO.setLlmAnswerId(answerId);
-            evaluationDTO.setMethod(method != null ? method : "auto");
-            evaluationDTO.setStandardAnswerId(standardAnswerOpt.get().getStandardAnswerId());
-            
-            // 如果是自动评测，计算评分
-            if ("auto".equals(evaluationDTO.getMethod())) {
-                // 简单示例：随机评分，实际中应该使用文本相似度、关键点匹配等复杂算法
-                evaluationDTO.setScore(new BigDecimal(Math.random() * 10).setScale(2, BigDecimal.ROUND_HALF_UP));
-                evaluationDTO.setComments("自动评测生成的评分");
-                
-                // 处理关键点评估
-                List<AnswerKeyPoint> keyPoints = evaluationService.getKeyPointsByAnswerId(
-                        standardAnswerOpt.get().getStandardAnswerId());
-                
-                if (!keyPoints.isEmpty()) {
-                    System.out.println("自动评测：处理关键点评估，关键点数量: " + keyPoints.size());
-                    
-                    // 创建关键点评估列表
-                    List<EvaluationKeyPointDTO> keyPointEvals = new ArrayList<>();
-                    
-                    // 简单示例：随机生成关键点匹配状态
-                    // 实际应该基于文本相似度、关键词匹配等算法来判断
-                    for (AnswerKeyPoint keyPoint : keyPoints) {
-                        EvaluationKeyPointDTO keyPointEval = new EvaluationKeyPointDTO();
-                        keyPointEval.setKeyPointId(keyPoint.getKeyPointId());
-                        
-                        // 随机生成匹配状态，仅用于演示
-                        // 实际应该基于模型回答内容与关键点的匹配程度来判断
-                        double matchScore = Math.random();
-                        if (matchScore > 0.7) {
-                            keyPointEval.setStatus(com.llm.eval.model.EvaluationKeyPoint.KeyPointStatus.MATCHED);
-                        } else if (matchScore > 0.3) {
-                            keyPointEval.setStatus(com.llm.eval.model.EvaluationKeyPoint.KeyPointStatus.PARTIAL);
-                        } else {
-                            keyPointEval.setStatus(com.llm.eval.model.EvaluationKeyPoint.KeyPointStatus.MISSED);
-                        }
-                        
-                        keyPointEvals.add(keyPointEval);
-                    }
-                    
-                    // 将关键点评估结果转换为JSON字符串
-                    ObjectMapper objectMapper = new ObjectMapper();
-                    try {
-                        evaluationDTO.setKeyPointsEvaluation(objectMapper.writeValueAsString(keyPointEvals));
-                        System.out.println("关键点评估JSON: " + evaluationDTO.getKeyPointsEvaluation());
-                    } catch (Exception e) {
-                        System.err.println("关键点评估JSON序列化失败: " + e.getMessage());
-                        evaluationDTO.setKeyPointsEvaluation("[]");
-                    }
-                }
+            // 如果是自动评测，按关键点匹配计算评分
+            EvaluationDTO evaluationDTO;
+            if (method == null || "auto".equals(method)) {
+                evaluationDTO = evaluationService.autoEvaluate(answer, standardAnswerOpt.get());
             } else {
                 // 如果是人工评测，返回需要人工评测的信息
                 return ResponseEntity.ok(Map.of(
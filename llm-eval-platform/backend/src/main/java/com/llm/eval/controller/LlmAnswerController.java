@@ -1,5 +1,6 @@
 package com.llm.eval.controller;
 
+import com.llm.eval.dto.AnswerGenerationRequest;
 import com.llm.eval.dto.LlmAnswerDTO;
 import com.llm.eval.service.LlmAnswerService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -9,6 +10,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -132,6 +134,41 @@ public class LlmAnswerController {
         }
     }
 
+    @PostMapping("/batches/{batchId}/generate")
+    @Operation(summary = "启动批次回答生成", description = "在后台为批次数据集版本中尚无回答的问题调用模型生成回答")
+    public ResponseEntity<?> startAnswerGeneration(
+            @PathVariable("batchId") Integer batchId,
+            @RequestBody(required = false) AnswerGenerationRequest request) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(llmAnswerService.startAnswerGeneration(batchId, request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "启动回答生成失败: " + e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "启动回答生成失败: " + e.getMessage()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "启动回答生成失败: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/batches/{batchId}/generate/progress")
+    @Operation(summary = "获取批次回答生成进度")
+    public ResponseEntity<?> getAnswerGenerationProgress(@PathVariable("batchId") Integer batchId) {
+        return llmAnswerService.getAnswerGenerationProgress(batchId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/batches/{batchId}/generate/cancel")
+    @Operation(summary = "取消批次回答生成")
+    public ResponseEntity<?> cancelAnswerGeneration(@PathVariable("batchId") Integer batchId) {
+        if (!llmAnswerService.cancelAnswerGeneration(batchId)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "取消回答生成失败: 该批次没有正在运行的生成任务"));
+        }
+        return ResponseEntity.ok(Map.of("message", "已请求取消回答生成"));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "根据ID获取模型回答详情")
     public ResponseEntity<?> getAnswerById(@PathVariable("id") Integer id) {
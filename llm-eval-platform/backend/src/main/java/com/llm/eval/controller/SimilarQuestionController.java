@@ -0,0 +1,66 @@
+package com.llm.eval.controller;
+
+import com.llm.eval.service.SimilarQuestionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/similar-questions")
+@Tag(name = "Similar Question API", description = "相似问题查询接口")
+@Slf4j
+public class SimilarQuestionController {
+
+    private final SimilarQuestionService similarQuestionService;
+
+    @Autowired
+    public SimilarQuestionController(SimilarQuestionService similarQuestionService) {
+        this.similarQuestionService = similarQuestionService;
+    }
+
+    /**
+     * 按文本查找相似问题
+     *
+     * 请求体示例: {"text": "什么是数据库事务？", "type": "standard", "threshold": 0.8, "limit": 10}
+     * type 为 raw 或 standard（默认），threshold 为估计的 Jaccard 相似度阈值，为空时使用默认阈值
+     */
+    @PostMapping("/search")
+    @Operation(summary = "按文本查找相似问题")
+    public ResponseEntity<Map<String, Object>> searchSimilarQuestions(@RequestBody Map<String, Object> params) {
+        Object text = params.get("text");
+        Object type = params.get("type");
+        Double threshold = params.get("threshold") instanceof Number
+                ? ((Number) params.get("threshold")).doubleValue() : null;
+        Integer limit = params.get("limit") instanceof Number
+                ? ((Number) params.get("limit")).intValue() : null;
+        return ResponseEntity.ok(similarQuestionService.findSimilarByText(
+                type != null ? type.toString() : null, text != null ? text.toString() : null, threshold, limit));
+    }
+
+    /**
+     * 查找与已有问题相似的其他问题
+     *
+     * @param type raw（原始问题）或standard（标准问题）
+     * @param id 问题ID
+     */
+    @GetMapping("/{type}/{id}")
+    @Operation(summary = "查找与指定问题相似的问题")
+    public ResponseEntity<Map<String, Object>> getSimilarQuestions(
+            @PathVariable String type,
+            @PathVariable Integer id,
+            @RequestParam(required = false) Double threshold,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(similarQuestionService.findSimilarToQuestion(type, id, threshold, limit));
+        } catch (EntityNotFoundException e) {
+            log.debug("查找相似问题失败: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -40,14 +40,16 @@ public class StatisticsController {
     
     @GetMapping("/raw-counts")
     @Operation(summary = "获取原始问题和答案数量")
-    public ResponseEntity<Map<String, Long>> getRawQuestionAndAnswerCounts() {
-        return ResponseEntity.ok(statisticsService.getRawQuestionAndAnswerCounts());
+    public ResponseEntity<Map<String, Long>> getRawQuestionAndAnswerCounts(
+            @Parameter(description = "是否跳过统计缓存强制重新统计") @RequestParam(defaultValue = "false") boolean refresh) {
+        return ResponseEntity.ok(statisticsService.getRawQuestionAndAnswerCounts(refresh));
     }
     
     @GetMapping("/standard-counts")
     @Operation(summary = "获取标准问题和答案数量")
-    public ResponseEntity<Map<String, Long>> getStandardQuestionAndAnswerCounts() {
-        return ResponseEntity.ok(statisticsService.getStandardQuestionAndAnswerCounts());
+    public ResponseEntity<Map<String, Long>> getStandardQuestionAndAnswerCounts(
+            @Parameter(description = "是否跳过统计缓存强制重新统计") @RequestParam(defaultValue = "false") boolean refresh) {
+        return ResponseEntity.ok(statisticsService.getStandardQuestionAndAnswerCounts(refresh));
     }
     
     @GetMapping("/category-counts")
@@ -63,9 +65,10 @@ public class StatisticsController {
     }
       @GetMapping("/without-standard-answer")
     @Operation(summary = "获取无标准答案的问题数量")
-    public ResponseEntity<Map<String, Long>> getQuestionsWithoutStandardAnswerCount() {
+    public ResponseEntity<Map<String, Long>> getQuestionsWithoutStandardAnswerCount(
+            @Parameter(description = "是否跳过统计缓存强制重新统计") @RequestParam(defaultValue = "false") boolean refresh) {
         Map<String, Long> result = new HashMap<>();
-        result.put("count", statisticsService.getQuestionsWithoutStandardAnswerCount());
+        result.put("count", statisticsService.getQuestionsWithoutStandardAnswerCount(refresh));
         return ResponseEntity.ok(result);
     }
     
@@ -110,29 +113,15 @@ public class StatisticsController {
     
     @GetMapping("/dataset-versions")
     @Operation(summary = "获取数据集版本数量")
-    public ResponseEntity<Map<String, Long>> getDatasetVersionCount() {
-        Map<String, Long> result = new HashMap<>();
-        result.put("count", statisticsService.getDatasetVersionCount());
-        return ResponseEntity.ok(result);
+    public ResponseEntity<Map<String, Long>> getDatasetVersionCount(
+            @Parameter(description = "是否跳过统计缓存强制重新统计") @RequestParam(defaultValue = "false") boolean refresh) {
+        return ResponseEntity.ok(statisticsService.getDatasetVersionCounts(refresh));
     }
     
     @GetMapping("/summary")
     @Operation(summary = "获取统计数据摘要")
-    public ResponseEntity<Map<String, Object>> getStatisticsSummary() {
-        Map<String, Object> summary = new HashMap<>();
-        
-        // Add raw counts
-        summary.put("rawCounts", statisticsService.getRawQuestionAndAnswerCounts());
-        
-        // Add standard counts
-        summary.put("standardCounts", statisticsService.getStandardQuestionAndAnswerCounts());
-        
-        // Add questions without standard answer
-        summary.put("questionsWithoutStandardAnswer", statisticsService.getQuestionsWithoutStandardAnswerCount());
-        
-        // Add dataset version count
-        summary.put("datasetVersionCount", statisticsService.getDatasetVersionCount());
-        
-        return ResponseEntity.ok(summary);
+    public ResponseEntity<Map<String, Object>> getStatisticsSummary(
+            @Parameter(description = "是否跳过统计缓存强制重新统计") @RequestParam(defaultValue = "false") boolean refresh) {
+        return ResponseEntity.ok(statisticsService.getStatisticsSummary(refresh));
     }
 } 
\ No newline at end of file
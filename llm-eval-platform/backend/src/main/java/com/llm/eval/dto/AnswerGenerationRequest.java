@@ -0,0 +1,19 @@
+package com.llm.eval.dto;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 批次回答生成请求
+ *
+ * promptTemplate 中可使用 {{question}}、{{question_type}}、{{question_id}} 以及 promptParams 中的参数名作为占位符，
+ * 未指定模板时直接以问题内容作为提示词。
+ */
+@Data
+public class AnswerGenerationRequest {
+    private String promptTemplate;
+    private Map<String, Object> promptParams;
+    private String systemPrompt;
+    private Boolean stream;
+}
@@ -4,6 +4,9 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -13,4 +16,16 @@ public class DataImportResultDTO {
     private int imported;
     private int failed;
     private int total;
-} 
\ No newline at end of file
+    // 近似重复检查：被跳过和被标记（仍导入）的记录数，以及前若干条的说明
+    private int skipped;
+    private int flagged;
+    private List<String> nearDuplicates = new ArrayList<>();
+
+    public DataImportResultDTO(boolean success, String message, int imported, int failed, int total) {
+        this.success = success;
+        this.message = message;
+        this.imported = imported;
+        this.failed = failed;
+        this.total = total;
+    }
+}
@@ -6,14 +6,29 @@ import lombok.NoArgsConstructor;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class DataValidationResultDTO {
     private boolean isValid;
+    private String message;
     private int totalRecords;
     private int invalidRecords;
+    private int errorCount;
+    private int warningCount;
+    // 错误数超过预算或遇到无法继续解析的内容时提前结束，此时各计数只覆盖已读取的部分
+    private boolean aborted;
+    // 文件内来源问题ID重复的记录数
+    private int duplicateInFile;
+    // 来源问题ID在数据库中已存在（导入时将更新）的记录数，仅原始问答
+    private int existingInDatabase;
+    // 引用的原始问题/回答在数据库中不存在的次数，仅标准问答
+    private int unresolvedReferences;
+    // 按错误信息汇总的计数
+    private Map<String, Integer> errorSummary = new TreeMap<>();
     private List<ValidationIssueDTO> issues = new ArrayList<>();
     private List<ValidationIssueDTO> warnings = new ArrayList<>();
     
@@ -25,4 +40,4 @@ public class DataValidationResultDTO {
         private String field;
         private String message;
     }
-} 
\ No newline at end of file
+}
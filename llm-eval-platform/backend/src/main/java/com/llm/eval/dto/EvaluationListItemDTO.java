@@ -0,0 +1,40 @@
+package com.llm.eval.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 评测结果列表项（轻量投影，由JPQL构造表达式直接生成）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EvaluationListItemDTO {
+
+    private Integer evaluationId;
+    private BigDecimal score;
+    private String method;
+    private String comments;
+    private LocalDateTime createdAt;
+
+    // 模型信息
+    private Integer modelId;
+    private String modelName;
+    private String modelVersion;
+
+    // 问题信息
+    private Integer questionId;
+    private String question;
+
+    // 数据集信息
+    private Integer datasetId;
+    private String datasetName;
+
+    // 分类信息
+    private Integer categoryId;
+    private String categoryName;
+}
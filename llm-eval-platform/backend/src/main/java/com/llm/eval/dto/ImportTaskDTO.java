@@ -11,9 +11,11 @@ public class ImportTaskDTO {
     private Integer importId;
     private String type;
     private String filename;
+    private Integer processedCount;
     private Integer importedCount;
     private Integer updatedCount;
     private Integer failedCount;
+    private Double throughput;
     private String status;
     private String details;
     private LocalDateTime startTime;
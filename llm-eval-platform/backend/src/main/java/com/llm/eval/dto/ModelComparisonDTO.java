@@ -0,0 +1,18 @@
+package com.llm.eval.dto;
+
+import lombok.Data;
+
+/**
+ * 两个模型回答的显式比较
+ */
+@Data
+public class ModelComparisonDTO {
+    private Integer comparisonId;
+    private Integer answer1Id;
+    private Integer answer2Id;
+    // answer1、answer2 或 tie
+    private String winner;
+    private Integer comparerId;
+    private Integer judgeModelId;
+    private String comparisonReason;
+}
@@ -0,0 +1,30 @@
+package com.llm.eval.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 排行榜中模型的两两比较评级
+ */
+@Data
+@NoArgsConstructor
+public class ModelRatingDTO {
+
+    private Integer rank;
+    private Integer modelId;
+    private String modelName;
+    private String modelVersion;
+
+    // Bradley-Terry 强度换算的 Elo 分，1000 为参与比较模型的平均水平
+    private Double eloRating;
+    // bootstrap 95% 置信区间，未请求 bootstrap 时为空
+    private Double eloLower;
+    private Double eloUpper;
+    private Double strength;
+
+    private long comparisons;
+    private long wins;
+    private long losses;
+    private long ties;
+    private Double winRate;
+}
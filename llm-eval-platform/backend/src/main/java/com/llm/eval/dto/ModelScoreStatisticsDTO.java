@@ -0,0 +1,28 @@
+package com.llm.eval.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 模型评分统计（由数据库端分组聚合得到）
+ */
+@Data
+@NoArgsConstructor
+public class ModelScoreStatisticsDTO {
+
+    private Integer modelId;
+    private String modelName;
+    private String modelVersion;
+
+    private long evaluationCount;
+    private Double avgScore;
+    private Double minScore;
+    private Double maxScore;
+    private Double stdDevScore;
+
+    // 分数段 -> 评测数量，如 "0-1"、"9-10"
+    private Map<String, Long> scoreHistogram = new LinkedHashMap<>();
+}
@@ -0,0 +1,19 @@
+package com.llm.eval.dto;
+
+import lombok.Data;
+
+/**
+ * 相似问题查询结果项
+ */
+@Data
+public class SimilarQuestionDTO {
+
+    private Integer questionId;
+    // 原始问题为标题，标准问题为空
+    private String title;
+    private String question;
+    // 估计的 Jaccard 相似度（0-1）
+    private Double similarity;
+    // 归一化后文本完全相同
+    private Boolean exact;
+}
@@ -0,0 +1,21 @@
+package com.llm.eval.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 待评测回答列表项（轻量投影，由JPQL构造表达式直接生成）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UnevaluatedAnswerDTO {
+
+    private Integer answerId;
+    private Integer questionId;
+    private String question;
+    private Integer modelId;
+    private String modelName;
+    private String modelVersion;
+}
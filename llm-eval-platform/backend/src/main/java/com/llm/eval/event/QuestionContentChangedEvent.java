@@ -0,0 +1,52 @@
+package com.llm.eval.event;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 问题文本变更事件
+ *
+ * 新建、修改问题文本或删除问题后发布，供相似问题索引增量更新。
+ * 事件携带问题ID到最新文本的映射，文本为 null 表示问题已删除。
+ */
+public class QuestionContentChangedEvent {
+
+    public enum Corpus {
+        RAW_QUESTION,
+        STANDARD_QUESTION
+    }
+
+    private final Corpus corpus;
+    private final Map<Integer, String> contents;
+
+    private QuestionContentChangedEvent(Corpus corpus, Map<Integer, String> contents) {
+        this.corpus = corpus;
+        this.contents = Collections.unmodifiableMap(contents);
+    }
+
+    public static QuestionContentChangedEvent saved(Corpus corpus, Integer questionId, String text) {
+        Map<Integer, String> contents = new LinkedHashMap<>();
+        contents.put(questionId, text);
+        return new QuestionContentChangedEvent(corpus, contents);
+    }
+
+    /**
+     * 批量写入后一次发布
+     */
+    public static QuestionContentChangedEvent saved(Corpus corpus, Map<Integer, String> contents) {
+        return new QuestionContentChangedEvent(corpus, new LinkedHashMap<>(contents));
+    }
+
+    public static QuestionContentChangedEvent deleted(Corpus corpus, Integer questionId) {
+        return saved(corpus, questionId, null);
+    }
+
+    public Corpus getCorpus() {
+        return corpus;
+    }
+
+    public Map<Integer, String> getContents() {
+        return contents;
+    }
+}
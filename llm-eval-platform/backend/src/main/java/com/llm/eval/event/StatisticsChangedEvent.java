@@ -0,0 +1,61 @@
+package com.llm.eval.event;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 统计数据变更事件
+ * 
+ * 能直接换算为计数增减的变更（如新建问题、删除回答）携带增量；
+ * 无法在写入处准确得出增量的变更（如级联删除、最终答案切换、批量导入）要求重新统计。
+ */
+public class StatisticsChangedEvent {
+    
+    public enum Metric {
+        RAW_QUESTION,
+        RAW_ANSWER,
+        STANDARD_QUESTION,
+        STANDARD_ANSWER,
+        FINAL_STANDARD_ANSWER,
+        QUESTION_WITHOUT_STANDARD_ANSWER,
+        DATASET_VERSION,
+        PUBLISHED_DATASET_VERSION
+    }
+    
+    private final Map<Metric, Long> deltas;
+    private final boolean recountRequired;
+    
+    private StatisticsChangedEvent(Map<Metric, Long> deltas, boolean recountRequired) {
+        this.deltas = Collections.unmodifiableMap(deltas);
+        this.recountRequired = recountRequired;
+    }
+    
+    public static StatisticsChangedEvent of(Metric metric, long delta) {
+        Map<Metric, Long> deltas = new EnumMap<>(Metric.class);
+        deltas.put(metric, delta);
+        return new StatisticsChangedEvent(deltas, false);
+    }
+    
+    public static StatisticsChangedEvent recount() {
+        return new StatisticsChangedEvent(new EnumMap<>(Metric.class), true);
+    }
+    
+    /**
+     * 在当前事件基础上追加一个增量
+     */
+    public StatisticsChangedEvent and(Metric metric, long delta) {
+        Map<Metric, Long> merged = new EnumMap<>(Metric.class);
+        merged.putAll(deltas);
+        merged.merge(metric, delta, Long::sum);
+        return new StatisticsChangedEvent(merged, recountRequired);
+    }
+    
+    public Map<Metric, Long> getDeltas() {
+        return deltas;
+    }
+    
+    public boolean isRecountRequired() {
+        return recountRequired;
+    }
+}
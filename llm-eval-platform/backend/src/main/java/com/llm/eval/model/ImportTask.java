@@ -28,6 +28,12 @@ public class ImportTask {
     @Column(name = "filename")
     private String filename;
     
+    @Column(name = "file_path")
+    private String filePath;
+    
+    @Column(name = "processed_count")
+    private Integer processedCount;
+    
     @Column(name = "imported_count")
     private Integer importedCount;
     
@@ -0,0 +1,60 @@
+package com.llm.eval.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "judge_tasks")
+@Data
+public class JudgeTask {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "task_id")
+    private Integer taskId;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "batch_id", nullable = false)
+    private EvaluationBatch batch;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "llm_answer_id", nullable = false)
+    private LlmAnswer llmAnswer;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "standard_answer_id", nullable = false)
+    private StandardAnswer standardAnswer;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "judge_model_id", nullable = false)
+    private LlmModel judgeModel;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private TaskStatus status;
+    
+    @Column(name = "result_score")
+    private BigDecimal resultScore;
+    
+    @Column(name = "result_reason", columnDefinition = "TEXT")
+    private String resultReason;
+    
+    @Column(name = "attempts")
+    private Integer attempts;
+    
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+    
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+    
+    public enum TaskStatus {
+        pending, in_progress, completed, failed
+    }
+}
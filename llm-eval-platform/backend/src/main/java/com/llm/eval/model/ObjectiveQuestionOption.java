@@ -0,0 +1,55 @@
+package com.llm.eval.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.SQLDelete;
+import org.hibernate.annotations.Where;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "objective_question_options")
+@Data
+@SQLDelete(sql = "UPDATE objective_question_options SET deleted_at = NOW() WHERE option_id = ?")
+@Where(clause = "deleted_at IS NULL")
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+public class ObjectiveQuestionOption {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "option_id")
+    private Integer optionId;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "standard_question_id", nullable = false)
+    @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+    private StandardQuestion standardQuestion;
+    
+    @Column(name = "option_text", nullable = false)
+    private String optionText;
+    
+    @Column(name = "option_code", nullable = false)
+    private String optionCode;
+    
+    @Column(name = "is_correct")
+    private Boolean isCorrect;
+    
+    @Column(name = "explanation")
+    private String explanation;
+    
+    @Column(name = "option_order", nullable = false)
+    private Integer optionOrder;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+    
+    @Column(name = "version")
+    private Integer version;
+}
@@ -1,8 +1,10 @@
 package com.llm.eval.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.llm.eval.util.ContentFingerprint;
 import lombok.Data;
 import jakarta.persistence.*;
 import org.hibernate.annotations.SQLDelete;
@@ -36,6 +38,11 @@ public class RawQuestion {
     @Column(name = "question_body", nullable = false)
     private String questionBody;
     
+    // 按 question_body 计算的内容指纹，写入时自动维护
+    @Column(name = "content_fingerprint", length = ContentFingerprint.LENGTH)
+    @JsonIgnore
+    private String contentFingerprint;
+    
     @Column(name = "source")
     private String source;
     
@@ -77,11 +84,13 @@ public class RawQuestion {
         if (crawledAt == null) {
             crawledAt = now;
         }
+        contentFingerprint = ContentFingerprint.of(questionBody);
     }
     
     @PreUpdate
     public void preUpdate() {
         updatedAt = LocalDateTime.now();
+        contentFingerprint = ContentFingerprint.of(questionBody);
     }
     
     @Override
@@ -10,6 +10,7 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.llm.eval.util.ContentFingerprint;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -33,6 +34,11 @@ public class StandardQuestion {
     @Column(name = "question", nullable = false)
     private String question;
     
+    // 问题文本的内容指纹，写入时自动维护
+    @Column(name = "content_fingerprint", length = ContentFingerprint.LENGTH)
+    @JsonIgnore
+    private String contentFingerprint;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
     @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
@@ -117,6 +123,12 @@ public class StandardQuestion {
         draft, pending_review, approved, rejected
     }
     
+    @PrePersist
+    @PreUpdate
+    public void updateContentFingerprint() {
+        contentFingerprint = ContentFingerprint.of(question);
+    }
+    
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -1,11 +1,15 @@
 package com.llm.eval.repository;
 
+import com.llm.eval.dto.EvaluationListItemDTO;
 import com.llm.eval.model.Evaluation;
 import com.llm.eval.model.EvaluationBatch;
 import com.llm.eval.model.LlmAnswer;
 import com.llm.eval.model.StandardAnswer;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
@@ -28,4 +32,106 @@ public interface EvaluationRepository extends JpaRepository<Evaluation, Integer>
     
     @Query("SELECT COUNT(e) FROM Evaluation e WHERE e.batch = ?1 AND e.score >= ?2")
     Long countByBatchAndScoreGreaterThanEqual(EvaluationBatch batch, BigDecimal threshold);
-} 
\ No newline at end of file
+    
+    /**
+     * 分页查询评测结果列表（筛选条件全部下推到数据库，一次关联取出模型、问题、数据集和分类）
+     * 
+     * @param modelId 模型ID（可选）
+     * @param datasetId 数据集版本ID（可选）
+     * @param method 评测方法（可选）
+     * @param categoryId 分类ID（可选）
+     * @param minScore 最低分（可选，包含）
+     * @param maxScore 最高分（可选，包含）
+     * @param pageable 分页参数
+     * @return 评测结果列表项分页
+     */
+    @Query(value = "SELECT new com.llm.eval.dto.EvaluationListItemDTO(" +
+           "e.evaluationId, e.score, e.method, e.comments, e.createdAt, " +
+           "m.modelId, m.name, m.version, " +
+           "q.standardQuestionId, q.question, " +
+           "d.versionId, d.name, " +
+           "c.categoryId, c.name) " +
+           "FROM Evaluation e " +
+           "JOIN e.llmAnswer a " +
+           "LEFT JOIN a.model m " +
+           "LEFT JOIN a.standardQuestion q " +
+           "LEFT JOIN q.category c " +
+           "LEFT JOIN a.datasetVersion d " +
+           "WHERE (:modelId IS NULL OR m.modelId = :modelId) " +
+           "AND (:datasetId IS NULL OR d.versionId = :datasetId) " +
+           "AND (:method IS NULL OR e.method = :method) " +
+           "AND (:categoryId IS NULL OR c.categoryId = :categoryId) " +
+           "AND (:minScore IS NULL OR e.score >= :minScore) " +
+           "AND (:maxScore IS NULL OR e.score <= :maxScore)",
+           countQuery = "SELECT COUNT(e) FROM Evaluation e " +
+           "JOIN e.llmAnswer a " +
+           "LEFT JOIN a.model m " +
+           "LEFT JOIN a.standardQuestion q " +
+           "LEFT JOIN q.category c " +
+           "LEFT JOIN a.datasetVersion d " +
+           "WHERE (:modelId IS NULL OR m.modelId = :modelId) " +
+           "AND (:datasetId IS NULL OR d.versionId = :datasetId) " +
+           "AND (:method IS NULL OR e.method = :method) " +
+           "AND (:categoryId IS NULL OR c.categoryId = :categoryId) " +
+           "AND (:minScore IS NULL OR e.score >= :minScore) " +
+           "AND (:maxScore IS NULL OR e.score <= :maxScore)")
+    Page<EvaluationListItemDTO> findListItemsByFilters(
+            @Param("modelId") Integer modelId,
+            @Param("datasetId") Integer datasetId,
+            @Param("method") String method,
+            @Param("categoryId") Integer categoryId,
+            @Param("minScore") BigDecimal minScore,
+            @Param("maxScore") BigDecimal maxScore,
+            Pageable pageable);
+    
+    /**
+     * 按模型分组统计评分（数量、平均、最小、最大、总体标准差），按平均分降序
+     * 
+     * @param datasetId 数据集版本ID（可选）
+     * @param batchId 评测批次ID（可选）
+     * @param categoryId 问题分类ID（可选）
+     * @return [模型ID, 模型名称, 模型版本, 评测数, 平均分, 最低分, 最高分, 标准差] 列表
+     */
+    @Query(value = "SELECT a.model_id, m.name, m.version, COUNT(e.evaluation_id), " +
+           "AVG(e.score), MIN(e.score), MAX(e.score), STDDEV_POP(e.score) " +
+           "FROM evaluations e " +
+           "JOIN llm_answers a ON a.llm_answer_id = e.llm_answer_id " +
+           "JOIN llm_models m ON m.model_id = a.model_id " +
+           "WHERE a.deleted_at IS NULL " +
+           "AND (:datasetId IS NULL OR a.version_id = :datasetId) " +
+           "AND (:batchId IS NULL OR e.batch_id = :batchId) " +
+           "AND (:categoryId IS NULL OR a.standard_question_id IN " +
+           "(SELECT q.standard_question_id FROM standard_questions q WHERE q.category_id = :categoryId)) " +
+           "GROUP BY a.model_id, m.name, m.version " +
+           "ORDER BY AVG(e.score) DESC",
+           nativeQuery = true)
+    List<Object[]> aggregateScoresByModel(
+            @Param("datasetId") Integer datasetId,
+            @Param("batchId") Integer batchId,
+            @Param("categoryId") Integer categoryId);
+    
+    /**
+     * 按模型和整数分数段分组统计评测数量（分数段下标为 FLOOR(score)，限制在 [0, maxBucket]）
+     * 
+     * @param datasetId 数据集版本ID（可选）
+     * @param batchId 评测批次ID（可选）
+     * @param categoryId 问题分类ID（可选）
+     * @param maxBucket 最大分数段下标
+     * @return [模型ID, 分数段下标, 评测数] 列表
+     */
+    @Query(value = "SELECT a.model_id, LEAST(GREATEST(FLOOR(e.score), 0), :maxBucket) AS bucket, COUNT(*) " +
+           "FROM evaluations e " +
+           "JOIN llm_answers a ON a.llm_answer_id = e.llm_answer_id " +
+           "WHERE a.deleted_at IS NULL AND e.score IS NOT NULL " +
+           "AND (:datasetId IS NULL OR a.version_id = :datasetId) " +
+           "AND (:batchId IS NULL OR e.batch_id = :batchId) " +
+           "AND (:categoryId IS NULL OR a.standard_question_id IN " +
+           "(SELECT q.standard_question_id FROM standard_questions q WHERE q.category_id = :categoryId)) " +
+           "GROUP BY a.model_id, bucket",
+           nativeQuery = true)
+    List<Object[]> countScoreBucketsByModel(
+            @Param("datasetId") Integer datasetId,
+            @Param("batchId") Integer batchId,
+            @Param("categoryId") Integer categoryId,
+            @Param("maxBucket") int maxBucket);
+}
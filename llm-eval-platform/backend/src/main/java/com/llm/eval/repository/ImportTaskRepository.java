@@ -4,8 +4,11 @@ import com.llm.eval.model.ImportTask;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface ImportTaskRepository extends JpaRepository<ImportTask, Integer> {
@@ -31,4 +34,20 @@ public interface ImportTaskRepository extends JpaRepository<ImportTask, Integer>
      * @return 导入任务
      */
     ImportTask findTopByTypeOrderByCreatedAtDesc(ImportTask.ImportType type);
-} 
\ No newline at end of file
+    
+    /**
+     * 取消等待中或进行中的任务，只更新状态，不覆盖执行节点写入的进度计数；
+     * 等待中的任务同时结束，进行中的任务由执行节点在数据块边界停止后补充结束时间和说明；
+     * MySQL 按书写顺序赋值，CASE 须写在 status 之前才能读到原状态
+     * @param importId 导入任务ID
+     * @return 更新的行数，任务已结束时为0
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE import_tasks SET " +
+           "end_time = CASE WHEN status = 'PENDING' THEN NOW() ELSE end_time END, " +
+           "details = CASE WHEN status = 'PENDING' THEN '任务已取消' ELSE details END, " +
+           "status = 'CANCELLED', updated_at = NOW() " +
+           "WHERE import_id = :importId AND status IN ('PENDING', 'IN_PROGRESS') AND deleted_at IS NULL", nativeQuery = true)
+    int cancelUnfinished(@Param("importId") Integer importId);
+}
@@ -0,0 +1,22 @@
+package com.llm.eval.repository;
+
+import com.llm.eval.model.JudgeTask;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface JudgeTaskRepository extends JpaRepository<JudgeTask, Integer> {
+    
+    /**
+     * 按状态统计批次内的裁判任务数量
+     * @param batchId 评测批次ID
+     * @return 每行为 [status, count]
+     */
+    @Query(value = "SELECT status, COUNT(*) FROM judge_tasks WHERE batch_id = :batchId GROUP BY status",
+           nativeQuery = true)
+    List<Object[]> countGroupByStatus(@Param("batchId") Integer batchId);
+}
@@ -1,11 +1,16 @@
 package com.llm.eval.repository;
 
+import com.llm.eval.dto.UnevaluatedAnswerDTO;
 import com.llm.eval.model.DatasetVersion;
 import com.llm.eval.model.EvaluationBatch;
 import com.llm.eval.model.LlmAnswer;
 import com.llm.eval.model.LlmModel;
 import com.llm.eval.model.StandardQuestion;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -30,4 +35,85 @@ public interface LlmAnswerRepository extends JpaRepository<LlmAnswer, Integer> {
     long countByDatasetVersion(DatasetVersion datasetVersion);
     
     List<LlmAnswer> findByStandardQuestionAndDatasetVersion(StandardQuestion standardQuestion, DatasetVersion datasetVersion);
-} 
\ No newline at end of file
+    
+    /**
+     * 分页查询尚无评测记录的模型回答（NOT EXISTS反连接，筛选条件全部在数据库端执行）
+     * 
+     * @param modelId 模型ID（可选）
+     * @param questionType 问题类型（可选）
+     * @param categoryId 分类ID（可选）
+     * @param pageable 分页参数
+     * @return 待评测回答分页
+     */
+    @Query(value = "SELECT new com.llm.eval.dto.UnevaluatedAnswerDTO(" +
+           "a.llmAnswerId, q.standardQuestionId, q.question, m.modelId, m.name, m.version) " +
+           "FROM LlmAnswer a JOIN a.model m JOIN a.standardQuestion q LEFT JOIN q.category c " +
+           "WHERE NOT EXISTS (SELECT 1 FROM Evaluation e WHERE e.llmAnswer = a) " +
+           "AND (:modelId IS NULL OR m.modelId = :modelId) " +
+           "AND (:questionType IS NULL OR q.questionType = :questionType) " +
+           "AND (:categoryId IS NULL OR c.categoryId = :categoryId)",
+           countQuery = "SELECT COUNT(a) FROM LlmAnswer a JOIN a.model m JOIN a.standardQuestion q " +
+           "LEFT JOIN q.category c " +
+           "WHERE NOT EXISTS (SELECT 1 FROM Evaluation e WHERE e.llmAnswer = a) " +
+           "AND (:modelId IS NULL OR m.modelId = :modelId) " +
+           "AND (:questionType IS NULL OR q.questionType = :questionType) " +
+           "AND (:categoryId IS NULL OR c.categoryId = :categoryId)")
+    Page<UnevaluatedAnswerDTO> findUnevaluatedAnswers(
+            @Param("modelId") Integer modelId,
+            @Param("questionType") StandardQuestion.QuestionType questionType,
+            @Param("categoryId") Integer categoryId,
+            Pageable pageable);
+    
+    /**
+     * 分页查询数据集中的问题及其回答数，关键词和回答状态筛选在SQL中完成
+     * 
+     * @param datasetId 数据集版本ID
+     * @param keyword 问题关键词（可选），% _ ! 须已用 ! 转义
+     * @param hasAnswer 是否已有模型回答（可选）
+     * @param pageable 分页参数
+     * @return [问题ID, 问题, 问题类型, 难度, 回答数] 分页
+     */
+    @Query(value = "SELECT q.standard_question_id, q.question, q.question_type, q.difficulty, " +
+           "COUNT(a.llm_answer_id) " +
+           "FROM dataset_question_mapping dqm " +
+           "JOIN standard_questions q ON q.standard_question_id = dqm.standard_question_id AND q.deleted_at IS NULL " +
+           "LEFT JOIN llm_answers a ON a.standard_question_id = q.standard_question_id " +
+           "AND a.version_id = dqm.version_id AND a.deleted_at IS NULL " +
+           "WHERE dqm.version_id = :datasetId " +
+           "AND (:keyword IS NULL OR q.question LIKE CONCAT('%', :keyword, '%') ESCAPE '!') " +
+           "AND (:hasAnswer IS NULL OR :hasAnswer = EXISTS (SELECT 1 FROM llm_answers x " +
+           "WHERE x.standard_question_id = q.standard_question_id AND x.version_id = dqm.version_id " +
+           "AND x.deleted_at IS NULL)) " +
+           "GROUP BY q.standard_question_id, q.question, q.question_type, q.difficulty " +
+           "ORDER BY q.standard_question_id",
+           countQuery = "SELECT COUNT(*) FROM dataset_question_mapping dqm " +
+           "JOIN standard_questions q ON q.standard_question_id = dqm.standard_question_id AND q.deleted_at IS NULL " +
+           "WHERE dqm.version_id = :datasetId " +
+           "AND (:keyword IS NULL OR q.question LIKE CONCAT('%', :keyword, '%') ESCAPE '!') " +
+           "AND (:hasAnswer IS NULL OR :hasAnswer = EXISTS (SELECT 1 FROM llm_answers x " +
+           "WHERE x.standard_question_id = q.standard_question_id AND x.version_id = dqm.version_id " +
+           "AND x.deleted_at IS NULL))",
+           nativeQuery = true)
+    Page<Object[]> findQuestionAnswerSummariesInDataset(
+            @Param("datasetId") Integer datasetId,
+            @Param("keyword") String keyword,
+            @Param("hasAnswer") Boolean hasAnswer,
+            Pageable pageable);
+
+    /**
+     * 查询数据集中一页问题各自回答过的模型（不用 GROUP_CONCAT，避免超过 group_concat_max_len 被截断）
+     *
+     * @param datasetId 数据集版本ID
+     * @param questionIds 问题ID列表
+     * @return [问题ID, 模型名称] 列表，按问题ID和模型名称排序
+     */
+    @Query(value = "SELECT DISTINCT a.standard_question_id, CONCAT(m.name, ' ', COALESCE(m.version, '')) " +
+           "FROM llm_answers a " +
+           "JOIN llm_models m ON m.model_id = a.model_id AND m.deleted_at IS NULL " +
+           "WHERE a.version_id = :datasetId AND a.standard_question_id IN (:questionIds) AND a.deleted_at IS NULL " +
+           "ORDER BY 1, 2",
+           nativeQuery = true)
+    List<Object[]> findAnsweringModelsInDataset(
+            @Param("datasetId") Integer datasetId,
+            @Param("questionIds") List<Integer> questionIds);
+}
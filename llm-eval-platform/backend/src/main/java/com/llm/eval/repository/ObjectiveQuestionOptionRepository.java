@@ -0,0 +1,13 @@
+package com.llm.eval.repository;
+
+import com.llm.eval.model.ObjectiveQuestionOption;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ObjectiveQuestionOptionRepository extends JpaRepository<ObjectiveQuestionOption, Integer> {
+    
+    List<ObjectiveQuestionOption> findByStandardQuestionStandardQuestionIdOrderByOptionOrder(Integer standardQuestionId);
+}
@@ -28,6 +28,14 @@ public interface RawQuestionRepository extends JpaRepository<RawQuestion, Intege
      */
     Optional<RawQuestion> findBySourceQuestionId(Integer sourceQuestionId);
     
+    /**
+     * 根据内容指纹和来源查询原始问题（走指纹索引），同一内容可以来自不同来源
+     * @param contentFingerprint 问题内容指纹
+     * @param source 来源，为 null 时匹配未填写来源的问题
+     * @return 同一来源下内容相同的原始问题
+     */
+    List<RawQuestion> findByContentFingerprintAndSource(String contentFingerprint, String source);
+    
     /**
      * 查询所有不同的来源
      * @return 来源列表
@@ -9,7 +9,11 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
@@ -42,4 +46,74 @@ public interface StandardAnswerRepository extends JpaRepository<StandardAnswer,
     
     // 通过标准问题对象查找标准答案
     Optional<StandardAnswer> findByStandardQuestionAndIsFinalTrue(StandardQuestion standardQuestion);
-} 
\ No newline at end of file
+    
+    /**
+     * 一次性查询某评测批次涉及的所有问题的最终标准答案（同时取出关键点）
+     * 
+     * @param batchId 评测批次ID
+     * @return 标准答案列表
+     */
+    @Query("SELECT DISTINCT sa FROM StandardAnswer sa LEFT JOIN FETCH sa.keyPoints " +
+           "WHERE sa.isFinal = true AND sa.standardQuestion.standardQuestionId IN " +
+           "(SELECT a.standardQuestion.standardQuestionId FROM LlmAnswer a " +
+           "WHERE a.batch.batchId = :batchId AND a.isFinal = true)")
+    List<StandardAnswer> findFinalAnswersByBatchId(@Param("batchId") Integer batchId);
+    
+    /**
+     * 查询某问题最近更新的最终标准答案（走 standard_question_id, is_final, updated_at 复合索引）
+     * 
+     * @param standardQuestionId 标准问题ID
+     * @return 最终标准答案
+     */
+    Optional<StandardAnswer> findFirstByStandardQuestionStandardQuestionIdAndIsFinalTrueOrderByUpdatedAtDescStandardAnswerIdDesc(
+            Integer standardQuestionId);
+    
+    /**
+     * 查询某问题最近更新的标准答案（不区分是否最终版）
+     * 
+     * @param standardQuestionId 标准问题ID
+     * @return 标准答案
+     */
+    Optional<StandardAnswer> findFirstByStandardQuestionStandardQuestionIdOrderByUpdatedAtDescStandardAnswerIdDesc(
+            Integer standardQuestionId);
+    
+    /**
+     * 批量查询一组问题的最终标准答案（同时取出关键点）
+     * 
+     * @param questionIds 标准问题ID集合
+     * @return 标准答案列表
+     */
+    @Query("SELECT DISTINCT sa FROM StandardAnswer sa LEFT JOIN FETCH sa.keyPoints " +
+           "WHERE sa.isFinal = true AND sa.standardQuestion.standardQuestionId IN :questionIds")
+    List<StandardAnswer> findFinalAnswersByQuestionIds(@Param("questionIds") Collection<Integer> questionIds);
+    
+    /**
+     * 批量查询一组问题的最终标准答案，按问题ID索引；同一问题有多个最终答案时取最近更新的。
+     * 问题ID较多时按固定大小分段查询，避免 IN 列表过长。
+     * 
+     * @param questionIds 标准问题ID集合
+     * @return 问题ID -> 最终标准答案
+     */
+    default Map<Integer, StandardAnswer> findFinalAnswerMapByQuestionIds(Collection<Integer> questionIds) {
+        Map<Integer, StandardAnswer> result = new HashMap<>();
+        if (questionIds == null || questionIds.isEmpty()) {
+            return result;
+        }
+        List<Integer> ids = new ArrayList<>(questionIds);
+        int chunkSize = 1000;
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            for (StandardAnswer sa : findFinalAnswersByQuestionIds(chunk)) {
+                Integer questionId = sa.getStandardQuestionId();
+                if (questionId == null) {
+                    continue;
+                }
+                result.merge(questionId, sa, (current, candidate) ->
+                        candidate.getUpdatedAt() != null
+                                && (current.getUpdatedAt() == null || candidate.getUpdatedAt().isAfter(current.getUpdatedAt()))
+                                ? candidate : current);
+            }
+        }
+        return result;
+    }
+}
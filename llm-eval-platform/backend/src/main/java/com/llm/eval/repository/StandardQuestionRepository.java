@@ -39,21 +39,71 @@ public interface StandardQuestionRepository extends JpaRepository<StandardQuesti
            "(SELECT sa.standardQuestion.standardQuestionId FROM StandardAnswer sa)")
     long countWithoutStandardAnswers();
     
+    /**
+     * 一次分组统计各分类的问题数量（含问题数为0的分类），最后一行为未分类问题数量（分类名为 NULL）
+     * 
+     * @return [分类名, 问题数量] 列表
+     */
+    @Query(value = "SELECT c.name, COUNT(sq.standard_question_id) FROM question_categories c " +
+           "LEFT JOIN standard_questions sq ON sq.category_id = c.category_id AND sq.deleted_at IS NULL " +
+           "GROUP BY c.category_id, c.name " +
+           "UNION ALL " +
+           "SELECT NULL, COUNT(*) FROM standard_questions sq " +
+           "WHERE sq.category_id IS NULL AND sq.deleted_at IS NULL",
+           nativeQuery = true)
+    List<Object[]> countGroupByCategory();
+    
+    /**
+     * 一次分组统计各标签的问题数量（含问题数为0的标签），最后一行为无标签问题数量（标签名为 NULL）
+     * 
+     * @return [标签名, 问题数量] 列表
+     */
+    @Query(value = "SELECT t.tag_name, COUNT(sq.standard_question_id) FROM tags t " +
+           "LEFT JOIN standard_question_tags sqt ON sqt.tag_id = t.tag_id " +
+           "LEFT JOIN standard_questions sq ON sq.standard_question_id = sqt.standard_question_id AND sq.deleted_at IS NULL " +
+           "GROUP BY t.tag_id, t.tag_name " +
+           "UNION ALL " +
+           "SELECT NULL, COUNT(*) FROM standard_questions sq WHERE sq.deleted_at IS NULL AND NOT EXISTS " +
+           "(SELECT 1 FROM standard_question_tags sqt WHERE sqt.standard_question_id = sq.standard_question_id)",
+           nativeQuery = true)
+    List<Object[]> countGroupByTag();
+    
+    /**
+     * 一条语句取回统计摘要所需的全部计数
+     * 
+     * @return 单行：[原始问题数, 原始回答数, 标准问题数, 标准答案数, 最终标准答案数, 无标准答案问题数,
+     *         数据集版本数, 已发布数据集版本数]
+     */
+    @Query(value = "SELECT " +
+           "(SELECT COUNT(*) FROM raw_questions WHERE deleted_at IS NULL), " +
+           "(SELECT COUNT(*) FROM raw_answers WHERE deleted_at IS NULL), " +
+           "(SELECT COUNT(*) FROM standard_questions WHERE deleted_at IS NULL), " +
+           "(SELECT COUNT(*) FROM standard_answers WHERE deleted_at IS NULL), " +
+           "(SELECT COUNT(*) FROM standard_answers WHERE deleted_at IS NULL AND is_final = TRUE), " +
+           "(SELECT COUNT(*) FROM standard_questions sq WHERE sq.deleted_at IS NULL AND NOT EXISTS " +
+           "(SELECT 1 FROM standard_answers sa WHERE sa.standard_question_id = sq.standard_question_id " +
+           "AND sa.deleted_at IS NULL)), " +
+           "(SELECT COUNT(*) FROM dataset_versions), " +
+           "(SELECT COUNT(*) FROM dataset_versions WHERE is_published = TRUE)",
+           nativeQuery = true)
+    List<Object[]> summarizeCounts();
+    
     List<StandardQuestion> findByCategoryCategoryId(Integer categoryId);
     
     @Query("SELECT sq FROM StandardQuestion sq JOIN sq.tags t WHERE t.tagName = :tagName")
     List<StandardQuestion> findByTagName(String tagName);
     
     /**
-     * 根据问题文本和源问题ID查询标准问题
-     * @param question 问题文本
-     * @param sourceQuestionId 源问题ID
-     * @return 标准问题
+     * 根据内容指纹和源问题ID查询标准问题（走指纹索引），按ID升序
+     * @param contentFingerprint 问题内容指纹
+     * @param sourceQuestionId 源问题ID，为null时只匹配没有源问题的标准问题
+     * @return 内容相同的标准问题列表
      */
-    @Query("SELECT sq FROM StandardQuestion sq WHERE sq.question = :question AND " +
+    @Query("SELECT sq FROM StandardQuestion sq WHERE sq.contentFingerprint = :contentFingerprint AND " +
            "((:sourceQuestionId IS NULL AND sq.sourceQuestion IS NULL) OR " +
-           "(sq.sourceQuestion.questionId = :sourceQuestionId))")
-    Optional<StandardQuestion> findByQuestionAndSourceQuestionId(String question, Integer sourceQuestionId);
+           "(sq.sourceQuestion.questionId = :sourceQuestionId)) ORDER BY sq.standardQuestionId")
+    List<StandardQuestion> findByContentFingerprintAndSourceQuestionId(String contentFingerprint,
+                                                                     Integer sourceQuestionId);
     
     /**
      * 分页查询没有标准答案的问题，支持按分类、类型、难度过滤
@@ -0,0 +1,66 @@
+package com.llm.eval.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+/**
+ * 批量评测运行服务
+ * 批次切分为数据库中的工作单元，由各节点的工作线程以租约方式领取执行，进度汇总写入批次的metricsSummary
+ */
+public interface BatchEvaluationService {
+    
+    /**
+     * 启动批次评测：把批次的回答切分为工作单元并将批次标记为进行中，方法立即返回
+     * 
+     * @param batchId 评测批次ID
+     * @throws IllegalArgumentException 批次不存在或评测方法不支持自动运行
+     * @throws IllegalStateException 批次仍有未完成的工作单元
+     */
+    void startBatchEvaluation(Integer batchId);
+    
+    /**
+     * 从检查点恢复中断或失败的批次：保留已完成的工作单元，失败的单元重新排队；
+     * 没有工作单元的批次重新切分，已评测的回答不会重复评测
+     * 
+     * @param batchId 评测批次ID
+     * @return 重新排队的工作单元数
+     * @throws IllegalArgumentException 批次不存在或评测方法不支持自动运行
+     * @throws IllegalStateException 批次尚未运行、已完成或仍有未完成的工作单元
+     */
+    int resumeBatchEvaluation(Integer batchId);
+    
+    /**
+     * 判断批次是否仍有待处理或已被领取的工作单元（任一节点）
+     * 
+     * @param batchId 评测批次ID
+     * @return 是否正在运行
+     */
+    boolean isBatchRunning(Integer batchId);
+    
+    /**
+     * 获取批次的实时进度快照：全局计数、吞吐量、预计剩余时间和本节点的滚动评分统计
+     * 
+     * @param batchId 评测批次ID
+     * @return 进度快照
+     */
+    Map<String, Object> getBatchProgress(Integer batchId);
+    
+    /**
+     * 以 Server-Sent Events 订阅批次进度，批次结束后推送最终快照并关闭连接
+     * 
+     * @param batchId 评测批次ID
+     * @return 推送连接
+     * @throws IllegalArgumentException 批次不存在
+     * @throws IllegalStateException 本节点的订阅连接数已达上限
+     */
+    SseEmitter subscribeBatchProgress(Integer batchId);
+    
+    /**
+     * 按状态统计裁判模型批次的任务数量
+     * 
+     * @param batchId 评测批次ID
+     * @return 状态到任务数量的映射（pending/in_progress/completed/failed）
+     */
+    Map<String, Long> getJudgeTaskCounts(Integer batchId);
+}
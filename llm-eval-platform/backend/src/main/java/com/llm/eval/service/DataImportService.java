@@ -1,6 +1,7 @@
 package com.llm.eval.service;
 
 import com.llm.eval.dto.DataImportResultDTO;
+import com.llm.eval.dto.DataValidationResultDTO;
 import com.llm.eval.dto.ImportTaskDTO;
 import com.llm.eval.dto.RawQuestionImportDTO;
 import com.llm.eval.dto.StandardQAImportDTO;
@@ -36,6 +37,16 @@ public interface DataImportService {
      */
     DataImportResultDTO importStandardQA(MultipartFile file) throws IOException;
 
+    /**
+     * 导入标准问答数据，并检查与已有标准问题的近似重复
+     * @param file JSON文件
+     * @param nearDuplicate 近似重复处理方式：none、flag（标记后仍导入）或skip（跳过）
+     * @param similarityThreshold 相似度阈值（0-1），为空时使用默认阈值
+     * @return 导入结果
+     */
+    DataImportResultDTO importStandardQA(MultipartFile file, String nearDuplicate, Double similarityThreshold)
+            throws IOException;
+
     /**
      * 导入单个原始问题
      * @param questionDTO 原始问题DTO
@@ -64,6 +75,14 @@ public interface DataImportService {
      */
     DataImportResultDTO importStandardQAs(List<StandardQAImportDTO> qaDTOs);
     
+    /**
+     * 提交后台导入任务：文件落盘后立即返回，由导入线程池异步执行
+     * @param file JSON文件
+     * @param type 导入类型（RAW_QA或STANDARD_QA）
+     * @return 新建的导入任务DTO
+     */
+    ImportTaskDTO submitImportTask(MultipartFile file, String type) throws IOException;
+    
     /**
      * 获取导入任务历史记录
      * @param type 导入类型
@@ -87,25 +106,25 @@ public interface DataImportService {
     ImportTaskDTO cancelImportTask(Integer importId);
     
     /**
-     * 重试失败的导入任务
+     * 重试失败或已取消的导入任务，从上次提交的偏移量继续
      * @param importId 导入任务ID
-     * @return 新的导入任务DTO
+     * @return 更新后的导入任务DTO
      */
     ImportTaskDTO retryImportTask(Integer importId);
     
     /**
-     * 验证原始问答数据格式
+     * 流式验证原始问答数据格式，错误数超过上限时提前结束
      * @param file JSON文件
-     * @return 验证结果
+     * @return 验证结果（前若干条错误明细及汇总计数）
      */
-    DataImportResultDTO validateRawQA(MultipartFile file) throws IOException;
+    DataValidationResultDTO validateRawQA(MultipartFile file) throws IOException;
     
     /**
-     * 验证标准问答数据格式
+     * 流式验证标准问答数据格式，错误数超过上限时提前结束
      * @param file JSON文件
-     * @return 验证结果
+     * @return 验证结果（前若干条错误明细及汇总计数）
      */
-    DataImportResultDTO validateStandardQA(MultipartFile file) throws IOException;
+    DataValidationResultDTO validateStandardQA(MultipartFile file) throws IOException;
 
     /**
      * 仅导入单个原始问题（不包含回答）
@@ -1,18 +1,45 @@
 package com.llm.eval.service;
 
 import com.llm.eval.dto.EvaluationDTO;
+import com.llm.eval.dto.EvaluationListItemDTO;
+import com.llm.eval.dto.ModelComparisonDTO;
+import com.llm.eval.dto.ModelRatingDTO;
+import com.llm.eval.dto.ModelScoreStatisticsDTO;
+import com.llm.eval.dto.UnevaluatedAnswerDTO;
+import com.llm.eval.model.Evaluation;
+import com.llm.eval.model.EvaluationBatch;
 import com.llm.eval.model.LlmAnswer;
 import com.llm.eval.model.StandardAnswer;
 import com.llm.eval.model.AnswerKeyPoint;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface EvaluationService {
     
     List<EvaluationDTO> getAllEvaluations();
     
+    /**
+     * 分页筛选评测结果列表（在数据库端完成筛选和分页）
+     * 
+     * @param modelId 模型ID（可选）
+     * @param datasetId 数据集版本ID（可选）
+     * @param method 评测方法（可选）
+     * @param categoryId 分类ID（可选）
+     * @param minScore 最低分（可选）
+     * @param maxScore 最高分（可选）
+     * @param pageable 分页参数
+     * @return 评测结果列表项分页
+     */
+    Page<EvaluationListItemDTO> findEvaluations(Integer modelId, Integer datasetId, String method,
+                                               Integer categoryId, BigDecimal minScore, BigDecimal maxScore,
+                                               Pageable pageable);
+    
     Optional<EvaluationDTO> getEvaluationById(Integer evaluationId);
     
     List<EvaluationDTO> getEvaluationsByAnswerId(Integer answerId);
@@ -32,14 +59,70 @@ public interface EvaluationService {
     List<EvaluationDTO> evaluateBatch(Integer batchId);
     
     /**
-     * 获取未评测的模型回答列表
+     * 按批次的评测方法对单个回答评分，生成未持久化的评测结果；
+     * 裁判模型批次不支持同步评分，其回答由批次运行时的裁判任务队列异步评测
+     * 
+     * @param answer 模型回答
+     * @param standardAnswer 标准答案
+     * @param batch 评测批次
+     * @return 评测结果（未保存）
+     */
+    Evaluation buildEvaluation(LlmAnswer answer, StandardAnswer standardAnswer, EvaluationBatch batch);
+    
+    /**
+     * 按关键点匹配对单个回答自动评分
+     * 
+     * @param answer 模型回答
+     * @param standardAnswer 标准答案
+     * @return 包含评分与关键点评估JSON的评测结果（未保存）
+     */
+    EvaluationDTO autoEvaluate(LlmAnswer answer, StandardAnswer standardAnswer);
+    
+    /**
+     * 获取评测缓存的命中统计
+     * 
+     * @return 内存条目数、内存/数据库命中数、未命中数、命中率、淘汰数等
+     */
+    Map<String, Object> getEvaluationCacheStats();
+    
+    /**
+     * 获取模型排行榜：由同一问题下的评分胜负和显式比较拟合 Bradley-Terry/Elo 评级
+     * 
+     * @param forceRebuild 是否重新扫描全部评测
+     * @param bootstrapRounds bootstrap 轮数，0 表示不计算置信区间
+     * @return 按 Elo 分降序排列的模型评级
+     */
+    List<ModelRatingDTO> getModelLeaderboard(boolean forceRebuild, int bootstrapRounds);
+    
+    /**
+     * 记录两个模型回答的显式比较
+     * 
+     * @param comparison 比较的回答和胜出方
+     * @return 新比较的ID
+     */
+    Integer recordModelComparison(ModelComparisonDTO comparison);
+    
+    /**
+     * 按模型统计评分分布（在数据库端分组聚合）
+     * 
+     * @param datasetId 数据集版本ID（可选）
+     * @param batchId 评测批次ID（可选）
+     * @param categoryId 问题分类ID（可选）
+     * @return 各模型的评分统计，按平均分降序
+     */
+    List<ModelScoreStatisticsDTO> getModelScoreStatistics(Integer datasetId, Integer batchId, Integer categoryId);
+    
+    /**
+     * 分页获取未评测的模型回答列表
      * 
      * @param modelId 模型ID（可选）
      * @param questionType 问题类型（可选）
      * @param categoryId 分类ID（可选）
-     * @return 未评测的模型回答列表
+     * @param pageable 分页参数
+     * @return 未评测的模型回答分页
      */
-    List<LlmAnswer> getUnevaluatedAnswers(Integer modelId, String questionType, Integer categoryId);
+    Page<UnevaluatedAnswerDTO> getUnevaluatedAnswers(Integer modelId, String questionType, Integer categoryId,
+                                                   Pageable pageable);
     
     /**
      * 根据ID获取模型回答
@@ -1,5 +1,6 @@
 package com.llm.eval.service;
 
+import com.llm.eval.dto.AnswerGenerationRequest;
 import com.llm.eval.dto.LlmAnswerDTO;
 
 import java.util.List;
@@ -26,6 +27,28 @@ public interface LlmAnswerService {
     
     List<LlmAnswerDTO> generateAnswersForBatch(Integer batchId);
     
+    /**
+     * 在后台启动批次回答生成，为批次数据集版本中尚无回答的问题调用批次模型生成回答
+     * @param batchId 批次ID
+     * @param request 提示词模板、参数及是否流式读取（可为空）
+     * @return 初始生成进度
+     */
+    Map<String, Object> startAnswerGeneration(Integer batchId, AnswerGenerationRequest request);
+    
+    /**
+     * 取消正在进行的批次回答生成
+     * @param batchId 批次ID
+     * @return 是否有正在运行的生成任务
+     */
+    boolean cancelAnswerGeneration(Integer batchId);
+    
+    /**
+     * 获取批次最近一次回答生成的进度
+     * @param batchId 批次ID
+     * @return 生成进度，未生成过时为空
+     */
+    Optional<Map<String, Object>> getAnswerGenerationProgress(Integer batchId);
+    
     /**
      * 获取所有包含模型回答的数据集列表
      * @return 数据集列表，包含数据集ID、名称、版本、问题数量、模型回答数量等信息
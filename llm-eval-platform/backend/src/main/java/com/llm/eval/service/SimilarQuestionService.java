@@ -0,0 +1,40 @@
+package com.llm.eval.service;
+
+import com.llm.eval.dto.SimilarQuestionDTO;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 相似问题查询服务接口
+ */
+public interface SimilarQuestionService {
+
+    /**
+     * 查找与给定文本相似的问题
+     * @param type 查找范围：raw（原始问题）或standard（标准问题）
+     * @param text 问题文本
+     * @param threshold 相似度阈值（0-1），为空时使用默认阈值
+     * @param limit 最多返回条数，为空时默认10
+     * @return 索引状态和按相似度排列的结果
+     */
+    Map<String, Object> findSimilarByText(String type, String text, Double threshold, Integer limit);
+
+    /**
+     * 查找与已有问题相似的其他问题
+     * @param type 查找范围：raw（原始问题）或standard（标准问题）
+     * @param questionId 问题ID
+     * @param threshold 相似度阈值（0-1），为空时使用默认阈值
+     * @param limit 最多返回条数，为空时默认10
+     * @return 索引状态和按相似度排列的结果
+     */
+    Map<String, Object> findSimilarToQuestion(String type, Integer questionId, Double threshold, Integer limit);
+
+    /**
+     * 按默认阈值查找与给定文本近似（不含完全相同）的标准问题
+     * @param text 问题文本
+     * @param limit 最多返回条数
+     * @return 相似的标准问题
+     */
+    List<SimilarQuestionDTO> findNearDuplicateStandardQuestions(String text, int limit);
+}
@@ -85,6 +85,14 @@ public interface StandardQuestionService {
      */
     StandardQuestion createStandardQuestion(StandardQuestion standardQuestion);
     
+    /**
+     * Find an existing question with the same content fingerprint and source question
+     * 
+     * @param standardQuestion The question to check (question text and source question are used)
+     * @return The existing question with the lowest ID, or null if none
+     */
+    StandardQuestion findDuplicate(StandardQuestion standardQuestion);
+    
     /**
      * Update a standard question
      * 
@@ -7,16 +7,18 @@ public interface StatisticsService {
     /**
      * Get the count of raw questions and answers
      * 
+     * @param forceRefresh Whether to bypass the statistics snapshot and recount
      * @return Map containing the counts
      */
-    Map<String, Long> getRawQuestionAndAnswerCounts();
+    Map<String, Long> getRawQuestionAndAnswerCounts(boolean forceRefresh);
     
     /**
      * Get the count of standard questions and answers
      * 
+     * @param forceRefresh Whether to bypass the statistics snapshot and recount
      * @return Map containing the counts
      */
-    Map<String, Long> getStandardQuestionAndAnswerCounts();
+    Map<String, Long> getStandardQuestionAndAnswerCounts(boolean forceRefresh);
     
     /**
      * Get the count of standard questions by category
@@ -35,14 +37,24 @@ public interface StatisticsService {
     /**
      * Get the count of standard questions without a standard answer
      * 
+     * @param forceRefresh Whether to bypass the statistics snapshot and recount
      * @return The count of questions without a standard answer
      */
-    long getQuestionsWithoutStandardAnswerCount();
+    long getQuestionsWithoutStandardAnswerCount(boolean forceRefresh);
     
     /**
      * Get the count of dataset versions
      * 
-     * @return The count of dataset versions
+     * @param forceRefresh Whether to bypass the statistics snapshot and recount
+     * @return Map containing the total and published version counts
      */
-    long getDatasetVersionCount();
-} 
\ No newline at end of file
+    Map<String, Long> getDatasetVersionCounts(boolean forceRefresh);
+    
+    /**
+     * Get all dashboard summary counts from the statistics snapshot
+     * 
+     * @param forceRefresh Whether to bypass the statistics snapshot and recount
+     * @return Map containing rawCounts, standardCounts, questionsWithoutStandardAnswer and datasetVersionCount
+     */
+    Map<String, Object> getStatisticsSummary(boolean forceRefresh);
+}
@@ -0,0 +1,616 @@
+package com.llm.eval.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.llm.eval.dto.AnswerGenerationRequest;
+import com.llm.eval.model.EvaluationBatch;
+import com.llm.eval.repository.EvaluationBatchRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 批次回答生成执行器
+ *
+ * 按问题ID分页读取批次数据集版本中尚未生成回答的问题，渲染提示词后通过 {@link ModelApiClient}
+ * 异步调用被测模型。调度线程只负责读取问题和收集结果，同时在途的请求数受 answer-generation.max-in-flight 限制；
+ * 生成的回答按批插入 llm_answers。已有回答的问题会被跳过，因此取消或失败后重新启动即可继续生成。
+ *
+ * 多节点部署时，节点先以条件 UPDATE 认领 evaluation_batches 上的生成租约，生成期间定期续租，结束后释放；
+ * llm_answers 上未删除最终回答的 (批次, 问题) 唯一约束兜底，租约被接管后迟到的回写不会产生重复回答。
+ */
+@Component
+@Slf4j
+public class AnswerGenerationRunner {
+
+    private static final String PENDING_QUESTIONS_CONDITION =
+            "FROM dataset_question_mapping dqm " +
+            "JOIN standard_questions sq ON sq.standard_question_id = dqm.standard_question_id " +
+            "WHERE dqm.version_id = ? AND sq.deleted_at IS NULL " +
+            "AND NOT EXISTS (SELECT 1 FROM llm_answers la WHERE la.batch_id = ? " +
+            "AND la.standard_question_id = sq.standard_question_id AND la.deleted_at IS NULL) ";
+
+    private static final String COUNT_PENDING_SQL =
+            "SELECT COUNT(*) " + PENDING_QUESTIONS_CONDITION;
+
+    private static final String SELECT_PENDING_SQL =
+            "SELECT sq.standard_question_id, sq.question, sq.question_type " + PENDING_QUESTIONS_CONDITION +
+            "AND sq.standard_question_id > ? ORDER BY sq.standard_question_id LIMIT ?";
+
+    private static final String INSERT_ANSWER_SQL =
+            "INSERT INTO llm_answers (model_id, standard_question_id, version_id, content, latency, tokens_used, " +
+            "prompt_template, prompt_params, temperature, top_p, batch_id, retry_count, is_final) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, TRUE) " +
+            // 唯一键为未删除最终回答的 (批次, 问题)：其他节点已写入时保留先写入的回答
+            "ON DUPLICATE KEY UPDATE llm_answer_id = llm_answer_id";
+
+    // 未被认领、本节点遗留或租约已过期的批次才能认领
+    private static final String CLAIM_SQL =
+            "UPDATE evaluation_batches SET generation_owner = ?, generation_lease_expires_at = NOW() + INTERVAL ? SECOND " +
+            "WHERE batch_id = ? AND (generation_owner IS NULL OR generation_owner = ? OR generation_lease_expires_at < NOW())";
+
+    private static final String RENEW_CLAIM_SQL =
+            "UPDATE evaluation_batches SET generation_lease_expires_at = NOW() + INTERVAL ? SECOND " +
+            "WHERE batch_id = ? AND generation_owner = ?";
+
+    private static final String RELEASE_CLAIM_SQL =
+            "UPDATE evaluation_batches SET generation_owner = NULL, generation_lease_expires_at = NULL " +
+            "WHERE batch_id = ? AND generation_owner = ?";
+
+    private static final String DEFAULT_TEMPLATE = "{{question}}";
+    private static final int MAX_RECENT_ERRORS = 10;
+
+    private final EvaluationBatchRepository batchRepository;
+    private final ModelApiClient modelApiClient;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor generationRunExecutor;
+    private final ThreadPoolTaskScheduler leaseHeartbeatScheduler;
+    private final ClusterNode clusterNode;
+
+    // 本节点上每个批次最近一次生成任务的进度，跨节点的互斥由数据库中的生成租约保证
+    private final Map<Integer, GenerationJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${answer-generation.max-in-flight:256}")
+    private int maxInFlight;
+
+    @Value("${answer-generation.page-size:500}")
+    private int pageSize;
+
+    @Value("${answer-generation.write-batch-size:200}")
+    private int writeBatchSize;
+
+    @Value("${answer-generation.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${answer-generation.lease-seconds:60}")
+    private int leaseSeconds;
+
+    @Autowired
+    public AnswerGenerationRunner(EvaluationBatchRepository batchRepository,
+                                  ModelApiClient modelApiClient,
+                                  ObjectMapper objectMapper,
+                                  JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  @Qualifier("generationRunExecutor") ThreadPoolTaskExecutor generationRunExecutor,
+                                  @Qualifier("leaseHeartbeatScheduler") ThreadPoolTaskScheduler leaseHeartbeatScheduler,
+                                  ClusterNode clusterNode) {
+        this.batchRepository = batchRepository;
+        this.modelApiClient = modelApiClient;
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.generationRunExecutor = generationRunExecutor;
+        this.leaseHeartbeatScheduler = leaseHeartbeatScheduler;
+        this.clusterNode = clusterNode;
+    }
+
+    /**
+     * 服务启动后定期为本节点正在生成的批次续租
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startLeaseHeartbeat() {
+        leaseHeartbeatScheduler.scheduleAtFixedRate(this::renewClaims,
+                Duration.ofMillis(Math.max(1000L, leaseSeconds * 1000L / 3)));
+    }
+
+    private void renewClaims() {
+        for (GenerationJob job : jobs.values()) {
+            if (!job.isRunning()) {
+                continue;
+            }
+            Integer batchId = job.batch.getBatchId();
+            try {
+                if (jdbcTemplate.update(RENEW_CLAIM_SQL, leaseSeconds, batchId, clusterNode.getId()) == 0) {
+                    // 租约过期后已被其他节点认领，停止生成，已写入的回答保留
+                    log.warn("批次 {} 的回答生成租约已被其他节点接管，停止生成", batchId);
+                    job.claimLost = true;
+                    job.cancel();
+                }
+            } catch (Exception e) {
+                log.warn("批次 {} 回答生成续租失败: {}", batchId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 在后台线程池中启动批次回答生成
+     *
+     * @return 初始进度
+     * @throws IllegalArgumentException 批次不存在或未指定模型、数据集版本
+     * @throws IllegalStateException 该批次正在本节点或其他节点生成，或线程池已满
+     */
+    public Map<String, Object> start(Integer batchId, AnswerGenerationRequest request) {
+        GenerationJob job = prepare(batchId, request);
+        try {
+            generationRunExecutor.execute(() -> execute(job));
+        } catch (TaskRejectedException e) {
+            job.finish(JobStatus.FAILED, "回答生成任务过多，请稍后重试");
+            releaseClaim(batchId);
+            throw new IllegalStateException("回答生成任务过多，请稍后重试");
+        }
+        return job.toProgress();
+    }
+
+    /**
+     * 在当前线程中执行批次回答生成，返回最终进度
+     */
+    public Map<String, Object> run(Integer batchId, AnswerGenerationRequest request) {
+        GenerationJob job = prepare(batchId, request);
+        execute(job);
+        return job.toProgress();
+    }
+
+    /**
+     * 请求取消生成：停止读取新问题并取消在途请求，已返回的回答仍会写入
+     *
+     * @return 该批次是否有正在运行的生成任务
+     */
+    public boolean cancel(Integer batchId) {
+        GenerationJob job = jobs.get(batchId);
+        if (job == null || !job.isRunning()) {
+            return false;
+        }
+        job.cancel();
+        return true;
+    }
+
+    public Optional<Map<String, Object>> getProgress(Integer batchId) {
+        return Optional.ofNullable(jobs.get(batchId)).map(GenerationJob::toProgress);
+    }
+
+    private GenerationJob prepare(Integer batchId, AnswerGenerationRequest request) {
+        EvaluationBatch batch = batchRepository.findById(batchId)
+                .orElseThrow(() -> new IllegalArgumentException("评测批次不存在: " + batchId));
+        if (batch.getModel() == null) {
+            throw new IllegalArgumentException("评测批次未指定模型");
+        }
+        if (batch.getDatasetVersion() == null) {
+            throw new IllegalArgumentException("评测批次未指定数据集版本");
+        }
+
+        AnswerGenerationRequest effectiveRequest = request != null ? request : new AnswerGenerationRequest();
+        String templateSource = effectiveRequest.getPromptTemplate() != null && !effectiveRequest.getPromptTemplate().isBlank()
+                ? effectiveRequest.getPromptTemplate() : DEFAULT_TEMPLATE;
+        Map<String, Object> promptParams = effectiveRequest.getPromptParams() != null
+                ? effectiveRequest.getPromptParams() : Map.of();
+        String promptParamsJson;
+        try {
+            promptParamsJson = promptParams.isEmpty() ? null : objectMapper.writeValueAsString(promptParams);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("提示词参数无法序列化: " + e.getOriginalMessage());
+        }
+        Map<String, Object> parameters = modelApiClient.effectiveParameters(batch.getModel(), Map.of());
+
+        GenerationJob job = new GenerationJob(batch, PromptTemplate.compile(templateSource, promptParams),
+                promptParamsJson, effectiveRequest.getSystemPrompt(), Boolean.TRUE.equals(effectiveRequest.getStream()),
+                toDouble(parameters.get("temperature")), toDouble(parameters.get("top_p")));
+        // 本节点已持有租约时认领只会续期，同一节点上的重复启动由 jobs 拦截
+        if (jdbcTemplate.update(CLAIM_SQL, clusterNode.getId(), leaseSeconds, batchId, clusterNode.getId()) == 0) {
+            throw new IllegalStateException("该批次正在其他节点生成回答");
+        }
+        jobs.compute(batchId, (id, existing) -> {
+            if (existing != null && existing.isRunning()) {
+                throw new IllegalStateException("该批次正在生成回答");
+            }
+            return job;
+        });
+        return job;
+    }
+
+    private void releaseClaim(Integer batchId) {
+        try {
+            jdbcTemplate.update(RELEASE_CLAIM_SQL, batchId, clusterNode.getId());
+        } catch (Exception e) {
+            // 未释放的租约到期后可被重新认领
+            log.warn("批次 {} 回答生成租约释放失败: {}", batchId, e.getMessage());
+        }
+    }
+
+    private void execute(GenerationJob job) {
+        Integer batchId = job.batch.getBatchId();
+        Integer versionId = job.batch.getDatasetVersion().getVersionId();
+        try {
+            Long total = jdbcTemplate.queryForObject(COUNT_PENDING_SQL, Long.class, versionId, batchId);
+            job.total = total != null ? total : 0;
+            log.info("批次 {} 开始生成回答，待生成问题 {} 个", batchId, job.total);
+
+            BlockingQueue<Outcome> outcomes = new LinkedBlockingQueue<>();
+            List<Outcome> pendingWrites = new ArrayList<>();
+            int inFlight = 0;
+            int lastQuestionId = 0;
+            boolean exhausted = false;
+            long lastFlush = System.nanoTime();
+
+            while (true) {
+                while (!exhausted && !job.cancelled && inFlight < maxInFlight) {
+                    List<QuestionRow> page = jdbcTemplate.query(SELECT_PENDING_SQL,
+                            (rs, rowNum) -> new QuestionRow(
+                                    rs.getInt("standard_question_id"),
+                                    rs.getString("question"),
+                                    rs.getString("question_type")),
+                            versionId, batchId, lastQuestionId, Math.min(pageSize, maxInFlight - inFlight));
+                    if (page.isEmpty()) {
+                        exhausted = true;
+                        break;
+                    }
+                    lastQuestionId = page.get(page.size() - 1).questionId;
+                    for (QuestionRow question : page) {
+                        dispatch(job, question, outcomes);
+                    }
+                    inFlight += page.size();
+                }
+                if ((exhausted || job.cancelled) && inFlight == 0) {
+                    break;
+                }
+
+                Outcome outcome = outcomes.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (outcome != null) {
+                    pendingWrites.add(outcome);
+                    inFlight -= 1 + outcomes.drainTo(pendingWrites);
+                }
+                boolean intervalElapsed = System.nanoTime() - lastFlush >= TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                if (pendingWrites.size() >= writeBatchSize || (intervalElapsed && !pendingWrites.isEmpty())) {
+                    flush(job, pendingWrites);
+                    lastFlush = System.nanoTime();
+                }
+            }
+            if (!pendingWrites.isEmpty()) {
+                flush(job, pendingWrites);
+            }
+            if (job.claimLost) {
+                job.finish(JobStatus.FAILED, "回答生成租约已过期，批次已由其他节点继续生成");
+            } else {
+                job.finish(job.cancelled ? JobStatus.CANCELLED : JobStatus.COMPLETED, null);
+            }
+            log.info("批次 {} 回答生成结束: 状态={}, 生成={}, 失败={}", batchId, job.status,
+                    job.generated.get(), job.failed.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.cancel();
+            job.finish(JobStatus.CANCELLED, "生成线程被中断");
+        } catch (Exception e) {
+            log.error("批次 {} 回答生成失败", batchId, e);
+            job.cancel();
+            job.finish(JobStatus.FAILED, e.getMessage());
+        } finally {
+            // 租约已被接管时条件不成立，不会释放其他节点的认领
+            releaseClaim(batchId);
+        }
+    }
+
+    private void dispatch(GenerationJob job, QuestionRow question, BlockingQueue<Outcome> outcomes) {
+        Map<String, String> variables = new HashMap<>();
+        variables.put("question", question.question);
+        variables.put("question_type", question.questionType);
+        variables.put("question_id", String.valueOf(question.questionId));
+
+        ModelApiClient.ChatRequest request = new ModelApiClient.ChatRequest();
+        if (job.systemPrompt != null && !job.systemPrompt.isBlank()) {
+            request.message("system", job.systemPrompt);
+        }
+        request.message("user", job.template.render(variables)).stream(job.stream);
+
+        CompletableFuture<ModelApiClient.Completion> future = modelApiClient.chat(job.batch.getModel(), request,
+                completion -> {
+                    if (completion.getContent() == null || completion.getContent().isBlank()) {
+                        throw new IllegalStateException("响应中没有内容");
+                    }
+                    return completion;
+                });
+        job.inFlight.add(future);
+        future.whenComplete((completion, ex) -> {
+            job.inFlight.remove(future);
+            if (ex == null) {
+                outcomes.add(new Outcome(question, completion, null, false));
+            } else {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                outcomes.add(new Outcome(question, null, cause.getMessage(), cause instanceof CancellationException));
+            }
+        });
+    }
+
+    private void flush(GenerationJob job, List<Outcome> pendingWrites) {
+        List<Outcome> answers = new ArrayList<>();
+        for (Outcome outcome : pendingWrites) {
+            if (outcome.completion != null) {
+                answers.add(outcome);
+            } else if (!outcome.cancelled) {
+                job.recordFailure(outcome.question.questionId, outcome.error);
+            }
+        }
+        pendingWrites.clear();
+        if (answers.isEmpty()) {
+            return;
+        }
+
+        EvaluationBatch batch = job.batch;
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(INSERT_ANSWER_SQL, answers, answers.size(), (ps, outcome) -> {
+                    ModelApiClient.Completion completion = outcome.completion;
+                    ps.setInt(1, batch.getModel().getModelId());
+                    ps.setInt(2, outcome.question.questionId);
+                    ps.setInt(3, batch.getDatasetVersion().getVersionId());
+                    ps.setString(4, completion.getContent());
+                    ps.setInt(5, completion.getLatencyMs());
+                    if (completion.getTokensUsed() != null) {
+                        ps.setInt(6, completion.getTokensUsed());
+                    } else {
+                        ps.setNull(6, Types.INTEGER);
+                    }
+                    ps.setString(7, job.template.source);
+                    ps.setString(8, job.promptParamsJson);
+                    setDouble(ps, 9, job.temperature);
+                    setDouble(ps, 10, job.topP);
+                    ps.setInt(11, batch.getBatchId());
+                    ps.setInt(12, Math.max(0, completion.getAttempts() - 1));
+                }));
+
+        for (Outcome outcome : answers) {
+            job.recordAnswer(outcome.completion);
+        }
+    }
+
+    private static void setDouble(PreparedStatement ps, int index, Double value) throws SQLException {
+        if (value != null) {
+            ps.setDouble(index, value);
+        } else {
+            ps.setNull(index, Types.DOUBLE);
+        }
+    }
+
+    private static Double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Double.valueOf((String) value);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    enum JobStatus {
+        RUNNING, COMPLETED, CANCELLED, FAILED
+    }
+
+    /**
+     * 预编译的提示词模板：占位符 {{name}} 解析为片段，promptParams 在编译时代入
+     */
+    static final class PromptTemplate {
+        private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{\\s*([\\w.-]+)\\s*\\}\\}");
+
+        final String source;
+        // 偶数下标为原文片段，奇数下标为运行时变量名
+        private final List<String> segments;
+
+        private PromptTemplate(String source, List<String> segments) {
+            this.source = source;
+            this.segments = segments;
+        }
+
+        static PromptTemplate compile(String source, Map<String, Object> params) {
+            List<String> segments = new ArrayList<>();
+            StringBuilder literal = new StringBuilder();
+            Matcher matcher = PLACEHOLDER.matcher(source);
+            int last = 0;
+            while (matcher.find()) {
+                literal.append(source, last, matcher.start());
+                String name = matcher.group(1);
+                if (params.containsKey(name)) {
+                    literal.append(params.get(name) != null ? params.get(name).toString() : "");
+                } else {
+                    segments.add(literal.toString());
+                    segments.add(name);
+                    literal.setLength(0);
+                }
+                last = matcher.end();
+            }
+            literal.append(source, last, source.length());
+            segments.add(literal.toString());
+            return new PromptTemplate(source, segments);
+        }
+
+        String render(Map<String, String> variables) {
+            StringBuilder prompt = new StringBuilder(source.length() + 256);
+            for (int i = 0; i < segments.size(); i++) {
+                String segment = segments.get(i);
+                if (i % 2 == 0) {
+                    prompt.append(segment);
+                } else if (variables.containsKey(segment)) {
+                    prompt.append(variables.get(segment) != null ? variables.get(segment) : "");
+                } else {
+                    // 未知变量原样保留
+                    prompt.append("{{").append(segment).append("}}");
+                }
+            }
+            return prompt.toString();
+        }
+    }
+
+    private static final class GenerationJob {
+        final EvaluationBatch batch;
+        final PromptTemplate template;
+        final String promptParamsJson;
+        final String systemPrompt;
+        final boolean stream;
+        final Double temperature;
+        final Double topP;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final long startNanos = System.nanoTime();
+
+        final Set<CompletableFuture<?>> inFlight = ConcurrentHashMap.newKeySet();
+        final AtomicInteger generated = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final AtomicLong tokensUsed = new AtomicLong();
+        final AtomicLong totalLatencyMs = new AtomicLong();
+        private final Deque<String> recentErrors = new ArrayDeque<>();
+
+        volatile long total;
+        volatile boolean cancelled;
+        volatile boolean claimLost;
+        volatile JobStatus status = JobStatus.RUNNING;
+        volatile String error;
+        volatile LocalDateTime finishedAt;
+        volatile long finishNanos;
+
+        GenerationJob(EvaluationBatch batch, PromptTemplate template, String promptParamsJson, String systemPrompt,
+                      boolean stream, Double temperature, Double topP) {
+            this.batch = batch;
+            this.template = template;
+            this.promptParamsJson = promptParamsJson;
+            this.systemPrompt = systemPrompt;
+            this.stream = stream;
+            this.temperature = temperature;
+            this.topP = topP;
+        }
+
+        boolean isRunning() {
+            return status == JobStatus.RUNNING;
+        }
+
+        void cancel() {
+            cancelled = true;
+            for (CompletableFuture<?> future : inFlight) {
+                future.cancel(true);
+            }
+        }
+
+        void finish(JobStatus finalStatus, String message) {
+            error = message;
+            finishedAt = LocalDateTime.now();
+            finishNanos = System.nanoTime();
+            status = finalStatus;
+        }
+
+        void recordAnswer(ModelApiClient.Completion completion) {
+            generated.incrementAndGet();
+            totalLatencyMs.addAndGet(completion.getLatencyMs());
+            if (completion.getTokensUsed() != null) {
+                tokensUsed.addAndGet(completion.getTokensUsed());
+            }
+        }
+
+        void recordFailure(int questionId, String message) {
+            failed.incrementAndGet();
+            synchronized (recentErrors) {
+                if (recentErrors.size() == MAX_RECENT_ERRORS) {
+                    recentErrors.removeFirst();
+                }
+                recentErrors.addLast("问题 " + questionId + ": " + message);
+            }
+        }
+
+        Map<String, Object> toProgress() {
+            int generatedCount = generated.get();
+            int failedCount = failed.get();
+            long elapsedNanos = (status == JobStatus.RUNNING ? System.nanoTime() : finishNanos) - startNanos;
+            double elapsedSeconds = Duration.ofNanos(elapsedNanos).toMillis() / 1000.0;
+
+            Map<String, Object> progress = new LinkedHashMap<>();
+            progress.put("batchId", batch.getBatchId());
+            progress.put("status", status.name());
+            progress.put("total", total);
+            progress.put("generated", generatedCount);
+            progress.put("failed", failedCount);
+            progress.put("remaining", Math.max(0, total - generatedCount - failedCount));
+            progress.put("inFlight", inFlight.size());
+            progress.put("tokensUsed", tokensUsed.get());
+            progress.put("averageLatencyMs", generatedCount > 0 ? totalLatencyMs.get() / generatedCount : 0);
+            progress.put("throughput", elapsedSeconds > 0 ? generatedCount / elapsedSeconds : 0.0);
+            progress.put("startedAt", startedAt);
+            progress.put("finishedAt", finishedAt);
+            progress.put("error", error);
+            synchronized (recentErrors) {
+                progress.put("recentErrors", new ArrayList<>(recentErrors));
+            }
+            return progress;
+        }
+    }
+
+    private static final class QuestionRow {
+        final int questionId;
+        final String question;
+        final String questionType;
+
+        QuestionRow(int questionId, String question, String questionType) {
+            this.questionId = questionId;
+            this.question = question;
+            this.questionType = questionType;
+        }
+    }
+
+    private static final class Outcome {
+        final QuestionRow question;
+        final ModelApiClient.Completion completion;
+        final String error;
+        final boolean cancelled;
+
+        Outcome(QuestionRow question, ModelApiClient.Completion completion, String error, boolean cancelled) {
+            this.question = question;
+            this.completion = completion;
+            this.error = error;
+            this.cancelled = cancelled;
+        }
+    }
+}
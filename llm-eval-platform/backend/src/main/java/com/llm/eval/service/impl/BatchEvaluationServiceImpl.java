@@ -0,0 +1,821 @@
+package com.llm.eval.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.llm.eval.model.Evaluation;
+import com.llm.eval.model.EvaluationBatch;
+import com.llm.eval.model.JudgeTask;
+import com.llm.eval.model.LlmAnswer;
+import com.llm.eval.model.StandardAnswer;
+import com.llm.eval.model.StandardQuestion;
+import com.llm.eval.repository.EvaluationBatchRepository;
+import com.llm.eval.repository.JudgeTaskRepository;
+import com.llm.eval.repository.StandardAnswerRepository;
+import com.llm.eval.service.BatchEvaluationService;
+import com.llm.eval.service.EvaluationService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class BatchEvaluationServiceImpl implements BatchEvaluationService {
+
+    // 锁定批次行，同一批次的并发启动请求在此串行
+    private static final String LOCK_BATCH_SQL =
+            "SELECT status FROM evaluation_batches WHERE batch_id = ? FOR UPDATE";
+
+    private static final String START_BATCH_SQL =
+            "UPDATE evaluation_batches SET status = 'in_progress', start_time = NOW(), end_time = NULL, " +
+            "metrics_summary = ? WHERE batch_id = ?";
+
+    // 恢复运行保留原开始时间，批次的标准答案缓存随之保留
+    private static final String RESUME_BATCH_SQL =
+            "UPDATE evaluation_batches SET status = 'in_progress', start_time = COALESCE(start_time, NOW()), " +
+            "end_time = NULL WHERE batch_id = ?";
+
+    // 状态为进行中但没有待处理或已领取单元的批次：节点在结束批次前停止，或由旧版本同步评测遗留
+    private static final String SELECT_ORPHANED_BATCHES_SQL =
+            "SELECT b.batch_id FROM evaluation_batches b " +
+            "WHERE b.status = 'in_progress' AND b.evaluation_method <> 'human' AND NOT EXISTS (" +
+            "SELECT 1 FROM batch_work_units u WHERE u.batch_id = b.batch_id AND u.status IN ('pending', 'leased'))";
+
+    private static final String SELECT_UNIT_ANSWERS_SQL =
+            "SELECT llm_answer_id, standard_question_id, content FROM llm_answers " +
+            "WHERE batch_id = ? AND is_final = TRUE AND deleted_at IS NULL AND llm_answer_id BETWEEN ? AND ? " +
+            "ORDER BY llm_answer_id";
+
+    private static final String SELECT_EVALUATED_SQL =
+            "SELECT llm_answer_id FROM evaluations WHERE batch_id = :batchId AND llm_answer_id IN (:answerIds)";
+
+    // 批次内已有评测结果的回答保留原结果（uk_evaluations_batch_answer）
+    private static final String INSERT_EVALUATION_SQL =
+            "INSERT INTO evaluations (llm_answer_id, standard_answer_id, score, method, key_points_evaluation, " +
+            "judge_model_id, batch_id, comments, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, NOW(), NOW()) " +
+            "ON DUPLICATE KEY UPDATE evaluation_id = evaluation_id";
+
+    // 进度合并到已有汇总中，未包含指标的进度保留上一次写入的指标；批次结束后不再写入，避免覆盖最终汇总
+    private static final String UPDATE_PROGRESS_SQL =
+            "UPDATE evaluation_batches SET metrics_summary = JSON_MERGE_PATCH(COALESCE(metrics_summary, '{}'), ?) " +
+            "WHERE batch_id = ? AND status = 'in_progress'";
+
+    private static final String UPDATE_SUMMARY_SQL =
+            "UPDATE evaluation_batches SET metrics_summary = ? WHERE batch_id = ?";
+
+    private final EvaluationBatchRepository batchRepository;
+    private final StandardAnswerRepository standardAnswerRepository;
+    private final EvaluationService evaluationService;
+    private final JudgeTaskRunner judgeTaskRunner;
+    private final JudgeTaskRepository judgeTaskRepository;
+    private final EvaluationCache evaluationCache;
+    private final BatchMetricsCalculator metricsCalculator;
+    private final WorkUnitQueue workUnitQueue;
+    private final BatchProgressRegistry progressRegistry;
+    private final ObjectiveScorer objectiveScorer;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolTaskExecutor batchWorkerExecutor;
+    private final ThreadPoolTaskScheduler leaseHeartbeatScheduler;
+    private final ThreadPoolTaskExecutor evaluationExecutor;
+    private final ClusterNode clusterNode;
+
+    @Value("${evaluation.batch.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${evaluation.batch.unit-workers:2}")
+    private int unitWorkers;
+
+    @Value("${evaluation.cluster.lease-seconds:60}")
+    private int leaseSeconds;
+
+    @Value("${evaluation.cluster.poll-interval-ms:2000}")
+    private long pollIntervalMs;
+
+    @Value("${evaluation.cluster.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${evaluation.batch.metrics-interval-ms:10000}")
+    private long metricsIntervalMs;
+
+    private volatile String nodeId;
+    private volatile boolean stopping;
+    // 本节点上次在进度中写入阶段指标的时间
+    private volatile long lastMetricsWrite;
+
+    // 本节点正在处理、需要心跳续租的工作单元
+    private final Set<Integer> heldUnits = ConcurrentHashMap.newKeySet();
+    // 按批次缓存的标准答案和客观题答案表，批次重新启动后失效，工作线程空闲时清空
+    private final Map<Integer, BatchContext> contexts = new ConcurrentHashMap<>();
+    private final Object idleMonitor = new Object();
+
+    @Autowired
+    public BatchEvaluationServiceImpl(
+            EvaluationBatchRepository batchRepository,
+            StandardAnswerRepository standardAnswerRepository,
+            EvaluationService evaluationService,
+            JudgeTaskRunner judgeTaskRunner,
+            JudgeTaskRepository judgeTaskRepository,
+            EvaluationCache evaluationCache,
+            BatchMetricsCalculator metricsCalculator,
+            WorkUnitQueue workUnitQueue,
+            BatchProgressRegistry progressRegistry,
+            ObjectiveScorer objectiveScorer,
+            JdbcTemplate jdbcTemplate,
+            NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            @Qualifier("batchWorkerExecutor") ThreadPoolTaskExecutor batchWorkerExecutor,
+            @Qualifier("leaseHeartbeatScheduler") ThreadPoolTaskScheduler leaseHeartbeatScheduler,
+            @Qualifier("evaluationExecutor") ThreadPoolTaskExecutor evaluationExecutor,
+            ClusterNode clusterNode) {
+        this.batchRepository = batchRepository;
+        this.standardAnswerRepository = standardAnswerRepository;
+        this.evaluationService = evaluationService;
+        this.judgeTaskRunner = judgeTaskRunner;
+        this.judgeTaskRepository = judgeTaskRepository;
+        this.evaluationCache = evaluationCache;
+        this.metricsCalculator = metricsCalculator;
+        this.workUnitQueue = workUnitQueue;
+        this.progressRegistry = progressRegistry;
+        this.objectiveScorer = objectiveScorer;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.batchWorkerExecutor = batchWorkerExecutor;
+        this.leaseHeartbeatScheduler = leaseHeartbeatScheduler;
+        this.evaluationExecutor = evaluationExecutor;
+        this.clusterNode = clusterNode;
+    }
+
+    /**
+     * 服务启动后开始领取工作单元：以相同节点ID重启时先释放上次遗留的租约，
+     * 恢复没有工作单元在运行的进行中批次，再启动工作线程和续租心跳
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWorkers() {
+        nodeId = clusterNode.getId();
+        try {
+            int released = workUnitQueue.releaseAll(nodeId);
+            if (released > 0) {
+                log.info("已释放节点 {} 上次遗留的 {} 个评测工作单元", nodeId, released);
+            }
+        } catch (Exception e) {
+            log.warn("释放遗留的评测工作单元失败: {}", e.getMessage());
+        }
+        resumeOrphanedBatches();
+        leaseHeartbeatScheduler.scheduleAtFixedRate(this::renewLeases,
+                Duration.ofMillis(Math.max(1000L, leaseSeconds * 1000L / 3)));
+        for (int i = 0; i < unitWorkers; i++) {
+            batchWorkerExecutor.execute(this::workLoop);
+        }
+        log.info("评测节点 {} 已启动 {} 个工作线程，租约 {} 秒", nodeId, unitWorkers, leaseSeconds);
+    }
+
+    /**
+     * 停机时中断工作线程，并释放仍持有的租约，使其他节点无需等待租约过期即可接手
+     */
+    @PreDestroy
+    public void stopWorkers() {
+        stopping = true;
+        wakeWorkers();
+        batchWorkerExecutor.shutdown();
+        try {
+            batchWorkerExecutor.getThreadPoolExecutor().awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (nodeId != null) {
+            try {
+                workUnitQueue.releaseAll(nodeId);
+            } catch (Exception e) {
+                log.warn("释放评测工作单元租约失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void startBatchEvaluation(Integer batchId) {
+        findRunnableBatch(batchId);
+
+        Integer units = transactionTemplate.execute(status -> {
+            lockIdleBatch(batchId);
+            int planned = workUnitQueue.plan(batchId, chunkSize);
+            jdbcTemplate.update(START_BATCH_SQL, toSummaryJson(new WorkUnitQueue.BatchUnitSummary(), "running", null),
+                    batchId);
+            return planned;
+        });
+        contexts.remove(batchId);
+        progressRegistry.reset(batchId);
+        log.info("评测批次 {} 已切分为 {} 个工作单元", batchId, units);
+        dispatch(batchId, units);
+    }
+
+    @Override
+    public int resumeBatchEvaluation(Integer batchId) {
+        EvaluationBatch batch = findRunnableBatch(batchId);
+        if (batch.getStatus() == EvaluationBatch.EvaluationStatus.PENDING) {
+            throw new IllegalStateException("评测批次尚未运行，请直接启动: " + batchId);
+        }
+        if (batch.getStatus() == EvaluationBatch.EvaluationStatus.COMPLETED) {
+            throw new IllegalStateException("评测批次已完成: " + batchId);
+        }
+
+        Integer units = transactionTemplate.execute(status -> {
+            lockIdleBatch(batchId);
+            int requeued;
+            if (workUnitQueue.hasUnits(batchId)) {
+                requeued = workUnitQueue.requeueFailed(batchId);
+            } else {
+                // 没有检查点的批次重新切分，已评测的回答在处理单元时跳过
+                requeued = workUnitQueue.plan(batchId, chunkSize);
+            }
+            jdbcTemplate.update(RESUME_BATCH_SQL, batchId);
+            return requeued;
+        });
+        progressRegistry.reset(batchId);
+        WorkUnitQueue.BatchUnitSummary summary = workUnitQueue.summarize(batchId);
+        jdbcTemplate.update(UPDATE_SUMMARY_SQL, toSummaryJson(summary, "running", null), batchId);
+        log.info("评测批次 {} 从回答 {} 之后恢复运行，重新排队 {} 个工作单元", batchId, summary.checkpointAnswerId, units);
+        dispatch(batchId, units);
+        return units != null ? units : 0;
+    }
+
+    private EvaluationBatch findRunnableBatch(Integer batchId) {
+        EvaluationBatch batch = batchRepository.findById(batchId)
+                .orElseThrow(() -> new IllegalArgumentException("评测批次不存在: " + batchId));
+        if (batch.getEvaluationMethod() == EvaluationBatch.EvaluationMethod.HUMAN) {
+            throw new IllegalArgumentException("人工评测批次不支持自动运行");
+        }
+        if (batch.getEvaluationMethod() == EvaluationBatch.EvaluationMethod.JUDGE_MODEL && batch.getJudgeModel() == null) {
+            throw new IllegalArgumentException("裁判模型评测批次未指定裁判模型");
+        }
+        return batch;
+    }
+
+    /**
+     * 锁定批次行，批次仍有未完成的工作单元时拒绝启动或恢复
+     */
+    private void lockIdleBatch(Integer batchId) {
+        jdbcTemplate.queryForList(LOCK_BATCH_SQL, String.class, batchId);
+        // 锁定批次行之后再读取工作单元，能看到先获得锁的请求已提交的单元
+        if (workUnitQueue.hasActiveUnits(batchId)) {
+            throw new IllegalStateException("评测批次正在运行中: " + batchId);
+        }
+    }
+
+    private void dispatch(Integer batchId, Integer units) {
+        if (units == null || units == 0) {
+            finishBatchIfDone(batchId);
+        } else {
+            wakeWorkers();
+        }
+    }
+
+    /**
+     * 恢复孤立的进行中批次，多个节点同时启动时由先锁定批次行的节点恢复
+     */
+    private void resumeOrphanedBatches() {
+        List<Integer> batchIds;
+        try {
+            batchIds = jdbcTemplate.queryForList(SELECT_ORPHANED_BATCHES_SQL, Integer.class);
+        } catch (Exception e) {
+            log.warn("查询中断的评测批次失败: {}", e.getMessage());
+            return;
+        }
+        for (Integer batchId : batchIds) {
+            try {
+                resumeBatchEvaluation(batchId);
+            } catch (IllegalStateException e) {
+                log.debug("评测批次 {} 无需恢复: {}", batchId, e.getMessage());
+            } catch (Exception e) {
+                log.warn("恢复评测批次 {} 失败: {}", batchId, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public boolean isBatchRunning(Integer batchId) {
+        return workUnitQueue.hasActiveUnits(batchId);
+    }
+
+    @Override
+    public Map<String, Object> getBatchProgress(Integer batchId) {
+        return progressRegistry.snapshot(batchId);
+    }
+
+    @Override
+    public SseEmitter subscribeBatchProgress(Integer batchId) {
+        if (!batchRepository.existsById(batchId)) {
+            throw new IllegalArgumentException("评测批次不存在: " + batchId);
+        }
+        return progressRegistry.subscribe(batchId);
+    }
+
+    @Override
+    public Map<String, Long> getJudgeTaskCounts(Integer batchId) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (JudgeTask.TaskStatus status : JudgeTask.TaskStatus.values()) {
+            counts.put(status.name(), 0L);
+        }
+        for (Object[] row : judgeTaskRepository.countGroupByStatus(batchId)) {
+            counts.put(String.valueOf(row[0]), ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    /**
+     * 工作线程：循环领取工作单元并处理，没有可领取的单元时等待轮询间隔或被新启动的批次唤醒
+     */
+    private void workLoop() {
+        while (!stopping) {
+            WorkUnitQueue.WorkUnit unit;
+            try {
+                unit = workUnitQueue.claim(nodeId, leaseSeconds, maxAttempts);
+            } catch (Exception e) {
+                log.warn("领取评测工作单元失败: {}", e.getMessage());
+                unit = null;
+            }
+            if (unit == null) {
+                contexts.clear();
+                if (!awaitWork()) {
+                    return;
+                }
+                continue;
+            }
+            if (unit.exhausted) {
+                log.warn("评测批次 {} 的工作单元 {} 已达最大尝试次数，标记为失败", unit.batchId, unit.unitId);
+                afterUnit(unit.batchId);
+                continue;
+            }
+
+            heldUnits.add(unit.unitId);
+            try {
+                processUnit(unit);
+            } catch (InterruptedException e) {
+                // 停机中断，租约在 stopWorkers 中统一释放
+                Thread.currentThread().interrupt();
+                return;
+            } catch (WorkUnitQueue.LeaseLostException e) {
+                // 未提交的结果已随事务回滚，单元由接手的节点继续处理
+                log.warn("{}，放弃本次处理", e.getMessage());
+            } catch (Exception e) {
+                log.error("评测批次 {} 的工作单元 {} 处理失败", unit.batchId, unit.unitId, e);
+                try {
+                    workUnitQueue.release(unit, nodeId, e.getMessage(), maxAttempts);
+                } catch (Exception releaseError) {
+                    log.warn("释放工作单元 {} 失败: {}", unit.unitId, releaseError.getMessage());
+                }
+            } finally {
+                heldUnits.remove(unit.unitId);
+            }
+            afterUnit(unit.batchId);
+        }
+    }
+
+    private boolean awaitWork() {
+        synchronized (idleMonitor) {
+            try {
+                idleMonitor.wait(pollIntervalMs);
+                return !stopping;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    private void wakeWorkers() {
+        synchronized (idleMonitor) {
+            idleMonitor.notifyAll();
+        }
+    }
+
+    private void renewLeases() {
+        if (heldUnits.isEmpty()) {
+            return;
+        }
+        List<Integer> unitIds = new ArrayList<>(heldUnits);
+        try {
+            int renewed = workUnitQueue.renew(nodeId, unitIds, leaseSeconds);
+            if (renewed < unitIds.size()) {
+                log.info("节点 {} 持有 {} 个工作单元，续租 {} 个（其余已完成或租约已被其他节点接管）",
+                        nodeId, unitIds.size(), renewed);
+            }
+        } catch (Exception e) {
+            log.warn("工作单元续租失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 处理一个工作单元：读取区间内的回答，自动评测直接评分写入；
+     * 裁判模型批次先把回答写入裁判任务队列，再执行区间内的裁判任务
+     */
+    private void processUnit(WorkUnitQueue.WorkUnit unit) throws InterruptedException {
+        EvaluationBatch batch = batchRepository.findById(unit.batchId).orElse(null);
+        if (batch == null || batch.getStatus() != EvaluationBatch.EvaluationStatus.IN_PROGRESS) {
+            // 批次已被删除或状态被手动修改，不再重试该单元
+            workUnitQueue.release(unit, nodeId, "评测批次已不在运行中", 0);
+            return;
+        }
+        BatchContext context = context(batch);
+        Map<Integer, StandardAnswer> standardAnswers = context.standardAnswers;
+        List<LlmAnswer> answers = jdbcTemplate.query(SELECT_UNIT_ANSWERS_SQL,
+                (rs, rowNum) -> {
+                    LlmAnswer answer = new LlmAnswer();
+                    answer.setLlmAnswerId(rs.getInt("llm_answer_id"));
+                    StandardQuestion question = new StandardQuestion();
+                    question.setStandardQuestionId(rs.getInt("standard_question_id"));
+                    answer.setStandardQuestion(question);
+                    answer.setContent(rs.getString("content"));
+                    return answer;
+                },
+                unit.batchId, unit.firstAnswerId, unit.lastAnswerId);
+
+        WorkUnitQueue.UnitCounts counts = new WorkUnitQueue.UnitCounts();
+        if (answers.isEmpty()) {
+            // 切分后区间内的回答已被删除
+            log.debug("评测批次 {} 的工作单元 {} 没有需要评测的回答", unit.batchId, unit.unitId);
+        } else if (batch.getEvaluationMethod() == EvaluationBatch.EvaluationMethod.JUDGE_MODEL) {
+            enqueueJudgeTasks(unit, batch, answers, standardAnswers, counts);
+            recordCounts(unit.batchId, counts);
+            judgeTaskRunner.run(batch, unit.firstAnswerId, unit.lastAnswerId, standardAnswers,
+                    evaluations -> {
+                        // 已在回写裁判任务的事务中
+                        workUnitQueue.holdLease(unit, nodeId, leaseSeconds);
+                        insertEvaluations(evaluations);
+                        progressRegistry.recordScores(unit.batchId, evaluations);
+                    }, (completed, failed) -> {
+                        counts.evaluated += completed;
+                        counts.failed += failed;
+                        counts.processed += completed + failed;
+                        progressRegistry.recordCounts(unit.batchId, completed + failed, completed, 0, failed, 0);
+                    });
+        } else {
+            processChunk(unit, batch, answers, standardAnswers, context.objectiveKey, counts);
+            recordCounts(unit.batchId, counts);
+        }
+
+        // 区间内的评测结果已全部提交，统计其指标作为单元的检查点
+        BatchMetrics unitMetrics = metricsCalculator.compute(unit.batchId, unit.firstAnswerId, unit.lastAnswerId);
+        if (!workUnitQueue.complete(unit, nodeId, counts, metricsCalculator.toStateJson(unitMetrics))) {
+            // 写入时仍持有租约，结果已提交；接手的节点会跳过这些已评测的回答
+            log.warn("评测批次 {} 的工作单元 {} 租约已被其他节点接管，本次结果不再计入单元进度",
+                    unit.batchId, unit.unitId);
+        }
+    }
+
+    private void recordCounts(Integer batchId, WorkUnitQueue.UnitCounts counts) {
+        progressRegistry.recordCounts(batchId, counts.processed, counts.evaluated, counts.skipped, counts.failed,
+                counts.cacheHits);
+    }
+
+    /**
+     * 单元结束后回写批次进度，间隔 metrics-interval-ms 合并一次已完成单元的阶段指标；
+     * 所有单元都已结束时结束批次并计算最终指标
+     */
+    private void afterUnit(Integer batchId) {
+        try {
+            BatchMetrics metrics = null;
+            long now = System.currentTimeMillis();
+            if (now - lastMetricsWrite >= metricsIntervalMs) {
+                lastMetricsWrite = now;
+                metrics = metricsCalculator.mergeStates(workUnitQueue.completedMetricStates(batchId));
+            }
+            jdbcTemplate.update(UPDATE_PROGRESS_SQL,
+                    toSummaryJson(workUnitQueue.summarize(batchId), "running", metrics), batchId);
+            finishBatchIfDone(batchId);
+        } catch (Exception e) {
+            log.warn("更新评测批次 {} 进度失败: {}", batchId, e.getMessage());
+        }
+    }
+
+    private void finishBatchIfDone(Integer batchId) {
+        if (!workUnitQueue.finishBatchIfDone(batchId)) {
+            return;
+        }
+        contexts.remove(batchId);
+        WorkUnitQueue.BatchUnitSummary summary = workUnitQueue.summarize(batchId);
+        BatchMetrics metrics = null;
+        try {
+            // 所有单元都有检查点时直接合并，否则重新扫描批次的评测结果
+            if (summary.failedUnits == 0) {
+                metrics = metricsCalculator.mergeStates(workUnitQueue.completedMetricStates(batchId));
+            }
+            if (metrics == null) {
+                metrics = metricsCalculator.compute(batchId);
+            }
+        } catch (Exception e) {
+            log.warn("计算评测批次 {} 指标失败: {}", batchId, e.getMessage());
+        }
+        String phase = summary.failedUnits > 0 ? "failed" : "completed";
+        jdbcTemplate.update(UPDATE_SUMMARY_SQL, toSummaryJson(summary, phase, metrics), batchId);
+        log.info("评测批次 {} 结束（{}）：评测 {}，跳过 {}，失败 {}，失败单元 {}",
+                batchId, phase, summary.evaluated, summary.skipped, summary.failed, summary.failedUnits);
+    }
+
+    /**
+     * 取批次的标准答案和客观题答案表，缓存以批次启动时间区分不同次运行
+     */
+    private BatchContext context(EvaluationBatch batch) {
+        BatchContext context = contexts.get(batch.getBatchId());
+        if (context == null || !Objects.equals(context.startTime, batch.getStartTime())) {
+            ObjectiveScorer.AnswerKey objectiveKey = batch.getEvaluationMethod() == EvaluationBatch.EvaluationMethod.AUTO
+                    && batch.getDatasetVersion() != null
+                    ? objectiveScorer.load(batch.getDatasetVersion().getVersionId())
+                    : objectiveScorer.keyFor(null);
+            context = new BatchContext(batch.getStartTime(), loadStandardAnswers(batch.getBatchId()), objectiveKey);
+            contexts.put(batch.getBatchId(), context);
+        }
+        return context;
+    }
+
+    /**
+     * 评测一个数据块：跳过已评测和缺少标准答案的回答，客观题在当前线程按答案表直接评分，
+     * 其余回答命中缓存的直接复用评分，未命中的提交到评分线程池，完成后单事务批量写入
+     */
+    private void processChunk(WorkUnitQueue.WorkUnit unit, EvaluationBatch batch, List<LlmAnswer> chunk,
+                              Map<Integer, StandardAnswer> standardAnswers, ObjectiveScorer.AnswerKey objectiveKey,
+                              WorkUnitQueue.UnitCounts counts) {
+        List<LlmAnswer> pending = filterPending(batch, chunk, standardAnswers, counts);
+
+        List<Evaluation> results = new ArrayList<>(pending.size());
+        List<LlmAnswer> subjective = new ArrayList<>(pending.size());
+        for (LlmAnswer answer : pending) {
+            Integer questionId = answer.getStandardQuestion().getStandardQuestionId();
+            if (objectiveKey.contains(questionId)) {
+                // 答案表已在内存中，评分比查询评测缓存更快，也不写入缓存
+                results.add(evaluationService.buildEvaluation(answer, standardAnswers.get(questionId), batch));
+            } else {
+                subjective.add(answer);
+            }
+        }
+        int objectiveCount = results.size();
+
+        Map<Integer, String> cacheKeys = cacheKeys(batch, subjective, standardAnswers, KeyPointScorer.SCORER_VERSION);
+        Map<String, EvaluationCache.CachedResult> cached = evaluationCache.getAll(cacheKeys.values());
+        List<CompletableFuture<Evaluation>> futures = new ArrayList<>(subjective.size());
+        for (LlmAnswer answer : subjective) {
+            StandardAnswer standardAnswer = standardAnswers.get(answer.getStandardQuestion().getStandardQuestionId());
+            EvaluationCache.CachedResult hit = cached.get(cacheKeys.get(answer.getLlmAnswerId()));
+            if (hit != null) {
+                results.add(fromCache(batch, answer, standardAnswer, hit));
+                continue;
+            }
+            futures.add(CompletableFuture
+                    .supplyAsync(() -> evaluationService.buildEvaluation(answer, standardAnswer, batch), evaluationExecutor)
+                    .exceptionally(ex -> {
+                        log.warn("回答 {} 评分失败: {}", answer.getLlmAnswerId(), ex.getMessage());
+                        return null;
+                    }));
+        }
+
+        int cacheHits = results.size() - objectiveCount;
+        List<Evaluation> computed = futures.stream()
+                .map(CompletableFuture::join)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        results.addAll(computed);
+        counts.failed += futures.size() - computed.size();
+
+        if (!results.isEmpty()) {
+            writeEvaluations(unit, results);
+            progressRegistry.recordScores(batch.getBatchId(), results);
+        }
+        cacheEvaluations(batch, computed, cacheKeys);
+        counts.cacheHits += cacheHits;
+        counts.evaluated += results.size();
+        counts.processed += pending.size();
+    }
+
+    /**
+     * 过滤掉已评测和缺少标准答案的回答，计入跳过数
+     */
+    private List<LlmAnswer> filterPending(EvaluationBatch batch, List<LlmAnswer> chunk,
+                                          Map<Integer, StandardAnswer> standardAnswers, WorkUnitQueue.UnitCounts counts) {
+        Set<Integer> evaluatedIds = findEvaluatedAnswerIds(batch.getBatchId(), chunk);
+        List<LlmAnswer> pending = new ArrayList<>(chunk.size());
+        for (LlmAnswer answer : chunk) {
+            if (evaluatedIds.contains(answer.getLlmAnswerId())
+                    || !standardAnswers.containsKey(answer.getStandardQuestion().getStandardQuestionId())) {
+                counts.skipped++;
+                counts.processed++;
+            } else {
+                pending.add(answer);
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * 计算每个回答的评测缓存键，缓存关闭时返回空映射
+     */
+    private Map<Integer, String> cacheKeys(EvaluationBatch batch, List<LlmAnswer> answers,
+                                           Map<Integer, StandardAnswer> standardAnswers, String template) {
+        Map<Integer, String> keys = new HashMap<>();
+        if (!evaluationCache.isEnabled()) {
+            return keys;
+        }
+        Integer judgeModelId = batch.getJudgeModel() != null
+                && batch.getEvaluationMethod() == EvaluationBatch.EvaluationMethod.JUDGE_MODEL
+                ? batch.getJudgeModel().getModelId() : null;
+        for (LlmAnswer answer : answers) {
+            StandardAnswer standardAnswer = standardAnswers.get(answer.getStandardQuestion().getStandardQuestionId());
+            keys.put(answer.getLlmAnswerId(), evaluationCache.key(answer.getContent(), standardAnswer,
+                    batch.getEvaluationMethod().name(), judgeModelId, template));
+        }
+        return keys;
+    }
+
+    private Evaluation fromCache(EvaluationBatch batch, LlmAnswer answer, StandardAnswer standardAnswer,
+                                 EvaluationCache.CachedResult cached) {
+        Evaluation evaluation = new Evaluation();
+        evaluation.setLlmAnswer(answer);
+        evaluation.setStandardAnswer(standardAnswer);
+        evaluation.setBatch(batch);
+        evaluation.setMethod(batch.getEvaluationMethod().toString());
+        if (batch.getEvaluationMethod() == EvaluationBatch.EvaluationMethod.JUDGE_MODEL) {
+            evaluation.setJudgeModel(batch.getJudgeModel());
+        }
+        evaluation.setScore(cached.getScore());
+        evaluation.setKeyPointsEvaluation(cached.getKeyPointsEvaluation());
+        evaluation.setComments(cached.getComments());
+        return evaluation;
+    }
+
+    private void cacheEvaluations(EvaluationBatch batch, List<Evaluation> evaluations, Map<Integer, String> cacheKeys) {
+        List<EvaluationCache.Entry> entries = new ArrayList<>(evaluations.size());
+        for (Evaluation evaluation : evaluations) {
+            String key = cacheKeys.get(evaluation.getLlmAnswer().getLlmAnswerId());
+            if (key == null || evaluation.getScore() == null) {
+                continue;
+            }
+            entries.add(new EvaluationCache.Entry(key, batch.getEvaluationMethod().name(),
+                    evaluation.getStandardAnswer().getStandardAnswerId(),
+                    evaluation.getJudgeModel() != null ? evaluation.getJudgeModel().getModelId() : null,
+                    new EvaluationCache.CachedResult(evaluation.getScore(), evaluation.getKeyPointsEvaluation(),
+                            evaluation.getComments())));
+        }
+        evaluationCache.putAll(entries);
+    }
+
+    /**
+     * 将一个数据块中需要评测的回答写入裁判任务队列，已评测和缺少标准答案的回答计为跳过，
+     * 命中缓存的回答直接写入评测结果
+     */
+    private void enqueueJudgeTasks(WorkUnitQueue.WorkUnit unit, EvaluationBatch batch, List<LlmAnswer> chunk,
+                                   Map<Integer, StandardAnswer> standardAnswers, WorkUnitQueue.UnitCounts counts) {
+        List<LlmAnswer> pending = filterPending(batch, chunk, standardAnswers, counts);
+        Map<Integer, String> cacheKeys = cacheKeys(batch, pending, standardAnswers, JudgeModelClient.PROMPT_VERSION);
+        Map<String, EvaluationCache.CachedResult> cached = evaluationCache.getAll(cacheKeys.values());
+
+        List<Evaluation> hits = new ArrayList<>();
+        List<LlmAnswer> misses = new ArrayList<>(pending.size());
+        for (LlmAnswer answer : pending) {
+            EvaluationCache.CachedResult hit = cached.get(cacheKeys.get(answer.getLlmAnswerId()));
+            if (hit != null) {
+                hits.add(fromCache(batch, answer,
+                        standardAnswers.get(answer.getStandardQuestion().getStandardQuestionId()), hit));
+            } else {
+                misses.add(answer);
+            }
+        }
+        if (!hits.isEmpty()) {
+            writeEvaluations(unit, hits);
+            progressRegistry.recordScores(batch.getBatchId(), hits);
+            counts.cacheHits += hits.size();
+            counts.evaluated += hits.size();
+            counts.processed += hits.size();
+        }
+        judgeTaskRunner.enqueue(batch, misses, standardAnswers);
+    }
+
+    /**
+     * 在一个事务中确认仍持有单元租约并写入评测结果，租约已被接管时回滚并抛出 LeaseLostException
+     */
+    private void writeEvaluations(WorkUnitQueue.WorkUnit unit, List<Evaluation> evaluations) {
+        transactionTemplate.executeWithoutResult(status -> {
+            workUnitQueue.holdLease(unit, nodeId, leaseSeconds);
+            insertEvaluations(evaluations);
+        });
+    }
+
+    private void insertEvaluations(List<Evaluation> evaluations) {
+        jdbcTemplate.batchUpdate(INSERT_EVALUATION_SQL, evaluations, evaluations.size(), (ps, evaluation) -> {
+            ps.setInt(1, evaluation.getLlmAnswer().getLlmAnswerId());
+            ps.setInt(2, evaluation.getStandardAnswer().getStandardAnswerId());
+            ps.setBigDecimal(3, evaluation.getScore());
+            ps.setString(4, evaluation.getMethod());
+            ps.setString(5, evaluation.getKeyPointsEvaluation());
+            if (evaluation.getJudgeModel() != null) {
+                ps.setInt(6, evaluation.getJudgeModel().getModelId());
+            } else {
+                ps.setNull(6, Types.INTEGER);
+            }
+            ps.setInt(7, evaluation.getBatch().getBatchId());
+            ps.setString(8, evaluation.getComments());
+        });
+    }
+
+    private Set<Integer> findEvaluatedAnswerIds(Integer batchId, List<LlmAnswer> chunk) {
+        List<Integer> answerIds = chunk.stream().map(LlmAnswer::getLlmAnswerId).collect(Collectors.toList());
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("batchId", batchId)
+                .addValue("answerIds", answerIds);
+        return new HashSet<>(namedParameterJdbcTemplate.queryForList(SELECT_EVALUATED_SQL, params, Integer.class));
+    }
+
+    /**
+     * 按问题ID索引标准答案，同一问题有多个最终答案时取最近更新的
+     */
+    private Map<Integer, StandardAnswer> loadStandardAnswers(Integer batchId) {
+        return standardAnswerRepository.findFinalAnswersByBatchId(batchId).stream()
+                .filter(sa -> sa.getStandardQuestionId() != null)
+                .collect(Collectors.toMap(
+                        StandardAnswer::getStandardQuestionId,
+                        sa -> sa,
+                        (a, b) -> isNewer(b, a) ? b : a));
+    }
+
+    private boolean isNewer(StandardAnswer candidate, StandardAnswer current) {
+        if (candidate.getUpdatedAt() == null) {
+            return false;
+        }
+        return current.getUpdatedAt() == null || candidate.getUpdatedAt().isAfter(current.getUpdatedAt());
+    }
+
+    private String toSummaryJson(WorkUnitQueue.BatchUnitSummary units, String phase, BatchMetrics metrics) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("phase", phase);
+        summary.put("total", units.answers);
+        summary.put("processed", units.processed);
+        summary.put("evaluated", units.evaluated);
+        summary.put("skipped", units.skipped);
+        summary.put("failed", units.failed);
+        summary.put("cacheHits", units.cacheHits);
+        summary.put("progress", units.answers > 0 ? (double) units.processed / units.answers : 1.0);
+
+        Map<String, Object> unitCounts = new LinkedHashMap<>();
+        unitCounts.put("total", units.units);
+        unitCounts.put("pending", units.pendingUnits);
+        unitCounts.put("leased", units.leasedUnits);
+        unitCounts.put("completed", units.completedUnits);
+        unitCounts.put("failed", units.failedUnits);
+        summary.put("units", unitCounts);
+        summary.put("checkpointAnswerId", units.checkpointAnswerId);
+        summary.put("activeNodes", units.activeNodes);
+        if (units.lastError != null) {
+            summary.put("error", units.lastError);
+        }
+        if (metrics != null) {
+            summary.put("metrics", metrics.toMap());
+        }
+        summary.put("updatedAt", LocalDateTime.now().toString());
+        try {
+            return objectMapper.writeValueAsString(summary);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 一次批次运行的标准答案和客观题答案表缓存
+     */
+    private static final class BatchContext {
+        final LocalDateTime startTime;
+        final Map<Integer, StandardAnswer> standardAnswers;
+        final ObjectiveScorer.AnswerKey objectiveKey;
+
+        BatchContext(LocalDateTime startTime, Map<Integer, StandardAnswer> standardAnswers,
+                     ObjectiveScorer.AnswerKey objectiveKey) {
+            this.startTime = startTime;
+            this.standardAnswers = standardAnswers;
+            this.objectiveKey = objectiveKey;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.llm.eval.service.impl;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 批次评测指标的可合并累加器
+ *
+ * 均值和方差按 Welford 算法累加，合并时使用并行方差公式；分位数使用按 0.01 分精度计数的桶，
+ * 评分为 0-10 分、两位小数，因此分位数是精确值且桶数组可直接相加合并。
+ * 各数据块可以分别累加后合并到批次的累加器中。非线程安全，由调用方保证单线程访问。
+ * {@link #toState()} 导出无损的累加状态，可持久化后用 {@link #fromState(Map)} 恢复并继续合并。
+ */
+public class BatchMetrics {
+
+    private static final int SCORE_SCALE = 100;
+    private static final int MAX_SCORE = 10;
+    private static final int QUANTILE_BUCKETS = MAX_SCORE * SCORE_SCALE + 1;
+    private static final int HISTOGRAM_BINS = MAX_SCORE;
+    private static final String UNKNOWN = "未分类";
+
+    private final double[] passThresholds;
+    private final Moments overall;
+    private final long[] histogram = new long[HISTOGRAM_BINS];
+    private final long[] quantileBuckets = new long[QUANTILE_BUCKETS];
+    private final Map<String, Moments> byCategory = new TreeMap<>();
+    private final Map<String, Moments> byDifficulty = new TreeMap<>();
+    private final Map<String, Long> keyPointStatuses = new TreeMap<>();
+    private long unscored;
+    private long keyPointEvaluations;
+
+    public BatchMetrics(double[] passThresholds) {
+        this.passThresholds = passThresholds.clone();
+        this.overall = new Moments(this.passThresholds.length);
+    }
+
+    /**
+     * 累加一条评测结果
+     *
+     * @param score 评分，为 null 时只计入未评分数
+     * @param category 问题分类名称
+     * @param difficulty 问题难度
+     */
+    public void add(BigDecimal score, String category, String difficulty) {
+        if (score == null) {
+            unscored++;
+            return;
+        }
+        double value = Math.max(0, Math.min(MAX_SCORE, score.doubleValue()));
+        overall.add(value, passThresholds);
+        byCategory.computeIfAbsent(category != null ? category : UNKNOWN, k -> new Moments(passThresholds.length))
+                .add(value, passThresholds);
+        byDifficulty.computeIfAbsent(difficulty != null ? difficulty : UNKNOWN, k -> new Moments(passThresholds.length))
+                .add(value, passThresholds);
+        histogram[Math.min(HISTOGRAM_BINS - 1, (int) value)]++;
+        quantileBuckets[(int) Math.round(value * SCORE_SCALE)]++;
+    }
+
+    /**
+     * 累加一条评测的关键点匹配状态
+     */
+    public void addKeyPoints(Map<String, Integer> statusCounts) {
+        if (statusCounts.isEmpty()) {
+            return;
+        }
+        keyPointEvaluations++;
+        statusCounts.forEach((status, count) -> keyPointStatuses.merge(status, (long) count, Long::sum));
+    }
+
+    /**
+     * 将另一个累加器合并到当前累加器，两者的及格线必须相同
+     */
+    public void merge(BatchMetrics other) {
+        overall.merge(other.overall);
+        for (int i = 0; i < HISTOGRAM_BINS; i++) {
+            histogram[i] += other.histogram[i];
+        }
+        for (int i = 0; i < QUANTILE_BUCKETS; i++) {
+            quantileBuckets[i] += other.quantileBuckets[i];
+        }
+        other.byCategory.forEach((name, moments) ->
+                byCategory.computeIfAbsent(name, k -> new Moments(passThresholds.length)).merge(moments));
+        other.byDifficulty.forEach((name, moments) ->
+                byDifficulty.computeIfAbsent(name, k -> new Moments(passThresholds.length)).merge(moments));
+        other.keyPointStatuses.forEach((status, count) -> keyPointStatuses.merge(status, count, Long::sum));
+        unscored += other.unscored;
+        keyPointEvaluations += other.keyPointEvaluations;
+    }
+
+    public long getCount() {
+        return overall.count;
+    }
+
+    /**
+     * 分位数（最近秩法），没有评分时返回 null
+     */
+    public Double quantile(double q) {
+        if (overall.count == 0) {
+            return null;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * overall.count));
+        long cumulative = 0;
+        for (int i = 0; i < QUANTILE_BUCKETS; i++) {
+            cumulative += quantileBuckets[i];
+            if (cumulative >= rank) {
+                return (double) i / SCORE_SCALE;
+            }
+        }
+        return (double) MAX_SCORE;
+    }
+
+    /**
+     * 转换为写入 metrics_summary 的结构
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> metrics = overall.toMap(passThresholds);
+        metrics.put("unscored", unscored);
+
+        Map<String, Object> quantiles = new LinkedHashMap<>();
+        quantiles.put("p50", quantile(0.50));
+        quantiles.put("p90", quantile(0.90));
+        quantiles.put("p99", quantile(0.99));
+        metrics.put("quantiles", quantiles);
+
+        List<Map<String, Object>> bins = new ArrayList<>(HISTOGRAM_BINS);
+        for (int i = 0; i < HISTOGRAM_BINS; i++) {
+            Map<String, Object> bin = new LinkedHashMap<>();
+            bin.put("from", i);
+            bin.put("to", i + 1);
+            bin.put("count", histogram[i]);
+            bins.add(bin);
+        }
+        metrics.put("histogram", bins);
+
+        Map<String, Object> categories = new LinkedHashMap<>();
+        byCategory.forEach((name, moments) -> categories.put(name, moments.toMap(passThresholds)));
+        metrics.put("byCategory", categories);
+        Map<String, Object> difficulties = new LinkedHashMap<>();
+        byDifficulty.forEach((name, moments) -> difficulties.put(name, moments.toMap(passThresholds)));
+        metrics.put("byDifficulty", difficulties);
+
+        long keyPointTotal = keyPointStatuses.values().stream().mapToLong(Long::longValue).sum();
+        Map<String, Object> keyPoints = new LinkedHashMap<>();
+        keyPoints.put("evaluations", keyPointEvaluations);
+        keyPoints.put("total", keyPointTotal);
+        Map<String, Object> ratios = new LinkedHashMap<>();
+        keyPointStatuses.forEach((status, count) -> ratios.put(status, ratio(count, keyPointTotal)));
+        keyPoints.put("counts", new LinkedHashMap<>(keyPointStatuses));
+        keyPoints.put("ratios", ratios);
+        metrics.put("keyPoints", keyPoints);
+        return metrics;
+    }
+
+    /**
+     * 导出累加状态，只包含可 JSON 序列化的数字、字符串、列表和映射；分位数桶只记录非零项
+     */
+    public Map<String, Object> toState() {
+        Map<String, Object> state = new LinkedHashMap<>();
+        List<Double> thresholds = new ArrayList<>(passThresholds.length);
+        for (double threshold : passThresholds) {
+            thresholds.add(threshold);
+        }
+        state.put("passThresholds", thresholds);
+        state.put("overall", overall.toState());
+        state.put("histogram", toList(histogram));
+        Map<String, Long> buckets = new LinkedHashMap<>();
+        for (int i = 0; i < QUANTILE_BUCKETS; i++) {
+            if (quantileBuckets[i] > 0) {
+                buckets.put(String.valueOf(i), quantileBuckets[i]);
+            }
+        }
+        state.put("quantileBuckets", buckets);
+        Map<String, Object> categories = new LinkedHashMap<>();
+        byCategory.forEach((name, moments) -> categories.put(name, moments.toState()));
+        state.put("byCategory", categories);
+        Map<String, Object> difficulties = new LinkedHashMap<>();
+        byDifficulty.forEach((name, moments) -> difficulties.put(name, moments.toState()));
+        state.put("byDifficulty", difficulties);
+        state.put("keyPointStatuses", new LinkedHashMap<>(keyPointStatuses));
+        state.put("unscored", unscored);
+        state.put("keyPointEvaluations", keyPointEvaluations);
+        return state;
+    }
+
+    /**
+     * 从 {@link #toState()} 导出并经 JSON 往返的状态恢复累加器
+     *
+     * @throws IllegalArgumentException 状态结构不完整
+     */
+    @SuppressWarnings("unchecked")
+    public static BatchMetrics fromState(Map<String, Object> state) {
+        try {
+            List<Number> thresholds = (List<Number>) state.get("passThresholds");
+            double[] passThresholds = new double[thresholds.size()];
+            for (int i = 0; i < passThresholds.length; i++) {
+                passThresholds[i] = thresholds.get(i).doubleValue();
+            }
+            BatchMetrics metrics = new BatchMetrics(passThresholds);
+            metrics.overall.restore((Map<String, Object>) state.get("overall"));
+            List<Number> histogram = (List<Number>) state.get("histogram");
+            for (int i = 0; i < HISTOGRAM_BINS; i++) {
+                metrics.histogram[i] = histogram.get(i).longValue();
+            }
+            ((Map<String, Number>) state.get("quantileBuckets")).forEach((index, count) ->
+                    metrics.quantileBuckets[Integer.parseInt(index)] = count.longValue());
+            ((Map<String, Map<String, Object>>) state.get("byCategory")).forEach((name, moments) ->
+                    metrics.byCategory.computeIfAbsent(name, k -> new Moments(passThresholds.length)).restore(moments));
+            ((Map<String, Map<String, Object>>) state.get("byDifficulty")).forEach((name, moments) ->
+                    metrics.byDifficulty.computeIfAbsent(name, k -> new Moments(passThresholds.length)).restore(moments));
+            ((Map<String, Number>) state.get("keyPointStatuses")).forEach((status, count) ->
+                    metrics.keyPointStatuses.put(status, count.longValue()));
+            metrics.unscored = ((Number) state.get("unscored")).longValue();
+            metrics.keyPointEvaluations = ((Number) state.get("keyPointEvaluations")).longValue();
+            return metrics;
+        } catch (ClassCastException | NullPointerException | IndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("指标状态格式不正确: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 判断两个累加器的及格线是否相同，不同时不能合并
+     */
+    public boolean isCompatibleWith(BatchMetrics other) {
+        return Arrays.equals(passThresholds, other.passThresholds);
+    }
+
+    private static List<Long> toList(long[] values) {
+        List<Long> list = new ArrayList<>(values.length);
+        for (long value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    private static Double ratio(long part, long total) {
+        return total > 0 ? round((double) part / total, 4) : null;
+    }
+
+    private static Double round(double value, int scale) {
+        return BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    /**
+     * 计数、均值、二阶中心矩、极值与各及格线的通过数
+     */
+    private static final class Moments {
+        long count;
+        double mean;
+        double m2;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        final long[] passed;
+
+        Moments(int thresholds) {
+            this.passed = new long[thresholds];
+        }
+
+        void add(double value, double[] passThresholds) {
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            for (int i = 0; i < passThresholds.length; i++) {
+                if (value >= passThresholds[i]) {
+                    passed[i]++;
+                }
+            }
+        }
+
+        void merge(Moments other) {
+            if (other.count == 0) {
+                return;
+            }
+            long total = count + other.count;
+            double delta = other.mean - mean;
+            mean += delta * other.count / total;
+            m2 += other.m2 + delta * delta * count * other.count / total;
+            count = total;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            for (int i = 0; i < passed.length; i++) {
+                passed[i] += other.passed[i];
+            }
+        }
+
+        Map<String, Object> toState() {
+            Map<String, Object> state = new LinkedHashMap<>();
+            state.put("count", count);
+            state.put("mean", mean);
+            state.put("m2", m2);
+            if (count > 0) {
+                state.put("min", min);
+                state.put("max", max);
+            }
+            state.put("passed", toList(passed));
+            return state;
+        }
+
+        @SuppressWarnings("unchecked")
+        void restore(Map<String, Object> state) {
+            count = ((Number) state.get("count")).longValue();
+            mean = ((Number) state.get("mean")).doubleValue();
+            m2 = ((Number) state.get("m2")).doubleValue();
+            if (count > 0) {
+                min = ((Number) state.get("min")).doubleValue();
+                max = ((Number) state.get("max")).doubleValue();
+            }
+            List<Number> passedCounts = (List<Number>) state.get("passed");
+            for (int i = 0; i < passed.length; i++) {
+                passed[i] = passedCounts.get(i).longValue();
+            }
+        }
+
+        Map<String, Object> toMap(double[] passThresholds) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("count", count);
+            map.put("mean", count > 0 ? round(mean, 4) : null);
+            map.put("stddev", count > 0 ? round(Math.sqrt(m2 / count), 4) : null);
+            map.put("min", count > 0 ? min : null);
+            map.put("max", count > 0 ? max : null);
+            Map<String, Object> passRates = new LinkedHashMap<>();
+            for (int i = 0; i < passThresholds.length; i++) {
+                passRates.put(String.valueOf(passThresholds[i]), ratio(passed[i], count));
+            }
+            map.put("passRates", passRates);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.llm.eval.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批次评测指标计算
+ *
+ * 按评测ID分块扫描批次的评测结果，只读取评分、关键点评估和问题的分类、难度，
+ * 每块累加为一个 {@link BatchMetrics} 后合并到批次结果中。
+ * 批次运行时每个工作单元只统计自己回答区间内的评测，状态随单元持久化，合并全部单元即为批次指标。
+ */
+@Component
+@Slf4j
+public class BatchMetricsCalculator {
+
+    private static final String SELECT_EVALUATION_CHUNK_SQL =
+            "SELECT e.evaluation_id, e.score, e.key_points_evaluation, qc.name AS category, sq.difficulty " +
+            "FROM evaluations e " +
+            "JOIN standard_answers sa ON sa.standard_answer_id = e.standard_answer_id " +
+            "JOIN standard_questions sq ON sq.standard_question_id = sa.standard_question_id " +
+            "LEFT JOIN question_categories qc ON qc.category_id = sq.category_id " +
+            "WHERE e.batch_id = ? AND e.evaluation_id > ? " +
+            "ORDER BY e.evaluation_id LIMIT ?";
+
+    private static final String SELECT_RANGE_EVALUATIONS_SQL =
+            "SELECT e.score, e.key_points_evaluation, qc.name AS category, sq.difficulty " +
+            "FROM evaluations e " +
+            "JOIN standard_answers sa ON sa.standard_answer_id = e.standard_answer_id " +
+            "JOIN standard_questions sq ON sq.standard_question_id = sa.standard_question_id " +
+            "LEFT JOIN question_categories qc ON qc.category_id = sq.category_id " +
+            "WHERE e.batch_id = ? AND e.llm_answer_id BETWEEN ? AND ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${evaluation.metrics.pass-thresholds:6,8}")
+    private double[] passThresholds;
+
+    @Value("${evaluation.metrics.chunk-size:5000}")
+    private int chunkSize;
+
+    @Autowired
+    public BatchMetricsCalculator(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public BatchMetrics newMetrics() {
+        return new BatchMetrics(passThresholds);
+    }
+
+    /**
+     * 一次扫描计算批次当前全部评测结果的指标
+     */
+    public BatchMetrics compute(Integer batchId) {
+        BatchMetrics metrics = newMetrics();
+        int[] lastEvaluationId = {0};
+        while (true) {
+            BatchMetrics chunk = newMetrics();
+            int[] rows = {0};
+            jdbcTemplate.query(SELECT_EVALUATION_CHUNK_SQL, rs -> {
+                rows[0]++;
+                lastEvaluationId[0] = rs.getInt("evaluation_id");
+                chunk.add(rs.getBigDecimal("score"), rs.getString("category"), rs.getString("difficulty"));
+                chunk.addKeyPoints(keyPointStatusCounts(rs.getString("key_points_evaluation")));
+            }, batchId, lastEvaluationId[0], chunkSize);
+            metrics.merge(chunk);
+            if (rows[0] < chunkSize) {
+                return metrics;
+            }
+        }
+    }
+
+    /**
+     * 统计批次内回答ID区间 [firstAnswerId, lastAnswerId] 的评测结果指标，用于工作单元的检查点
+     */
+    public BatchMetrics compute(Integer batchId, int firstAnswerId, int lastAnswerId) {
+        BatchMetrics metrics = newMetrics();
+        jdbcTemplate.query(SELECT_RANGE_EVALUATIONS_SQL, rs -> {
+            metrics.add(rs.getBigDecimal("score"), rs.getString("category"), rs.getString("difficulty"));
+            metrics.addKeyPoints(keyPointStatusCounts(rs.getString("key_points_evaluation")));
+        }, batchId, firstAnswerId, lastAnswerId);
+        return metrics;
+    }
+
+    public String toStateJson(BatchMetrics metrics) {
+        try {
+            return objectMapper.writeValueAsString(metrics.toState());
+        } catch (JsonProcessingException e) {
+            log.warn("指标状态序列化失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 合并一组持久化的指标状态
+     *
+     * @return 合并结果；任一状态缺失、无法解析或及格线与当前配置不同时返回 null，由调用方重新统计
+     */
+    public BatchMetrics mergeStates(List<String> states) {
+        BatchMetrics merged = newMetrics();
+        for (String state : states) {
+            if (state == null) {
+                return null;
+            }
+            try {
+                BatchMetrics metrics = BatchMetrics.fromState(
+                        objectMapper.readValue(state, new TypeReference<Map<String, Object>>() { }));
+                if (!merged.isCompatibleWith(metrics)) {
+                    return null;
+                }
+                merged.merge(metrics);
+            } catch (Exception e) {
+                log.warn("指标状态无法解析: {}", e.getMessage());
+                return null;
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 统计关键点评估中各状态的数量，兼容
+     * [{"status": "MATCHED", ...}] 和 {"matched": [..], "partial": [..], "missed": [..]} 两种格式
+     */
+    private Map<String, Integer> keyPointStatusCounts(String keyPointsEvaluation) {
+        if (keyPointsEvaluation == null || keyPointsEvaluation.isBlank()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Integer> counts = new HashMap<>();
+        try {
+            JsonNode root = objectMapper.readTree(keyPointsEvaluation);
+            if (root.isArray()) {
+                for (JsonNode keyPoint : root) {
+                    String status = keyPoint.path("status").asText(null);
+                    if (status != null) {
+                        counts.merge(status.toUpperCase(), 1, Integer::sum);
+                    }
+                }
+            } else if (root.isObject()) {
+                Iterator<Map.Entry<String, JsonNode>> fields = root.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    if (field.getValue().isArray() && field.getValue().size() > 0) {
+                        counts.merge(field.getKey().toUpperCase(), field.getValue().size(), Integer::sum);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.debug("关键点评估无法解析: {}", e.getMessage());
+        }
+        return counts;
+    }
+}
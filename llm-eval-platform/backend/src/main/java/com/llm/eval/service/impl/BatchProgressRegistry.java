@@ -0,0 +1,400 @@
+package com.llm.eval.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.llm.eval.model.Evaluation;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批次运行进度的内存登记表与 SSE 推送
+ *
+ * 本节点的工作线程每写入一批评测就累加计数和评分，只操作内存；批次的全局进度（各节点已完成单元的汇总）
+ * 仅对有订阅者的批次每隔 progress.cluster-refresh-ms 从工作单元表读取一次，与订阅者数量无关。
+ * 推送线程每隔 progress.push-interval-ms 为每个被订阅的批次生成一次快照，序列化后发送给该批次的所有订阅者。
+ * 滚动评分统计基于本节点写入的评测，工作单元在各节点间交错领取，可视为整个批次的样本。
+ */
+@Component
+@Slf4j
+public class BatchProgressRegistry {
+
+    private static final String SELECT_BATCH_STATUS_SQL =
+            "SELECT status FROM evaluation_batches WHERE batch_id = ?";
+
+    // 吞吐量按最近一分钟的采样计算
+    private static final long THROUGHPUT_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(60);
+    // 没有订阅者且超过该时长未更新的批次进度被移除
+    private static final long IDLE_EVICT_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private final WorkUnitQueue workUnitQueue;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolTaskScheduler progressPushScheduler;
+
+    @Value("${progress.push-interval-ms:1000}")
+    private long pushIntervalMs;
+
+    @Value("${progress.cluster-refresh-ms:2000}")
+    private long clusterRefreshMs;
+
+    @Value("${progress.rolling-window:1000}")
+    private int rollingWindow;
+
+    @Value("${progress.sse-timeout-ms:1800000}")
+    private long sseTimeoutMs;
+
+    @Value("${progress.max-subscribers:1000}")
+    private int maxSubscribers;
+
+    private final Map<Integer, LiveProgress> batches = new ConcurrentHashMap<>();
+    private final Map<Integer, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    @Autowired
+    public BatchProgressRegistry(WorkUnitQueue workUnitQueue,
+                                 JdbcTemplate jdbcTemplate,
+                                 ObjectMapper objectMapper,
+                                 @Qualifier("progressPushScheduler") ThreadPoolTaskScheduler progressPushScheduler) {
+        this.workUnitQueue = workUnitQueue;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.progressPushScheduler = progressPushScheduler;
+    }
+
+    @PostConstruct
+    public void startPushing() {
+        progressPushScheduler.scheduleAtFixedRate(this::push, Duration.ofMillis(pushIntervalMs));
+    }
+
+    /**
+     * 批次在本节点启动或恢复时清空本节点的计数
+     */
+    public void reset(Integer batchId) {
+        batches.put(batchId, new LiveProgress(rollingWindow));
+    }
+
+    /**
+     * 累加本节点处理的回答数
+     */
+    public void recordCounts(Integer batchId, long processed, long evaluated, long skipped, long failed, long cacheHits) {
+        progress(batchId).recordCounts(processed, evaluated, skipped, failed, cacheHits);
+    }
+
+    /**
+     * 累加本节点写入的评测评分
+     */
+    public void recordScores(Integer batchId, List<Evaluation> evaluations) {
+        progress(batchId).recordScores(evaluations);
+    }
+
+    /**
+     * 获取批次当前进度快照，全局进度超过刷新间隔时重新读取
+     */
+    public Map<String, Object> snapshot(Integer batchId) {
+        LiveProgress progress = progress(batchId);
+        refreshIfStale(batchId, progress);
+        return progress.toMap(batchId);
+    }
+
+    /**
+     * 订阅批次进度，立即推送一次当前快照，之后按推送间隔推送直到批次结束或连接断开
+     *
+     * @throws IllegalStateException 本节点的订阅连接数已达上限
+     */
+    public SseEmitter subscribe(Integer batchId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new IllegalStateException("进度订阅连接过多，请稍后重试");
+        }
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        // 与推送线程移除空列表在同一个键上原子执行
+        List<SseEmitter> emitters = subscribers.compute(batchId, (k, list) -> {
+            List<SseEmitter> updated = list != null ? list : new CopyOnWriteArrayList<>();
+            updated.add(emitter);
+            return updated;
+        });
+        Runnable remove = () -> {
+            if (emitters.remove(emitter)) {
+                subscriberCount.decrementAndGet();
+            }
+        };
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(ex -> remove.run());
+
+        try {
+            Map<String, Object> snapshot = snapshot(batchId);
+            send(emitter, toJson(snapshot));
+            if (Boolean.TRUE.equals(snapshot.get("finished"))) {
+                emitter.complete();
+            }
+        } catch (Exception e) {
+            remove.run();
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    /**
+     * 为每个被订阅的批次生成一次快照并推送，批次结束后推送最终快照并关闭连接
+     */
+    private void push() {
+        try {
+            for (Map.Entry<Integer, List<SseEmitter>> entry : subscribers.entrySet()) {
+                List<SseEmitter> emitters = entry.getValue();
+                if (emitters.isEmpty()) {
+                    subscribers.computeIfPresent(entry.getKey(), (k, list) -> list.isEmpty() ? null : list);
+                    continue;
+                }
+                Map<String, Object> snapshot = snapshot(entry.getKey());
+                String json = toJson(snapshot);
+                boolean finished = Boolean.TRUE.equals(snapshot.get("finished"));
+                for (SseEmitter emitter : emitters) {
+                    try {
+                        send(emitter, json);
+                        if (finished) {
+                            emitter.complete();
+                        }
+                    } catch (IOException | IllegalStateException e) {
+                        // 客户端已断开，由 onError/onCompletion 回调移除
+                        emitter.completeWithError(e);
+                    }
+                }
+            }
+            evictIdle();
+        } catch (Exception e) {
+            log.warn("推送批次进度失败: {}", e.getMessage());
+        }
+    }
+
+    private void send(SseEmitter emitter, String json) throws IOException {
+        emitter.send(SseEmitter.event().name("progress").data(json, MediaType.APPLICATION_JSON));
+    }
+
+    private void evictIdle() {
+        long now = System.nanoTime();
+        batches.entrySet().removeIf(entry -> !subscribers.containsKey(entry.getKey())
+                && now - entry.getValue().lastUpdated() > IDLE_EVICT_NANOS);
+    }
+
+    private LiveProgress progress(Integer batchId) {
+        return batches.computeIfAbsent(batchId, k -> new LiveProgress(rollingWindow));
+    }
+
+    private void refreshIfStale(Integer batchId, LiveProgress progress) {
+        if (!progress.claimRefresh(TimeUnit.MILLISECONDS.toNanos(clusterRefreshMs))) {
+            return;
+        }
+        try {
+            List<String> statuses = jdbcTemplate.queryForList(SELECT_BATCH_STATUS_SQL, String.class, batchId);
+            String status = statuses.isEmpty() || statuses.get(0) == null ? null : statuses.get(0).toUpperCase();
+            progress.updateCluster(workUnitQueue.summarize(batchId), status);
+        } catch (Exception e) {
+            log.warn("读取评测批次 {} 进度失败: {}", batchId, e.getMessage());
+        }
+    }
+
+    private String toJson(Map<String, Object> snapshot) {
+        try {
+            return objectMapper.writeValueAsString(snapshot);
+        } catch (JsonProcessingException e) {
+            return "{}";
+        }
+    }
+
+    /**
+     * 单个批次的进度：本节点的实时计数与滚动评分，以及最近一次读取的全局进度
+     */
+    private static final class LiveProgress {
+        // 本节点计数
+        long nodeProcessed;
+        long nodeEvaluated;
+        long nodeSkipped;
+        long nodeFailed;
+        long nodeCacheHits;
+        final Deque<long[]> nodeSamples = new ArrayDeque<>();
+
+        // 本节点评分：累计均值与最近 rollingWindow 个评分的环形缓冲
+        long scoreCount;
+        double scoreMean;
+        double scoreMin = Double.POSITIVE_INFINITY;
+        double scoreMax = Double.NEGATIVE_INFINITY;
+        final double[] recentScores;
+        int recentSize;
+        int recentNext;
+
+        // 全局进度
+        WorkUnitQueue.BatchUnitSummary cluster;
+        String status;
+        final Deque<long[]> clusterSamples = new ArrayDeque<>();
+        long lastRefresh;
+        long lastUpdated = System.nanoTime();
+
+        LiveProgress(int rollingWindow) {
+            this.recentScores = new double[Math.max(1, rollingWindow)];
+        }
+
+        synchronized void recordCounts(long processed, long evaluated, long skipped, long failed, long cacheHits) {
+            nodeProcessed += processed;
+            nodeEvaluated += evaluated;
+            nodeSkipped += skipped;
+            nodeFailed += failed;
+            nodeCacheHits += cacheHits;
+            lastUpdated = System.nanoTime();
+            addSample(nodeSamples, lastUpdated, nodeProcessed);
+        }
+
+        synchronized void recordScores(List<Evaluation> evaluations) {
+            for (Evaluation evaluation : evaluations) {
+                if (evaluation.getScore() == null) {
+                    continue;
+                }
+                double score = evaluation.getScore().doubleValue();
+                scoreCount++;
+                scoreMean += (score - scoreMean) / scoreCount;
+                scoreMin = Math.min(scoreMin, score);
+                scoreMax = Math.max(scoreMax, score);
+                recentScores[recentNext] = score;
+                recentNext = (recentNext + 1) % recentScores.length;
+                recentSize = Math.min(recentSize + 1, recentScores.length);
+            }
+            lastUpdated = System.nanoTime();
+        }
+
+        /**
+         * 距上次读取全局进度超过刷新间隔时占用本次读取，保证同一时刻只有一个线程访问数据库
+         */
+        synchronized boolean claimRefresh(long intervalNanos) {
+            long now = System.nanoTime();
+            if (lastRefresh != 0 && now - lastRefresh < intervalNanos) {
+                return false;
+            }
+            lastRefresh = now;
+            return true;
+        }
+
+        synchronized void updateCluster(WorkUnitQueue.BatchUnitSummary summary, String batchStatus) {
+            if (cluster != null && summary.processed < cluster.processed) {
+                // 批次被重新启动
+                clusterSamples.clear();
+            }
+            cluster = summary;
+            status = batchStatus;
+            addSample(clusterSamples, System.nanoTime(), summary.processed);
+        }
+
+        synchronized long lastUpdated() {
+            return Math.max(lastUpdated, lastRefresh);
+        }
+
+        synchronized Map<String, Object> toMap(Integer batchId) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("batchId", batchId);
+            map.put("status", status);
+            boolean finished = "COMPLETED".equals(status) || "FAILED".equals(status);
+            map.put("finished", finished);
+            if (cluster != null) {
+                map.put("total", cluster.answers);
+                map.put("processed", cluster.processed);
+                map.put("evaluated", cluster.evaluated);
+                map.put("skipped", cluster.skipped);
+                map.put("failed", cluster.failed);
+                map.put("cacheHits", cluster.cacheHits);
+                map.put("progress", cluster.answers > 0 ? (double) cluster.processed / cluster.answers : 1.0);
+                Map<String, Object> units = new LinkedHashMap<>();
+                units.put("total", cluster.units);
+                units.put("pending", cluster.pendingUnits);
+                units.put("leased", cluster.leasedUnits);
+                units.put("completed", cluster.completedUnits);
+                units.put("failed", cluster.failedUnits);
+                map.put("units", units);
+                map.put("activeNodes", cluster.activeNodes);
+                map.put("checkpointAnswerId", cluster.checkpointAnswerId);
+
+                Double throughput = rate(clusterSamples);
+                map.put("throughput", throughput);
+                long remaining = Math.max(0, cluster.answers - cluster.processed);
+                map.put("etaSeconds", finished ? Long.valueOf(0)
+                        : throughput != null && throughput > 0 ? Long.valueOf(Math.round(remaining / throughput)) : null);
+            }
+
+            addSample(nodeSamples, System.nanoTime(), nodeProcessed);
+            Map<String, Object> node = new LinkedHashMap<>();
+            node.put("processed", nodeProcessed);
+            node.put("evaluated", nodeEvaluated);
+            node.put("skipped", nodeSkipped);
+            node.put("failed", nodeFailed);
+            node.put("cacheHits", nodeCacheHits);
+            node.put("throughput", rate(nodeSamples));
+            map.put("node", node);
+
+            Map<String, Object> scores = new LinkedHashMap<>();
+            scores.put("count", scoreCount);
+            scores.put("mean", scoreCount > 0 ? round(scoreMean) : null);
+            scores.put("min", scoreCount > 0 ? scoreMin : null);
+            scores.put("max", scoreCount > 0 ? scoreMax : null);
+            scores.put("rollingCount", recentSize);
+            if (recentSize > 0) {
+                double sum = 0;
+                for (int i = 0; i < recentSize; i++) {
+                    sum += recentScores[i];
+                }
+                double mean = sum / recentSize;
+                double squares = 0;
+                for (int i = 0; i < recentSize; i++) {
+                    squares += (recentScores[i] - mean) * (recentScores[i] - mean);
+                }
+                scores.put("rollingMean", round(mean));
+                scores.put("rollingStddev", round(Math.sqrt(squares / recentSize)));
+            }
+            map.put("scores", scores);
+            map.put("updatedAt", LocalDateTime.now().toString());
+            return map;
+        }
+
+        private static void addSample(Deque<long[]> samples, long now, long value) {
+            samples.addLast(new long[] {now, value});
+            while (samples.size() > 2 && now - samples.peekFirst()[0] > THROUGHPUT_WINDOW_NANOS) {
+                samples.pollFirst();
+            }
+        }
+
+        /**
+         * 采样窗口内的平均处理速度（个/秒），样本不足时返回 null
+         */
+        private static Double rate(Deque<long[]> samples) {
+            if (samples.size() < 2) {
+                return null;
+            }
+            long[] first = samples.peekFirst();
+            long[] last = samples.peekLast();
+            double seconds = (last[0] - first[0]) / 1e9;
+            return seconds > 0 ? round((last[1] - first[1]) / seconds) : null;
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 10000) / 10000.0;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.llm.eval.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+
+/**
+ * 本节点标识，用作评测工作单元、导入任务和回答生成批次的租约持有者
+ * 未配置 evaluation.cluster.node-id 时使用主机名和进程号
+ */
+@Component
+public class ClusterNode {
+
+    private final String id;
+
+    public ClusterNode(@Value("${evaluation.cluster.node-id:}") String configuredId) {
+        this.id = configuredId != null && !configuredId.isBlank() ? configuredId.trim() : defaultId();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    private static String defaultId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        return host + "-" + ProcessHandle.current().pid();
+    }
+}
@@ -0,0 +1,114 @@
+package com.llm.eval.service.impl;
+
+import com.llm.eval.util.ContentFingerprint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 问题内容指纹回填任务
+ *
+ * 新写入的问题在写入时计算指纹，此任务只补齐指纹为 NULL 的存量记录（含软删除的记录）。
+ * 服务启动后在导入线程池中执行，按主键分批读取、计算并批量更新，可重复执行。
+ */
+@Component
+@Slf4j
+public class ContentFingerprintBackfill {
+
+    private static final String SELECT_RAW_QUESTIONS_SQL =
+            "SELECT question_id, question_body FROM raw_questions " +
+            "WHERE content_fingerprint IS NULL AND question_id > ? ORDER BY question_id LIMIT ?";
+
+    // 显式保留 updated_at，避免 ON UPDATE CURRENT_TIMESTAMP 把回填当成内容修改；
+    // 期间被应用更新过的记录已带有指纹，不再覆盖
+    private static final String UPDATE_RAW_QUESTION_SQL =
+            "UPDATE raw_questions SET content_fingerprint = ?, updated_at = updated_at " +
+            "WHERE question_id = ? AND content_fingerprint IS NULL";
+
+    private static final String SELECT_STANDARD_QUESTIONS_SQL =
+            "SELECT standard_question_id, question FROM standard_questions " +
+            "WHERE content_fingerprint IS NULL AND standard_question_id > ? ORDER BY standard_question_id LIMIT ?";
+
+    private static final String UPDATE_STANDARD_QUESTION_SQL =
+            "UPDATE standard_questions SET content_fingerprint = ?, updated_at = updated_at " +
+            "WHERE standard_question_id = ? AND content_fingerprint IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ThreadPoolTaskExecutor importExecutor;
+
+    @Value("${fingerprint.backfill.enabled:true}")
+    private boolean enabled;
+
+    @Value("${fingerprint.backfill.batch-size:1000}")
+    private int batchSize;
+
+    @Autowired
+    public ContentFingerprintBackfill(JdbcTemplate jdbcTemplate,
+                                      @Qualifier("importExecutor") ThreadPoolTaskExecutor importExecutor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.importExecutor = importExecutor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startBackfill() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            importExecutor.execute(() -> {
+                try {
+                    run();
+                } catch (Exception e) {
+                    log.warn("问题内容指纹回填失败，下次启动时继续: {}", e.getMessage());
+                }
+            });
+        } catch (TaskRejectedException e) {
+            log.warn("导入线程池已满，跳过本次问题内容指纹回填");
+        }
+    }
+
+    /**
+     * 回填原始问题和标准问题中缺失的内容指纹
+     */
+    public void run() {
+        long startTime = System.currentTimeMillis();
+        long raw = backfill(SELECT_RAW_QUESTIONS_SQL, UPDATE_RAW_QUESTION_SQL, "question_id", "question_body");
+        long standard = backfill(SELECT_STANDARD_QUESTIONS_SQL, UPDATE_STANDARD_QUESTION_SQL,
+                "standard_question_id", "question");
+        if (raw > 0 || standard > 0) {
+            log.info("问题内容指纹回填完成: 原始问题{}条, 标准问题{}条, 耗时{}ms",
+                    raw, standard, System.currentTimeMillis() - startTime);
+        }
+    }
+
+    private long backfill(String selectSql, String updateSql, String idColumn, String textColumn) {
+        long updated = 0;
+        int lastId = 0;
+        while (true) {
+            List<Object[]> rows = new ArrayList<>(batchSize);
+            jdbcTemplate.query(selectSql, (RowCallbackHandler) rs ->
+                    rows.add(new Object[]{ContentFingerprint.of(rs.getString(textColumn)), rs.getInt(idColumn)}),
+                    lastId, batchSize);
+            if (rows.isEmpty()) {
+                return updated;
+            }
+            jdbcTemplate.batchUpdate(updateSql, rows);
+            updated += rows.size();
+            lastId = (Integer) rows.get(rows.size() - 1)[1];
+            if (rows.size() < batchSize) {
+                return updated;
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.llm.eval.service.impl;
 
+import com.llm.eval.event.StatisticsChangedEvent;
 import com.llm.eval.model.CrowdsourcedAnswer;
 import com.llm.eval.model.StandardAnswer;
 import com.llm.eval.model.User;
@@ -10,6 +11,7 @@ import com.llm.eval.repository.UserRepository;
 import com.llm.eval.service.CrowdsourcedAnswerService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,17 +26,20 @@ public class CrowdsourcedAnswerServiceImpl implements CrowdsourcedAnswerService
     private final StandardQuestionRepository standardQuestionRepository;
     private final StandardAnswerRepository standardAnswerRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Autowired
     public CrowdsourcedAnswerServiceImpl(
             CrowdsourcedAnswerRepository crowdsourcedAnswerRepository,
             StandardQuestionRepository standardQuestionRepository,
             StandardAnswerRepository standardAnswerRepository,
-            UserRepository userRepository) {
+            UserRepository userRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.crowdsourcedAnswerRepository = crowdsourcedAnswerRepository;
         this.standardQuestionRepository = standardQuestionRepository;
         this.standardAnswerRepository = standardAnswerRepository;
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
     }
     
     @Override
@@ -174,6 +179,7 @@ public class CrowdsourcedAnswerServiceImpl implements CrowdsourcedAnswerService
         standardAnswer.setVersion(1);
         
         standardAnswerRepository.save(standardAnswer);
+        eventPublisher.publishEvent(StatisticsChangedEvent.recount());
         
         return crowdsourcedAnswerRepository.save(answer);
     }
@@ -1,5 +1,6 @@
 package com.llm.eval.service.impl;
 
+import com.llm.eval.event.StatisticsChangedEvent;
 import com.llm.eval.model.CrowdsourcingAnswer;
 import com.llm.eval.model.CrowdsourcingTask;
 import com.llm.eval.model.CrowdsourcingTaskQuestion;
@@ -14,6 +15,7 @@ import com.llm.eval.service.CrowdsourcingService;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -33,6 +35,7 @@ public class CrowdsourcingServiceImpl implements CrowdsourcingService {
     private final StandardQuestionRepository standardQuestionRepository;
     private final StandardAnswerRepository standardAnswerRepository;
     private final CrowdsourcingTaskQuestionRepository taskQuestionRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public CrowdsourcingServiceImpl(
@@ -40,12 +43,14 @@ public class CrowdsourcingServiceImpl implements CrowdsourcingService {
             CrowdsourcingAnswerRepository answerRepository,
             StandardQuestionRepository standardQuestionRepository,
             StandardAnswerRepository standardAnswerRepository,
-            CrowdsourcingTaskQuestionRepository taskQuestionRepository) {
+            CrowdsourcingTaskQuestionRepository taskQuestionRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.taskRepository = taskRepository;
         this.answerRepository = answerRepository;
         this.standardQuestionRepository = standardQuestionRepository;
         this.standardAnswerRepository = standardAnswerRepository;
         this.taskQuestionRepository = taskQuestionRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     // 任务管理方法
@@ -464,6 +469,7 @@ public class CrowdsourcingServiceImpl implements CrowdsourcingService {
         // 更新众包答案状态
         answer.setStatus(CrowdsourcingAnswer.AnswerStatus.PROMOTED);
         answerRepository.save(answer);
+        eventPublisher.publishEvent(StatisticsChangedEvent.recount());
         
         return savedStandardAnswer;
     }
@@ -2,20 +2,27 @@ package com.llm.eval.service.impl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.llm.eval.dto.DataImportResultDTO;
+import com.llm.eval.dto.DataValidationResultDTO;
 import com.llm.eval.dto.ImportTaskDTO;
+import com.llm.eval.dto.ImportTaskLogDTO;
 import com.llm.eval.dto.RawQuestionImportDTO;
 import com.llm.eval.dto.StandardQAImportDTO;
-import com.llm.eval.dto.RawAnswerImportDTO;
 import com.llm.eval.dto.RawQuestionOnlyDTO;
 import com.llm.eval.dto.RawAnswerDTO;
 import com.llm.eval.dto.StandardQuestionDTO;
 import com.llm.eval.dto.StandardAnswerDTO;
 import com.llm.eval.dto.StandardQALinkDTO;
+import com.llm.eval.event.QuestionContentChangedEvent;
+import com.llm.eval.event.StatisticsChangedEvent;
 import com.llm.eval.model.*;
 import com.llm.eval.repository.*;
 import com.llm.eval.service.DataImportService;
+import com.llm.eval.util.ContentFingerprint;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -23,7 +30,12 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -41,6 +53,20 @@ public class DataImportServiceImpl implements DataImportService {
     private final StandardQAPairRepository standardQAPairRepository;
     private final QuestionCategoryRepository categoryRepository;
     private final TagRepository tagRepository;
+    private final QAFileImporter fileImporter;
+    private final QAImportWriter importWriter;
+    private final QAFileValidator fileValidator;
+    private final QuestionSimilarityIndex similarityIndex;
+    private final ImportTaskRepository importTaskRepository;
+    private final ImportTaskLogRepository importTaskLogRepository;
+    private final ImportTaskRunner importTaskRunner;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${import.storage-dir:${java.io.tmpdir}/llm-eval-imports}")
+    private String importStorageDir;
+
+    @Value("${import.batch-size:1000}")
+    private int importBatchSize;
 
     @Autowired
     public DataImportServiceImpl(
@@ -52,7 +78,15 @@ public class DataImportServiceImpl implements DataImportService {
             AnswerKeyPointRepository keyPointRepository,
             StandardQAPairRepository standardQAPairRepository,
             QuestionCategoryRepository categoryRepository,
-            TagRepository tagRepository) {
+            TagRepository tagRepository,
+            QAFileImporter fileImporter,
+            QAImportWriter importWriter,
+            QAFileValidator fileValidator,
+            QuestionSimilarityIndex similarityIndex,
+            ImportTaskRepository importTaskRepository,
+            ImportTaskLogRepository importTaskLogRepository,
+            ImportTaskRunner importTaskRunner,
+            ApplicationEventPublisher eventPublisher) {
         this.objectMapper = objectMapper;
         this.rawQuestionRepository = rawQuestionRepository;
         this.rawAnswerRepository = rawAnswerRepository;
@@ -62,216 +96,70 @@ public class DataImportServiceImpl implements DataImportService {
         this.standardQAPairRepository = standardQAPairRepository;
         this.categoryRepository = categoryRepository;
         this.tagRepository = tagRepository;
+        this.fileImporter = fileImporter;
+        this.importWriter = importWriter;
+        this.fileValidator = fileValidator;
+        this.similarityIndex = similarityIndex;
+        this.importTaskRepository = importTaskRepository;
+        this.importTaskLogRepository = importTaskLogRepository;
+        this.importTaskRunner = importTaskRunner;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
-    @Transactional
     public DataImportResultDTO importRawQA(MultipartFile file) throws IOException {
         log.info("开始导入原始问答数据，文件名: {}", file.getOriginalFilename());
         
-        List<Map<String, Object>> rawQAs = objectMapper.readValue(
-                file.getInputStream(),
-                objectMapper.getTypeFactory().constructCollectionType(List.class, Map.class)
-        );
-        
-        int total = rawQAs.size();
-        int imported = 0;
-        int failed = 0;
-        
-        for (Map<String, Object> rawQA : rawQAs) {
-            try {
-                RawQuestionImportDTO questionDTO = new RawQuestionImportDTO();
-                questionDTO.setSourceQuestionId((Integer) rawQA.get("source_question_id"));
-                questionDTO.setQuestionTitle((String) rawQA.get("question_title"));
-                questionDTO.setQuestionBody((String) rawQA.get("question_body"));
-                questionDTO.setSource((String) rawQA.get("source"));
-                questionDTO.setSourceId((Integer) rawQA.get("source_id"));
-                questionDTO.setSourceUrl((String) rawQA.get("source_url"));
-                
-                RawAnswerImportDTO answerDTO = new RawAnswerImportDTO();
-                answerDTO.setSourceAnswerId((Integer) rawQA.get("source_answer_id"));
-                answerDTO.setAnswerBody((String) rawQA.get("answer_body"));
-                
-                questionDTO.setAnswer(answerDTO);
-                
-                importRawQuestion(questionDTO);
-                imported++;
-            } catch (Exception e) {
-                log.error("导入原始问答数据失败", e);
-                failed++;
-            }
+        // 流式读取，按块批量写入并提交
+        try (InputStream in = file.getInputStream()) {
+            DataImportResultDTO result = fileImporter.importFile(in, ImportTask.ImportType.RAW_QA, 0, null);
+            log.info("原始问答数据导入完成，总数: {}，成功: {}，失败: {}",
+                    result.getTotal(), result.getImported(), result.getFailed());
+            // 成功标志和说明取自导入结果，解析失败等情况不能报告为导入完成
+            return result;
         }
-        
-        return new DataImportResultDTO(true, "导入完成", imported, failed, total);
     }
 
     @Override
-    @Transactional
     public DataImportResultDTO importStandardQA(MultipartFile file) throws IOException {
+        return importStandardQA(file, null, null);
+    }
+
+    @Override
+    public DataImportResultDTO importStandardQA(MultipartFile file, String nearDuplicate, Double similarityThreshold)
+            throws IOException {
         log.info("开始导入标准问答数据，文件名: {}", file.getOriginalFilename());
-        
-        try {
-            // 使用Jackson直接解析JSON数据为List<Map>，以便处理字段名称的差异
-            List<Map<String, Object>> jsonData = objectMapper.readValue(
-                    file.getInputStream(),
-                    objectMapper.getTypeFactory().constructCollectionType(List.class, Map.class)
-            );
-            
-            log.info("解析到{}条标准问答数据", jsonData.size());
-            
-            List<StandardQAImportDTO> standardQAs = new ArrayList<>();
-            
-            // 将Map转换为StandardQAImportDTO对象
-            for (Map<String, Object> item : jsonData) {
-                StandardQAImportDTO qaDTO = new StandardQAImportDTO();
-                
-                // 处理基本字段
-                if (item.containsKey("qa_id")) {
-                    qaDTO.setQaId(convertToInteger(item.get("qa_id")));
-                }
-                if (item.containsKey("source_question_id")) {
-                    qaDTO.setSourceQuestionId(convertToInteger(item.get("source_question_id")));
-                }
-                if (item.containsKey("source_answer_id")) {
-                    qaDTO.setSourceAnswerId(convertToInteger(item.get("source_answer_id")));
-                }
-                if (item.containsKey("question")) {
-                    qaDTO.setQuestion((String) item.get("question"));
-                }
-                if (item.containsKey("answer")) {
-                    qaDTO.setAnswer((String) item.get("answer"));
-                }
-                
-                // 处理关键点数据
-                if (item.containsKey("key_points")) {
-                    Object keyPointsObj = item.get("key_points");
-                    List<String> keyPoints = new ArrayList<>();
-                    
-                    if (keyPointsObj instanceof List) {
-                        // 如果是列表类型，直接转换
-                        @SuppressWarnings("unchecked")
-                        List<Object> keyPointsList = (List<Object>) keyPointsObj;
-                        
-                        for (Object kp : keyPointsList) {
-                            if (kp instanceof String) {
-                                keyPoints.add((String) kp);
-                                log.info("添加关键点: {}", kp);
-                            }
-                        }
-                    }
-                    
-                    qaDTO.setKeyPoints(keyPoints);
-                    log.info("设置关键点数量: {}", keyPoints.size());
-                }
-                
-                standardQAs.add(qaDTO);
-            }
-            
-            return importStandardQAs(standardQAs);
+        // 参数错误直接抛出，由全局异常处理返回400
+        NearDuplicateFilter nearDuplicateFilter = NearDuplicateFilter.of(similarityIndex, nearDuplicate, similarityThreshold);
+        
+        // 流式读取，按块批量写入并提交
+        try (InputStream in = file.getInputStream()) {
+            DataImportResultDTO result = fileImporter.importFile(in, ImportTask.ImportType.STANDARD_QA, 0, null,
+                    nearDuplicateFilter);
+            log.info("标准问答数据导入完成，总数: {}，成功: {}，失败: {}",
+                    result.getTotal(), result.getImported(), result.getFailed());
+            return result;
         } catch (Exception e) {
             log.error("导入标准问答数据失败", e);
             return new DataImportResultDTO(false, "导入失败: " + e.getMessage(), 0, 1, 1);
         }
     }
 
-    // 辅助方法：将Object转换为Integer
-    private Integer convertToInteger(Object value) {
-        if (value == null) {
-            return null;
-        }
-        if (value instanceof Integer) {
-            return (Integer) value;
-        }
-        if (value instanceof Number) {
-            return ((Number) value).intValue();
-        }
-        if (value instanceof String) {
-            try {
-                return Integer.parseInt((String) value);
-            } catch (NumberFormatException e) {
-                return null;
-            }
-        }
-        return null;
-    }
-
     @Override
-    @Transactional
     public DataImportResultDTO importRawQuestion(RawQuestionImportDTO questionDTO) {
         log.info("导入单个原始问题: {}", questionDTO.getQuestionTitle());
         
-        try {
-            // 检查问题是否已存在
-            Optional<RawQuestion> existingQuestion = rawQuestionRepository.findBySourceQuestionId(questionDTO.getSourceQuestionId());
-            
-            RawQuestion rawQuestion;
-            if (existingQuestion.isPresent()) {
-                // 更新已有问题
-                rawQuestion = existingQuestion.get();
-                rawQuestion.setQuestionTitle(questionDTO.getQuestionTitle());
-                rawQuestion.setQuestionBody(questionDTO.getQuestionBody());
-                rawQuestion.setSource(questionDTO.getSource());
-                rawQuestion.setSourceId(questionDTO.getSourceId());
-                rawQuestion.setSourceUrl(questionDTO.getSourceUrl());
-                rawQuestion.setUpdatedAt(LocalDateTime.now());
-            } else {
-                // 创建新问题
-                rawQuestion = new RawQuestion();
-                rawQuestion.setSourceQuestionId(questionDTO.getSourceQuestionId());
-                rawQuestion.setQuestionTitle(questionDTO.getQuestionTitle());
-                rawQuestion.setQuestionBody(questionDTO.getQuestionBody());
-                rawQuestion.setSource(questionDTO.getSource());
-                rawQuestion.setSourceId(questionDTO.getSourceId());
-                rawQuestion.setSourceUrl(questionDTO.getSourceUrl());
-                rawQuestion.setCreatedAt(LocalDateTime.now());
-                rawQuestion.setUpdatedAt(LocalDateTime.now());
-            }
-            
-            // 保存问题
-            rawQuestion = rawQuestionRepository.save(rawQuestion);
-            
-            // 如果有答案，保存答案
-            if (questionDTO.getAnswer() != null) {
-                RawAnswerImportDTO answerDTO = questionDTO.getAnswer();
-                
-                // 检查答案是否已存在
-                Optional<RawAnswer> existingAnswer = rawAnswerRepository.findBySourceAnswerId(answerDTO.getSourceAnswerId());
-                
-                RawAnswer rawAnswer;
-                if (existingAnswer.isPresent()) {
-                    // 更新已有答案
-                    rawAnswer = existingAnswer.get();
-                    rawAnswer.setAnswerBody(answerDTO.getAnswerBody());
-                    rawAnswer.setAuthorInfo(answerDTO.getAuthorInfo());
-                    rawAnswer.setUpvotes(answerDTO.getUpvotes());
-                    rawAnswer.setIsAccepted(answerDTO.getIsAccepted());
-                    rawAnswer.setUpdatedAt(LocalDateTime.now());
-                } else {
-                    // 创建新答案
-                    rawAnswer = new RawAnswer();
-                    rawAnswer.setSourceAnswerId(answerDTO.getSourceAnswerId());
-                    rawAnswer.setQuestion(rawQuestion);
-                    rawAnswer.setAnswerBody(answerDTO.getAnswerBody());
-                    rawAnswer.setAuthorInfo(answerDTO.getAuthorInfo());
-                    rawAnswer.setUpvotes(answerDTO.getUpvotes());
-                    rawAnswer.setIsAccepted(answerDTO.getIsAccepted());
-                    rawAnswer.setCreatedAt(LocalDateTime.now());
-                    rawAnswer.setUpdatedAt(LocalDateTime.now());
-                }
-                
-                // 保存答案
-                rawAnswerRepository.save(rawAnswer);
-            }
-            
+        // 按来源ID upsert 问题和答案，由写入器在一个事务内完成
+        QAImportWriter.ChunkResult result = importWriter.writeRawQAs(List.of(questionDTO));
+        if (result.getImported() == 1) {
             return new DataImportResultDTO(true, "导入成功", 1, 0, 1);
-        } catch (Exception e) {
-            log.error("导入原始问题失败", e);
-            return new DataImportResultDTO(false, "导入失败: " + e.getMessage(), 0, 1, 1);
         }
+        String error = result.getErrors().values().stream().findFirst().orElse("未知错误");
+        log.error("导入原始问题失败: {}", error);
+        return new DataImportResultDTO(false, "导入失败: " + error, 0, 1, 1);
     }
 
     @Override
-    @Transactional
     public DataImportResultDTO importRawQuestions(List<RawQuestionImportDTO> questionDTOs) {
         log.info("批量导入原始问题，数量: {}", questionDTOs.size());
         
@@ -279,13 +167,12 @@ public class DataImportServiceImpl implements DataImportService {
         int imported = 0;
         int failed = 0;
         
-        for (RawQuestionImportDTO questionDTO : questionDTOs) {
-            DataImportResultDTO result = importRawQuestion(questionDTO);
-            if (result.isSuccess()) {
-                imported++;
-            } else {
-                failed++;
-            }
+        // 按块多行 upsert，每块单独提交
+        for (int from = 0; from < total; from += importBatchSize) {
+            QAImportWriter.ChunkResult result = importWriter.writeRawQAs(
+                    questionDTOs.subList(from, Math.min(total, from + importBatchSize)));
+            imported += result.getImported();
+            failed += result.getFailed();
         }
         
         return new DataImportResultDTO(failed == 0, "导入完成", imported, failed, total);
@@ -311,11 +198,12 @@ public class DataImportServiceImpl implements DataImportService {
                 log.info("原始答案查找结果: {}", rawAnswerOpt.isPresent() ? "找到" : "未找到");
             }
             
-            // 检查标准问题是否已存在
-            Optional<StandardQuestion> existingQuestionOpt = standardQuestionRepository.findByQuestionAndSourceQuestionId(
-                    qaDTO.getQuestion(), 
-                    rawQuestionOpt.isPresent() ? rawQuestionOpt.get().getQuestionId() : null
-            );
+            // 检查标准问题是否已存在（按内容指纹，仅空白或标点不同视为同一问题）
+            Optional<StandardQuestion> existingQuestionOpt = standardQuestionRepository
+                    .findByContentFingerprintAndSourceQuestionId(
+                            ContentFingerprint.of(qaDTO.getQuestion()),
+                            rawQuestionOpt.isPresent() ? rawQuestionOpt.get().getQuestionId() : null)
+                    .stream().findFirst();
             log.info("标准问题查找结果: {}", existingQuestionOpt.isPresent() ? "已存在" : "不存在，将创建新问题");
             
             StandardQuestion standardQuestion;
@@ -347,6 +235,8 @@ public class DataImportServiceImpl implements DataImportService {
             // 保存标准问题
             standardQuestion = standardQuestionRepository.save(standardQuestion);
             log.info("标准问题保存成功，ID: {}", standardQuestion.getStandardQuestionId());
+            eventPublisher.publishEvent(QuestionContentChangedEvent.saved(QuestionContentChangedEvent.Corpus.STANDARD_QUESTION,
+                    standardQuestion.getStandardQuestionId(), standardQuestion.getQuestion()));
             
             // 创建标准答案
             StandardAnswer standardAnswer = new StandardAnswer();
@@ -407,6 +297,7 @@ public class DataImportServiceImpl implements DataImportService {
                 log.info("没有关键点需要处理");
             }
             
+            eventPublisher.publishEvent(StatisticsChangedEvent.recount());
             return new DataImportResultDTO(true, "导入成功", 1, 0, 1);
         } catch (Exception e) {
             log.error("导入标准问答对失败", e);
@@ -436,96 +327,196 @@ public class DataImportServiceImpl implements DataImportService {
     }
 
     @Override
-    public DataImportResultDTO validateStandardQA(MultipartFile file) throws IOException {
+    public DataValidationResultDTO validateStandardQA(MultipartFile file) throws IOException {
         log.info("验证标准问答数据格式，文件名: {}", file.getOriginalFilename());
-        
-        try {
-            List<StandardQAImportDTO> standardQAs = objectMapper.readValue(
-                    file.getInputStream(),
-                    objectMapper.getTypeFactory().constructCollectionType(List.class, StandardQAImportDTO.class)
-            );
-            
-            int total = standardQAs.size();
-            
-            if (total == 0) {
-                return new DataImportResultDTO(false, "文件内容为空", 0, 0, 0);
-            }
-            
-            // 验证每一个标准问答对
-            for (StandardQAImportDTO qa : standardQAs) {
-                if (qa.getQuestion() == null || qa.getQuestion().trim().isEmpty()) {
-                    return new DataImportResultDTO(false, "问题内容不能为空", 0, 1, total);
-                }
-                
-                if (qa.getAnswer() == null || qa.getAnswer().trim().isEmpty()) {
-                    return new DataImportResultDTO(false, "答案内容不能为空", 0, 1, total);
-                }
-            }
-            
-            return new DataImportResultDTO(true, "验证通过", total, 0, total);
-        } catch (Exception e) {
-            log.error("验证标准问答数据格式失败", e);
-            return new DataImportResultDTO(false, "验证失败: " + e.getMessage(), 0, 1, 1);
+        try (InputStream in = file.getInputStream()) {
+            return fileValidator.validate(in, ImportTask.ImportType.STANDARD_QA);
         }
     }
 
     @Override
-    public DataImportResultDTO validateRawQA(MultipartFile file) throws IOException {
+    public DataValidationResultDTO validateRawQA(MultipartFile file) throws IOException {
         log.info("验证原始问答数据格式，文件名: {}", file.getOriginalFilename());
-        
-        try {
-            List<Map<String, Object>> rawQAs = objectMapper.readValue(
-                    file.getInputStream(),
-                    objectMapper.getTypeFactory().constructCollectionType(List.class, Map.class)
-            );
-            
-            int total = rawQAs.size();
-            
-            if (total == 0) {
-                return new DataImportResultDTO(false, "文件内容为空", 0, 0, 0);
-            }
-            
-            // 验证每一个原始问答对
-            for (Map<String, Object> rawQA : rawQAs) {
-                // 验证必要字段
-                if (!rawQA.containsKey("source_question_id") || !rawQA.containsKey("question_title") || !rawQA.containsKey("question_body")) {
-                    return new DataImportResultDTO(false, "原始问题缺少必要字段", 0, 1, total);
-                }
-                
-                if (!rawQA.containsKey("source_answer_id") || !rawQA.containsKey("answer_body")) {
-                    return new DataImportResultDTO(false, "原始答案缺少必要字段", 0, 1, total);
-                }
-            }
-            
-            return new DataImportResultDTO(true, "验证通过", total, 0, total);
-        } catch (Exception e) {
-            log.error("验证原始问答数据格式失败", e);
-            return new DataImportResultDTO(false, "验证失败: " + e.getMessage(), 0, 1, 1);
+        try (InputStream in = file.getInputStream()) {
+            return fileValidator.validate(in, ImportTask.ImportType.RAW_QA);
+        }
+    }
+
+    @Override
+    public ImportTaskDTO submitImportTask(MultipartFile file, String type) throws IOException {
+        ImportTask.ImportType importType = parseImportType(type);
+        if (importType != ImportTask.ImportType.RAW_QA && importType != ImportTask.ImportType.STANDARD_QA) {
+            throw new IllegalArgumentException("后台导入仅支持RAW_QA和STANDARD_QA类型");
         }
+        
+        // 先把上传文件落盘，后台任务和重试都从该文件读取
+        Path storageDir = Paths.get(importStorageDir);
+        Files.createDirectories(storageDir);
+        Path target = storageDir.resolve(UUID.randomUUID() + ".json");
+        file.transferTo(target);
+        
+        ImportTask task = new ImportTask();
+        task.setType(importType);
+        task.setFilename(file.getOriginalFilename());
+        task.setFilePath(target.toAbsolutePath().toString());
+        task.setProcessedCount(0);
+        task.setImportedCount(0);
+        task.setUpdatedCount(0);
+        task.setFailedCount(0);
+        task.setStatus(ImportTask.ImportStatus.PENDING);
+        task.setCreatedAt(LocalDateTime.now());
+        task.setUpdatedAt(LocalDateTime.now());
+        task = importTaskRepository.save(task);
+        log.info("创建导入任务，ID: {}，类型: {}，文件名: {}", task.getImportId(), importType, file.getOriginalFilename());
+        
+        submitToRunner(task);
+        return convertToImportTaskDTO(task, false);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<ImportTaskDTO> getImportHistory(String type, Pageable pageable) {
-        // 暂时返回空结果，具体实现根据业务需求添加
-        return Page.empty();
+        Page<ImportTask> tasks = (type == null || type.isBlank())
+                ? importTaskRepository.findAllByOrderByCreatedAtDesc(pageable)
+                : importTaskRepository.findByTypeOrderByCreatedAtDesc(parseImportType(type), pageable);
+        return tasks.map(task -> convertToImportTaskDTO(task, false));
     }
     
     @Override
+    @Transactional(readOnly = true)
     public ImportTaskDTO getImportTaskDetail(Integer importId) {
-        // 暂时返回null，具体实现根据业务需求添加
-        return null;
+        return importTaskRepository.findById(importId)
+                .map(task -> convertToImportTaskDTO(task, true))
+                .orElse(null);
     }
     
     @Override
     public ImportTaskDTO cancelImportTask(Integer importId) {
-        // 暂时返回null，具体实现根据业务需求添加
-        return null;
+        Optional<ImportTask> taskOpt = importTaskRepository.findById(importId);
+        if (taskOpt.isEmpty()) {
+            return null;
+        }
+        
+        ImportTask task = taskOpt.get();
+        if (task.getStatus() != ImportTask.ImportStatus.PENDING
+                && task.getStatus() != ImportTask.ImportStatus.IN_PROGRESS) {
+            throw new IllegalStateException("只有等待中或进行中的任务可以取消");
+        }
+        
+        // 只更新状态，执行节点在数据块提交时发现取消后停止，已提交的数据保留
+        if (importTaskRepository.cancelUnfinished(importId) == 0) {
+            throw new IllegalStateException("只有等待中或进行中的任务可以取消");
+        }
+        importTaskRunner.cancel(importId);
+        task = importTaskRepository.findById(importId).orElse(task);
+        log.info("取消导入任务，ID: {}", importId);
+        return convertToImportTaskDTO(task, false);
     }
     
     @Override
     public ImportTaskDTO retryImportTask(Integer importId) {
-        // 暂时返回null，具体实现根据业务需求添加
-        return null;
+        Optional<ImportTask> taskOpt = importTaskRepository.findById(importId);
+        if (taskOpt.isEmpty()) {
+            return null;
+        }
+        
+        ImportTask task = taskOpt.get();
+        if (importTaskRunner.isActive(importId)
+                || task.getStatus() == ImportTask.ImportStatus.PENDING
+                || task.getStatus() == ImportTask.ImportStatus.IN_PROGRESS) {
+            throw new IllegalStateException("任务正在执行中，无需重试");
+        }
+        if (task.getStatus() == ImportTask.ImportStatus.COMPLETED) {
+            throw new IllegalStateException("任务已完成，无需重试");
+        }
+        if (task.getFilePath() == null || !Files.exists(Paths.get(task.getFilePath()))) {
+            throw new IllegalStateException("导入文件已不存在，无法重试");
+        }
+        
+        // 从上次提交的偏移量继续导入
+        int offset = task.getProcessedCount() != null ? task.getProcessedCount() : 0;
+        task.setStatus(ImportTask.ImportStatus.PENDING);
+        task.setEndTime(null);
+        task.setDetails("等待重试，从第" + (offset + 1) + "条记录继续");
+        task.setUpdatedAt(LocalDateTime.now());
+        task = importTaskRepository.save(task);
+        log.info("重试导入任务，ID: {}，偏移量: {}", importId, offset);
+        
+        submitToRunner(task);
+        return convertToImportTaskDTO(task, false);
+    }
+    
+    private void submitToRunner(ImportTask task) {
+        try {
+            importTaskRunner.submit(task.getImportId());
+        } catch (IllegalStateException e) {
+            task.setStatus(ImportTask.ImportStatus.FAILED);
+            task.setDetails(e.getMessage());
+            task.setEndTime(LocalDateTime.now());
+            importTaskRepository.save(task);
+            throw e;
+        }
+    }
+    
+    // 辅助方法：解析导入类型，兼容raw-qa/RAW_QA两种写法
+    private ImportTask.ImportType parseImportType(String type) {
+        if (type == null || type.isBlank()) {
+            throw new IllegalArgumentException("导入类型不能为空");
+        }
+        try {
+            return ImportTask.ImportType.valueOf(type.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("不支持的导入类型: " + type);
+        }
+    }
+    
+    private ImportTaskDTO convertToImportTaskDTO(ImportTask task, boolean includeLogs) {
+        ImportTaskDTO dto = new ImportTaskDTO();
+        dto.setImportId(task.getImportId());
+        dto.setType(task.getType() != null ? task.getType().name() : null);
+        dto.setFilename(task.getFilename());
+        dto.setProcessedCount(task.getProcessedCount());
+        dto.setImportedCount(task.getImportedCount());
+        dto.setUpdatedCount(task.getUpdatedCount());
+        dto.setFailedCount(task.getFailedCount());
+        dto.setStatus(task.getStatus() != null ? task.getStatus().name() : null);
+        dto.setDetails(task.getDetails());
+        dto.setStartTime(task.getStartTime());
+        dto.setEndTime(task.getEndTime());
+        dto.setCreatedAt(task.getCreatedAt());
+        dto.setUpdatedAt(task.getUpdatedAt());
+        
+        if (task.getUser() != null) {
+            dto.setUserId(task.getUser().getUserId());
+            if (Hibernate.isInitialized(task.getUser())) {
+                dto.setUserName(task.getUser().getUsername());
+            }
+        }
+        
+        // 吞吐量：运行中取实时值，已结束按起止时间估算
+        Double throughput = importTaskRunner.getThroughput(task.getImportId());
+        if (throughput == null && task.getStartTime() != null && task.getEndTime() != null
+                && task.getProcessedCount() != null) {
+            long seconds = Duration.between(task.getStartTime(), task.getEndTime()).getSeconds();
+            throughput = seconds > 0 ? (double) task.getProcessedCount() / seconds : null;
+        }
+        dto.setThroughput(throughput);
+        
+        if (includeLogs) {
+            dto.setLogs(importTaskLogRepository.findByImportTaskImportIdOrderByLogTimeAsc(task.getImportId())
+                    .stream()
+                    .map(taskLog -> {
+                        ImportTaskLogDTO logDTO = new ImportTaskLogDTO();
+                        logDTO.setLogId(taskLog.getLogId());
+                        logDTO.setImportId(task.getImportId());
+                        logDTO.setLogTime(taskLog.getLogTime());
+                        logDTO.setMessage(taskLog.getMessage());
+                        logDTO.setLogLevel(taskLog.getLogLevel());
+                        return logDTO;
+                    })
+                    .collect(Collectors.toList()));
+        }
+        return dto;
     }
     
     @Override
@@ -561,8 +552,11 @@ public class DataImportServiceImpl implements DataImportService {
             }
             
             // 保存问题
-            rawQuestionRepository.save(rawQuestion);
+            rawQuestion = rawQuestionRepository.save(rawQuestion);
             
+            eventPublisher.publishEvent(StatisticsChangedEvent.recount());
+            eventPublisher.publishEvent(QuestionContentChangedEvent.saved(QuestionContentChangedEvent.Corpus.RAW_QUESTION,
+                    rawQuestion.getQuestionId(), rawQuestion.getQuestionBody()));
             return new DataImportResultDTO(true, "原始问题导入成功", 1, 0, 1);
         } catch (Exception e) {
             log.error("导入原始问题失败", e);
@@ -633,6 +627,7 @@ public class DataImportServiceImpl implements DataImportService {
             // 保存答案
             rawAnswerRepository.save(rawAnswer);
             
+            eventPublisher.publishEvent(StatisticsChangedEvent.recount());
             return new DataImportResultDTO(true, "原始回答导入成功", 1, 0, 1);
         } catch (Exception e) {
             log.error("导入原始回答失败", e);
@@ -685,11 +680,12 @@ public class DataImportServiceImpl implements DataImportService {
                 }
             }
             
-            // 检查标准问题是否已存在
-            Optional<StandardQuestion> existingQuestionOpt = standardQuestionRepository.findByQuestionAndSourceQuestionId(
-                    questionDTO.getQuestion(), 
-                    rawQuestion != null ? rawQuestion.getQuestionId() : null
-            );
+            // 检查标准问题是否已存在（按内容指纹，仅空白或标点不同视为同一问题）
+            Optional<StandardQuestion> existingQuestionOpt = standardQuestionRepository
+                    .findByContentFingerprintAndSourceQuestionId(
+                            ContentFingerprint.of(questionDTO.getQuestion()),
+                            rawQuestion != null ? rawQuestion.getQuestionId() : null)
+                    .stream().findFirst();
             
             StandardQuestion standardQuestion;
             if (existingQuestionOpt.isPresent()) {
@@ -716,6 +712,8 @@ public class DataImportServiceImpl implements DataImportService {
             
             // 保存标准问题
             standardQuestion = standardQuestionRepository.save(standardQuestion);
+            eventPublisher.publishEvent(QuestionContentChangedEvent.saved(QuestionContentChangedEvent.Corpus.STANDARD_QUESTION,
+                    standardQuestion.getStandardQuestionId(), standardQuestion.getQuestion()));
             
             // 设置标签
             if (questionDTO.getTags() != null && !questionDTO.getTags().isEmpty()) {
@@ -730,6 +728,7 @@ public class DataImportServiceImpl implements DataImportService {
                 standardQuestionRepository.save(standardQuestion);
             }
             
+            eventPublisher.publishEvent(StatisticsChangedEvent.recount());
             return new DataImportResultDTO(true, "标准问题导入成功", 1, 0, 1);
         } catch (Exception e) {
             log.error("导入标准问题失败", e);
@@ -839,6 +838,7 @@ public class DataImportServiceImpl implements DataImportService {
                 log.info("没有关键点需要处理");
             }
             
+            eventPublisher.publishEvent(StatisticsChangedEvent.recount());
             return new DataImportResultDTO(true, "标准答案导入成功", 1, 0, 1);
         } catch (Exception e) {
             log.error("导入标准答案失败", e);
@@ -924,6 +924,7 @@ public class DataImportServiceImpl implements DataImportService {
             
             standardQAPairRepository.save(qaPair);
             
+            eventPublisher.publishEvent(StatisticsChangedEvent.recount());
             return new DataImportResultDTO(true, "标准问答对关联创建成功", 1, 0, 1);
         } catch (Exception e) {
             log.error("创建标准问答对关联失败", e);
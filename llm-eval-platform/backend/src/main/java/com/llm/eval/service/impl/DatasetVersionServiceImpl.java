@@ -1,5 +1,7 @@
 package com.llm.eval.service.impl;
 
+import com.llm.eval.event.StatisticsChangedEvent;
+import com.llm.eval.event.StatisticsChangedEvent.Metric;
 import com.llm.eval.model.DatasetVersion;
 import com.llm.eval.model.StandardQuestion;
 import com.llm.eval.dto.DatasetVersionDTO;
@@ -9,6 +11,7 @@ import com.llm.eval.repository.StandardQuestionRepository;
 import com.llm.eval.service.DatasetVersionService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -27,13 +30,16 @@ public class DatasetVersionServiceImpl implements DatasetVersionService {
     
     private final DatasetVersionRepository datasetVersionRepository;
     private final StandardQuestionRepository standardQuestionRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Autowired
     public DatasetVersionServiceImpl(
             DatasetVersionRepository datasetVersionRepository,
-            StandardQuestionRepository standardQuestionRepository) {
+            StandardQuestionRepository standardQuestionRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.datasetVersionRepository = datasetVersionRepository;
         this.standardQuestionRepository = standardQuestionRepository;
+        this.eventPublisher = eventPublisher;
     }
     
     @Override
@@ -93,7 +99,13 @@ public class DatasetVersionServiceImpl implements DatasetVersionService {
             datasetVersion.setQuestions(new HashSet<>());
         }
         
-        return datasetVersionRepository.save(datasetVersion);
+        DatasetVersion saved = datasetVersionRepository.save(datasetVersion);
+        StatisticsChangedEvent event = StatisticsChangedEvent.of(Metric.DATASET_VERSION, 1);
+        if (Boolean.TRUE.equals(saved.getIsPublished())) {
+            event = event.and(Metric.PUBLISHED_DATASET_VERSION, 1);
+        }
+        eventPublisher.publishEvent(event);
+        return saved;
     }
     
     @Override
@@ -173,6 +185,7 @@ public class DatasetVersionServiceImpl implements DatasetVersionService {
         if (version.getQuestions() == null || version.getQuestions().isEmpty()) {
             throw new IllegalStateException("Cannot publish a dataset version with no questions");
         }
+        boolean wasPublished = Boolean.TRUE.equals(version.getIsPublished());
         
         // Set published state
         version.setIsPublished(true);
@@ -184,13 +197,18 @@ public class DatasetVersionServiceImpl implements DatasetVersionService {
         
         version.setUpdatedAt(LocalDateTime.now());
         
-        return datasetVersionRepository.save(version);
+        DatasetVersion saved = datasetVersionRepository.save(version);
+        if (!wasPublished) {
+            eventPublisher.publishEvent(StatisticsChangedEvent.of(Metric.PUBLISHED_DATASET_VERSION, 1));
+        }
+        return saved;
     }
     
     @Override
     @Transactional
     public void deleteDatasetVersion(Integer id) {
         datasetVersionRepository.deleteById(id);
+        eventPublisher.publishEvent(StatisticsChangedEvent.recount());
     }
     
     // 添加缺少的版本管理方法
@@ -200,11 +218,16 @@ public class DatasetVersionServiceImpl implements DatasetVersionService {
     public DatasetVersion unpublishDatasetVersion(Integer id) {
         DatasetVersion version = datasetVersionRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Dataset version not found with id: " + id));
+        boolean wasPublished = Boolean.TRUE.equals(version.getIsPublished());
         
         version.setIsPublished(false);
         version.setUpdatedAt(LocalDateTime.now());
         
-        return datasetVersionRepository.save(version);
+        DatasetVersion saved = datasetVersionRepository.save(version);
+        if (wasPublished) {
+            eventPublisher.publishEvent(StatisticsChangedEvent.of(Metric.PUBLISHED_DATASET_VERSION, -1));
+        }
+        return saved;
     }
     
     @Override
@@ -259,6 +282,7 @@ public class DatasetVersionServiceImpl implements DatasetVersionService {
         
         // 保存版本
         newVersion = datasetVersionRepository.save(newVersion);
+        eventPublisher.publishEvent(StatisticsChangedEvent.of(Metric.DATASET_VERSION, 1));
         
         // 添加问题
         if (questionIds != null && !questionIds.isEmpty()) {
@@ -1,5 +1,8 @@
 package com.llm.eval.service.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.llm.eval.dto.DatasetVersionDTO;
 import com.llm.eval.dto.EvaluationBatchDTO;
 import com.llm.eval.dto.LlmModelDTO;
@@ -11,31 +14,41 @@ import com.llm.eval.repository.EvaluationBatchRepository;
 import com.llm.eval.repository.LlmModelRepository;
 import com.llm.eval.repository.DatasetVersionRepository;
 import com.llm.eval.service.EvaluationBatchService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
+@Slf4j
 public class EvaluationBatchServiceImpl implements EvaluationBatchService {
 
     private final EvaluationBatchRepository batchRepository;
     private final LlmModelRepository modelRepository;
     private final DatasetVersionRepository versionRepository;
+    private final BatchMetricsCalculator metricsCalculator;
+    private final ObjectMapper objectMapper;
 
     @Autowired
     public EvaluationBatchServiceImpl(
             EvaluationBatchRepository batchRepository,
             LlmModelRepository modelRepository,
-            DatasetVersionRepository versionRepository) {
+            DatasetVersionRepository versionRepository,
+            BatchMetricsCalculator metricsCalculator,
+            ObjectMapper objectMapper) {
         this.batchRepository = batchRepository;
         this.modelRepository = modelRepository;
         this.versionRepository = versionRepository;
+        this.metricsCalculator = metricsCalculator;
+        this.objectMapper = objectMapper;
     }
 
     @Override
@@ -160,10 +173,33 @@ public class EvaluationBatchServiceImpl implements EvaluationBatchService {
             return Optional.empty();
         }
         
-        // 这里可以添加计算评估指标的逻辑
-        // 例如：平均分数、通过率等
+        EvaluationBatch batch = batchOpt.get();
+        BatchMetrics metrics = metricsCalculator.compute(batchId);
+        
+        // 保留批次运行写入的进度字段，只替换其中的指标
+        Map<String, Object> summary = readSummary(batch.getMetricsSummary());
+        summary.put("metrics", metrics.toMap());
+        summary.put("metricsUpdatedAt", LocalDateTime.now().toString());
+        try {
+            batch.setMetricsSummary(objectMapper.writeValueAsString(summary));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("评测指标序列化失败: " + e.getOriginalMessage());
+        }
         
-        return batchOpt.map(this::convertToDTO);
+        return Optional.of(convertToDTO(batchRepository.save(batch)));
+    }
+    
+    private Map<String, Object> readSummary(String metricsSummary) {
+        if (metricsSummary == null || metricsSummary.isBlank()) {
+            return new LinkedHashMap<>();
+        }
+        try {
+            Map<String, Object> summary = objectMapper.readValue(metricsSummary, new TypeReference<LinkedHashMap<String, Object>>() {});
+            return summary != null ? summary : new LinkedHashMap<>();
+        } catch (JsonProcessingException e) {
+            log.warn("评测批次的metricsSummary不是JSON对象，将被覆盖: {}", e.getOriginalMessage());
+            return new LinkedHashMap<>();
+        }
     }
     
     // 辅助方法：将实体转换为DTO
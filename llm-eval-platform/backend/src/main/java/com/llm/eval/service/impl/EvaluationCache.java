@@ -0,0 +1,293 @@
+package com.llm.eval.service.impl;
+
+import com.llm.eval.model.AnswerKeyPoint;
+import com.llm.eval.model.StandardAnswer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 评测结果缓存
+ *
+ * 缓存键是回答内容与评分条件的 SHA-256：标准答案ID、标准答案及关键点的版本、评测方法、
+ * 裁判模型和评分模板版本，任一条件变化都会得到新的键，因此缓存项无需失效。
+ * 内存中保留有界的 LRU 前置层，未命中时批量查询 evaluation_cache 表。
+ */
+@Component
+@Slf4j
+public class EvaluationCache {
+
+    private static final String SELECT_SQL =
+            "SELECT cache_key, score, key_points_evaluation, comments FROM evaluation_cache " +
+            "WHERE cache_key IN (:keys)";
+
+    private static final String INSERT_SQL =
+            "INSERT IGNORE INTO evaluation_cache (cache_key, method, standard_answer_id, judge_model_id, score, " +
+            "key_points_evaluation, comments) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int SELECT_CHUNK_SIZE = 1000;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final boolean enabled;
+    private final Map<String, CachedResult> memory;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong databaseHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+
+    @Autowired
+    public EvaluationCache(JdbcTemplate jdbcTemplate,
+                           NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                           @Value("${evaluation.cache.enabled:true}") boolean enabled,
+                           @Value("${evaluation.cache.max-entries:100000}") int maxEntries) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.enabled = enabled;
+        this.memory = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                if (size() > maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 计算缓存键
+     *
+     * @param content 模型回答内容
+     * @param standardAnswer 标准答案（关键点用于计算评分标准的版本）
+     * @param method 评测方法
+     * @param judgeModelId 裁判模型ID，非裁判模型评测时为 null
+     * @param template 评分模板版本
+     */
+    public String key(String content, StandardAnswer standardAnswer, String method, Integer judgeModelId,
+                      String template) {
+        MessageDigest digest = sha256();
+        digest.update(Objects.toString(content, "").getBytes(StandardCharsets.UTF_8));
+        StringBuilder conditions = new StringBuilder(64)
+                .append('\u0000').append(standardAnswer.getStandardAnswerId())
+                .append('|').append(standardAnswer.getVersion())
+                .append('|').append(standardAnswer.getUpdatedAt())
+                .append('|').append(method)
+                .append('|').append(judgeModelId)
+                .append('|').append(template);
+        List<AnswerKeyPoint> keyPoints = standardAnswer.getKeyPoints();
+        if (keyPoints != null) {
+            for (AnswerKeyPoint keyPoint : keyPoints) {
+                conditions.append('|').append(keyPoint.getKeyPointId()).append(':').append(keyPoint.getVersion());
+            }
+        }
+        digest.update(conditions.toString().getBytes(StandardCharsets.UTF_8));
+        return toHex(digest.digest());
+    }
+
+    public CachedResult get(String key) {
+        if (!enabled) {
+            return null;
+        }
+        return getAll(List.of(key)).get(key);
+    }
+
+    /**
+     * 批量查询缓存：先查内存，未命中的键一次性查询数据库并回填内存
+     */
+    public Map<String, CachedResult> getAll(Collection<String> keys) {
+        Map<String, CachedResult> found = new HashMap<>();
+        if (!enabled || keys.isEmpty()) {
+            return found;
+        }
+
+        List<String> missing = new ArrayList<>();
+        synchronized (memory) {
+            for (String key : keys) {
+                CachedResult cached = memory.get(key);
+                if (cached != null) {
+                    found.put(key, cached);
+                } else {
+                    missing.add(key);
+                }
+            }
+        }
+        memoryHits.addAndGet(found.size());
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        Map<String, CachedResult> loaded = new HashMap<>();
+        try {
+            for (int from = 0; from < missing.size(); from += SELECT_CHUNK_SIZE) {
+                List<String> chunk = missing.subList(from, Math.min(from + SELECT_CHUNK_SIZE, missing.size()));
+                namedParameterJdbcTemplate.query(SELECT_SQL, new MapSqlParameterSource("keys", chunk), rs -> {
+                    loaded.put(rs.getString("cache_key"), new CachedResult(
+                            rs.getBigDecimal("score"),
+                            rs.getString("key_points_evaluation"),
+                            rs.getString("comments")));
+                });
+            }
+        } catch (Exception e) {
+            // 缓存不可用时退化为直接评测
+            log.warn("查询评测缓存失败: {}", e.getMessage());
+        }
+        if (!loaded.isEmpty()) {
+            synchronized (memory) {
+                memory.putAll(loaded);
+            }
+            found.putAll(loaded);
+        }
+        databaseHits.addAndGet(loaded.size());
+        misses.addAndGet(missing.size() - loaded.size());
+        return found;
+    }
+
+    public void put(String key, String method, Integer standardAnswerId, Integer judgeModelId, CachedResult result) {
+        putAll(List.of(new Entry(key, method, standardAnswerId, judgeModelId, result)));
+    }
+
+    /**
+     * 写入缓存：更新内存并批量写入数据库，已存在的键保持不变
+     */
+    public void putAll(List<Entry> entries) {
+        if (!enabled || entries.isEmpty()) {
+            return;
+        }
+        synchronized (memory) {
+            for (Entry entry : entries) {
+                memory.put(entry.key, entry.result);
+            }
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, entries, entries.size(), (ps, entry) -> {
+                ps.setString(1, entry.key);
+                ps.setString(2, entry.method);
+                ps.setInt(3, entry.standardAnswerId);
+                if (entry.judgeModelId != null) {
+                    ps.setInt(4, entry.judgeModelId);
+                } else {
+                    ps.setNull(4, Types.INTEGER);
+                }
+                ps.setBigDecimal(5, entry.result.getScore());
+                ps.setString(6, entry.result.getKeyPointsEvaluation());
+                ps.setString(7, entry.result.getComments());
+            });
+            writes.addAndGet(entries.size());
+        } catch (Exception e) {
+            log.warn("写入评测缓存失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 缓存命中统计
+     */
+    public Map<String, Object> getStats() {
+        long memoryHitCount = memoryHits.get();
+        long databaseHitCount = databaseHits.get();
+        long missCount = misses.get();
+        long lookups = memoryHitCount + databaseHitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        synchronized (memory) {
+            stats.put("memoryEntries", memory.size());
+        }
+        stats.put("memoryHits", memoryHitCount);
+        stats.put("databaseHits", databaseHitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", lookups > 0 ? (double) (memoryHitCount + databaseHitCount) / lookups : 0.0);
+        stats.put("evictions", evictions.get());
+        stats.put("writes", writes.get());
+        return stats;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 缓存的评测结果
+     */
+    public static class CachedResult {
+        private final BigDecimal score;
+        private final String keyPointsEvaluation;
+        private final String comments;
+
+        public CachedResult(BigDecimal score, String keyPointsEvaluation, String comments) {
+            this.score = score;
+            this.keyPointsEvaluation = keyPointsEvaluation;
+            this.comments = comments;
+        }
+
+        public BigDecimal getScore() {
+            return score;
+        }
+
+        public String getKeyPointsEvaluation() {
+            return keyPointsEvaluation;
+        }
+
+        public String getComments() {
+            return comments;
+        }
+    }
+
+    /**
+     * 待写入的缓存项
+     */
+    public static class Entry {
+        private final String key;
+        private final String method;
+        private final Integer standardAnswerId;
+        private final Integer judgeModelId;
+        private final CachedResult result;
+
+        public Entry(String key, String method, Integer standardAnswerId, Integer judgeModelId, CachedResult result) {
+            this.key = key;
+            this.method = method;
+            this.standardAnswerId = standardAnswerId;
+            this.judgeModelId = judgeModelId;
+            this.result = result;
+        }
+    }
+}
@@ -2,14 +2,22 @@ package com.llm.eval.service.impl;
 
 import com.llm.eval.dto.EvaluationDTO;
 import com.llm.eval.dto.EvaluationKeyPointDTO;
+import com.llm.eval.dto.EvaluationListItemDTO;
+import com.llm.eval.dto.ModelComparisonDTO;
+import com.llm.eval.dto.ModelRatingDTO;
+import com.llm.eval.dto.ModelScoreStatisticsDTO;
+import com.llm.eval.dto.UnevaluatedAnswerDTO;
 import com.llm.eval.model.*;
 import com.llm.eval.repository.EvaluationBatchRepository;
 import com.llm.eval.repository.EvaluationRepository;
 import com.llm.eval.repository.LlmAnswerRepository;
 import com.llm.eval.repository.StandardAnswerRepository;
 import com.llm.eval.service.EvaluationService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,28 +25,48 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
+@Slf4j
 public class EvaluationServiceImpl implements EvaluationService {
 
+    // 评分为0-10分，按1分一段划分直方图
+    private static final int SCORE_HISTOGRAM_BUCKETS = 10;
+
     private final EvaluationRepository evaluationRepository;
     private final LlmAnswerRepository llmAnswerRepository;
     private final StandardAnswerRepository standardAnswerRepository;
     private final EvaluationBatchRepository batchRepository;
+    private final KeyPointScorer keyPointScorer;
+    private final EvaluationCache evaluationCache;
+    private final PairwiseRatingEngine pairwiseRatingEngine;
+    private final ObjectiveScorer objectiveScorer;
 
     @Autowired
     public EvaluationServiceImpl(
             EvaluationRepository evaluationRepository,
             LlmAnswerRepository llmAnswerRepository,
             StandardAnswerRepository standardAnswerRepository,
-            EvaluationBatchRepository batchRepository) {
+            EvaluationBatchRepository batchRepository,
+            KeyPointScorer keyPointScorer,
+            EvaluationCache evaluationCache,
+            PairwiseRatingEngine pairwiseRatingEngine,
+            ObjectiveScorer objectiveScorer) {
         this.evaluationRepository = evaluationRepository;
         this.llmAnswerRepository = llmAnswerRepository;
         this.standardAnswerRepository = standardAnswerRepository;
         this.batchRepository = batchRepository;
+        this.keyPointScorer = keyPointScorer;
+        this.evaluationCache = evaluationCache;
+        this.pairwiseRatingEngine = pairwiseRatingEngine;
+        this.objectiveScorer = objectiveScorer;
     }
 
     @Override
@@ -49,6 +77,16 @@ public class EvaluationServiceImpl implements EvaluationService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<EvaluationListItemDTO> findEvaluations(Integer modelId, Integer datasetId, String method,
+                                                      Integer categoryId, BigDecimal minScore, BigDecimal maxScore,
+                                                      Pageable pageable) {
+        String methodFilter = (method != null && !method.isBlank()) ? method : null;
+        return evaluationRepository.findListItemsByFilters(
+                modelId, datasetId, methodFilter, categoryId, minScore, maxScore, pageable);
+    }
+
     @Override
     public Optional<EvaluationDTO> getEvaluationById(Integer evaluationId) {
         return evaluationRepository.findById(evaluationId)
@@ -130,8 +168,11 @@ public class EvaluationServiceImpl implements EvaluationService {
         return evaluationRepository.countByBatchAndScoreGreaterThanEqual(batch.get(), threshold);
     }
 
+    /**
+     * 同步评测批次。每条评测单独提交，已评测的回答跳过，因此中断后重新调用只评测剩余回答；
+     * 中断后仍为进行中的批次会在服务启动时由批次运行服务从检查点恢复
+     */
     @Override
-    @Transactional
     public List<EvaluationDTO> evaluateBatch(Integer batchId) {
         Optional<EvaluationBatch> batchOpt = batchRepository.findById(batchId);
         if (batchOpt.isEmpty()) {
@@ -139,60 +180,154 @@ public class EvaluationServiceImpl implements EvaluationService {
         }
         
         EvaluationBatch batch = batchOpt.get();
+        if (batch.getEvaluationMethod() == EvaluationBatch.EvaluationMethod.JUDGE_MODEL) {
+            throw new IllegalArgumentException("裁判模型批次需通过批次运行接口在后台执行");
+        }
         batch.setStatus(EvaluationBatch.EvaluationStatus.IN_PROGRESS);
         batch.setStartTime(LocalDateTime.now());
         batchRepository.save(batch);
         
-        List<LlmAnswer> answers = llmAnswerRepository.findByBatchAndIsFinalTrue(batch);
-        List<Evaluation> evaluations = new ArrayList<>();
-        
-        for (LlmAnswer answer : answers) {
-            Optional<StandardAnswer> standardAnswer = standardAnswerRepository.findByStandardQuestionAndIsFinalTrue(answer.getStandardQuestion());
-            if (standardAnswer.isEmpty()) {
-                continue;
+        try {
+            if (batch.getEvaluationMethod() == EvaluationBatch.EvaluationMethod.AUTO) {
+                // 每次评测重新加载客观题答案表，使选项的修改生效
+                objectiveScorer.load(datasetVersionId(batch));
             }
+            List<LlmAnswer> answers = llmAnswerRepository.findByBatchAndIsFinalTrue(batch);
+            List<Evaluation> evaluations = new ArrayList<>();
+            Set<Integer> evaluatedAnswerIds = evaluationRepository.findByBatch(batch).stream()
+                    .map(Evaluation::getLlmAnswer)
+                    .filter(Objects::nonNull)
+                    .map(LlmAnswer::getLlmAnswerId)
+                    .collect(Collectors.toSet());
             
-            // 根据评测方法选择不同的评测逻辑
-            Evaluation evaluation = new Evaluation();
-            evaluation.setLlmAnswer(answer);
-            evaluation.setStandardAnswer(standardAnswer.get());
-            evaluation.setBatch(batch);
-            evaluation.setMethod(batch.getEvaluationMethod().toString());
+            // 一次查询取回所有涉及问题的最终标准答案
+            Set<Integer> questionIds = answers.stream()
+                    .map(LlmAnswer::getStandardQuestion)
+                    .filter(Objects::nonNull)
+                    .map(StandardQuestion::getStandardQuestionId)
+                    .collect(Collectors.toSet());
+            Map<Integer, StandardAnswer> standardAnswers = standardAnswerRepository.findFinalAnswerMapByQuestionIds(questionIds);
             
-            // 根据评测方法生成评分
-            if (batch.getEvaluationMethod() == EvaluationBatch.EvaluationMethod.AUTO) {
-                // 自动评测逻辑（简单示例）
-                evaluation.setScore(calculateAutoScore(answer, standardAnswer.get()));
-            } else if (batch.getEvaluationMethod() == EvaluationBatch.EvaluationMethod.JUDGE_MODEL && batch.getJudgeModel() != null) {
-                // 裁判模型评测逻辑
-                evaluation.setJudgeModel(batch.getJudgeModel());
-                evaluation.setScore(calculateJudgeModelScore(answer, standardAnswer.get(), batch.getJudgeModel()));
+            for (LlmAnswer answer : answers) {
+                if (evaluatedAnswerIds.contains(answer.getLlmAnswerId())) {
+                    continue;
+                }
+                StandardAnswer standardAnswer = answer.getStandardQuestion() == null ? null
+                        : standardAnswers.get(answer.getStandardQuestion().getStandardQuestionId());
+                if (standardAnswer == null) {
+                    continue;
+                }
+                
+                Evaluation evaluation = buildEvaluation(answer, standardAnswer, batch);
+                evaluations.add(evaluationRepository.save(evaluation));
             }
             
-            evaluations.add(evaluationRepository.save(evaluation));
+            // 更新批次状态
+            batch.setStatus(EvaluationBatch.EvaluationStatus.COMPLETED);
+            batch.setEndTime(LocalDateTime.now());
+            batchRepository.save(batch);
+            
+            return evaluations.stream()
+                    .map(this::convertToDTO)
+                    .collect(Collectors.toList());
+        } catch (RuntimeException e) {
+            batch.setStatus(EvaluationBatch.EvaluationStatus.FAILED);
+            batch.setEndTime(LocalDateTime.now());
+            batchRepository.save(batch);
+            throw e;
+        }
+    }
+    
+    @Override
+    public Evaluation buildEvaluation(LlmAnswer answer, StandardAnswer standardAnswer, EvaluationBatch batch) {
+        // 根据评测方法选择不同的评测逻辑
+        Evaluation evaluation = new Evaluation();
+        evaluation.setLlmAnswer(answer);
+        evaluation.setStandardAnswer(standardAnswer);
+        evaluation.setBatch(batch);
+        evaluation.setMethod(batch.getEvaluationMethod().toString());
+        
+        // 根据评测方法生成评分
+        if (batch.getEvaluationMethod() == EvaluationBatch.EvaluationMethod.AUTO) {
+            // 客观题按预加载的答案表精确匹配
+            ObjectiveScorer.Result objective = objectiveScorer.score(
+                    objectiveScorer.keyFor(datasetVersionId(batch)),
+                    answer.getStandardQuestion() != null ? answer.getStandardQuestion().getStandardQuestionId() : null,
+                    answer.getContent());
+            if (objective != null) {
+                evaluation.setScore(objective.getScore());
+                evaluation.setComments(objective.getComment());
+                return evaluation;
+            }
+            // 关键点匹配评分，标准答案的关键点由调用方预先加载
+            KeyPointScorer.ScoreResult result = keyPointScorer.score(standardAnswer, answer.getContent());
+            evaluation.setScore(result.getScore());
+            evaluation.setKeyPointsEvaluation(keyPointScorer.toKeyPointsJson(result));
+        } else if (batch.getEvaluationMethod() == EvaluationBatch.EvaluationMethod.JUDGE_MODEL) {
+            // 裁判模型评分只经 judge_tasks 队列由 JudgeTaskRunner 异步执行，不在调用线程上等待模型响应
+            throw new IllegalArgumentException("裁判模型评测需通过批次运行接口在后台执行");
+        }
+        return evaluation;
+    }
+    
+    private Integer datasetVersionId(EvaluationBatch batch) {
+        return batch.getDatasetVersion() != null ? batch.getDatasetVersion().getVersionId() : null;
+    }
+    
+    @Override
+    @Transactional
+    public EvaluationDTO autoEvaluate(LlmAnswer answer, StandardAnswer standardAnswer) {
+        EvaluationDTO dto = new EvaluationDTO();
+        dto.setLlmAnswerId(answer.getLlmAnswerId());
+        dto.setStandardAnswerId(standardAnswer.getStandardAnswerId());
+        dto.setMethod("auto");
+        
+        // 与批次评测一致：客观题先按答案表精确匹配
+        ObjectiveScorer.Result objective = objectiveScorer.score(
+                objectiveScorer.keyFor(answer.getDatasetVersion() != null
+                        ? answer.getDatasetVersion().getVersionId() : null),
+                answer.getStandardQuestion() != null ? answer.getStandardQuestion().getStandardQuestionId() : null,
+                answer.getContent());
+        if (objective != null) {
+            dto.setScore(objective.getScore());
+            dto.setComments(objective.getComment());
+            return dto;
+        }
+        dto.setComments("自动评测：基于关键点匹配的评分");
+        
+        // 相同内容在相同评分标准下直接复用缓存的评分
+        String method = EvaluationBatch.EvaluationMethod.AUTO.name();
+        String cacheKey = evaluationCache.key(answer.getContent(), standardAnswer, method, null,
+                KeyPointScorer.SCORER_VERSION);
+        EvaluationCache.CachedResult cached = evaluationCache.get(cacheKey);
+        if (cached != null) {
+            dto.setScore(cached.getScore());
+            dto.setKeyPointsEvaluation(cached.getKeyPointsEvaluation());
+            return dto;
         }
         
-        // 更新批次状态
-        batch.setStatus(EvaluationBatch.EvaluationStatus.COMPLETED);
-        batch.setEndTime(LocalDateTime.now());
-        batchRepository.save(batch);
-        
-        return evaluations.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        KeyPointScorer.ScoreResult result = keyPointScorer.score(standardAnswer,
+                getKeyPointsByAnswerId(standardAnswer.getStandardAnswerId()), answer.getContent());
+        dto.setScore(result.getScore());
+        dto.setKeyPointsEvaluation(keyPointScorer.toKeyPointsJson(result));
+        evaluationCache.put(cacheKey, method, standardAnswer.getStandardAnswerId(), null,
+                new EvaluationCache.CachedResult(dto.getScore(), dto.getKeyPointsEvaluation(), null));
+        return dto;
     }
     
-    // 自动评测逻辑示例
-    private BigDecimal calculateAutoScore(LlmAnswer answer, StandardAnswer standardAnswer) {
-        // 简单示例：随机评分，实际中应该使用文本相似度、关键点匹配等复杂算法
-        return new BigDecimal(Math.random()).multiply(BigDecimal.valueOf(10)).setScale(2, BigDecimal.ROUND_HALF_UP);
+    @Override
+    public Map<String, Object> getEvaluationCacheStats() {
+        return evaluationCache.getStats();
+    }
+    
+    @Override
+    public List<ModelRatingDTO> getModelLeaderboard(boolean forceRebuild, int bootstrapRounds) {
+        return pairwiseRatingEngine.getLeaderboard(forceRebuild, bootstrapRounds);
     }
     
-    // 裁判模型评测逻辑
-    private BigDecimal calculateJudgeModelScore(LlmAnswer answer, StandardAnswer standardAnswer, LlmModel judgeModel) {
-        // 这里应该调用裁判模型API进行评分，实际中需要实现具体的调用逻辑
-        // 简单示例：随机评分
-        return new BigDecimal(Math.random()).multiply(BigDecimal.valueOf(10)).setScale(2, BigDecimal.ROUND_HALF_UP);
+    @Override
+    public Integer recordModelComparison(ModelComparisonDTO comparison) {
+        return pairwiseRatingEngine.recordComparison(comparison);
     }
     
     private EvaluationDTO convertToDTO(Evaluation evaluation) {
@@ -241,39 +376,59 @@ public class EvaluationServiceImpl implements EvaluationService {
     }
 
     @Override
-    public List<LlmAnswer> getUnevaluatedAnswers(Integer modelId, String questionType, Integer categoryId) {
-        // 获取所有模型回答
-        List<LlmAnswer> allAnswers = llmAnswerRepository.findAll();
-        
-        // 过滤已评测的回答
-        List<LlmAnswer> unevaluatedAnswers = allAnswers.stream()
-                .filter(answer -> {
-                    // 检查是否已有评测记录
-                    List<Evaluation> evaluations = evaluationRepository.findByLlmAnswer(answer);
-                    return evaluations.isEmpty();
-                })
-                .filter(answer -> {
-                    // 根据模型ID过滤
-                    if (modelId != null && !answer.getModel().getModelId().equals(modelId)) {
-                        return false;
-                    }
-                    
-                    // 根据问题类型过滤
-                    if (questionType != null && !answer.getStandardQuestion().getQuestionType().toString().equals(questionType)) {
-                        return false;
-                    }
-                    
-                    // 根据分类ID过滤
-                    if (categoryId != null && (answer.getStandardQuestion().getCategory() == null || 
-                            !answer.getStandardQuestion().getCategory().getCategoryId().equals(categoryId))) {
-                        return false;
-                    }
-                    
-                    return true;
-                })
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public List<ModelScoreStatisticsDTO> getModelScoreStatistics(Integer datasetId, Integer batchId, Integer categoryId) {
+        Map<Integer, ModelScoreStatisticsDTO> byModel = new LinkedHashMap<>();
+        for (Object[] row : evaluationRepository.aggregateScoresByModel(datasetId, batchId, categoryId)) {
+            ModelScoreStatisticsDTO dto = new ModelScoreStatisticsDTO();
+            dto.setModelId(((Number) row[0]).intValue());
+            String name = (String) row[1];
+            String version = (String) row[2];
+            dto.setModelName(version != null && !version.isEmpty() ? name + " " + version : name);
+            dto.setModelVersion(version);
+            dto.setEvaluationCount(((Number) row[3]).longValue());
+            dto.setAvgScore(toDouble(row[4]));
+            dto.setMinScore(toDouble(row[5]));
+            dto.setMaxScore(toDouble(row[6]));
+            dto.setStdDevScore(toDouble(row[7]));
+            for (int bucket = 0; bucket < SCORE_HISTOGRAM_BUCKETS; bucket++) {
+                dto.getScoreHistogram().put(bucket + "-" + (bucket + 1), 0L);
+            }
+            byModel.put(dto.getModelId(), dto);
+        }
+        if (byModel.isEmpty()) {
+            return new ArrayList<>();
+        }
         
-        return unevaluatedAnswers;
+        for (Object[] row : evaluationRepository.countScoreBucketsByModel(
+                datasetId, batchId, categoryId, SCORE_HISTOGRAM_BUCKETS - 1)) {
+            ModelScoreStatisticsDTO dto = byModel.get(((Number) row[0]).intValue());
+            if (dto != null) {
+                int bucket = ((Number) row[1]).intValue();
+                dto.getScoreHistogram().put(bucket + "-" + (bucket + 1), ((Number) row[2]).longValue());
+            }
+        }
+        return new ArrayList<>(byModel.values());
+    }
+    
+    private Double toDouble(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : null;
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Page<UnevaluatedAnswerDTO> getUnevaluatedAnswers(Integer modelId, String questionType, Integer categoryId,
+                                                          Pageable pageable) {
+        StandardQuestion.QuestionType type = null;
+        if (questionType != null && !questionType.isBlank()) {
+            try {
+                type = StandardQuestion.QuestionType.valueOf(questionType);
+            } catch (IllegalArgumentException e) {
+                // 未知的问题类型不会匹配任何回答
+                return Page.empty(pageable);
+            }
+        }
+        return llmAnswerRepository.findUnevaluatedAnswers(modelId, type, categoryId, pageable);
     }
     
     @Override
@@ -283,85 +438,54 @@ public class EvaluationServiceImpl implements EvaluationService {
     
     @Override
     public Optional<StandardAnswer> getStandardAnswerByQuestionId(Integer questionId) {
-        // 记录日志
-        System.out.println("获取问题ID为 " + questionId + " 的标准答案");
-        
-        // 查找与问题关联的所有标准答案
-        List<StandardAnswer> answers = standardAnswerRepository.findAll().stream()
-                .filter(answer -> {
-                    // 检查标准问题ID是否匹配
-                    boolean matches = false;
-                    if (answer.getStandardQuestion() != null && 
-                        answer.getStandardQuestion().getStandardQuestionId() != null) {
-                        matches = answer.getStandardQuestion().getStandardQuestionId().equals(questionId);
-                    } else if (answer.getStandardQuestionId() != null) {
-                        // 直接检查标准问题ID字段
-                        matches = answer.getStandardQuestionId().equals(questionId);
-                    }
-                    return matches;
-                })
-                .filter(answer -> answer.getIsFinal() != null && answer.getIsFinal())
-                .collect(Collectors.toList());
-        
-        System.out.println("找到 " + answers.size() + " 个标准答案");
-        
-        // 如果没有找到答案，尝试通过问题ID直接查询
-        if (answers.isEmpty()) {
-            System.out.println("通过关联关系未找到答案，尝试直接查询");
-            answers = standardAnswerRepository.findByStandardQuestionStandardQuestionId(questionId);
-            System.out.println("直接查询找到 " + answers.size() + " 个标准答案");
+        if (questionId == null) {
+            return Optional.empty();
         }
-        
-        // 返回第一个最终答案
-        Optional<StandardAnswer> result = answers.isEmpty() ? Optional.empty() : Optional.of(answers.get(0));
-        
-        if (result.isPresent()) {
-            StandardAnswer answer = result.get();
-            System.out.println("返回标准答案 ID: " + answer.getStandardAnswerId() + 
-                              ", 来源类型: " + answer.getSourceType() +
-                              ", 是否最终版: " + answer.getIsFinal());
-        } else {
-            System.out.println("未找到标准答案");
+        // 优先返回最终版答案，没有最终版时退回该问题最近更新的答案
+        Optional<StandardAnswer> finalAnswer = standardAnswerRepository
+                .findFirstByStandardQuestionStandardQuestionIdAndIsFinalTrueOrderByUpdatedAtDescStandardAnswerIdDesc(questionId);
+        if (finalAnswer.isPresent()) {
+            return finalAnswer;
         }
-        
-        return result;
+        return standardAnswerRepository
+                .findFirstByStandardQuestionStandardQuestionIdOrderByUpdatedAtDescStandardAnswerIdDesc(questionId);
     }
     
     @Override
     public List<AnswerKeyPoint> getKeyPointsByAnswerId(Integer standardAnswerId) {
-        System.out.println("获取标准答案ID为 " + standardAnswerId + " 的关键点");
+        log.debug("获取标准答案ID为 {} 的关键点", standardAnswerId);
         
         Optional<StandardAnswer> standardAnswer = standardAnswerRepository.findById(standardAnswerId);
         if (standardAnswer.isEmpty()) {
-            System.out.println("未找到标准答案，返回空关键点列表");
+            log.debug("未找到标准答案 {}，返回空关键点列表", standardAnswerId);
             return new ArrayList<>();
         }
         
         StandardAnswer answer = standardAnswer.get();
-        System.out.println("找到标准答案，来源类型: " + answer.getSourceType());
+        log.debug("找到标准答案，来源类型: {}", answer.getSourceType());
         
         // 尝试从数据库中获取关键点 - 通过标准答案的关联关系
         List<AnswerKeyPoint> keyPoints = new ArrayList<>();
         
         if (answer.getKeyPoints() != null && !answer.getKeyPoints().isEmpty()) {
-            System.out.println("从标准答案的关联关系中找到关键点，数量: " + answer.getKeyPoints().size());
+            log.debug("从标准答案的关联关系中找到关键点，数量: {}", answer.getKeyPoints().size());
             // 对关键点按照顺序排序
             keyPoints = answer.getKeyPoints().stream()
                     .sorted(Comparator.comparing(AnswerKeyPoint::getPointOrder, Comparator.nullsLast(Comparator.naturalOrder())))
                     .collect(Collectors.toList());
         } else {
-            System.out.println("标准答案没有关联的关键点，尝试通过其他方式查找");
+            log.debug("标准答案没有关联的关键点，尝试通过其他方式查找");
             
             // 如果是众包提升的标准答案，可能需要特殊处理
             if (answer.getSourceType() != null && answer.getSourceType() == StandardAnswer.SourceType.crowdsourced) {
-                System.out.println("检测到众包提升的标准答案，源ID: " + answer.getSourceId());
+                log.debug("检测到众包提升的标准答案，源ID: {}", answer.getSourceId());
                 // 这里可以添加针对众包提升标准答案的特殊处理
                 // 例如，从众包答案中提取关键点
             }
             
             // 如果没有找到关键点，可以尝试创建一些默认的关键点
             if (keyPoints.isEmpty() && answer.getAnswer() != null && !answer.getAnswer().isEmpty()) {
-                System.out.println("未找到关键点，尝试从答案内容中提取");
+                log.debug("未找到关键点，尝试从答案内容中提取");
                 
                 // 这里只是一个示例，实际实现应该更复杂
                 String[] paragraphs = answer.getAnswer().split("\n\n");
@@ -385,70 +509,13 @@ public class EvaluationServiceImpl implements EvaluationService {
             }
         }
         
-        System.out.println("返回关键点数量: " + keyPoints.size());
+        log.debug("返回关键点数量: {}", keyPoints.size());
         return keyPoints;
     }
 
     @Override
     public Optional<StandardAnswer> getLatestStandardAnswerByQuestionId(Integer questionId) {
-        System.out.println("获取问题ID为 " + questionId + " 的最新标准答案");
-        
-        // 查找与问题关联的所有标准答案
-        List<StandardAnswer> allAnswers = standardAnswerRepository.findAll().stream()
-                .filter(answer -> {
-                    // 检查标准问题ID是否匹配
-                    boolean matches = false;
-                    if (answer.getStandardQuestion() != null && 
-                        answer.getStandardQuestion().getStandardQuestionId() != null) {
-                        matches = answer.getStandardQuestion().getStandardQuestionId().equals(questionId);
-                    } else if (answer.getStandardQuestionId() != null) {
-                        // 直接检查标准问题ID字段
-                        matches = answer.getStandardQuestionId().equals(questionId);
-                    }
-                    return matches;
-                })
-                .collect(Collectors.toList());
-        
-        System.out.println("找到 " + allAnswers.size() + " 个标准答案");
-        
-        // 如果没有找到答案，尝试通过问题ID直接查询
-        if (allAnswers.isEmpty()) {
-            System.out.println("通过关联关系未找到答案，尝试直接查询");
-            allAnswers = standardAnswerRepository.findByStandardQuestionStandardQuestionId(questionId);
-            System.out.println("直接查询找到 " + allAnswers.size() + " 个标准答案");
-        }
-        
-        if (allAnswers.isEmpty()) {
-            System.out.println("未找到任何标准答案");
-            return Optional.empty();
-        }
-        
-        // 首先尝试找到最终版本的答案
-        Optional<StandardAnswer> finalAnswer = allAnswers.stream()
-                .filter(answer -> answer.getIsFinal() != null && answer.getIsFinal())
-                .max(Comparator.comparing(StandardAnswer::getUpdatedAt, Comparator.nullsLast(Comparator.naturalOrder())));
-        
-        if (finalAnswer.isPresent()) {
-            StandardAnswer answer = finalAnswer.get();
-            System.out.println("找到最终版本的标准答案，ID: " + answer.getStandardAnswerId() + 
-                              ", 更新时间: " + answer.getUpdatedAt() + 
-                              ", 版本: " + answer.getVersion());
-            return finalAnswer;
-        }
-        
-        // 如果没有最终版本，返回最新更新的答案
-        Optional<StandardAnswer> latestAnswer = allAnswers.stream()
-                .max(Comparator.comparing(StandardAnswer::getUpdatedAt, Comparator.nullsLast(Comparator.naturalOrder())));
-        
-        if (latestAnswer.isPresent()) {
-            StandardAnswer answer = latestAnswer.get();
-            System.out.println("找到最新更新的标准答案，ID: " + answer.getStandardAnswerId() + 
-                              ", 更新时间: " + answer.getUpdatedAt() + 
-                              ", 版本: " + answer.getVersion());
-        } else {
-            System.out.println("未找到最新更新的标准答案");
-        }
-        
-        return latestAnswer;
+        // 最终版与最近更新的回退规则与 getStandardAnswerByQuestionId 一致
+        return getStandardAnswerByQuestionId(questionId);
     }
 } 
\ No newline at end of file
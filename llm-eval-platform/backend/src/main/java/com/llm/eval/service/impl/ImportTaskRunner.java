@@ -0,0 +1,345 @@
+package com.llm.eval.service.impl;
+
+import com.llm.eval.dto.DataImportResultDTO;
+import com.llm.eval.model.ImportTask;
+import com.llm.eval.repository.ImportTaskRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 后台导入任务执行器
+ * 导入任务在有界线程池中运行，进度和错误日志与数据块在同一事务中提交；
+ * 执行节点持有任务租约，取消以数据库中的任务状态为准并在数据块边界生效，重试从已提交的偏移量继续
+ */
+@Component
+@Slf4j
+public class ImportTaskRunner {
+
+    // 单个任务最多记录的错误日志条数
+    private static final int MAX_ERROR_LOGS = 1000;
+
+    // 任务已被取消或租约已被其他节点回收时不更新，数据块随之回滚
+    private static final String UPDATE_PROGRESS_SQL =
+            "UPDATE import_tasks SET processed_count = ?, imported_count = ?, failed_count = ?, " +
+            "lease_expires_at = NOW() + INTERVAL ? SECOND, updated_at = NOW() " +
+            "WHERE import_id = ? AND status = 'IN_PROGRESS' AND lease_owner = ?";
+
+    private static final String LEASE_PENDING_SQL =
+            "UPDATE import_tasks SET lease_owner = ?, lease_expires_at = NOW() + INTERVAL ? SECOND " +
+            "WHERE import_id = ? AND status = 'PENDING'";
+
+    private static final String START_SQL =
+            "UPDATE import_tasks SET status = 'IN_PROGRESS', start_time = COALESCE(start_time, NOW()), end_time = NULL, " +
+            "lease_owner = ?, lease_expires_at = NOW() + INTERVAL ? SECOND, updated_at = NOW() " +
+            "WHERE import_id = ? AND status = 'PENDING' AND deleted_at IS NULL";
+
+    private static final String RENEW_LEASES_SQL =
+            "UPDATE import_tasks SET lease_expires_at = NOW() + INTERVAL :seconds SECOND " +
+            "WHERE import_id IN (:importIds) AND lease_owner = :owner AND status IN ('PENDING', 'IN_PROGRESS')";
+
+    // 只更新仍处于预期状态的任务，避免覆盖并发的取消
+    private static final String FINISH_SQL =
+            "UPDATE import_tasks SET status = ?, details = ?, end_time = NOW(), lease_owner = NULL, " +
+            "lease_expires_at = NULL, updated_at = NOW() WHERE import_id = ? AND status = ?";
+
+    private static final String INSERT_LOG_SQL =
+            "INSERT INTO import_task_logs (import_id, log_time, message, log_level, created_at, updated_at) " +
+            "VALUES (?, NOW(), ?, ?, NOW(), NOW())";
+
+    // 本节点遗留的任务，或租约已过期的任务（迁移前创建、没有租约的任务以更新时间判断）
+    private static final String FAIL_INTERRUPTED_SQL =
+            "UPDATE import_tasks SET status = 'FAILED', end_time = NOW(), lease_owner = NULL, lease_expires_at = NULL, " +
+            "details = ? WHERE status IN ('PENDING', 'IN_PROGRESS') AND deleted_at IS NULL " +
+            "AND (lease_owner = ? OR lease_expires_at < NOW() " +
+            "OR (lease_expires_at IS NULL AND updated_at < NOW() - INTERVAL ? SECOND))";
+
+    private final ImportTaskRepository importTaskRepository;
+    private final QAFileImporter fileImporter;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final ThreadPoolTaskExecutor importExecutor;
+    private final ThreadPoolTaskScheduler leaseHeartbeatScheduler;
+    private final ClusterNode clusterNode;
+
+    @Value("${import.lease-seconds:60}")
+    private int leaseSeconds;
+
+    // 已提交到线程池（排队或运行中）的任务进度
+    private final Map<Integer, ImportProgress> activeTasks = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ImportTaskRunner(ImportTaskRepository importTaskRepository,
+                            QAFileImporter fileImporter,
+                            JdbcTemplate jdbcTemplate,
+                            NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                            @Qualifier("importExecutor") ThreadPoolTaskExecutor importExecutor,
+                            @Qualifier("leaseHeartbeatScheduler") ThreadPoolTaskScheduler leaseHeartbeatScheduler,
+                            ClusterNode clusterNode) {
+        this.importTaskRepository = importTaskRepository;
+        this.fileImporter = fileImporter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.importExecutor = importExecutor;
+        this.leaseHeartbeatScheduler = leaseHeartbeatScheduler;
+        this.clusterNode = clusterNode;
+    }
+
+    /**
+     * 服务启动时，本节点上次未结束的任务已无线程执行，和租约已过期的任务一起标记为失败以便重试；
+     * 之后定期为本节点的任务续租，并回收其他节点遗留的过期任务
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void markInterruptedTasks() {
+        failInterruptedTasks(clusterNode.getId(), "服务重启导致任务中断，可重试继续导入");
+        leaseHeartbeatScheduler.scheduleAtFixedRate(this::renewLeases,
+                Duration.ofMillis(Math.max(1000L, leaseSeconds * 1000L / 3)));
+    }
+
+    private void renewLeases() {
+        try {
+            if (!activeTasks.isEmpty()) {
+                namedParameterJdbcTemplate.update(RENEW_LEASES_SQL, new MapSqlParameterSource()
+                        .addValue("seconds", leaseSeconds)
+                        .addValue("importIds", new ArrayList<>(activeTasks.keySet()))
+                        .addValue("owner", clusterNode.getId()));
+            }
+        } catch (Exception e) {
+            log.warn("导入任务续租失败: {}", e.getMessage());
+        }
+        // 其他节点停止续租的任务（owner 传 null 时只按租约过期判断）
+        failInterruptedTasks(null, "执行节点租约过期，可重试继续导入");
+    }
+
+    private void failInterruptedTasks(String owner, String details) {
+        try {
+            int count = jdbcTemplate.update(FAIL_INTERRUPTED_SQL, details, owner, leaseSeconds);
+            if (count > 0) {
+                log.info("已将{}个中断的导入任务标记为失败", count);
+            }
+        } catch (Exception e) {
+            log.warn("检查中断的导入任务失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 提交导入任务到线程池
+     *
+     * @param importId 导入任务ID
+     * @throws IllegalStateException 任务已在执行或队列已满
+     */
+    public void submit(Integer importId) {
+        ImportProgress progress = new ImportProgress();
+        if (activeTasks.putIfAbsent(importId, progress) != null) {
+            throw new IllegalStateException("导入任务正在执行中: " + importId);
+        }
+        try {
+            // 排队期间也持有租约，避免被其他节点当作中断任务回收
+            jdbcTemplate.update(LEASE_PENDING_SQL, clusterNode.getId(), leaseSeconds, importId);
+            importExecutor.execute(() -> {
+                try {
+                    run(importId, progress);
+                } finally {
+                    activeTasks.remove(importId);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            activeTasks.remove(importId);
+            throw new IllegalStateException("导入任务队列已满，请稍后重试");
+        } catch (RuntimeException e) {
+            activeTasks.remove(importId);
+            throw e;
+        }
+    }
+
+    /**
+     * 请求取消本节点上的任务，运行中的任务在当前数据块提交后停止；
+     * 其他节点上的任务由数据块提交时检查数据库中的任务状态发现取消
+     *
+     * @param importId 导入任务ID
+     * @return 任务是否在本节点排队或运行中
+     */
+    public boolean cancel(Integer importId) {
+        ImportProgress progress = activeTasks.get(importId);
+        if (progress == null) {
+            return false;
+        }
+        progress.cancelled = true;
+        return true;
+    }
+
+    public boolean isActive(Integer importId) {
+        return activeTasks.containsKey(importId);
+    }
+
+    /**
+     * 获取运行中任务的实时吞吐量（条/秒），任务不在运行时返回null
+     */
+    public Double getThroughput(Integer importId) {
+        ImportProgress progress = activeTasks.get(importId);
+        return progress != null ? progress.throughput() : null;
+    }
+
+    private void run(Integer importId, ImportProgress progress) {
+        // 只有仍在等待中的任务可以开始，已取消或已被其他节点接手的任务直接跳过
+        if (progress.cancelled
+                || jdbcTemplate.update(START_SQL, clusterNode.getId(), leaseSeconds, importId) == 0) {
+            return;
+        }
+        ImportTask task = importTaskRepository.findById(importId).orElse(null);
+        if (task == null) {
+            return;
+        }
+
+        long offset = task.getProcessedCount() != null ? task.getProcessedCount() : 0;
+        progress.imported = task.getImportedCount() != null ? task.getImportedCount() : 0;
+        progress.failed = task.getFailedCount() != null ? task.getFailedCount() : 0;
+        progress.startedAt = System.currentTimeMillis();
+        appendLog(importId, "INFO", offset > 0 ? "开始导入，从第" + (offset + 1) + "条记录继续" : "开始导入");
+
+        Path path = task.getFilePath() != null ? Paths.get(task.getFilePath()) : null;
+        try {
+            if (path == null || !Files.exists(path)) {
+                throw new IllegalStateException("导入文件不存在");
+            }
+
+            DataImportResultDTO result = null;
+            try (InputStream in = Files.newInputStream(path)) {
+                result = fileImporter.importFile(in, task.getType(), offset, new QAFileImporter.ChunkListener() {
+                    @Override
+                    public void beforeCommit(long chunkStart, long position, QAImportWriter.ChunkResult chunk) {
+                        recordChunk(importId, progress, chunkStart, position, chunk);
+                    }
+
+                    @Override
+                    public boolean afterChunk(long chunkStart, long position, QAImportWriter.ChunkResult chunk) {
+                        return !progress.cancelled;
+                    }
+                });
+            } catch (ImportCancelledException e) {
+                // 其他节点取消了任务，当前数据块已回滚
+                progress.cancelled = true;
+            }
+
+            if (progress.cancelled) {
+                finish(importId, ImportTask.ImportStatus.CANCELLED, ImportTask.ImportStatus.CANCELLED,
+                        String.format("导入已取消：已导入%d条，失败%d条", progress.imported, progress.failed));
+                appendLog(importId, "WARN", "任务已取消");
+            } else if (finish(importId, ImportTask.ImportStatus.IN_PROGRESS, ImportTask.ImportStatus.COMPLETED,
+                    String.format("导入完成：本次读取%d条，累计导入%d条，失败%d条",
+                            result.getTotal(), progress.imported, progress.failed))) {
+                appendLog(importId, "INFO", "导入完成");
+                // 完成后不再需要重试，删除暂存文件
+                Files.deleteIfExists(path);
+            } else {
+                appendLog(importId, "WARN", "最后一个数据块提交后任务已被取消");
+            }
+        } catch (Exception e) {
+            log.error("导入任务{}执行失败", importId, e);
+            finish(importId, ImportTask.ImportStatus.IN_PROGRESS, ImportTask.ImportStatus.FAILED,
+                    "导入失败: " + e.getMessage());
+            appendLog(importId, "ERROR", "导入失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 在数据块事务内写入错误日志和进度；任务已不在本节点运行时抛出异常使数据块回滚
+     */
+    private void recordChunk(Integer importId, ImportProgress progress, long chunkStart, long position,
+                             QAImportWriter.ChunkResult chunk) {
+        int imported = progress.imported + chunk.getImported();
+        int failed = progress.failed + chunk.getFailed();
+        if (jdbcTemplate.update(UPDATE_PROGRESS_SQL, position, imported, failed, leaseSeconds,
+                importId, clusterNode.getId()) == 0) {
+            throw new ImportCancelledException();
+        }
+        writeErrorLogs(importId, chunkStart, chunk.getErrors(), progress);
+        progress.recordsThisRun += position - chunkStart;
+        progress.imported = imported;
+        progress.failed = failed;
+    }
+
+    /**
+     * @return 任务是否仍处于预期状态并已更新
+     */
+    private boolean finish(Integer importId, ImportTask.ImportStatus expected, ImportTask.ImportStatus status,
+                           String details) {
+        return jdbcTemplate.update(FINISH_SQL, status.name(), details, importId, expected.name()) > 0;
+    }
+
+    /**
+     * 按数据块批量写入行级错误日志
+     */
+    private void writeErrorLogs(Integer importId, long chunkStart, Map<Integer, String> errors, ImportProgress progress) {
+        if (errors.isEmpty() || progress.loggedErrors > MAX_ERROR_LOGS) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>();
+        for (Map.Entry<Integer, String> error : errors.entrySet()) {
+            if (progress.loggedErrors == MAX_ERROR_LOGS) {
+                rows.add(new Object[]{importId, "错误日志已达上限" + MAX_ERROR_LOGS + "条，后续错误不再记录", "WARN"});
+                progress.loggedErrors++;
+                break;
+            }
+            rows.add(new Object[]{importId,
+                    "第" + (chunkStart + error.getKey() + 1) + "条记录导入失败: " + error.getValue(), "ERROR"});
+            progress.loggedErrors++;
+        }
+        jdbcTemplate.batchUpdate(INSERT_LOG_SQL, rows);
+    }
+
+    private void appendLog(Integer importId, String level, String message) {
+        jdbcTemplate.update(INSERT_LOG_SQL, importId, message, level);
+    }
+
+    /**
+     * 数据块提交时发现任务已被取消或已不由本节点执行
+     */
+    private static final class ImportCancelledException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ImportCancelledException() {
+            super("导入任务已被取消");
+        }
+    }
+
+    /**
+     * 任务运行进度，计数仅由执行线程修改
+     */
+    private static class ImportProgress {
+        volatile boolean cancelled;
+        volatile long startedAt;
+        volatile long recordsThisRun;
+        volatile int imported;
+        volatile int failed;
+        int loggedErrors;
+
+        Double throughput() {
+            if (startedAt == 0) {
+                return null;
+            }
+            double seconds = (System.currentTimeMillis() - startedAt) / 1000.0;
+            return seconds > 0 ? recordsThisRun / seconds : 0.0;
+        }
+    }
+}
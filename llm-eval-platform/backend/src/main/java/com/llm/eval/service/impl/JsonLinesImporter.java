@@ -0,0 +1,508 @@
+package com.llm.eval.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.llm.eval.dto.DataImportResultDTO;
+import com.llm.eval.dto.RawQuestionImportDTO;
+import com.llm.eval.dto.StandardQAImportDTO;
+import com.llm.eval.model.ImportTask;
+import com.llm.eval.util.ContentFingerprint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 换行分隔JSON（JSONL）文件的并行导入器，供命令行一次性导入大文件
+ *
+ * 未压缩文件按 split-bytes 切分为若干区间，切分点对齐到换行符，每个区间由解析线程单独内存映射并逐行解析；
+ * gzip 文件只能顺序解压，由调用线程解压为按行对齐的数据块交给解析线程。
+ * 解析出的记录按路由键（原始问答为源问题ID，标准问答为问题内容指纹）分配给固定的写入线程，写入线程之间不会并发更新同一行。
+ * 各区间并行解析，但按文件顺序轮流放入写入队列：还没轮到的区间先在内存中攒下解析结果，
+ * 因此同一条数据的多次出现按文件中的先后顺序写入，后出现的记录覆盖先出现的。
+ * 每个写入线程有一个有界队列，队列满时解析线程阻塞；等待轮次的区间最多为解析线程数个，内存占用与文件大小无关。
+ * 写入线程攒够 batch-size 条或最早的记录等待超过 commit-interval-ms 时交给 QAImportWriter 写入并提交。
+ */
+@Component
+@Slf4j
+public class JsonLinesImporter {
+
+    private static final TypeReference<Map<String, Object>> RECORD_TYPE = new TypeReference<Map<String, Object>>() { };
+
+    // gzip 解压后交给解析线程的数据块大小
+    private static final int GZIP_BLOCK_BYTES = 4 << 20;
+    private static final int MAX_LOGGED_PARSE_ERRORS = 20;
+    private static final long PROGRESS_LOG_INTERVAL_MS = 10_000;
+
+    private final ObjectMapper objectMapper;
+    private final QAFileImporter fileImporter;
+    private final QAImportWriter importWriter;
+
+    @Value("${import.jsonl.parse-threads:0}")
+    private int parseThreads;
+
+    @Value("${import.jsonl.writer-threads:4}")
+    private int writerThreads;
+
+    @Value("${import.jsonl.batch-size:2000}")
+    private int batchSize;
+
+    @Value("${import.jsonl.commit-interval-ms:2000}")
+    private long commitIntervalMs;
+
+    @Value("${import.jsonl.queue-capacity:8}")
+    private int queueCapacity;
+
+    @Value("${import.jsonl.split-bytes:33554432}")
+    private int splitBytes;
+
+    @Autowired
+    public JsonLinesImporter(ObjectMapper objectMapper, QAFileImporter fileImporter, QAImportWriter importWriter) {
+        this.objectMapper = objectMapper;
+        this.fileImporter = fileImporter;
+        this.importWriter = importWriter;
+    }
+
+    /**
+     * 并行导入JSONL文件（可为gzip压缩），结束后输出吞吐报告
+     *
+     * @param file 文件路径
+     * @param type 导入类型（RAW_QA或STANDARD_QA）
+     * @return 导入统计结果
+     */
+    public DataImportResultDTO importFile(Path file, ImportTask.ImportType type) throws IOException, InterruptedException {
+        if (type == ImportTask.ImportType.RAW_QA) {
+            return run(file, new Pipeline<RawQuestionImportDTO>(fileImporter::toRawQuestionImportDTO,
+                    RawQuestionImportDTO::getSourceQuestionId, importWriter::writeRawQAs));
+        }
+        if (type == ImportTask.ImportType.STANDARD_QA) {
+            return run(file, new Pipeline<StandardQAImportDTO>(fileImporter::toStandardQAImportDTO,
+                    qa -> ContentFingerprint.of(qa.getQuestion()), importWriter::writeStandardQAs));
+        }
+        throw new IllegalArgumentException("不支持的文件导入类型: " + type);
+    }
+
+    /**
+     * 判断文件是否为gzip压缩
+     */
+    public static boolean isGzip(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return in.read() == 0x1f && in.read() == 0x8b;
+        }
+    }
+
+    private <T> DataImportResultDTO run(Path file, Pipeline<T> pipeline) throws IOException, InterruptedException {
+        int parsers = parseThreads > 0 ? parseThreads : Runtime.getRuntime().availableProcessors();
+        int writers = Math.max(1, writerThreads);
+        boolean gzip = isGzip(file);
+        long fileBytes = Files.size(file);
+        Stats stats = new Stats();
+        RegionOrder order = new RegionOrder();
+        long startedAt = System.currentTimeMillis();
+
+        List<BlockingQueue<List<T>>> queues = new ArrayList<>(writers);
+        for (int i = 0; i < writers; i++) {
+            queues.add(new ArrayBlockingQueue<>(Math.max(1, queueCapacity)));
+        }
+        ThreadPoolTaskExecutor parseExecutor = newExecutor(parsers, "jsonl-parse-");
+        ThreadPoolTaskExecutor writeExecutor = newExecutor(writers, "jsonl-write-");
+        List<Future<?>> writerFutures = new ArrayList<>(writers);
+        try {
+            for (BlockingQueue<List<T>> queue : queues) {
+                writerFutures.add(writeExecutor.submit(() -> writeLoop(queue, pipeline, stats)));
+            }
+            List<Future<?>> parseFutures = new ArrayList<>();
+            try {
+                if (gzip) {
+                    readGzip(file, parsers, parseExecutor, parseFutures, queues, pipeline, order, stats);
+                } else {
+                    mapRegions(file, fileBytes, parseExecutor, parseFutures, queues, pipeline, order, stats);
+                }
+                awaitAll(parseFutures, stats, startedAt);
+            } finally {
+                for (BlockingQueue<List<T>> queue : queues) {
+                    queue.put(pipeline.end);
+                }
+            }
+            awaitAll(writerFutures, stats, startedAt);
+        } finally {
+            parseExecutor.shutdown();
+            writeExecutor.shutdown();
+        }
+
+        long elapsedMs = Math.max(1, System.currentTimeMillis() - startedAt);
+        long failed = stats.parseFailed.get() + stats.writeFailed.get();
+        log.info("JSONL导入完成：文件 {}（{} MB{}），记录 {}，成功 {}，失败 {}（解析失败 {}），提交 {} 次，耗时 {} 秒，" +
+                        "吞吐 {} 条/秒、{} MB/秒，解析线程 {}，写入线程 {}",
+                file.getFileName(), String.format("%.1f", fileBytes / 1048576.0), gzip ? "，gzip" : "",
+                stats.records.get(), stats.imported.get(), failed, stats.parseFailed.get(), stats.commits.get(),
+                String.format("%.1f", elapsedMs / 1000.0), stats.records.get() * 1000 / elapsedMs,
+                String.format("%.1f", fileBytes * 1000.0 / elapsedMs / 1048576.0), parsers, writers);
+        return new DataImportResultDTO(failed == 0, failed == 0 ? "导入完成" : "导入完成，部分记录失败",
+                (int) Math.min(Integer.MAX_VALUE, stats.imported.get()), (int) Math.min(Integer.MAX_VALUE, failed),
+                (int) Math.min(Integer.MAX_VALUE, stats.records.get()));
+    }
+
+    /**
+     * 按 split-bytes 切分文件，切分点后移到下一个换行符之后，每个区间按文件顺序编号并提交一个解析任务
+     */
+    private <T> void mapRegions(Path file, long fileBytes, ThreadPoolTaskExecutor parseExecutor,
+                                List<Future<?>> parseFutures, List<BlockingQueue<List<T>>> queues,
+                                Pipeline<T> pipeline, RegionOrder order, Stats stats) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long start = 0;
+            long sequence = 0;
+            while (start < fileBytes) {
+                long end = nextLineStart(channel, Math.min(fileBytes, start + Math.max(1, splitBytes)), fileBytes);
+                if (end - start > Integer.MAX_VALUE) {
+                    throw new IOException("偏移 " + start + " 处的记录超过2GB，无法按行切分");
+                }
+                long regionStart = start;
+                int regionLength = (int) (end - start);
+                long regionSequence = sequence++;
+                parseFutures.add(parseExecutor.submit(() -> {
+                    // 每个任务单独映射自己的区间，映射随任务结束由GC回收
+                    try (FileChannel regionChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+                        parseBlock(regionChannel.map(FileChannel.MapMode.READ_ONLY, regionStart, regionLength),
+                                regionStart, regionSequence, queues, pipeline, order, stats);
+                    }
+                    return null;
+                }));
+                start = end;
+            }
+        }
+    }
+
+    private static long nextLineStart(FileChannel channel, long position, long fileBytes) throws IOException {
+        if (position >= fileBytes) {
+            return fileBytes;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long offset = position;
+        while (offset < fileBytes) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return fileBytes;
+    }
+
+    /**
+     * 顺序解压gzip文件，按最后一个换行符切出数据块交给解析线程；在途数据块数受信号量限制
+     */
+    private <T> void readGzip(Path file, int parsers, ThreadPoolTaskExecutor parseExecutor,
+                              List<Future<?>> parseFutures, List<BlockingQueue<List<T>>> queues,
+                              Pipeline<T> pipeline, RegionOrder order, Stats stats)
+            throws IOException, InterruptedException {
+        Semaphore inFlight = new Semaphore(parsers * 2);
+        try (InputStream in = new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file)), 64 * 1024)) {
+            byte[] block = new byte[GZIP_BLOCK_BYTES];
+            int filled = 0;
+            long offset = 0;
+            long sequence = 0;
+            boolean eof = false;
+            while (!eof) {
+                int read = in.readNBytes(block, filled, block.length - filled);
+                filled += read;
+                eof = filled < block.length;
+                int cut = filled;
+                if (!eof) {
+                    cut = lastLineEnd(block, filled);
+                    if (cut == 0) {
+                        // 单行超过数据块大小，扩大数据块后继续读取
+                        block = Arrays.copyOf(block, block.length * 2);
+                        continue;
+                    }
+                }
+                if (cut > 0) {
+                    byte[] chunk = Arrays.copyOf(block, cut);
+                    long chunkOffset = offset;
+                    long chunkSequence = sequence++;
+                    inFlight.acquire();
+                    parseFutures.add(parseExecutor.submit(() -> {
+                        try {
+                            parseBlock(ByteBuffer.wrap(chunk), chunkOffset, chunkSequence, queues, pipeline, order, stats);
+                        } finally {
+                            inFlight.release();
+                        }
+                        return null;
+                    }));
+                }
+                System.arraycopy(block, cut, block, 0, filled - cut);
+                filled -= cut;
+                offset += cut;
+            }
+        }
+    }
+
+    private static int lastLineEnd(byte[] block, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (block[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 逐行解析一个按行对齐的数据块，按路由键分配给写入线程；轮到该数据块后每个写入线程攒够 batch-size 条放入其队列，
+     * 轮到之前解析结果留在内存中，解析完成后等到轮次再全部放入
+     *
+     * @param baseOffset 数据块在文件（gzip为解压后）中的偏移量，用于定位出错的行
+     * @param sequence 数据块在文件中的顺序号
+     */
+    private <T> void parseBlock(ByteBuffer buffer, long baseOffset, long sequence, List<BlockingQueue<List<T>>> queues,
+                                Pipeline<T> pipeline, RegionOrder order, Stats stats) throws InterruptedException {
+        try {
+            parseLines(buffer, baseOffset, sequence, queues, pipeline, order, stats);
+        } finally {
+            // 失败的数据块也要让出轮次，避免后面的数据块永久等待
+            order.finish(sequence);
+        }
+    }
+
+    private <T> void parseLines(ByteBuffer buffer, long baseOffset, long sequence, List<BlockingQueue<List<T>>> queues,
+                                Pipeline<T> pipeline, RegionOrder order, Stats stats) throws InterruptedException {
+        ObjectReader reader = objectMapper.readerFor(RECORD_TYPE);
+        int writers = queues.size();
+        List<List<T>> pending = new ArrayList<>(writers);
+        for (int i = 0; i < writers; i++) {
+            pending.add(new ArrayList<>());
+        }
+        byte[] line = new byte[8192];
+        int roundRobin = 0;
+        int limit = buffer.limit();
+        int position = 0;
+        if (baseOffset == 0 && limit >= 3
+                && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB && buffer.get(2) == (byte) 0xBF) {
+            position = 3;
+        }
+        while (position < limit) {
+            int end = position;
+            while (end < limit && buffer.get(end) != '\n') {
+                end++;
+            }
+            int length = end - position;
+            if (length > 0 && buffer.get(end - 1) == '\r') {
+                length--;
+            }
+            if (!isBlank(buffer, position, length)) {
+                if (line.length < length) {
+                    line = new byte[Math.max(length, line.length * 2)];
+                }
+                buffer.get(position, line, 0, length);
+                stats.records.incrementAndGet();
+                try {
+                    T record = pipeline.mapper.apply(reader.readValue(line, 0, length));
+                    Object key = pipeline.routingKey.apply(record);
+                    int writer = key != null ? Math.floorMod(key.hashCode(), writers) : roundRobin++ % writers;
+                    List<T> batch = pending.get(writer);
+                    batch.add(record);
+                    if (batch.size() >= batchSize && order.isTurn(sequence)) {
+                        queues.get(writer).put(batch);
+                        pending.set(writer, new ArrayList<>());
+                    }
+                } catch (IOException | RuntimeException e) {
+                    long failed = stats.parseFailed.incrementAndGet();
+                    if (failed <= MAX_LOGGED_PARSE_ERRORS) {
+                        log.warn("偏移 {} 处的记录解析失败: {}", baseOffset + position,
+                                e instanceof JsonProcessingException ? ((JsonProcessingException) e).getOriginalMessage()
+                                        : e.getMessage());
+                    }
+                }
+            }
+            position = end + 1;
+        }
+        order.awaitTurn(sequence);
+        for (int i = 0; i < writers; i++) {
+            if (!pending.get(i).isEmpty()) {
+                queues.get(i).put(pending.get(i));
+            }
+        }
+    }
+
+    private static boolean isBlank(ByteBuffer buffer, int position, int length) {
+        for (int i = position; i < position + length; i++) {
+            byte b = buffer.get(i);
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 写入线程：攒够 batch-size 条、或最早的记录等待超过 commit-interval-ms 时写入并提交，收到结束标记后写完剩余记录
+     */
+    private <T> Void writeLoop(BlockingQueue<List<T>> queue, Pipeline<T> pipeline, Stats stats)
+            throws InterruptedException {
+        List<T> batch = new ArrayList<>(batchSize);
+        long firstQueuedAt = 0;
+        while (true) {
+            List<T> records;
+            if (batch.isEmpty()) {
+                records = queue.take();
+            } else {
+                long wait = commitIntervalMs - (System.currentTimeMillis() - firstQueuedAt);
+                records = wait > 0 ? queue.poll(wait, TimeUnit.MILLISECONDS) : null;
+            }
+            if (records == pipeline.end) {
+                commit(batch, pipeline, stats);
+                return null;
+            }
+            if (records != null) {
+                if (batch.isEmpty()) {
+                    firstQueuedAt = System.currentTimeMillis();
+                }
+                batch.addAll(records);
+            }
+            if (records == null || batch.size() >= batchSize) {
+                commit(batch, pipeline, stats);
+                batch.clear();
+            }
+        }
+    }
+
+    private <T> void commit(List<T> batch, Pipeline<T> pipeline, Stats stats) {
+        for (int from = 0; from < batch.size(); from += batchSize) {
+            List<T> slice = batch.subList(from, Math.min(batch.size(), from + batchSize));
+            try {
+                QAImportWriter.ChunkResult result = pipeline.writer.apply(slice);
+                stats.imported.addAndGet(result.getImported());
+                stats.writeFailed.addAndGet(result.getFailed());
+                result.getErrors().values().stream().limit(3)
+                        .forEach(error -> log.warn("记录写入失败: {}", error));
+            } catch (RuntimeException e) {
+                // 写入线程不能退出，否则解析线程会在已满的队列上永久阻塞
+                stats.writeFailed.addAndGet(slice.size());
+                log.error("写入{}条记录失败: {}", slice.size(), e.getMessage());
+            }
+            stats.commits.incrementAndGet();
+        }
+    }
+
+    /**
+     * 等待一组任务完成，期间定期输出进度；任一任务失败时抛出其异常
+     */
+    private void awaitAll(List<Future<?>> futures, Stats stats, long startedAt) throws IOException, InterruptedException {
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get(PROGRESS_LOG_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    long elapsedMs = Math.max(1, System.currentTimeMillis() - startedAt);
+                    log.info("JSONL导入进行中：已解析 {} 条，已写入 {} 条，吞吐 {} 条/秒",
+                            stats.records.get(), stats.imported.get(), stats.imported.get() * 1000 / elapsedMs);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                    if (cause instanceof InterruptedException) {
+                        throw (InterruptedException) cause;
+                    }
+                    throw new IllegalStateException("JSONL导入失败: " + cause.getMessage(), cause);
+                }
+            }
+        }
+    }
+
+    private static ThreadPoolTaskExecutor newExecutor(int threads, String namePrefix) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix(namePrefix);
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 一种导入类型的记录转换、路由和写入方式
+     */
+    private static final class Pipeline<T> {
+        final Function<Map<String, Object>, T> mapper;
+        final Function<T, Object> routingKey;
+        final Function<List<T>, QAImportWriter.ChunkResult> writer;
+        // 写入队列的结束标记，按引用比较
+        final List<T> end = new ArrayList<>();
+
+        Pipeline(Function<Map<String, Object>, T> mapper, Function<T, Object> routingKey,
+                 Function<List<T>, QAImportWriter.ChunkResult> writer) {
+            this.mapper = mapper;
+            this.routingKey = routingKey;
+            this.writer = writer;
+        }
+    }
+
+    /**
+     * 数据块放入写入队列的轮次：按顺序号依次轮到，结束的数据块让出轮次
+     */
+    private static final class RegionOrder {
+        private final Set<Long> finished = new HashSet<>();
+        private long next;
+
+        synchronized boolean isTurn(long sequence) {
+            return next == sequence;
+        }
+
+        synchronized void awaitTurn(long sequence) throws InterruptedException {
+            while (next != sequence) {
+                wait();
+            }
+        }
+
+        synchronized void finish(long sequence) {
+            finished.add(sequence);
+            while (finished.remove(next)) {
+                next++;
+            }
+            notifyAll();
+        }
+    }
+
+    private static final class Stats {
+        final AtomicLong records = new AtomicLong();
+        final AtomicLong parseFailed = new AtomicLong();
+        final AtomicLong imported = new AtomicLong();
+        final AtomicLong writeFailed = new AtomicLong();
+        final AtomicLong commits = new AtomicLong();
+    }
+}
@@ -0,0 +1,111 @@
+package com.llm.eval.service.impl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * 流式JSON记录读取器
+ * 使用JsonParser逐条读取顶层数组中的对象，内存占用与文件大小无关；
+ * 顶层为单个对象时视为只有一条记录
+ */
+public class JsonRecordStream implements Iterator<Map<String, Object>>, Closeable {
+
+    private final ObjectMapper objectMapper;
+    private final JsonParser parser;
+    private final boolean singleObject;
+    private boolean singleConsumed;
+    private JsonToken nextToken;
+    private long position;
+
+    public JsonRecordStream(ObjectMapper objectMapper, InputStream inputStream) throws IOException {
+        this.objectMapper = objectMapper;
+        this.parser = objectMapper.getFactory().createParser(inputStream);
+
+        JsonToken first = parser.nextToken();
+        if (first == JsonToken.START_ARRAY) {
+            this.singleObject = false;
+            this.nextToken = parser.nextToken();
+        } else if (first == JsonToken.START_OBJECT) {
+            this.singleObject = true;
+            this.nextToken = first;
+        } else if (first == null) {
+            this.singleObject = false;
+            this.nextToken = JsonToken.END_ARRAY;
+        } else {
+            throw new IOException("JSON格式错误：顶层必须是对象数组");
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (singleObject) {
+            return !singleConsumed;
+        }
+        return nextToken == JsonToken.START_OBJECT;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            Map<String, Object> record = objectMapper.readValue(parser, Map.class);
+            position++;
+            if (singleObject) {
+                singleConsumed = true;
+            } else {
+                nextToken = parser.nextToken();
+                if (nextToken != JsonToken.START_OBJECT && nextToken != JsonToken.END_ARRAY) {
+                    throw new IOException("JSON格式错误：第" + (position + 1) + "条记录不是对象");
+                }
+            }
+            return record;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 跳过若干条记录（不做对象映射），用于从指定偏移量继续导入
+     *
+     * @param count 要跳过的记录数
+     * @return 实际跳过的记录数
+     */
+    public long skip(long count) throws IOException {
+        long skipped = 0;
+        while (skipped < count && hasNext()) {
+            parser.skipChildren();
+            position++;
+            skipped++;
+            if (singleObject) {
+                singleConsumed = true;
+            } else {
+                nextToken = parser.nextToken();
+            }
+        }
+        return skipped;
+    }
+
+    /**
+     * 已读取（含跳过）的记录数
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
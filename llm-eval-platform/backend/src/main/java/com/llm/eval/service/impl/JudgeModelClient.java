@@ -0,0 +1,171 @@
+package com.llm.eval.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.llm.eval.model.LlmModel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 裁判模型评分客户端
+ *
+ * 组装评分提示词并解析模型输出的评分，HTTP 调用、并发限制和重试由 {@link ModelApiClient} 负责；
+ * 无法解析出 0-10 分评分的输出同样会触发重试。
+ */
+@Component
+public class JudgeModelClient {
+
+    // 提示词或解析规则变化时递增，使评测缓存中的旧结果失效
+    public static final String PROMPT_VERSION = "judge-v1";
+
+    private static final String SYSTEM_PROMPT =
+            "你是一名严格的评测专家。请对照标准答案和关键点评估模型回答的正确性与完整性，" +
+            "给出0到10分的评分。只输出JSON：{\"score\": <0-10的数字>, \"reason\": \"<简要理由>\"}";
+
+    private static final Pattern NUMBER_PATTERN = Pattern.compile("\\d+(?:\\.\\d+)?");
+    private static final BigDecimal MAX_SCORE = BigDecimal.TEN;
+
+    private final ModelApiClient modelApiClient;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public JudgeModelClient(ModelApiClient modelApiClient, ObjectMapper objectMapper) {
+        this.modelApiClient = modelApiClient;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 异步请求裁判模型评分
+     *
+     * @param judgeModel 裁判模型
+     * @param request 评测内容
+     * @return 评分结果；重试耗尽后以 {@link ModelApiClient.ModelCallException} 异常完成
+     */
+    public CompletableFuture<JudgeResult> judge(LlmModel judgeModel, JudgeRequest request) {
+        ModelApiClient.ChatRequest chatRequest = new ModelApiClient.ChatRequest()
+                .message("system", SYSTEM_PROMPT)
+                .message("user", buildPrompt(request))
+                .defaultParameter("temperature", 0);
+        return modelApiClient.chat(judgeModel, chatRequest, this::parseCompletion);
+    }
+
+    private String buildPrompt(JudgeRequest request) {
+        StringBuilder prompt = new StringBuilder();
+        if (request.getQuestion() != null) {
+            prompt.append("【问题】\n").append(request.getQuestion()).append("\n\n");
+        }
+        prompt.append("【标准答案】\n").append(Objects.toString(request.getStandardAnswer(), "")).append("\n\n");
+        if (request.getKeyPoints() != null && !request.getKeyPoints().isEmpty()) {
+            prompt.append("【关键点】\n");
+            for (int i = 0; i < request.getKeyPoints().size(); i++) {
+                prompt.append(i + 1).append(". ").append(request.getKeyPoints().get(i)).append('\n');
+            }
+            prompt.append('\n');
+        }
+        prompt.append("【待评测回答】\n").append(Objects.toString(request.getAnswer(), ""));
+        return prompt.toString();
+    }
+
+    private JudgeResult parseCompletion(ModelApiClient.Completion completion) {
+        String content = completion.getContent();
+        if (content == null || content.isBlank()) {
+            throw new IllegalStateException("响应中没有内容");
+        }
+
+        BigDecimal score = null;
+        String reason = null;
+        int start = content.indexOf('{');
+        int end = content.lastIndexOf('}');
+        if (start >= 0 && end > start) {
+            try {
+                JsonNode node = objectMapper.readTree(content.substring(start, end + 1));
+                if (node.path("score").isNumber() || node.path("score").isTextual()) {
+                    score = new BigDecimal(node.path("score").asText().trim());
+                }
+                reason = node.path("reason").asText(null);
+            } catch (Exception e) {
+                // 不是合法JSON时退回到提取数字
+            }
+        }
+        if (score == null) {
+            Matcher matcher = NUMBER_PATTERN.matcher(content);
+            if (!matcher.find()) {
+                throw new IllegalStateException("输出中没有评分: " + ModelApiClient.truncate(content));
+            }
+            score = new BigDecimal(matcher.group());
+            reason = content.trim();
+        }
+        if (score.compareTo(BigDecimal.ZERO) < 0 || score.compareTo(MAX_SCORE) > 0) {
+            throw new IllegalStateException("评分超出0-10范围: " + score);
+        }
+        return new JudgeResult(score.setScale(2, RoundingMode.HALF_UP), reason, completion.getAttempts());
+    }
+
+    /**
+     * 裁判模型评测内容
+     */
+    public static class JudgeRequest {
+        private final String question;
+        private final String standardAnswer;
+        private final List<String> keyPoints;
+        private final String answer;
+
+        public JudgeRequest(String question, String standardAnswer, List<String> keyPoints, String answer) {
+            this.question = question;
+            this.standardAnswer = standardAnswer;
+            this.keyPoints = keyPoints;
+            this.answer = answer;
+        }
+
+        public String getQuestion() {
+            return question;
+        }
+
+        public String getStandardAnswer() {
+            return standardAnswer;
+        }
+
+        public List<String> getKeyPoints() {
+            return keyPoints;
+        }
+
+        public String getAnswer() {
+            return answer;
+        }
+    }
+
+    /**
+     * 裁判模型评分结果
+     */
+    public static class JudgeResult {
+        private final BigDecimal score;
+        private final String reason;
+        private final int attempts;
+
+        JudgeResult(BigDecimal score, String reason, int attempts) {
+            this.score = score;
+            this.reason = reason;
+            this.attempts = attempts;
+        }
+
+        public BigDecimal getScore() {
+            return score;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package com.llm.eval.service.impl;
+
+import com.llm.eval.model.AnswerKeyPoint;
+import com.llm.eval.model.Evaluation;
+import com.llm.eval.model.EvaluationBatch;
+import com.llm.eval.model.LlmAnswer;
+import com.llm.eval.model.StandardAnswer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 裁判模型评测任务执行器
+ *
+ * 裁判模型批次先把待评测回答写入 judge_tasks 作为持久化队列，再由本执行器分页领取待处理任务，
+ * 通过 {@link JudgeModelClient} 异步调用裁判模型。调度线程只负责领取任务和收集结果，
+ * 同时在途的请求数受 judge.max-in-flight 限制；结果按批在一个事务中回写任务状态并插入评测记录。
+ * 每次执行只处理一个回答ID区间内的任务，区间对应调用方持有租约的工作单元，多个节点可同时执行同一批次。
+ */
+@Component
+@Slf4j
+public class JudgeTaskRunner {
+
+    private static final String INSERT_TASK_SQL =
+            "INSERT IGNORE INTO judge_tasks (batch_id, llm_answer_id, standard_answer_id, judge_model_id, status) " +
+            "VALUES (?, ?, ?, ?, 'pending')";
+
+    // 区间内上次运行中断或失败的任务重新排队；已完成但评测结果已被删除的任务同样重新评测，
+    // 否则 INSERT IGNORE 保留的旧任务会使这些回答永远不再评测
+    private static final String RESET_TASKS_SQL =
+            "UPDATE judge_tasks jt SET jt.status = 'pending', jt.started_at = NULL " +
+            "WHERE jt.batch_id = ? AND jt.llm_answer_id BETWEEN ? AND ? AND (jt.status IN ('in_progress', 'failed') " +
+            "OR (jt.status = 'completed' AND NOT EXISTS (SELECT 1 FROM evaluations e " +
+            "WHERE e.batch_id = jt.batch_id AND e.llm_answer_id = jt.llm_answer_id)))";
+
+    private static final String SELECT_PENDING_SQL =
+            "SELECT jt.task_id, jt.llm_answer_id, jt.standard_answer_id, la.content, sq.question, sa.answer " +
+            "FROM judge_tasks jt " +
+            "JOIN llm_answers la ON la.llm_answer_id = jt.llm_answer_id " +
+            "JOIN standard_answers sa ON sa.standard_answer_id = jt.standard_answer_id " +
+            "JOIN standard_questions sq ON sq.standard_question_id = sa.standard_question_id " +
+            "WHERE jt.batch_id = ? AND jt.llm_answer_id BETWEEN ? AND ? AND jt.status = 'pending' AND jt.task_id > ? " +
+            "ORDER BY jt.task_id LIMIT ?";
+
+    private static final String MARK_IN_PROGRESS_SQL =
+            "UPDATE judge_tasks SET status = 'in_progress', started_at = NOW() WHERE task_id IN (:taskIds)";
+
+    private static final String UPDATE_RESULT_SQL =
+            "UPDATE judge_tasks SET status = ?, result_score = ?, result_reason = ?, attempts = attempts + ?, " +
+            "completed_at = NOW() WHERE task_id = ?";
+
+    private final JudgeModelClient judgeModelClient;
+    private final EvaluationCache evaluationCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${judge.max-in-flight:2000}")
+    private int maxInFlight;
+
+    @Value("${judge.claim-size:500}")
+    private int claimSize;
+
+    @Value("${judge.write-batch-size:200}")
+    private int writeBatchSize;
+
+    @Value("${judge.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Autowired
+    public JudgeTaskRunner(JudgeModelClient judgeModelClient,
+                           EvaluationCache evaluationCache,
+                           JdbcTemplate jdbcTemplate,
+                           NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                           PlatformTransactionManager transactionManager) {
+        this.judgeModelClient = judgeModelClient;
+        this.evaluationCache = evaluationCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 为一组回答生成裁判任务，批次内已存在任务的回答会被忽略（其状态在 {@link #run} 开始时按需重置）
+     *
+     * @param batch 评测批次
+     * @param answers 待评测回答
+     * @param standardAnswers 按问题ID索引的标准答案
+     */
+    public void enqueue(EvaluationBatch batch, List<LlmAnswer> answers, Map<Integer, StandardAnswer> standardAnswers) {
+        if (answers.isEmpty()) {
+            return;
+        }
+        Integer judgeModelId = batch.getJudgeModel().getModelId();
+        jdbcTemplate.batchUpdate(INSERT_TASK_SQL, answers, answers.size(), (ps, answer) -> {
+            StandardAnswer standardAnswer = standardAnswers.get(answer.getStandardQuestion().getStandardQuestionId());
+            ps.setInt(1, batch.getBatchId());
+            ps.setInt(2, answer.getLlmAnswerId());
+            ps.setInt(3, standardAnswer.getStandardAnswerId());
+            ps.setInt(4, judgeModelId);
+        });
+    }
+
+    /**
+     * 执行批次内回答ID区间中所有待处理的裁判任务，直到队列清空且在途请求全部完成
+     *
+     * @param batch 评测批次
+     * @param firstAnswerId 区间内第一个回答ID
+     * @param lastAnswerId 区间内最后一个回答ID
+     * @param standardAnswers 按问题ID索引的标准答案，用于在提示词中附带关键点
+     * @param evaluationWriter 在回写任务状态的同一事务中插入评测记录
+     * @param listener 每次回写后在调度线程上回调
+     */
+    public void run(EvaluationBatch batch, int firstAnswerId, int lastAnswerId,
+                    Map<Integer, StandardAnswer> standardAnswers,
+                    Consumer<List<Evaluation>> evaluationWriter, Listener listener) throws InterruptedException {
+        Integer batchId = batch.getBatchId();
+        jdbcTemplate.update(RESET_TASKS_SQL, batchId, firstAnswerId, lastAnswerId);
+        Map<Integer, List<String>> keyPointsByStandardAnswerId = indexKeyPoints(standardAnswers.values());
+        Map<Integer, StandardAnswer> standardAnswersById = standardAnswers.values().stream()
+                .collect(Collectors.toMap(StandardAnswer::getStandardAnswerId, sa -> sa, (a, b) -> a));
+
+        BlockingQueue<TaskOutcome> outcomes = new LinkedBlockingQueue<>();
+        List<TaskOutcome> pendingWrites = new ArrayList<>();
+        int inFlight = 0;
+        int lastTaskId = 0;
+        boolean exhausted = false;
+        long lastFlush = System.nanoTime();
+
+        while (true) {
+            while (!exhausted && inFlight < maxInFlight) {
+                List<ClaimedTask> claimed = claim(batchId, firstAnswerId, lastAnswerId, lastTaskId,
+                        Math.min(claimSize, maxInFlight - inFlight));
+                if (claimed.isEmpty()) {
+                    exhausted = true;
+                    break;
+                }
+                lastTaskId = claimed.get(claimed.size() - 1).taskId;
+                for (ClaimedTask task : claimed) {
+                    dispatch(batch, task, keyPointsByStandardAnswerId, outcomes);
+                }
+                inFlight += claimed.size();
+            }
+            if (exhausted && inFlight == 0) {
+                break;
+            }
+
+            TaskOutcome outcome = outcomes.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+            if (outcome != null) {
+                pendingWrites.add(outcome);
+                inFlight -= 1 + outcomes.drainTo(pendingWrites);
+            }
+            boolean intervalElapsed = System.nanoTime() - lastFlush >= TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+            if (pendingWrites.size() >= writeBatchSize || (intervalElapsed && !pendingWrites.isEmpty())) {
+                flush(batch, pendingWrites, standardAnswersById, evaluationWriter, listener);
+                lastFlush = System.nanoTime();
+            }
+        }
+        if (!pendingWrites.isEmpty()) {
+            flush(batch, pendingWrites, standardAnswersById, evaluationWriter, listener);
+        }
+    }
+
+    private List<ClaimedTask> claim(Integer batchId, int firstAnswerId, int lastAnswerId, int afterTaskId, int limit) {
+        List<ClaimedTask> claimed = jdbcTemplate.query(SELECT_PENDING_SQL,
+                (rs, rowNum) -> new ClaimedTask(
+                        rs.getInt("task_id"),
+                        rs.getInt("llm_answer_id"),
+                        rs.getInt("standard_answer_id"),
+                        rs.getString("content"),
+                        rs.getString("question"),
+                        rs.getString("answer")),
+                batchId, firstAnswerId, lastAnswerId, afterTaskId, limit);
+        if (!claimed.isEmpty()) {
+            List<Integer> taskIds = claimed.stream().map(task -> task.taskId).collect(Collectors.toList());
+            namedParameterJdbcTemplate.update(MARK_IN_PROGRESS_SQL, new MapSqlParameterSource("taskIds", taskIds));
+        }
+        return claimed;
+    }
+
+    private void dispatch(EvaluationBatch batch, ClaimedTask task, Map<Integer, List<String>> keyPointsByStandardAnswerId,
+                          BlockingQueue<TaskOutcome> outcomes) {
+        JudgeModelClient.JudgeRequest request = new JudgeModelClient.JudgeRequest(task.question, task.standardAnswer,
+                keyPointsByStandardAnswerId.getOrDefault(task.standardAnswerId, Collections.emptyList()), task.content);
+        judgeModelClient.judge(batch.getJudgeModel(), request).whenComplete((result, ex) -> {
+            if (ex == null) {
+                outcomes.add(new TaskOutcome(task, result.getScore(), result.getReason(), result.getAttempts(), true));
+            } else {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                int attempts = cause instanceof ModelApiClient.ModelCallException
+                        ? ((ModelApiClient.ModelCallException) cause).getAttempts() : 1;
+                outcomes.add(new TaskOutcome(task, null, cause.getMessage(), attempts, false));
+            }
+        });
+    }
+
+    private void flush(EvaluationBatch batch, List<TaskOutcome> pendingWrites,
+                       Map<Integer, StandardAnswer> standardAnswersById,
+                       Consumer<List<Evaluation>> evaluationWriter, Listener listener) {
+        List<TaskOutcome> writes = new ArrayList<>(pendingWrites);
+        pendingWrites.clear();
+
+        List<Evaluation> evaluations = writes.stream()
+                .filter(outcome -> outcome.succeeded)
+                .map(outcome -> toEvaluation(batch, outcome))
+                .collect(Collectors.toList());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(UPDATE_RESULT_SQL, writes, writes.size(), (ps, outcome) -> {
+                ps.setString(1, outcome.succeeded ? "completed" : "failed");
+                if (outcome.score != null) {
+                    ps.setBigDecimal(2, outcome.score);
+                } else {
+                    ps.setNull(2, Types.DECIMAL);
+                }
+                ps.setString(3, outcome.reason);
+                ps.setInt(4, outcome.attempts);
+                ps.setInt(5, outcome.task.taskId);
+            });
+            if (!evaluations.isEmpty()) {
+                evaluationWriter.accept(evaluations);
+            }
+        });
+
+        cacheResults(batch, writes, standardAnswersById);
+
+        int failed = writes.size() - evaluations.size();
+        if (failed > 0) {
+            log.warn("评测批次 {} 有 {} 个裁判任务失败", batch.getBatchId(), failed);
+        }
+        listener.onFlush(evaluations.size(), failed);
+    }
+
+    private void cacheResults(EvaluationBatch batch, List<TaskOutcome> writes,
+                              Map<Integer, StandardAnswer> standardAnswersById) {
+        if (!evaluationCache.isEnabled()) {
+            return;
+        }
+        Integer judgeModelId = batch.getJudgeModel().getModelId();
+        String method = batch.getEvaluationMethod().name();
+        List<EvaluationCache.Entry> entries = new ArrayList<>();
+        for (TaskOutcome outcome : writes) {
+            StandardAnswer standardAnswer = standardAnswersById.get(outcome.task.standardAnswerId);
+            if (!outcome.succeeded || standardAnswer == null) {
+                continue;
+            }
+            String key = evaluationCache.key(outcome.task.content, standardAnswer, method, judgeModelId,
+                    JudgeModelClient.PROMPT_VERSION);
+            entries.add(new EvaluationCache.Entry(key, method, outcome.task.standardAnswerId, judgeModelId,
+                    new EvaluationCache.CachedResult(outcome.score, null, outcome.reason)));
+        }
+        evaluationCache.putAll(entries);
+    }
+
+    private Evaluation toEvaluation(EvaluationBatch batch, TaskOutcome outcome) {
+        LlmAnswer answer = new LlmAnswer();
+        answer.setLlmAnswerId(outcome.task.llmAnswerId);
+        StandardAnswer standardAnswer = new StandardAnswer();
+        standardAnswer.setStandardAnswerId(outcome.task.standardAnswerId);
+
+        Evaluation evaluation = new Evaluation();
+        evaluation.setLlmAnswer(answer);
+        evaluation.setStandardAnswer(standardAnswer);
+        evaluation.setBatch(batch);
+        evaluation.setJudgeModel(batch.getJudgeModel());
+        evaluation.setMethod(batch.getEvaluationMethod().toString());
+        evaluation.setScore(outcome.score);
+        evaluation.setComments(outcome.reason);
+        return evaluation;
+    }
+
+    private static Map<Integer, List<String>> indexKeyPoints(Collection<StandardAnswer> standardAnswers) {
+        Map<Integer, List<String>> index = new HashMap<>();
+        for (StandardAnswer standardAnswer : standardAnswers) {
+            if (standardAnswer.getKeyPoints() == null || standardAnswer.getKeyPoints().isEmpty()) {
+                continue;
+            }
+            index.put(standardAnswer.getStandardAnswerId(), standardAnswer.getKeyPoints().stream()
+                    .sorted(Comparator.comparing(AnswerKeyPoint::getPointOrder, Comparator.nullsLast(Comparator.naturalOrder())))
+                    .map(AnswerKeyPoint::getPointText)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList()));
+        }
+        return index;
+    }
+
+    /**
+     * 结果回写回调
+     */
+    public interface Listener {
+        void onFlush(int completed, int failed);
+    }
+
+    private static final class ClaimedTask {
+        final int taskId;
+        final int llmAnswerId;
+        final int standardAnswerId;
+        final String content;
+        final String question;
+        final String standardAnswer;
+
+        ClaimedTask(int taskId, int llmAnswerId, int standardAnswerId, String content, String question,
+                    String standardAnswer) {
+            this.taskId = taskId;
+            this.llmAnswerId = llmAnswerId;
+            this.standardAnswerId = standardAnswerId;
+            this.content = content;
+            this.question = question;
+            this.standardAnswer = standardAnswer;
+        }
+    }
+
+    private static final class TaskOutcome {
+        final ClaimedTask task;
+        final BigDecimal score;
+        final String reason;
+        final int attempts;
+        final boolean succeeded;
+
+        TaskOutcome(ClaimedTask task, BigDecimal score, String reason, int attempts, boolean succeeded) {
+            this.task = task;
+            this.score = score;
+            this.reason = reason;
+            this.attempts = attempts;
+            this.succeeded = succeeded;
+        }
+    }
+}
@@ -0,0 +1,474 @@
+package com.llm.eval.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.llm.eval.dto.EvaluationKeyPointDTO;
+import com.llm.eval.model.AnswerKeyPoint;
+import com.llm.eval.model.EvaluationKeyPoint.KeyPointStatus;
+import com.llm.eval.model.StandardAnswer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于关键点匹配的确定性自动评分器
+ *
+ * 文本先做全角转半角、大小写归一化，再切分为词元：连续的字母数字串作为一个词元，
+ * 中日韩文字按相邻两字切分为二元组（单字片段保留单字）。每个关键点预编译为排序去重的
+ * 词元哈希数组，按标准答案缓存；模型回答的词元写入线程复用的开放寻址集合，
+ * 匹配过程不产生中间字符串。
+ *
+ * 关键点覆盖率 = 回答中出现的关键点词元数 / 关键点词元总数（要点文本与示例文本取较高者）：
+ * 覆盖率 >= 0.8 记为 MATCHED（得满分），>= 0.4 记为 PARTIAL（按覆盖率得分），否则为 MISSED。
+ * 总分 = (必答得分 + 加分项得分 - 扣分项命中) / 必答项总权重，截断到 [0, 1] 后换算为 0-10 分。
+ */
+@Component
+@Slf4j
+public class KeyPointScorer {
+
+    // 评分规则变化时递增，使评测缓存中的旧结果失效
+    public static final String SCORER_VERSION = "keypoint-v1";
+
+    static final double MATCH_THRESHOLD = 0.8;
+    static final double PARTIAL_THRESHOLD = 0.4;
+
+    // 没有关键点时按标准答案词元召回率评分，召回率达到该值即视为满分
+    private static final double FULL_RECALL = 0.6;
+
+    private static final int MAX_CACHED_ANSWERS = 20_000;
+    private static final BigDecimal MAX_SCORE = BigDecimal.TEN;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // 两个字都属于该集合的二元组、以及单独出现的这些字不参与匹配
+    private static final String CJK_STOP_CHARS = "的了是在和与及或等也就都而且其之以为对把被这那个中";
+    private static final long[] WORD_STOP_TOKENS = sortedTokens(
+            "a", "an", "the", "of", "to", "is", "are", "and", "or", "in", "on", "for", "be", "it", "as", "by");
+
+    private final ObjectMapper objectMapper;
+
+    private final ConcurrentHashMap<Integer, CompiledAnswer> compiledAnswers = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<LongHashSet> contentTokens = ThreadLocal.withInitial(LongHashSet::new);
+
+    @Autowired
+    public KeyPointScorer(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 使用标准答案上已加载的关键点评分
+     */
+    public ScoreResult score(StandardAnswer standardAnswer, String content) {
+        return score(standardAnswer, standardAnswer.getKeyPoints(), content);
+    }
+
+    /**
+     * 使用指定的关键点列表评分（列表为空时按标准答案正文召回率评分）
+     */
+    public ScoreResult score(StandardAnswer standardAnswer, Collection<AnswerKeyPoint> keyPoints, String content) {
+        CompiledAnswer compiled = compile(standardAnswer, keyPoints);
+
+        LongHashSet tokens = contentTokens.get();
+        tokens.clear();
+        if (content != null) {
+            tokenize(content, tokens);
+        }
+
+        if (compiled.points.length == 0) {
+            double recall = coverage(compiled.fallbackTokens, tokens);
+            return new ScoreResult(toScore(Math.min(1.0, recall / FULL_RECALL)), Collections.emptyList());
+        }
+
+        double requiredWeight = 0;
+        double bonusWeight = 0;
+        double earnedRequired = 0;
+        double earnedBonus = 0;
+        double penalty = 0;
+        List<EvaluationKeyPointDTO> results = new ArrayList<>(compiled.points.length);
+
+        for (CompiledPoint point : compiled.points) {
+            double coverage = Math.max(coverage(point.tokens, tokens), coverage(point.exampleTokens, tokens));
+            KeyPointStatus status;
+            double credit;
+            if (coverage >= MATCH_THRESHOLD) {
+                status = KeyPointStatus.MATCHED;
+                credit = 1.0;
+            } else if (coverage >= PARTIAL_THRESHOLD) {
+                status = KeyPointStatus.PARTIAL;
+                credit = coverage;
+            } else {
+                status = KeyPointStatus.MISSED;
+                credit = 0.0;
+            }
+
+            double earned = point.weight * credit;
+            switch (point.type) {
+                case bonus -> {
+                    bonusWeight += point.weight;
+                    earnedBonus += earned;
+                }
+                case penalty -> {
+                    penalty += earned;
+                    earned = -earned;
+                }
+                default -> {
+                    requiredWeight += point.weight;
+                    earnedRequired += earned;
+                }
+            }
+
+            EvaluationKeyPointDTO result = new EvaluationKeyPointDTO();
+            result.setKeyPointId(point.keyPointId);
+            result.setStatus(status);
+            result.setScore(BigDecimal.valueOf(earned).setScale(2, RoundingMode.HALF_UP));
+            result.setKeyPointContent(point.text);
+            results.add(result);
+        }
+
+        // 没有必答项时以加分项作为基准
+        double ratio;
+        if (requiredWeight > 0) {
+            ratio = (earnedRequired + earnedBonus - penalty) / requiredWeight;
+        } else if (bonusWeight > 0) {
+            ratio = (earnedBonus - penalty) / bonusWeight;
+        } else {
+            ratio = 1.0 - penalty / compiled.totalWeight;
+        }
+        return new ScoreResult(toScore(Math.max(0.0, Math.min(1.0, ratio))), results);
+    }
+
+    /**
+     * 将关键点评估结果序列化为评测记录中保存的JSON
+     */
+    public String toKeyPointsJson(ScoreResult result) {
+        try {
+            return objectMapper.writeValueAsString(result.getKeyPoints());
+        } catch (JsonProcessingException e) {
+            log.warn("关键点评估JSON序列化失败: {}", e.getMessage());
+            return "[]";
+        }
+    }
+
+    private CompiledAnswer compile(StandardAnswer standardAnswer, Collection<AnswerKeyPoint> keyPoints) {
+        long signature = signature(standardAnswer, keyPoints);
+        Integer answerId = standardAnswer.getStandardAnswerId();
+        if (answerId != null) {
+            CompiledAnswer cached = compiledAnswers.get(answerId);
+            if (cached != null && cached.signature == signature) {
+                return cached;
+            }
+        }
+
+        CompiledAnswer compiled = doCompile(standardAnswer, keyPoints, signature);
+        if (answerId != null) {
+            // 缓存只需避免无限增长，超过上限直接整体清空
+            if (compiledAnswers.size() >= MAX_CACHED_ANSWERS) {
+                compiledAnswers.clear();
+            }
+            compiledAnswers.put(answerId, compiled);
+        }
+        return compiled;
+    }
+
+    private CompiledAnswer doCompile(StandardAnswer standardAnswer, Collection<AnswerKeyPoint> keyPoints,
+                                     long signature) {
+        LongHashSet buffer = new LongHashSet();
+        List<CompiledPoint> points = new ArrayList<>();
+        double totalWeight = 0;
+        if (keyPoints != null) {
+            for (AnswerKeyPoint keyPoint : keyPoints) {
+                long[] tokens = compileText(keyPoint.getPointText(), buffer);
+                long[] exampleTokens = compileText(keyPoint.getExampleText(), buffer);
+                if (tokens.length == 0 && exampleTokens.length == 0) {
+                    continue;
+                }
+                double weight = keyPoint.getPointWeight() != null && keyPoint.getPointWeight().signum() > 0
+                        ? keyPoint.getPointWeight().doubleValue() : 1.0;
+                AnswerKeyPoint.PointType type = keyPoint.getPointType() != null
+                        ? keyPoint.getPointType() : AnswerKeyPoint.PointType.required;
+                points.add(new CompiledPoint(keyPoint.getKeyPointId(), keyPoint.getPointText(),
+                        type, weight, tokens, exampleTokens));
+                totalWeight += weight;
+            }
+        }
+
+        long[] fallbackTokens = points.isEmpty()
+                ? compileText(standardAnswer.getAnswer(), buffer) : new long[0];
+        return new CompiledAnswer(signature, points.toArray(new CompiledPoint[0]), fallbackTokens,
+                totalWeight);
+    }
+
+    private static long[] compileText(String text, LongHashSet buffer) {
+        if (text == null || text.isEmpty()) {
+            return new long[0];
+        }
+        buffer.clear();
+        tokenize(text, buffer);
+        long[] tokens = buffer.toArray();
+        Arrays.sort(tokens);
+        return tokens;
+    }
+
+    private static double coverage(long[] pointTokens, LongHashSet contentTokens) {
+        if (pointTokens.length == 0) {
+            return 0.0;
+        }
+        int matched = 0;
+        for (long token : pointTokens) {
+            if (contentTokens.contains(token)) {
+                matched++;
+            }
+        }
+        return (double) matched / pointTokens.length;
+    }
+
+    private static BigDecimal toScore(double ratio) {
+        return BigDecimal.valueOf(ratio).multiply(MAX_SCORE).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * 标准答案与关键点内容的指纹，任一关键点被修改后缓存即失效
+     */
+    private static long signature(StandardAnswer standardAnswer, Collection<AnswerKeyPoint> keyPoints) {
+        long hash = Objects.hashCode(standardAnswer.getUpdatedAt());
+        hash = hash * 31 + Objects.hashCode(standardAnswer.getAnswer());
+        if (keyPoints != null) {
+            for (AnswerKeyPoint keyPoint : keyPoints) {
+                hash = hash * 31 + Objects.hashCode(keyPoint.getKeyPointId());
+                hash = hash * 31 + Objects.hashCode(keyPoint.getPointText());
+                hash = hash * 31 + Objects.hashCode(keyPoint.getExampleText());
+                hash = hash * 31 + Objects.hashCode(keyPoint.getPointWeight());
+                hash = hash * 31 + Objects.hashCode(keyPoint.getPointType());
+            }
+        }
+        return hash;
+    }
+
+    // ---------------------------------------------------------------- 分词
+
+    private static void tokenize(CharSequence text, LongHashSet sink) {
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = normalize(text.charAt(i));
+            if (isCjk(c)) {
+                int start = i;
+                char prev = c;
+                i++;
+                while (i < length) {
+                    char next = normalize(text.charAt(i));
+                    if (!isCjk(next)) {
+                        break;
+                    }
+                    if (!(isCjkStop(prev) && isCjkStop(next))) {
+                        sink.add(((long) prev << 16 | next) + 1);
+                    }
+                    prev = next;
+                    i++;
+                }
+                if (i - start == 1 && !isCjkStop(c)) {
+                    sink.add((1L << 40) | c);
+                }
+            } else if (Character.isLetterOrDigit(c)) {
+                long hash = FNV_OFFSET;
+                while (true) {
+                    hash = (hash ^ c) * FNV_PRIME;
+                    i++;
+                    if (i >= length) {
+                        break;
+                    }
+                    c = normalize(text.charAt(i));
+                    if (isCjk(c) || !Character.isLetterOrDigit(c)) {
+                        break;
+                    }
+                }
+                long token = hash | Long.MIN_VALUE;
+                if (Arrays.binarySearch(WORD_STOP_TOKENS, token) < 0) {
+                    sink.add(token);
+                }
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private static char normalize(char c) {
+        if (c >= '！' && c <= '～') {
+            c = (char) (c - 0xFEE0);
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return (char) (c + ('a' - 'A'));
+        }
+        return c < 0x80 ? c : Character.toLowerCase(c);
+    }
+
+    private static boolean isCjk(char c) {
+        return (c >= 0x4E00 && c <= 0x9FFF)
+                || (c >= 0x3400 && c <= 0x4DBF)
+                || (c >= 0x3040 && c <= 0x30FF)
+                || (c >= 0xAC00 && c <= 0xD7AF)
+                || (c >= 0xF900 && c <= 0xFAFF);
+    }
+
+    private static boolean isCjkStop(char c) {
+        return CJK_STOP_CHARS.indexOf(c) >= 0;
+    }
+
+    private static long[] sortedTokens(String... words) {
+        long[] tokens = new long[words.length];
+        for (int i = 0; i < words.length; i++) {
+            long hash = FNV_OFFSET;
+            for (int j = 0; j < words[i].length(); j++) {
+                hash = (hash ^ words[i].charAt(j)) * FNV_PRIME;
+            }
+            tokens[i] = hash | Long.MIN_VALUE;
+        }
+        Arrays.sort(tokens);
+        return tokens;
+    }
+
+    // ---------------------------------------------------------------- 内部结构
+
+    /**
+     * 评分结果：0-10 分的总分与逐个关键点的匹配情况
+     */
+    public static class ScoreResult {
+        private final BigDecimal score;
+        private final List<EvaluationKeyPointDTO> keyPoints;
+
+        ScoreResult(BigDecimal score, List<EvaluationKeyPointDTO> keyPoints) {
+            this.score = score;
+            this.keyPoints = keyPoints;
+        }
+
+        public BigDecimal getScore() {
+            return score;
+        }
+
+        public List<EvaluationKeyPointDTO> getKeyPoints() {
+            return keyPoints;
+        }
+    }
+
+    private static final class CompiledAnswer {
+        final long signature;
+        final CompiledPoint[] points;
+        final long[] fallbackTokens;
+        final double totalWeight;
+
+        CompiledAnswer(long signature, CompiledPoint[] points, long[] fallbackTokens, double totalWeight) {
+            this.signature = signature;
+            this.points = points;
+            this.fallbackTokens = fallbackTokens;
+            this.totalWeight = totalWeight;
+        }
+    }
+
+    private static final class CompiledPoint {
+        final Integer keyPointId;
+        final String text;
+        final AnswerKeyPoint.PointType type;
+        final double weight;
+        final long[] tokens;
+        final long[] exampleTokens;
+
+        CompiledPoint(Integer keyPointId, String text, AnswerKeyPoint.PointType type, double weight,
+                      long[] tokens, long[] exampleTokens) {
+            this.keyPointId = keyPointId;
+            this.text = text;
+            this.type = type;
+            this.weight = weight;
+            this.tokens = tokens;
+            this.exampleTokens = exampleTokens;
+        }
+    }
+
+    /**
+     * long 开放寻址哈希集合，0 作为空槽标记（词元编码保证非 0）
+     */
+    static final class LongHashSet {
+        private static final int INITIAL_CAPACITY = 256;
+        // 回答过长导致扩容后，清空时收缩回来，避免后续每次 clear 都扫描大数组
+        private static final int SHRINK_CAPACITY = 1 << 14;
+
+        private long[] slots = new long[INITIAL_CAPACITY];
+        private int size;
+
+        void add(long value) {
+            if ((size + 1) * 2 > slots.length) {
+                resize(slots.length * 2);
+            }
+            int mask = slots.length - 1;
+            int index = mix(value) & mask;
+            while (slots[index] != 0) {
+                if (slots[index] == value) {
+                    return;
+                }
+                index = (index + 1) & mask;
+            }
+            slots[index] = value;
+            size++;
+        }
+
+        boolean contains(long value) {
+            int mask = slots.length - 1;
+            int index = mix(value) & mask;
+            long slot;
+            while ((slot = slots[index]) != 0) {
+                if (slot == value) {
+                    return true;
+                }
+                index = (index + 1) & mask;
+            }
+            return false;
+        }
+
+        void clear() {
+            if (slots.length > SHRINK_CAPACITY) {
+                slots = new long[INITIAL_CAPACITY];
+            } else if (size > 0) {
+                Arrays.fill(slots, 0L);
+            }
+            size = 0;
+        }
+
+        long[] toArray() {
+            long[] values = new long[size];
+            int n = 0;
+            for (long slot : slots) {
+                if (slot != 0) {
+                    values[n++] = slot;
+                }
+            }
+            return values;
+        }
+
+        private void resize(int capacity) {
+            long[] old = slots;
+            slots = new long[capacity];
+            size = 0;
+            for (long value : old) {
+                if (value != 0) {
+                    add(value);
+                }
+            }
+        }
+
+        private static int mix(long value) {
+            long h = value * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
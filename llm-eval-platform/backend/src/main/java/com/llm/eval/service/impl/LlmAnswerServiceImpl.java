@@ -1,5 +1,6 @@
 package com.llm.eval.service.impl;
 
+import com.llm.eval.dto.AnswerGenerationRequest;
 import com.llm.eval.dto.LlmAnswerDTO;
 import com.llm.eval.model.LlmAnswer;
 import com.llm.eval.model.LlmModel;
@@ -14,6 +15,8 @@ import com.llm.eval.repository.DatasetVersionRepository;
 import com.llm.eval.service.LlmAnswerService;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -32,6 +35,7 @@ public class LlmAnswerServiceImpl implements LlmAnswerService {
     private final StandardQuestionRepository standardQuestionRepository;
     private final EvaluationBatchRepository batchRepository;
     private final DatasetVersionRepository datasetVersionRepository;
+    private final AnswerGenerationRunner answerGenerationRunner;
 
     @Autowired
     public LlmAnswerServiceImpl(
@@ -39,12 +43,14 @@ public class LlmAnswerServiceImpl implements LlmAnswerService {
             LlmModelRepository llmModelRepository,
             StandardQuestionRepository standardQuestionRepository,
             EvaluationBatchRepository batchRepository,
-            DatasetVersionRepository datasetVersionRepository) {
+            DatasetVersionRepository datasetVersionRepository,
+            AnswerGenerationRunner answerGenerationRunner) {
         this.llmAnswerRepository = llmAnswerRepository;
         this.llmModelRepository = llmModelRepository;
         this.standardQuestionRepository = standardQuestionRepository;
         this.batchRepository = batchRepository;
         this.datasetVersionRepository = datasetVersionRepository;
+        this.answerGenerationRunner = answerGenerationRunner;
     }
 
     @Override
@@ -131,11 +137,25 @@ public class LlmAnswerServiceImpl implements LlmAnswerService {
     }
 
     @Override
-    @Transactional
     public List<LlmAnswerDTO> generateAnswersForBatch(Integer batchId) {
-        // 这里应该实现批量生成回答的逻辑
-        // 由于这是一个复杂的功能，这里只返回空列表作为占位符
-        return new ArrayList<>();
+        // 在当前线程中同步生成，回答按批写入后返回批次的全部回答
+        answerGenerationRunner.run(batchId, null);
+        return getAnswersByBatchId(batchId);
+    }
+    
+    @Override
+    public Map<String, Object> startAnswerGeneration(Integer batchId, AnswerGenerationRequest request) {
+        return answerGenerationRunner.start(batchId, request);
+    }
+    
+    @Override
+    public boolean cancelAnswerGeneration(Integer batchId) {
+        return answerGenerationRunner.cancel(batchId);
+    }
+    
+    @Override
+    public Optional<Map<String, Object>> getAnswerGenerationProgress(Integer batchId) {
+        return answerGenerationRunner.getProgress(batchId);
     }
     
     @Override
@@ -180,81 +200,49 @@ public class LlmAnswerServiceImpl implements LlmAnswerService {
         }
         
         DatasetVersion dataset = datasetOpt.get();
+        String keywordPattern = keyword != null && !keyword.trim().isEmpty() ? escapeLikePattern(keyword.trim()) : null;
+        int pageNumber = Math.max(0, page);
+        int pageSize = Math.max(1, size);
         
-        // 获取该数据集中的所有问题
-        List<StandardQuestion> questions = new ArrayList<>(dataset.getQuestions());
-        
-        // 按关键词过滤
-        if (keyword != null && !keyword.trim().isEmpty()) {
-            String lowerKeyword = keyword.toLowerCase().trim();
-            questions = questions.stream()
-                    .filter(q -> q.getQuestion() != null && q.getQuestion().toLowerCase().contains(lowerKeyword))
-                    .collect(Collectors.toList());
-        }
-        
-        // 计算总问题数
-        int totalBeforeAnswerFilter = questions.size();
+        // 一次查询完成关键词/回答状态筛选、分页以及回答数的统计
+        Page<Object[]> rows = llmAnswerRepository.findQuestionAnswerSummariesInDataset(
+                datasetId, keywordPattern, hasAnswer, PageRequest.of(pageNumber, pageSize));
         
-        // 按回答状态过滤
-        if (hasAnswer != null) {
-            List<StandardQuestion> filteredQuestions = new ArrayList<>();
-            
-            for (StandardQuestion question : questions) {
-                // 获取该问题在当前数据集中的回答
-                List<LlmAnswer> answers = llmAnswerRepository.findByStandardQuestionAndDatasetVersion(question, dataset);
-                
-                // 根据hasAnswer参数过滤
-                if ((hasAnswer && !answers.isEmpty()) || (!hasAnswer && answers.isEmpty())) {
-                    filteredQuestions.add(question);
-                }
+        // 当前页问题回答过的模型单独查询，按问题分组
+        List<Integer> questionIds = rows.getContent().stream()
+                .map(row -> ((Number) row[0]).intValue())
+                .collect(Collectors.toList());
+        Map<Integer, List<String>> modelsByQuestion = new HashMap<>();
+        if (!questionIds.isEmpty()) {
+            for (Object[] row : llmAnswerRepository.findAnsweringModelsInDataset(datasetId, questionIds)) {
+                modelsByQuestion.computeIfAbsent(((Number) row[0]).intValue(), id -> new ArrayList<>())
+                        .add(row[1].toString());
             }
-            
-            questions = filteredQuestions;
         }
         
-        // 计算分页信息
-        int total = questions.size();
-        int totalPages = (int) Math.ceil((double) total / size);
-        int fromIndex = page * size;
-        int toIndex = Math.min(fromIndex + size, total);
-        
-        // 手动分页
-        List<StandardQuestion> pagedQuestions = fromIndex < total ? 
-                questions.subList(fromIndex, toIndex) : new ArrayList<>();
-        
         // 转换为前端需要的格式
-        List<Map<String, Object>> questionList = pagedQuestions.stream().map(question -> {
+        List<Map<String, Object>> questionList = rows.getContent().stream().map(row -> {
+            Integer questionId = ((Number) row[0]).intValue();
             Map<String, Object> questionInfo = new HashMap<>();
-            questionInfo.put("questionId", question.getStandardQuestionId());
-            questionInfo.put("question", question.getQuestion());
-            questionInfo.put("questionType", question.getQuestionType());
-            questionInfo.put("difficulty", question.getDifficulty());
-            
-            // 获取该问题的所有模型回答 - 使用Repository方法
-            List<LlmAnswer> answers = llmAnswerRepository.findByStandardQuestionAndDatasetVersion(question, dataset);
-            
-            // 统计模型回答信息
-            long answerCount = answers.size();
-            List<String> modelNames = answers.stream()
-                    .filter(answer -> answer.getModel() != null)
-                    .map(answer -> answer.getModel().getName() + " " + 
-                         (answer.getModel().getVersion() != null ? answer.getModel().getVersion() : ""))
-                    .distinct()
-                    .collect(Collectors.toList());
-            
-            questionInfo.put("answerCount", answerCount);
-            questionInfo.put("models", modelNames);
-            
+            questionInfo.put("questionId", questionId);
+            questionInfo.put("question", row[1]);
+            questionInfo.put("questionType", row[2]);
+            questionInfo.put("difficulty", row[3]);
+            questionInfo.put("answerCount", ((Number) row[4]).longValue());
+            questionInfo.put("models", modelsByQuestion.getOrDefault(questionId, new ArrayList<>()));
             return questionInfo;
         }).collect(Collectors.toList());
         
+        long total = rows.getTotalElements();
+        int totalPages = rows.getTotalPages();
+        
         // 构建返回结果
         Map<String, Object> result = new HashMap<>();
         result.put("content", questionList);
         result.put("totalElements", total);
         result.put("totalPages", totalPages);
-        result.put("size", size);
-        result.put("number", page);
+        result.put("size", pageSize);
+        result.put("number", pageNumber);
         result.put("dataset", Map.of(
             "datasetId", dataset.getVersionId(),
             "name", dataset.getName(),
@@ -266,6 +254,13 @@ public class LlmAnswerServiceImpl implements LlmAnswerService {
         return result;
     }
     
+    /**
+     * 转义LIKE模式中的通配符，以 ! 作为转义字符，使关键词中的 % 和 _ 按字面匹配
+     */
+    private static String escapeLikePattern(String keyword) {
+        return keyword.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+    
     @Override
     public List<LlmAnswerDTO> getModelAnswersForQuestionInDataset(Integer datasetId, Integer questionId) {
         // 获取数据集
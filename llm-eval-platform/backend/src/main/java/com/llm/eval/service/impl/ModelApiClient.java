@@ -0,0 +1,513 @@
+package com.llm.eval.service.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.llm.eval.model.LlmModel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 模型接口调用客户端（OpenAI 兼容的 /chat/completions 接口）
+ *
+ * 请求全部异步发送，不占用调用线程；每个模型有独立的并发上限，超出的请求排队等待。
+ * 网络错误、超时、429 和 5xx 响应以及结果处理失败时按指数退避重试。
+ * 取消返回的 Future 会中止排队中的请求和进行中的 HTTP 交换。
+ *
+ * 模型的 apiConfig 支持以下字段：
+ * endpoint（如 http://localhost:8000/v1）、api_key、model（默认取模型名称）、
+ * max_concurrency、timeout_seconds、parameters（原样合并到请求体，如 temperature）。
+ */
+@Component
+@Slf4j
+public class ModelApiClient {
+
+    private static final int MAX_ERROR_BODY_LENGTH = 200;
+
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+
+    @Value("${model-api.max-concurrency-per-model:16}")
+    private int defaultMaxConcurrency;
+
+    @Value("${model-api.request-timeout-seconds:60}")
+    private int defaultTimeoutSeconds;
+
+    @Value("${model-api.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${model-api.backoff-initial-ms:500}")
+    private long backoffInitialMs;
+
+    @Value("${model-api.backoff-max-ms:10000}")
+    private long backoffMaxMs;
+
+    // 按模型ID缓存解析后的配置与并发限制，apiConfig 变化时重建
+    private final Map<Integer, ModelChannel> channels = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ModelApiClient(ObjectMapper objectMapper,
+                          @Value("${model-api.connect-timeout-seconds:10}") int connectTimeoutSeconds) {
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(connectTimeoutSeconds))
+                .build();
+    }
+
+    /**
+     * 异步调用模型
+     *
+     * @param model 模型（读取其 apiConfig）
+     * @param request 对话请求
+     * @param handler 处理模型输出；抛出异常时视为本次调用失败并重试
+     * @return 处理结果；重试耗尽或配置错误时以 {@link ModelCallException} 异常完成
+     */
+    public <T> CompletableFuture<T> chat(LlmModel model, ChatRequest request, CompletionHandler<T> handler) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        ModelChannel channel;
+        String body;
+        try {
+            channel = channelFor(model);
+            body = buildRequestBody(channel, request);
+        } catch (Exception e) {
+            result.completeExceptionally(new ModelCallException("模型配置无效: " + e.getMessage(), 0));
+            return result;
+        }
+        attempt(channel, body, request.isStream(), handler, 1, result);
+        return result;
+    }
+
+    /**
+     * 解析模型生效的请求参数（apiConfig.parameters 覆盖默认值）
+     */
+    public Map<String, Object> effectiveParameters(LlmModel model, Map<String, Object> defaults) {
+        Map<String, Object> parameters = new LinkedHashMap<>(defaults);
+        try {
+            ModelChannel channel = channelFor(model);
+            if (channel.parameters != null) {
+                parameters.putAll(objectMapper.convertValue(channel.parameters, new TypeReference<Map<String, Object>>() {}));
+            }
+        } catch (Exception e) {
+            // 配置无效时调用本身会失败，这里只返回默认值
+        }
+        return parameters;
+    }
+
+    private <T> void attempt(ModelChannel channel, String body, boolean stream, CompletionHandler<T> handler,
+                             int attempt, CompletableFuture<T> result) {
+        channel.limiter.submit(() -> {
+            if (result.isDone()) {
+                channel.limiter.release();
+                return;
+            }
+            HttpRequest.Builder builder = HttpRequest.newBuilder(channel.uri)
+                    .timeout(channel.timeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body));
+            if (channel.apiKey != null) {
+                builder.header("Authorization", "Bearer " + channel.apiKey);
+            }
+
+            long startNanos = System.nanoTime();
+            CompletableFuture<? extends HttpResponse<?>> exchange;
+            try {
+                if (stream) {
+                    builder.header("Accept", "text/event-stream");
+                    exchange = httpClient.sendAsync(builder.build(),
+                            HttpResponse.BodyHandlers.fromLineSubscriber(new StreamAccumulator(objectMapper),
+                                    StreamAccumulator::result, null));
+                } else {
+                    exchange = httpClient.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofString());
+                }
+            } catch (Exception e) {
+                channel.limiter.release();
+                result.completeExceptionally(new ModelCallException(e.getMessage(), attempt));
+                return;
+            }
+            // 调用方取消时中止进行中的HTTP交换
+            result.whenComplete((value, ex) -> {
+                if (result.isCancelled()) {
+                    exchange.cancel(true);
+                }
+            });
+            CompletableFuture<HttpResponse<?>> response = exchange.thenApply(resp -> resp);
+
+            response.whenComplete((resp, ex) -> {
+                channel.limiter.release();
+                if (result.isDone()) {
+                    return;
+                }
+                String error;
+                boolean retryable;
+                long retryAfterMs = -1;
+                if (ex != null) {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    error = cause.getClass().getSimpleName() + ": " + cause.getMessage();
+                    retryable = true;
+                } else if (resp.statusCode() / 100 == 2) {
+                    try {
+                        Completion completion = stream
+                                ? (Completion) resp.body()
+                                : parseCompletion((String) resp.body());
+                        completion.latencyMs = (int) TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                        completion.attempts = attempt;
+                        result.complete(handler.handle(completion));
+                        return;
+                    } catch (Exception e) {
+                        error = "无法处理模型输出: " + e.getMessage();
+                        retryable = true;
+                    }
+                } else {
+                    error = "HTTP " + resp.statusCode() + ": " + truncate(String.valueOf(resp.body()));
+                    retryable = resp.statusCode() == 429 || resp.statusCode() >= 500;
+                    retryAfterMs = resp.headers().firstValue("Retry-After")
+                            .map(ModelApiClient::parseRetryAfterMs).orElse(-1L);
+                }
+
+                if (retryable && attempt < maxAttempts) {
+                    long delay = retryAfterMs >= 0 ? Math.min(retryAfterMs, backoffMaxMs) : backoffDelay(attempt);
+                    log.debug("模型调用失败，{} ms 后第 {} 次重试: {}", delay, attempt + 1, error);
+                    CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS)
+                            .execute(() -> attempt(channel, body, stream, handler, attempt + 1, result));
+                } else {
+                    result.completeExceptionally(new ModelCallException(error, attempt));
+                }
+            });
+        });
+    }
+
+    private long backoffDelay(int attempt) {
+        long delay = Math.min(backoffMaxMs, backoffInitialMs << Math.min(attempt - 1, 20));
+        // 加入随机抖动，避免大量请求同时重试
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    private static long parseRetryAfterMs(String value) {
+        try {
+            return Long.parseLong(value.trim()) * 1000;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private String buildRequestBody(ModelChannel channel, ChatRequest request) throws Exception {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("model", channel.model);
+        ArrayNode messages = body.putArray("messages");
+        for (String[] message : request.getMessages()) {
+            messages.addObject().put("role", message[0]).put("content", message[1]);
+        }
+        for (Map.Entry<String, Object> entry : request.getDefaults().entrySet()) {
+            body.set(entry.getKey(), objectMapper.valueToTree(entry.getValue()));
+        }
+        if (channel.parameters != null) {
+            Iterator<Map.Entry<String, JsonNode>> fields = channel.parameters.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                body.set(field.getKey(), field.getValue());
+            }
+        }
+        if (request.isStream()) {
+            body.put("stream", true);
+            body.putObject("stream_options").put("include_usage", true);
+        }
+        return objectMapper.writeValueAsString(body);
+    }
+
+    private Completion parseCompletion(String responseBody) throws Exception {
+        JsonNode root = objectMapper.readTree(responseBody);
+        String content = root.path("choices").path(0).path("message").path("content").asText(null);
+        if (content == null) {
+            throw new IllegalStateException("响应中没有内容");
+        }
+        Completion completion = new Completion();
+        completion.content = content;
+        JsonNode totalTokens = root.path("usage").path("total_tokens");
+        completion.tokensUsed = totalTokens.isNumber() ? totalTokens.asInt() : null;
+        return completion;
+    }
+
+    private ModelChannel channelFor(LlmModel model) throws Exception {
+        String apiConfig = model.getApiConfig();
+        ModelChannel channel = channels.get(model.getModelId());
+        if (channel != null && Objects.equals(channel.apiConfig, apiConfig)) {
+            return channel;
+        }
+
+        JsonNode config = apiConfig != null && !apiConfig.isBlank()
+                ? objectMapper.readTree(apiConfig) : objectMapper.createObjectNode();
+        // 数据库中的JSON列可能被二次编码为字符串
+        if (config.isTextual()) {
+            config = objectMapper.readTree(config.asText());
+        }
+        String endpoint = config.path("endpoint").asText(null);
+        if (endpoint == null || endpoint.isBlank()) {
+            throw new IllegalArgumentException("模型 " + model.getName() + " 未配置 endpoint");
+        }
+        endpoint = endpoint.trim();
+        if (!endpoint.endsWith("/chat/completions")) {
+            endpoint = (endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint)
+                    + "/chat/completions";
+        }
+        String apiKey = config.hasNonNull("api_key") ? config.get("api_key").asText()
+                : config.path("apiKey").asText(null);
+        String modelName = config.hasNonNull("model") ? config.get("model").asText() : model.getName();
+        int maxConcurrency = config.path("max_concurrency").asInt(defaultMaxConcurrency);
+        int timeoutSeconds = config.path("timeout_seconds").asInt(defaultTimeoutSeconds);
+        JsonNode parameters = config.path("parameters").isObject() ? config.get("parameters") : null;
+
+        ModelChannel created = new ModelChannel(apiConfig, URI.create(endpoint), apiKey, modelName,
+                Duration.ofSeconds(Math.max(1, timeoutSeconds)), parameters, new AsyncLimiter(Math.max(1, maxConcurrency)));
+        channels.put(model.getModelId(), created);
+        return created;
+    }
+
+    static String truncate(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.length() > MAX_ERROR_BODY_LENGTH ? text.substring(0, MAX_ERROR_BODY_LENGTH) + "..." : text;
+    }
+
+    /**
+     * 处理模型输出，抛出异常表示本次输出不可用
+     */
+    @FunctionalInterface
+    public interface CompletionHandler<T> {
+        T handle(Completion completion) throws Exception;
+    }
+
+    /**
+     * 对话请求：消息列表、默认请求参数（可被 apiConfig.parameters 覆盖）与是否流式读取
+     */
+    public static class ChatRequest {
+        private final List<String[]> messages = new ArrayList<>();
+        private final Map<String, Object> defaults = new LinkedHashMap<>();
+        private boolean stream;
+
+        public ChatRequest message(String role, String content) {
+            messages.add(new String[]{role, content});
+            return this;
+        }
+
+        public ChatRequest defaultParameter(String name, Object value) {
+            defaults.put(name, value);
+            return this;
+        }
+
+        public ChatRequest stream(boolean stream) {
+            this.stream = stream;
+            return this;
+        }
+
+        public List<String[]> getMessages() {
+            return messages;
+        }
+
+        public Map<String, Object> getDefaults() {
+            return defaults;
+        }
+
+        public boolean isStream() {
+            return stream;
+        }
+    }
+
+    /**
+     * 模型输出
+     */
+    public static class Completion {
+        private String content;
+        private Integer tokensUsed;
+        private int latencyMs;
+        private int attempts;
+
+        public String getContent() {
+            return content;
+        }
+
+        public Integer getTokensUsed() {
+            return tokensUsed;
+        }
+
+        public int getLatencyMs() {
+            return latencyMs;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+    }
+
+    /**
+     * 重试耗尽或配置错误时的调用异常
+     */
+    public static class ModelCallException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int attempts;
+
+        public ModelCallException(String message, int attempts) {
+            super(message);
+            this.attempts = attempts;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+    }
+
+    /**
+     * 逐行读取流式响应（SSE），拼接增量内容并记录用量
+     */
+    private static final class StreamAccumulator implements Flow.Subscriber<String> {
+        private final ObjectMapper objectMapper;
+        private final StringBuilder content = new StringBuilder();
+        private final StringBuilder raw = new StringBuilder();
+        private Integer tokensUsed;
+        private boolean sawData;
+
+        StreamAccumulator(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (!line.startsWith("data:")) {
+                // 错误响应不是SSE格式，保留原文用于错误信息
+                if (!sawData && raw.length() < MAX_ERROR_BODY_LENGTH) {
+                    raw.append(line);
+                }
+                return;
+            }
+            sawData = true;
+            String data = line.substring(5).trim();
+            if (data.isEmpty() || "[DONE]".equals(data)) {
+                return;
+            }
+            try {
+                JsonNode chunk = objectMapper.readTree(data);
+                JsonNode delta = chunk.path("choices").path(0).path("delta").path("content");
+                if (delta.isTextual()) {
+                    content.append(delta.asText());
+                }
+                JsonNode totalTokens = chunk.path("usage").path("total_tokens");
+                if (totalTokens.isNumber()) {
+                    tokensUsed = totalTokens.asInt();
+                }
+            } catch (Exception e) {
+                // 忽略无法解析的数据行
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        Object result() {
+            if (!sawData) {
+                return raw.toString();
+            }
+            Completion completion = new Completion();
+            completion.content = content.toString();
+            completion.tokensUsed = tokensUsed;
+            return completion;
+        }
+    }
+
+    private static final class ModelChannel {
+        final String apiConfig;
+        final URI uri;
+        final String apiKey;
+        final String model;
+        final Duration timeout;
+        final JsonNode parameters;
+        final AsyncLimiter limiter;
+
+        ModelChannel(String apiConfig, URI uri, String apiKey, String model, Duration timeout,
+                     JsonNode parameters, AsyncLimiter limiter) {
+            this.apiConfig = apiConfig;
+            this.uri = uri;
+            this.apiKey = apiKey;
+            this.model = model;
+            this.timeout = timeout;
+            this.parameters = parameters;
+            this.limiter = limiter;
+        }
+    }
+
+    /**
+     * 非阻塞并发限制：超过上限的请求进入队列，前一个请求完成时再启动
+     */
+    private static final class AsyncLimiter {
+        private final int permits;
+        private final AtomicInteger active = new AtomicInteger();
+        private final ConcurrentLinkedQueue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+        AsyncLimiter(int permits) {
+            this.permits = permits;
+        }
+
+        void submit(Runnable task) {
+            waiting.add(task);
+            drain();
+        }
+
+        void release() {
+            active.decrementAndGet();
+            drain();
+        }
+
+        private void drain() {
+            while (!waiting.isEmpty()) {
+                int current = active.get();
+                if (current >= permits) {
+                    return;
+                }
+                if (!active.compareAndSet(current, current + 1)) {
+                    continue;
+                }
+                Runnable task = waiting.poll();
+                if (task == null) {
+                    active.decrementAndGet();
+                    continue;
+                }
+                task.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.llm.eval.service.impl;
+
+import com.llm.eval.event.QuestionContentChangedEvent.Corpus;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 导入标准问答时的近似重复检查
+ *
+ * 与已有标准问题的估计相似度达到阈值的记录按模式标记（照常写入）或跳过。
+ * 内容完全相同的问题不在此处理，仍按内容指纹合并到已有问题下。
+ * 索引在每块提交后才更新，同一块内彼此近似的记录不会互相命中。
+ */
+public class NearDuplicateFilter {
+
+    public enum Mode {
+        FLAG,
+        SKIP
+    }
+
+    private final QuestionSimilarityIndex similarityIndex;
+    private final Mode mode;
+    private final double threshold;
+
+    private NearDuplicateFilter(QuestionSimilarityIndex similarityIndex, Mode mode, double threshold) {
+        this.similarityIndex = similarityIndex;
+        this.mode = mode;
+        this.threshold = threshold;
+    }
+
+    /**
+     * 按请求参数创建检查器
+     *
+     * @param mode none / flag / skip，为空视为 none
+     * @param threshold 相似度阈值（0-1），为空时使用默认阈值
+     * @return 检查器；不检查时返回 null
+     */
+    public static NearDuplicateFilter of(QuestionSimilarityIndex similarityIndex, String mode, Double threshold) {
+        if (mode == null || mode.isBlank() || "none".equalsIgnoreCase(mode)) {
+            return null;
+        }
+        Mode parsed;
+        try {
+            parsed = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("nearDuplicate只能为none、flag或skip: " + mode);
+        }
+        double value = threshold != null ? threshold : similarityIndex.getDefaultThreshold();
+        if (value <= 0 || value > 1) {
+            throw new IllegalArgumentException("similarityThreshold必须在(0, 1]范围内: " + value);
+        }
+        if (!similarityIndex.isEnabled()) {
+            throw new IllegalArgumentException("相似问题索引未启用，无法检查近似重复");
+        }
+        return new NearDuplicateFilter(similarityIndex, parsed, value);
+    }
+
+    public boolean isSkip() {
+        return mode == Mode.SKIP;
+    }
+
+    /**
+     * @return 命中时的说明，没有近似重复时返回 null
+     */
+    public String check(String question) {
+        List<QuestionSimilarityIndex.Match> matches =
+                similarityIndex.findSimilar(Corpus.STANDARD_QUESTION, question, threshold, 5);
+        for (QuestionSimilarityIndex.Match match : matches) {
+            if (!match.isExact()) {
+                return String.format(Locale.ROOT, "与标准问题 %d 近似重复（相似度 %.2f）",
+                        match.getQuestionId(), match.getSimilarity());
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,427 @@
+package com.llm.eval.service.impl;
+
+import com.llm.eval.model.StandardQuestion.QuestionType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 客观题精确匹配评分器
+ *
+ * 按数据集版本一次性预加载单选、多选和简单事实题的选项，编译为按问题ID排序的紧凑数组：
+ * 选择题的合法选项和正确选项各用一个位掩码表示（A-Z 对应第 0-25 位），简单事实题保存归一化后的正确答案文本。
+ * 评分只做二分查找、位运算和字符串比较，不访问数据库。
+ *
+ * 选择题先识别"答案""选""answer"等提示词之后的选项字母，找不到时识别回答开头的选项；
+ * 单选题只选中一个正确选项得满分；多选题与正确选项完全一致得满分，未选错但漏选按选中比例得分，选错得 0 分。
+ * 简单事实题全角转半角、转小写并去除空白和标点后，与任一正确答案相同或包含正确答案（至少两个字符）即得满分。
+ * 选项代码不是单个字母、或没有正确选项的问题不进入答案表，仍由关键点评分器评分。
+ */
+@Component
+@Slf4j
+public class ObjectiveScorer {
+
+    private static final String SELECT_VERSION_OPTIONS_SQL =
+            "SELECT sq.standard_question_id, sq.question_type, o.option_code, o.option_text, o.is_correct " +
+            "FROM dataset_question_mapping m " +
+            "JOIN standard_questions sq ON sq.standard_question_id = m.standard_question_id " +
+            "JOIN objective_question_options o ON o.standard_question_id = sq.standard_question_id " +
+            "WHERE m.version_id = ? AND sq.deleted_at IS NULL AND o.deleted_at IS NULL " +
+            "AND sq.question_type IN ('single_choice', 'multiple_choice', 'simple_fact') " +
+            "ORDER BY sq.standard_question_id, o.option_order, o.option_id";
+
+    private static final BigDecimal MAX_SCORE = BigDecimal.TEN;
+
+    private static final byte SINGLE_CHOICE = 1;
+    private static final byte MULTIPLE_CHOICE = 2;
+    private static final byte SIMPLE_FACT = 3;
+
+    // 同一位置出现多个提示词时取靠前的一个，因此较长的提示词排在前面
+    private static final String[] ANSWER_MARKERS = {"答案", "answer", "选择", "选项", "应选", "选"};
+    // 提示词与选项之间允许出现的字符
+    private static final String MARKER_FILLER = " \t\r\n:：是为应该选择\"'“”‘’(（[【*#";
+    // 选项之间及其前后允许出现的字符
+    private static final String CHOICE_SEPARATORS = " \t\r\n,，、;；/&和及与.。:：)）]】(（[【\"'“”‘’*#";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // 按数据集版本缓存的答案表，批次启动时重新加载
+    private final ConcurrentHashMap<Integer, AnswerKey> keys = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ObjectiveScorer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 从数据库加载数据集版本的客观题答案表并替换缓存
+     */
+    public AnswerKey load(Integer versionId) {
+        if (versionId == null) {
+            return AnswerKey.EMPTY;
+        }
+        KeyBuilder builder = new KeyBuilder();
+        jdbcTemplate.query(SELECT_VERSION_OPTIONS_SQL, rs -> {
+            builder.add(rs.getInt("standard_question_id"), rs.getString("question_type"),
+                    rs.getString("option_code"), rs.getString("option_text"), rs.getBoolean("is_correct"));
+        }, versionId);
+        AnswerKey key = builder.build();
+        keys.put(versionId, key);
+        log.debug("数据集版本 {} 加载客观题答案 {} 道", versionId, key.size());
+        return key;
+    }
+
+    /**
+     * 取数据集版本的答案表，未缓存时加载
+     */
+    public AnswerKey keyFor(Integer versionId) {
+        if (versionId == null) {
+            return AnswerKey.EMPTY;
+        }
+        AnswerKey key = keys.get(versionId);
+        return key != null ? key : load(versionId);
+    }
+
+    /**
+     * 按答案表评分
+     *
+     * @return 评分结果；问题不在答案表中时返回 null，由调用方改用关键点评分
+     */
+    public Result score(AnswerKey key, Integer questionId, String content) {
+        int index = key.indexOf(questionId);
+        if (index < 0) {
+            return null;
+        }
+        String text = content != null ? content : "";
+        if (key.types[index] == SIMPLE_FACT) {
+            return scoreFact(key.factAnswers[index], text);
+        }
+        int correct = key.correctMasks[index];
+        int chosen = parseChoices(text, key.validMasks[index]);
+        if (chosen == 0) {
+            return new Result(BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP),
+                    "客观题精确匹配：未识别出所选选项，正确答案 " + codes(correct));
+        }
+        double ratio;
+        if (key.types[index] == SINGLE_CHOICE) {
+            ratio = Integer.bitCount(chosen) == 1 && (chosen & correct) != 0 ? 1 : 0;
+        } else if ((chosen & ~correct) != 0) {
+            ratio = 0;
+        } else {
+            ratio = (double) Integer.bitCount(chosen) / Integer.bitCount(correct);
+        }
+        return new Result(BigDecimal.valueOf(ratio).multiply(MAX_SCORE).setScale(2, RoundingMode.HALF_UP),
+                "客观题精确匹配：选择 " + codes(chosen) + "，正确答案 " + codes(correct));
+    }
+
+    private Result scoreFact(String[] answers, String content) {
+        String normalized = normalizeFact(content);
+        for (String answer : answers) {
+            if (normalized.equals(answer) || (answer.length() >= 2 && normalized.contains(answer))) {
+                return new Result(MAX_SCORE.setScale(2, RoundingMode.HALF_UP), "客观题精确匹配：与正确答案一致");
+            }
+        }
+        return new Result(BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP), "客观题精确匹配：与正确答案不一致");
+    }
+
+    /**
+     * 识别回答中选择的选项，返回选项位掩码，无法识别时返回 0
+     */
+    static int parseChoices(String content, int validMask) {
+        String text = halfWidth(content);
+        String lower = text.toLowerCase();
+        int from = 0;
+        while (true) {
+            int position = -1;
+            int length = 0;
+            for (String marker : ANSWER_MARKERS) {
+                int found = lower.indexOf(marker, from);
+                if (found >= 0 && (position < 0 || found < position)) {
+                    position = found;
+                    length = marker.length();
+                }
+            }
+            if (position < 0) {
+                break;
+            }
+            int end = position + length;
+            // 英文提示词跳过单词的剩余部分，如 "answers"
+            while (isAsciiLetter(lower.charAt(end - 1)) && end < text.length() && isAsciiLetter(text.charAt(end))) {
+                end++;
+            }
+            int chosen = readChoices(text, skipFiller(text, end), validMask, true);
+            if (chosen != 0) {
+                return chosen;
+            }
+            from = end;
+        }
+        return readChoices(text, 0, validMask, false);
+    }
+
+    private static int skipFiller(String text, int i) {
+        int n = text.length();
+        while (i < n) {
+            if (MARKER_FILLER.indexOf(text.charAt(i)) >= 0) {
+                i++;
+            } else if (i + 2 < n && text.regionMatches(true, i, "is", 0, 2) && text.charAt(i + 2) == ' ') {
+                i += 3;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * 从 i 开始读取由分隔符隔开的选项字母串，如 "A"、"AC"、"A、C"、"B and D"
+     *
+     * @param afterMarker 是否紧跟在提示词之后：只有此时才接受单个小写字母作为选项
+     */
+    private static int readChoices(String text, int i, int validMask, boolean afterMarker) {
+        int n = text.length();
+        int mask = 0;
+        while (i < n) {
+            char c = text.charAt(i);
+            if (CHOICE_SEPARATORS.indexOf(c) >= 0) {
+                i++;
+                continue;
+            }
+            if (!isAsciiLetter(c)) {
+                break;
+            }
+            int end = i;
+            while (end < n && isAsciiLetter(text.charAt(end))) {
+                end++;
+            }
+            if (mask != 0 && (isWord(text, i, end, "and") || isWord(text, i, end, "or"))) {
+                i = end;
+                continue;
+            }
+            int run = 0;
+            for (int j = i; j < end; j++) {
+                char letter = text.charAt(j);
+                boolean upper = letter >= 'A' && letter <= 'Z';
+                if (!upper && !(afterMarker && end - i == 1)) {
+                    return mask;
+                }
+                int bit = 1 << (Character.toUpperCase(letter) - 'A');
+                if ((validMask & bit) == 0 || (run & bit) != 0) {
+                    return mask;
+                }
+                run |= bit;
+            }
+            // 回答开头的 "A"、"I" 后接空白和小写单词时是英文句子（如 "A capital city"），不是选项
+            if (!afterMarker && mask == 0 && end - i == 1 && (c == 'A' || c == 'I') && startsSentence(text, end)) {
+                return 0;
+            }
+            mask |= run;
+            i = end;
+        }
+        return mask;
+    }
+
+    private static boolean isWord(String text, int start, int end, String word) {
+        return end - start == word.length() && text.regionMatches(true, start, word, 0, word.length());
+    }
+
+    private static boolean startsSentence(String text, int i) {
+        int next = i;
+        while (next < text.length() && Character.isWhitespace(text.charAt(next))) {
+            next++;
+        }
+        if (next == i || next == text.length()) {
+            return false;
+        }
+        char c = text.charAt(next);
+        return c >= 'a' && c <= 'z' && !text.regionMatches(next, "and ", 0, 4) && !text.regionMatches(next, "or ", 0, 3);
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    private static String halfWidth(String text) {
+        StringBuilder sb = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            char converted = c == '　' ? ' ' : (c >= '！' && c <= '～') ? (char) (c - 0xFEE0) : c;
+            if (converted != c) {
+                if (sb == null) {
+                    sb = new StringBuilder(text);
+                }
+                sb.setCharAt(i, converted);
+            }
+        }
+        return sb != null ? sb.toString() : text;
+    }
+
+    static String normalizeFact(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '！' && c <= '～') {
+                c = (char) (c - 0xFEE0);
+            }
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String codes(int mask) {
+        StringBuilder sb = new StringBuilder();
+        for (int bit = 0; bit < 26; bit++) {
+            if ((mask & (1 << bit)) != 0) {
+                sb.append((char) ('A' + bit));
+            }
+        }
+        return sb.toString();
+    }
+
+    public static class Result {
+        private final BigDecimal score;
+        private final String comment;
+
+        Result(BigDecimal score, String comment) {
+            this.score = score;
+            this.comment = comment;
+        }
+
+        public BigDecimal getScore() {
+            return score;
+        }
+
+        public String getComment() {
+            return comment;
+        }
+    }
+
+    /**
+     * 一个数据集版本的客观题答案表，各数组按下标对应同一道题
+     */
+    public static final class AnswerKey {
+        static final AnswerKey EMPTY = new AnswerKey(new int[0], new byte[0], new int[0], new int[0], new String[0][]);
+
+        private final int[] questionIds;
+        private final byte[] types;
+        private final int[] validMasks;
+        private final int[] correctMasks;
+        private final String[][] factAnswers;
+
+        AnswerKey(int[] questionIds, byte[] types, int[] validMasks, int[] correctMasks, String[][] factAnswers) {
+            this.questionIds = questionIds;
+            this.types = types;
+            this.validMasks = validMasks;
+            this.correctMasks = correctMasks;
+            this.factAnswers = factAnswers;
+        }
+
+        public boolean contains(Integer questionId) {
+            return indexOf(questionId) >= 0;
+        }
+
+        public int size() {
+            return questionIds.length;
+        }
+
+        private int indexOf(Integer questionId) {
+            return questionId == null ? -1 : Arrays.binarySearch(questionIds, questionId);
+        }
+    }
+
+    /**
+     * 按问题ID顺序逐行读取选项，问题切换时把上一道题写入数组
+     */
+    private static final class KeyBuilder {
+        private int[] questionIds = new int[64];
+        private byte[] types = new byte[64];
+        private int[] validMasks = new int[64];
+        private int[] correctMasks = new int[64];
+        private String[][] factAnswers = new String[64][];
+        private int size;
+
+        private int currentId = -1;
+        private byte currentType;
+        private int valid;
+        private int correct;
+        private boolean unsupported;
+        private final List<String> facts = new ArrayList<>();
+
+        void add(int questionId, String questionType, String code, String text, boolean isCorrect) {
+            if (questionId != currentId) {
+                flush();
+                currentId = questionId;
+                currentType = typeOf(questionType);
+            }
+            if (currentType == SIMPLE_FACT) {
+                String normalized = text != null ? normalizeFact(text) : "";
+                if (isCorrect && !normalized.isEmpty()) {
+                    facts.add(normalized);
+                }
+                return;
+            }
+            String trimmed = code != null ? code.trim() : "";
+            if (trimmed.length() != 1 || !isAsciiLetter(trimmed.charAt(0))) {
+                unsupported = true;
+                return;
+            }
+            int bit = 1 << (Character.toUpperCase(trimmed.charAt(0)) - 'A');
+            valid |= bit;
+            if (isCorrect) {
+                correct |= bit;
+            }
+        }
+
+        AnswerKey build() {
+            flush();
+            return new AnswerKey(Arrays.copyOf(questionIds, size), Arrays.copyOf(types, size),
+                    Arrays.copyOf(validMasks, size), Arrays.copyOf(correctMasks, size),
+                    Arrays.copyOf(factAnswers, size));
+        }
+
+        private void flush() {
+            boolean usable = currentType == SIMPLE_FACT ? !facts.isEmpty() : !unsupported && correct != 0;
+            if (currentId >= 0 && usable) {
+                if (size == questionIds.length) {
+                    int capacity = size * 2;
+                    questionIds = Arrays.copyOf(questionIds, capacity);
+                    types = Arrays.copyOf(types, capacity);
+                    validMasks = Arrays.copyOf(validMasks, capacity);
+                    correctMasks = Arrays.copyOf(correctMasks, capacity);
+                    factAnswers = Arrays.copyOf(factAnswers, capacity);
+                }
+                questionIds[size] = currentId;
+                types[size] = currentType;
+                validMasks[size] = valid;
+                correctMasks[size] = correct;
+                factAnswers[size] = currentType == SIMPLE_FACT ? facts.toArray(new String[0]) : null;
+                size++;
+            }
+            valid = 0;
+            correct = 0;
+            unsupported = false;
+            facts.clear();
+        }
+
+        private static byte typeOf(String questionType) {
+            QuestionType type = QuestionType.valueOf(questionType);
+            switch (type) {
+                case single_choice:
+                    return SINGLE_CHOICE;
+                case multiple_choice:
+                    return MULTIPLE_CHOICE;
+                default:
+                    return SIMPLE_FACT;
+            }
+        }
+    }
+}
@@ -0,0 +1,661 @@
+package com.llm.eval.service.impl;
+
+import com.llm.eval.dto.ModelComparisonDTO;
+import com.llm.eval.dto.ModelRatingDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 模型两两比较排行榜
+ *
+ * 同一问题下两个模型的最新评分高者记一胜、相同记平局，连同 model_comparisons 中的显式比较汇总为模型间的胜负矩阵，
+ * 用 MM 算法拟合 Bradley-Terry 强度并换算为 Elo 分。评测和比较按ID增量读取：新评分只与同一问题下其他模型的评分比较，
+ * 覆盖旧评分时先撤销旧评分产生的胜负，因此每次刷新的开销与新增数据量成正比，拟合只依赖模型数。
+ * 置信区间对胜负矩阵做 Poisson bootstrap 重抽样，各轮在 ForkJoinPool 中并行拟合。
+ */
+@Component
+@Slf4j
+public class PairwiseRatingEngine {
+
+    private static final String SELECT_EVALUATIONS_SQL =
+            "SELECT e.evaluation_id, la.standard_question_id, la.model_id, e.score " +
+            "FROM evaluations e JOIN llm_answers la ON la.llm_answer_id = e.llm_answer_id " +
+            "WHERE e.evaluation_id > ? AND e.score IS NOT NULL AND la.deleted_at IS NULL " +
+            "ORDER BY e.evaluation_id LIMIT ?";
+
+    private static final String SELECT_COMPARISONS_SQL =
+            "SELECT comparison_id, model1_id, model2_id, winner FROM model_comparisons " +
+            "WHERE comparison_id > ? ORDER BY comparison_id LIMIT ?";
+
+    private static final String SELECT_MODELS_SQL =
+            "SELECT model_id, name, version FROM llm_models";
+
+    private static final String SELECT_ANSWERS_SQL =
+            "SELECT llm_answer_id, model_id, standard_question_id FROM llm_answers " +
+            "WHERE llm_answer_id IN (?, ?) AND deleted_at IS NULL";
+
+    private static final String INSERT_COMPARISON_SQL =
+            "INSERT INTO model_comparisons (standard_question_id, answer1_id, answer2_id, model1_id, model2_id, " +
+            "winner, comparer_id, judge_model_id, comparison_reason) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final double ELO_BASE = 1000;
+    private static final double ELO_SCALE = 400 / Math.log(10);
+    // 每对有比较记录的模型之间加入的虚拟平局（半场计），避免全胜或全负的模型强度发散
+    private static final double PRIOR_TIE = 1;
+    private static final int MAX_ITERATIONS = 500;
+    private static final double TOLERANCE = 1e-8;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${leaderboard.scan-size:10000}")
+    private int scanSize;
+
+    @Value("${leaderboard.rebuild-interval-seconds:600}")
+    private long rebuildIntervalSeconds;
+
+    @Value("${leaderboard.max-bootstrap-rounds:1000}")
+    private int maxBootstrapRounds;
+
+    private final Object lock = new Object();
+    // 以下字段由 lock 保护
+    private State state;
+    private long versionCounter;
+
+    private volatile Fit cachedFit;
+    private volatile Bootstrap cachedBootstrap;
+
+    @Autowired
+    public PairwiseRatingEngine(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 获取排行榜
+     *
+     * @param forceRebuild 是否丢弃增量状态重新扫描全部评测
+     * @param bootstrapRounds bootstrap 轮数，0 表示不计算置信区间
+     * @return 按 Elo 分降序排列的模型评级
+     */
+    public List<ModelRatingDTO> getLeaderboard(boolean forceRebuild, int bootstrapRounds) {
+        if (bootstrapRounds < 0 || bootstrapRounds > maxBootstrapRounds) {
+            throw new IllegalArgumentException("bootstrap轮数应在0到" + maxBootstrapRounds + "之间");
+        }
+
+        Snapshot snapshot;
+        synchronized (lock) {
+            if (forceRebuild || state == null || state.isExpired(rebuildIntervalSeconds)) {
+                state = new State();
+                state.version = ++versionCounter;
+            }
+            refresh(state);
+            snapshot = state.snapshot();
+        }
+
+        Fit fit = cachedFit;
+        if (fit == null || fit.version != snapshot.version) {
+            fit = new Fit(snapshot.version, snapshot.modelIds,
+                    fitStrengths(snapshot.n, snapshot.wins, snapshot.ties, warmStart(fit, snapshot)));
+            cachedFit = fit;
+        }
+
+        Bootstrap bootstrap = null;
+        if (bootstrapRounds > 0) {
+            bootstrap = cachedBootstrap;
+            if (bootstrap == null || bootstrap.version != snapshot.version || bootstrap.rounds != bootstrapRounds) {
+                bootstrap = bootstrap(snapshot, fit.strengths, bootstrapRounds);
+                cachedBootstrap = bootstrap;
+            }
+        }
+        return toRatings(snapshot, fit, bootstrap);
+    }
+
+    /**
+     * 记录一次显式比较，两个回答须属于同一问题的不同模型
+     *
+     * @return 新比较的ID
+     */
+    public Integer recordComparison(ModelComparisonDTO comparison) {
+        if (comparison.getAnswer1Id() == null || comparison.getAnswer2Id() == null) {
+            throw new IllegalArgumentException("比较的两个回答ID不能为空");
+        }
+        String winner = comparison.getWinner();
+        if (!"answer1".equals(winner) && !"answer2".equals(winner) && !"tie".equals(winner)) {
+            throw new IllegalArgumentException("winner 只能是 answer1、answer2 或 tie");
+        }
+
+        Map<Integer, int[]> answers = new HashMap<>();
+        jdbcTemplate.query(SELECT_ANSWERS_SQL, rs -> {
+            answers.put(rs.getInt("llm_answer_id"),
+                    new int[]{rs.getInt("model_id"), rs.getInt("standard_question_id")});
+        }, comparison.getAnswer1Id(), comparison.getAnswer2Id());
+        int[] answer1 = answers.get(comparison.getAnswer1Id());
+        int[] answer2 = answers.get(comparison.getAnswer2Id());
+        if (answer1 == null || answer2 == null) {
+            throw new IllegalArgumentException("模型回答不存在");
+        }
+        if (answer1[1] != answer2[1]) {
+            throw new IllegalArgumentException("两个回答不属于同一问题");
+        }
+        if (answer1[0] == answer2[0]) {
+            throw new IllegalArgumentException("两个回答来自同一模型");
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_COMPARISON_SQL, Statement.RETURN_GENERATED_KEYS);
+            ps.setInt(1, answer1[1]);
+            ps.setInt(2, comparison.getAnswer1Id());
+            ps.setInt(3, comparison.getAnswer2Id());
+            ps.setInt(4, answer1[0]);
+            ps.setInt(5, answer2[0]);
+            ps.setString(6, winner);
+            if (comparison.getComparerId() != null) {
+                ps.setInt(7, comparison.getComparerId());
+            } else {
+                ps.setNull(7, Types.INTEGER);
+            }
+            if (comparison.getJudgeModelId() != null) {
+                ps.setInt(8, comparison.getJudgeModelId());
+            } else {
+                ps.setNull(8, Types.INTEGER);
+            }
+            ps.setString(9, comparison.getComparisonReason());
+            return ps;
+        }, keyHolder);
+        return keyHolder.getKey() != null ? keyHolder.getKey().intValue() : null;
+    }
+
+    /**
+     * 读取上次刷新之后新增的评测和比较
+     */
+    private void refresh(State state) {
+        boolean changed = false;
+        while (true) {
+            int[] rows = {0};
+            jdbcTemplate.query(SELECT_EVALUATIONS_SQL, rs -> {
+                rows[0]++;
+                state.lastEvaluationId = rs.getInt("evaluation_id");
+                state.updateScore(rs.getInt("standard_question_id"), rs.getInt("model_id"),
+                        rs.getBigDecimal("score").floatValue());
+            }, state.lastEvaluationId, scanSize);
+            changed |= rows[0] > 0;
+            if (rows[0] < scanSize) {
+                break;
+            }
+        }
+        while (true) {
+            int[] rows = {0};
+            jdbcTemplate.query(SELECT_COMPARISONS_SQL, rs -> {
+                rows[0]++;
+                state.lastComparisonId = rs.getInt("comparison_id");
+                state.addComparison(rs.getInt("model1_id"), rs.getInt("model2_id"), rs.getString("winner"));
+            }, state.lastComparisonId, scanSize);
+            changed |= rows[0] > 0;
+            if (rows[0] < scanSize) {
+                break;
+            }
+        }
+        if (changed) {
+            state.version = ++versionCounter;
+        }
+    }
+
+    private static double[] warmStart(Fit previous, Snapshot snapshot) {
+        double[] init = new double[snapshot.n];
+        Arrays.fill(init, 1);
+        if (previous != null) {
+            Map<Integer, Double> byModel = new HashMap<>();
+            for (int i = 0; i < previous.modelIds.length; i++) {
+                byModel.put(previous.modelIds[i], previous.strengths[i]);
+            }
+            for (int i = 0; i < snapshot.n; i++) {
+                init[i] = byModel.getOrDefault(snapshot.modelIds[i], 1.0);
+            }
+        }
+        return init;
+    }
+
+    /**
+     * MM 算法拟合 Bradley-Terry 强度：p_i = W_i / Σ_j N_ij / (p_i + p_j)，胜负按半场计，平局各记半场胜；
+     * 结果按参与比较模型的几何平均归一为 1，没有比较记录的模型强度为 0
+     */
+    static double[] fitStrengths(int n, long[] wins, long[] ties, double[] init) {
+        double[] w = new double[n];
+        double[] games = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i == j) {
+                    continue;
+                }
+                long half = 2 * (wins[i * n + j] + wins[j * n + i]) + 2 * ties[i * n + j];
+                if (half > 0) {
+                    games[i * n + j] = half + 2 * PRIOR_TIE;
+                    w[i] += 2 * wins[i * n + j] + ties[i * n + j] + PRIOR_TIE;
+                }
+            }
+        }
+
+        double[] p = init.clone();
+        for (int i = 0; i < n; i++) {
+            if (w[i] == 0) {
+                p[i] = 0;
+            } else if (!(p[i] > 0)) {
+                p[i] = 1;
+            }
+        }
+        double[] next = new double[n];
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            for (int i = 0; i < n; i++) {
+                if (w[i] == 0) {
+                    continue;
+                }
+                double denominator = 0;
+                for (int j = 0; j < n; j++) {
+                    double g = games[i * n + j];
+                    if (g > 0) {
+                        denominator += g / (p[i] + p[j]);
+                    }
+                }
+                next[i] = w[i] / denominator;
+            }
+            normalize(next, w);
+            double maxChange = 0;
+            for (int i = 0; i < n; i++) {
+                if (w[i] > 0) {
+                    maxChange = Math.max(maxChange, Math.abs(Math.log(next[i] / p[i])));
+                    p[i] = next[i];
+                }
+            }
+            if (maxChange < TOLERANCE) {
+                break;
+            }
+        }
+        return p;
+    }
+
+    private static void normalize(double[] p, double[] w) {
+        double logSum = 0;
+        int active = 0;
+        for (int i = 0; i < p.length; i++) {
+            if (w[i] > 0) {
+                logSum += Math.log(p[i]);
+                active++;
+            }
+        }
+        if (active == 0) {
+            return;
+        }
+        double scale = Math.exp(logSum / active);
+        for (int i = 0; i < p.length; i++) {
+            if (w[i] > 0) {
+                p[i] /= scale;
+            }
+        }
+    }
+
+    private static double toElo(double strength) {
+        return ELO_BASE + ELO_SCALE * Math.log(strength);
+    }
+
+    private Bootstrap bootstrap(Snapshot snapshot, double[] strengths, int rounds) {
+        double[][] elo = new double[rounds][];
+        long seed = snapshot.version * 0x9E3779B97F4A7C15L;
+        ForkJoinPool.commonPool().invoke(new BootstrapTask(snapshot, strengths, seed, elo, 0, rounds));
+
+        int n = snapshot.n;
+        double[] lower = new double[n];
+        double[] upper = new double[n];
+        double[] samples = new double[rounds];
+        for (int i = 0; i < n; i++) {
+            // 重抽样后没有任何比较的轮次不计入
+            int valid = 0;
+            for (int r = 0; r < rounds; r++) {
+                if (!Double.isNaN(elo[r][i])) {
+                    samples[valid++] = elo[r][i];
+                }
+            }
+            if (valid == 0) {
+                lower[i] = Double.NaN;
+                upper[i] = Double.NaN;
+                continue;
+            }
+            Arrays.sort(samples, 0, valid);
+            lower[i] = samples[(int) Math.floor(0.025 * (valid - 1))];
+            upper[i] = samples[(int) Math.ceil(0.975 * (valid - 1))];
+        }
+        return new Bootstrap(snapshot.version, rounds, lower, upper);
+    }
+
+    /**
+     * 并行执行 bootstrap：每轮对胜负矩阵的每个格子按 Poisson(计数) 重抽样后重新拟合
+     */
+    private static final class BootstrapTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int ROUNDS_PER_TASK = 2;
+
+        private final Snapshot snapshot;
+        private final double[] strengths;
+        private final long seed;
+        private final double[][] elo;
+        private final int from;
+        private final int to;
+
+        BootstrapTask(Snapshot snapshot, double[] strengths, long seed, double[][] elo, int from, int to) {
+            this.snapshot = snapshot;
+            this.strengths = strengths;
+            this.seed = seed;
+            this.elo = elo;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > ROUNDS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new BootstrapTask(snapshot, strengths, seed, elo, from, middle),
+                        new BootstrapTask(snapshot, strengths, seed, elo, middle, to));
+                return;
+            }
+            int n = snapshot.n;
+            for (int round = from; round < to; round++) {
+                SplittableRandom random = new SplittableRandom(seed + round);
+                long[] wins = new long[n * n];
+                long[] ties = new long[n * n];
+                for (int i = 0; i < n; i++) {
+                    for (int j = 0; j < n; j++) {
+                        if (i == j) {
+                            continue;
+                        }
+                        wins[i * n + j] = poisson(random, snapshot.wins[i * n + j]);
+                        if (i < j) {
+                            long tie = poisson(random, snapshot.ties[i * n + j]);
+                            ties[i * n + j] = tie;
+                            ties[j * n + i] = tie;
+                        }
+                    }
+                }
+                double[] p = fitStrengths(n, wins, ties, strengths);
+                double[] ratings = new double[n];
+                for (int i = 0; i < n; i++) {
+                    ratings[i] = p[i] > 0 ? toElo(p[i]) : Double.NaN;
+                }
+                elo[round] = ratings;
+            }
+        }
+
+        private static long poisson(SplittableRandom random, long mean) {
+            if (mean == 0) {
+                return 0;
+            }
+            if (mean < 30) {
+                double limit = Math.exp(-mean);
+                double product = random.nextDouble();
+                long k = 0;
+                while (product > limit) {
+                    k++;
+                    product *= random.nextDouble();
+                }
+                return k;
+            }
+            return Math.max(0, Math.round(mean + Math.sqrt(mean) * random.nextGaussian()));
+        }
+    }
+
+    private List<ModelRatingDTO> toRatings(Snapshot snapshot, Fit fit, Bootstrap bootstrap) {
+        Map<Integer, String[]> models = new HashMap<>();
+        jdbcTemplate.query(SELECT_MODELS_SQL, rs -> {
+            models.put(rs.getInt("model_id"), new String[]{rs.getString("name"), rs.getString("version")});
+        });
+
+        int n = snapshot.n;
+        List<ModelRatingDTO> ratings = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (!(fit.strengths[i] > 0)) {
+                continue;
+            }
+            long wins = 0;
+            long losses = 0;
+            long ties = 0;
+            for (int j = 0; j < n; j++) {
+                wins += snapshot.wins[i * n + j];
+                losses += snapshot.wins[j * n + i];
+                ties += snapshot.ties[i * n + j];
+            }
+            ModelRatingDTO rating = new ModelRatingDTO();
+            rating.setModelId(snapshot.modelIds[i]);
+            String[] model = models.get(snapshot.modelIds[i]);
+            if (model != null) {
+                rating.setModelName(model[1] != null && !model[1].isEmpty() ? model[0] + " " + model[1] : model[0]);
+                rating.setModelVersion(model[1]);
+            }
+            rating.setEloRating(round(toElo(fit.strengths[i])));
+            rating.setStrength(round(fit.strengths[i]));
+            if (bootstrap != null && !Double.isNaN(bootstrap.lower[i])) {
+                rating.setEloLower(round(bootstrap.lower[i]));
+                rating.setEloUpper(round(bootstrap.upper[i]));
+            }
+            long comparisons = wins + losses + ties;
+            rating.setComparisons(comparisons);
+            rating.setWins(wins);
+            rating.setLosses(losses);
+            rating.setTies(ties);
+            rating.setWinRate(comparisons > 0 ? round((wins + ties / 2.0) / comparisons) : null);
+            ratings.add(rating);
+        }
+        ratings.sort(Comparator.comparing(ModelRatingDTO::getEloRating).reversed());
+        for (int i = 0; i < ratings.size(); i++) {
+            ratings.get(i).setRank(i + 1);
+        }
+        return ratings;
+    }
+
+    private static Double round(double value) {
+        return BigDecimal.valueOf(value).setScale(4, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    /**
+     * 增量维护的胜负矩阵，模型下标只增不减，矩阵按容量倍增
+     */
+    private static final class State {
+        final long createdAt = System.nanoTime();
+        long version;
+        int lastEvaluationId;
+        int lastComparisonId;
+
+        final Map<Integer, Integer> modelIndex = new HashMap<>();
+        int[] modelIds = new int[16];
+        int size;
+        int capacity = 16;
+        // wins[i * capacity + j]：模型 i 胜模型 j 的次数；ties 对称存储
+        long[] wins = new long[capacity * capacity];
+        long[] ties = new long[capacity * capacity];
+
+        // 问题ID -> 各模型在该问题上的最新评分
+        final Map<Integer, QuestionScores> questions = new HashMap<>();
+
+        boolean isExpired(long rebuildIntervalSeconds) {
+            return System.nanoTime() - createdAt > Duration.ofSeconds(rebuildIntervalSeconds).toNanos();
+        }
+
+        void updateScore(int questionId, int modelId, float score) {
+            int model = indexOf(modelId);
+            QuestionScores scores = questions.computeIfAbsent(questionId, k -> new QuestionScores());
+            int position = scores.find(model);
+            if (position >= 0) {
+                float previous = scores.scores[position];
+                if (previous == score) {
+                    return;
+                }
+                for (int k = 0; k < scores.size; k++) {
+                    if (k != position) {
+                        record(model, previous, scores.models[k], scores.scores[k], -1);
+                    }
+                }
+                scores.scores[position] = score;
+            } else {
+                position = scores.append(model, score);
+            }
+            for (int k = 0; k < scores.size; k++) {
+                if (k != position) {
+                    record(model, score, scores.models[k], scores.scores[k], 1);
+                }
+            }
+        }
+
+        void addComparison(int model1Id, int model2Id, String winner) {
+            if (model1Id == model2Id) {
+                return;
+            }
+            int model1 = indexOf(model1Id);
+            int model2 = indexOf(model2Id);
+            if ("answer1".equals(winner)) {
+                wins[model1 * capacity + model2]++;
+            } else if ("answer2".equals(winner)) {
+                wins[model2 * capacity + model1]++;
+            } else {
+                ties[model1 * capacity + model2]++;
+                ties[model2 * capacity + model1]++;
+            }
+        }
+
+        private void record(int a, float scoreA, int b, float scoreB, int delta) {
+            if (scoreA > scoreB) {
+                wins[a * capacity + b] += delta;
+            } else if (scoreA < scoreB) {
+                wins[b * capacity + a] += delta;
+            } else {
+                ties[a * capacity + b] += delta;
+                ties[b * capacity + a] += delta;
+            }
+        }
+
+        private int indexOf(int modelId) {
+            Integer index = modelIndex.get(modelId);
+            if (index != null) {
+                return index;
+            }
+            if (size == capacity) {
+                grow();
+            }
+            modelIds[size] = modelId;
+            modelIndex.put(modelId, size);
+            return size++;
+        }
+
+        private void grow() {
+            int newCapacity = capacity * 2;
+            long[] newWins = new long[newCapacity * newCapacity];
+            long[] newTies = new long[newCapacity * newCapacity];
+            for (int i = 0; i < size; i++) {
+                System.arraycopy(wins, i * capacity, newWins, i * newCapacity, size);
+                System.arraycopy(ties, i * capacity, newTies, i * newCapacity, size);
+            }
+            wins = newWins;
+            ties = newTies;
+            modelIds = Arrays.copyOf(modelIds, newCapacity);
+            capacity = newCapacity;
+        }
+
+        Snapshot snapshot() {
+            long[] compactWins = new long[size * size];
+            long[] compactTies = new long[size * size];
+            for (int i = 0; i < size; i++) {
+                System.arraycopy(wins, i * capacity, compactWins, i * size, size);
+                System.arraycopy(ties, i * capacity, compactTies, i * size, size);
+            }
+            return new Snapshot(version, size, Arrays.copyOf(modelIds, size), compactWins, compactTies);
+        }
+    }
+
+    /**
+     * 一个问题下各模型的最新评分
+     */
+    private static final class QuestionScores {
+        int[] models = new int[4];
+        float[] scores = new float[4];
+        int size;
+
+        int find(int model) {
+            for (int k = 0; k < size; k++) {
+                if (models[k] == model) {
+                    return k;
+                }
+            }
+            return -1;
+        }
+
+        int append(int model, float score) {
+            if (size == models.length) {
+                models = Arrays.copyOf(models, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            models[size] = model;
+            scores[size] = score;
+            return size++;
+        }
+    }
+
+    private static final class Snapshot {
+        final long version;
+        final int n;
+        final int[] modelIds;
+        final long[] wins;
+        final long[] ties;
+
+        Snapshot(long version, int n, int[] modelIds, long[] wins, long[] ties) {
+            this.version = version;
+            this.n = n;
+            this.modelIds = modelIds;
+            this.wins = wins;
+            this.ties = ties;
+        }
+    }
+
+    private static final class Fit {
+        final long version;
+        final int[] modelIds;
+        final double[] strengths;
+
+        Fit(long version, int[] modelIds, double[] strengths) {
+            this.version = version;
+            this.modelIds = modelIds;
+            this.strengths = strengths;
+        }
+    }
+
+    private static final class Bootstrap {
+        final long version;
+        final int rounds;
+        final double[] lower;
+        final double[] upper;
+
+        Bootstrap(long version, int rounds, double[] lower, double[] upper) {
+            this.version = version;
+            this.rounds = rounds;
+            this.lower = lower;
+            this.upper = upper;
+        }
+    }
+}
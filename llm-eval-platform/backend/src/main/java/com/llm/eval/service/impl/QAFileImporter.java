@@ -0,0 +1,239 @@
+package com.llm.eval.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.llm.eval.dto.DataImportResultDTO;
+import com.llm.eval.dto.RawAnswerImportDTO;
+import com.llm.eval.dto.RawQuestionImportDTO;
+import com.llm.eval.dto.StandardQAImportDTO;
+import com.llm.eval.model.ImportTask;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 问答文件流式导入器
+ * 逐条读取JSON记录，按块交给QAImportWriter写入，每块提交前后回调监听器（用于进度、错误日志和取消）
+ */
+@Component
+@Slf4j
+public class QAFileImporter {
+
+    /**
+     * 数据块提交监听器
+     */
+    public interface ChunkListener {
+        /**
+         * 数据块写入后、提交前在同一事务中回调，用于与数据块原子地记录进度；抛出异常时整块回滚
+         *
+         * @param chunkStart 数据块第一条记录在文件中的偏移量
+         * @param position 数据块提交后的记录数（即下次继续导入的偏移量）
+         * @param result 数据块写入结果
+         */
+        default void beforeCommit(long chunkStart, long position, QAImportWriter.ChunkResult result) {
+        }
+
+        /**
+         * 每个数据块写入完成后回调
+         *
+         * @param chunkStart 数据块第一条记录在文件中的偏移量
+         * @param position 已提交的记录数（即下次继续导入的偏移量）
+         * @param result 数据块写入结果
+         * @return 是否继续导入，返回false时停止
+         */
+        boolean afterChunk(long chunkStart, long position, QAImportWriter.ChunkResult result);
+    }
+
+    // 结果中最多列出的近似重复记录数，其余只计数
+    private static final int MAX_NEAR_DUPLICATE_NOTES = 100;
+
+    private final ObjectMapper objectMapper;
+    private final QAImportWriter importWriter;
+
+    @Value("${import.batch-size:1000}")
+    private int importBatchSize;
+
+    @Autowired
+    public QAFileImporter(ObjectMapper objectMapper, QAImportWriter importWriter) {
+        this.objectMapper = objectMapper;
+        this.importWriter = importWriter;
+    }
+
+    /**
+     * 流式导入问答文件
+     *
+     * @param in 文件输入流
+     * @param type 导入类型（RAW_QA或STANDARD_QA）
+     * @param offset 跳过的记录数，用于断点续传
+     * @param listener 数据块监听器（可为null）
+     * @return 本次导入的统计结果（不含跳过的记录）
+     */
+    public DataImportResultDTO importFile(InputStream in, ImportTask.ImportType type, long offset,
+                                          ChunkListener listener) throws IOException {
+        return importFile(in, type, offset, listener, null);
+    }
+
+    /**
+     * 流式导入问答文件，标准问答可同时检查近似重复
+     *
+     * @param nearDuplicateFilter 近似重复检查（可为null，仅对STANDARD_QA生效）
+     */
+    public DataImportResultDTO importFile(InputStream in, ImportTask.ImportType type, long offset,
+                                          ChunkListener listener, NearDuplicateFilter nearDuplicateFilter)
+            throws IOException {
+        if (type != ImportTask.ImportType.RAW_QA && type != ImportTask.ImportType.STANDARD_QA) {
+            throw new IllegalArgumentException("不支持的文件导入类型: " + type);
+        }
+
+        int total = 0;
+        int imported = 0;
+        int failed = 0;
+        int skipped = 0;
+        int flagged = 0;
+        List<String> nearDuplicates = new ArrayList<>();
+        boolean stopped = false;
+        try (JsonRecordStream records = new JsonRecordStream(objectMapper, in)) {
+            if (offset > 0) {
+                records.skip(offset);
+            }
+            List<Map<String, Object>> chunk = new ArrayList<>(importBatchSize);
+            while (!stopped && records.hasNext()) {
+                long chunkStart = records.getPosition();
+                chunk.clear();
+                while (chunk.size() < importBatchSize && records.hasNext()) {
+                    chunk.add(records.next());
+                }
+
+                long position = records.getPosition();
+                QAImportWriter.ChunkResult result = writeChunk(type, chunk, nearDuplicateFilter, listener == null
+                        ? null : written -> listener.beforeCommit(chunkStart, position, written));
+                total += chunk.size();
+                imported += result.getImported();
+                failed += result.getFailed();
+                skipped += result.getSkipped().size();
+                flagged += result.getFlagged().size();
+                collectNearDuplicates(nearDuplicates, chunkStart, result.getSkipped(), "已跳过");
+                collectNearDuplicates(nearDuplicates, chunkStart, result.getFlagged(), "已导入");
+
+                if (listener != null && !listener.afterChunk(chunkStart, position, result)) {
+                    stopped = true;
+                }
+            }
+        } catch (UncheckedIOException e) {
+            // 读取过程中遇到的JSON格式错误
+            throw e.getCause();
+        }
+
+        String message = stopped ? "导入已停止" : "导入完成";
+        DataImportResultDTO result = new DataImportResultDTO(!stopped && failed == 0, message, imported, failed, total);
+        result.setSkipped(skipped);
+        result.setFlagged(flagged);
+        result.setNearDuplicates(nearDuplicates);
+        return result;
+    }
+
+    private static void collectNearDuplicates(List<String> notes, long chunkStart, Map<Integer, String> found,
+                                              String action) {
+        for (Map.Entry<Integer, String> entry : found.entrySet()) {
+            if (notes.size() >= MAX_NEAR_DUPLICATE_NOTES) {
+                return;
+            }
+            notes.add("第" + (chunkStart + entry.getKey() + 1) + "条记录" + entry.getValue() + "，" + action);
+        }
+    }
+
+    private QAImportWriter.ChunkResult writeChunk(ImportTask.ImportType type, List<Map<String, Object>> chunk,
+                                                  NearDuplicateFilter nearDuplicateFilter,
+                                                  Consumer<QAImportWriter.ChunkResult> beforeCommit) {
+        if (type == ImportTask.ImportType.RAW_QA) {
+            List<RawQuestionImportDTO> rows = new ArrayList<>(chunk.size());
+            for (Map<String, Object> record : chunk) {
+                rows.add(toRawQuestionImportDTO(record));
+            }
+            return importWriter.writeRawQAs(rows, beforeCommit);
+        }
+        List<StandardQAImportDTO> rows = new ArrayList<>(chunk.size());
+        for (Map<String, Object> record : chunk) {
+            rows.add(toStandardQAImportDTO(record));
+        }
+        return importWriter.writeStandardQAs(rows, nearDuplicateFilter, beforeCommit);
+    }
+
+    /**
+     * 将原始问答JSON记录转换为导入DTO
+     */
+    public RawQuestionImportDTO toRawQuestionImportDTO(Map<String, Object> rawQA) {
+        RawQuestionImportDTO questionDTO = new RawQuestionImportDTO();
+        questionDTO.setSourceQuestionId(convertToInteger(rawQA.get("source_question_id")));
+        questionDTO.setQuestionTitle(convertToString(rawQA.get("question_title")));
+        questionDTO.setQuestionBody(convertToString(rawQA.get("question_body")));
+        questionDTO.setSource(convertToString(rawQA.get("source")));
+        questionDTO.setSourceId(convertToInteger(rawQA.get("source_id")));
+        questionDTO.setSourceUrl(convertToString(rawQA.get("source_url")));
+
+        if (rawQA.containsKey("source_answer_id") || rawQA.containsKey("answer_body")) {
+            RawAnswerImportDTO answerDTO = new RawAnswerImportDTO();
+            answerDTO.setSourceAnswerId(convertToInteger(rawQA.get("source_answer_id")));
+            answerDTO.setAnswerBody(convertToString(rawQA.get("answer_body")));
+            answerDTO.setAuthorInfo(convertToString(rawQA.get("author_info")));
+            answerDTO.setUpvotes(convertToInteger(rawQA.get("upvotes")));
+            Object accepted = rawQA.get("is_accepted");
+            if (accepted instanceof Boolean) {
+                answerDTO.setIsAccepted((Boolean) accepted);
+            }
+            questionDTO.setAnswer(answerDTO);
+        }
+        return questionDTO;
+    }
+
+    /**
+     * 将标准问答JSON记录转换为导入DTO（兼容字段名称的差异）
+     */
+    public StandardQAImportDTO toStandardQAImportDTO(Map<String, Object> item) {
+        StandardQAImportDTO qaDTO = new StandardQAImportDTO();
+        qaDTO.setQaId(convertToInteger(item.get("qa_id")));
+        qaDTO.setSourceQuestionId(convertToInteger(item.get("source_question_id")));
+        qaDTO.setSourceAnswerId(convertToInteger(item.get("source_answer_id")));
+        qaDTO.setQuestion(convertToString(item.get("question")));
+        qaDTO.setAnswer(convertToString(item.get("answer")));
+
+        // 处理关键点数据
+        Object keyPointsObj = item.get("key_points");
+        if (keyPointsObj instanceof List) {
+            List<String> keyPoints = new ArrayList<>();
+            for (Object kp : (List<?>) keyPointsObj) {
+                if (kp instanceof String) {
+                    keyPoints.add((String) kp);
+                }
+            }
+            qaDTO.setKeyPoints(keyPoints);
+        }
+        return qaDTO;
+    }
+
+    private static Integer convertToInteger(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Integer.parseInt(((String) value).trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static String convertToString(Object value) {
+        return value != null ? value.toString() : null;
+    }
+}
@@ -0,0 +1,556 @@
+package com.llm.eval.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.llm.eval.dto.DataValidationResultDTO;
+import com.llm.eval.dto.DataValidationResultDTO.ValidationIssueDTO;
+import com.llm.eval.model.ImportTask;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 问答导入文件的流式校验器
+ *
+ * 请求线程用 {@link JsonRecordStream} 逐条读取记录，并在读取时完成文件内来源ID查重；
+ * 记录按块提交到校验线程池，每块做字段/类型/关键点检查，并用一次 IN 查询批量核对数据库中已有的来源ID。
+ * 错误数超过预算后立即停止读取，剩余数据不再解析，坏文件无需读完即可拒绝。
+ * 返回结果中只保留记录序号最小的若干条错误和警告，另附各类错误的汇总计数。
+ */
+@Component
+@Slf4j
+public class QAFileValidator {
+
+    private static final String SELECT_EXISTING_RAW_QUESTIONS_SQL =
+            "SELECT live_source_question_id FROM raw_questions WHERE live_source_question_id IN (:ids)";
+
+    private static final String SELECT_EXISTING_RAW_ANSWERS_SQL =
+            "SELECT live_source_answer_id FROM raw_answers WHERE live_source_answer_id IN (:ids)";
+
+    private static final String[] RAW_INTEGER_FIELDS = {"source_question_id", "source_id", "source_answer_id", "upvotes"};
+    private static final String[] RAW_STRING_FIELDS = {"question_title", "question_body", "source", "source_url",
+            "answer_body", "author_info"};
+    private static final String[] STANDARD_INTEGER_FIELDS = {"qa_id", "source_question_id", "source_answer_id"};
+    private static final String[] STANDARD_STRING_FIELDS = {"question", "answer"};
+
+    /** 读取线程查重得到的记录标记 */
+    private static final byte DUPLICATE_QUESTION = 1;
+    private static final byte DUPLICATE_ANSWER = 2;
+
+    private final ObjectMapper objectMapper;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final ThreadPoolTaskExecutor validationExecutor;
+
+    @Value("${import.validation.chunk-size:2000}")
+    private int chunkSize;
+
+    @Value("${import.validation.error-budget:1000}")
+    private int errorBudget;
+
+    @Value("${import.validation.max-issues:100}")
+    private int maxIssues;
+
+    @Autowired
+    public QAFileValidator(ObjectMapper objectMapper,
+                           NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                           @Qualifier("validationExecutor") ThreadPoolTaskExecutor validationExecutor) {
+        this.objectMapper = objectMapper;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.validationExecutor = validationExecutor;
+    }
+
+    /**
+     * 校验一个 JSON 文件（对象数组或单个对象），不写入任何数据
+     *
+     * @param in   文件输入流（由调用方关闭）
+     * @param type 导入类型，仅支持 RAW_QA 和 STANDARD_QA
+     * @return 校验结果；记录序号从1开始
+     */
+    public DataValidationResultDTO validate(InputStream in, ImportTask.ImportType type) throws IOException {
+        boolean raw = type == ImportTask.ImportType.RAW_QA;
+        if (!raw && type != ImportTask.ImportType.STANDARD_QA) {
+            throw new IllegalArgumentException("仅支持校验RAW_QA和STANDARD_QA类型");
+        }
+        long startTime = System.currentTimeMillis();
+        Collector collector = new Collector(errorBudget, maxIssues);
+        ArrayDeque<Future<?>> pending = new ArrayDeque<>();
+        IntHashSet seenQuestions = new IntHashSet();
+        IntHashSet seenAnswers = new IntHashSet();
+        long total = 0;
+        String stopReason = null;
+
+        try (JsonRecordStream stream = new JsonRecordStream(objectMapper, in)) {
+            List<Map<String, Object>> records = new ArrayList<>(chunkSize);
+            byte[] flags = new byte[chunkSize];
+            long chunkStart = 0;
+            while (!collector.aborted.get()) {
+                Map<String, Object> record;
+                try {
+                    if (!stream.hasNext()) {
+                        break;
+                    }
+                    record = stream.next();
+                } catch (UncheckedIOException e) {
+                    // 语法错误之后的内容无法继续解析，只能在此处结束
+                    collector.parseError(stream.getPosition() + 1, describe(e.getCause()));
+                    stopReason = "JSON格式错误，已在第" + (stream.getPosition() + 1) + "条记录处停止校验";
+                    break;
+                }
+                total++;
+
+                // 文件内查重必须按顺序进行，放在读取线程完成，校验任务只负责报告
+                byte flag = 0;
+                Integer sourceQuestionId = toInteger(record.get("source_question_id"));
+                if (sourceQuestionId != null && !seenQuestions.add(sourceQuestionId)) {
+                    flag |= DUPLICATE_QUESTION;
+                }
+                if (raw) {
+                    Integer sourceAnswerId = toInteger(record.get("source_answer_id"));
+                    if (sourceAnswerId != null && !seenAnswers.add(sourceAnswerId)) {
+                        flag |= DUPLICATE_ANSWER;
+                    }
+                }
+                flags[records.size()] = flag;
+                records.add(record);
+
+                if (records.size() >= chunkSize) {
+                    submit(pending, chunkStart, records, flags, raw, collector);
+                    chunkStart = total;
+                    records = new ArrayList<>(chunkSize);
+                    flags = new byte[chunkSize];
+                }
+            }
+            if (!records.isEmpty() && !collector.aborted.get()) {
+                submit(pending, chunkStart, records, flags, raw, collector);
+            }
+        } catch (IOException e) {
+            // 顶层结构不是对象数组等无法开始读取的情况
+            collector.parseError(1, describe(e));
+            stopReason = "JSON格式错误，无法读取文件";
+        } finally {
+            while (!pending.isEmpty()) {
+                awaitChunk(pending.poll());
+            }
+        }
+
+        if (collector.aborted.get()) {
+            stopReason = "错误数超过上限" + errorBudget + "，已在第" + total + "条记录处停止校验";
+        }
+        DataValidationResultDTO result = collector.toResult(total);
+        if (stopReason != null) {
+            result.setAborted(true);
+            result.setMessage(stopReason);
+        } else if (total == 0) {
+            result.setMessage("文件内容为空");
+        } else {
+            result.setMessage(result.isValid() ? "验证通过" : "验证未通过");
+        }
+        log.info("导入文件校验完成: 类型={}, 记录数={}, 错误={}, 警告={}, 提前终止={}, 耗时={}ms",
+                type, total, result.getErrorCount(), result.getWarningCount(), result.isAborted(),
+                System.currentTimeMillis() - startTime);
+        return result;
+    }
+
+    private void submit(ArrayDeque<Future<?>> pending, long chunkStart, List<Map<String, Object>> records,
+                        byte[] flags, boolean raw, Collector collector) {
+        // 先回收已完成的块，及早暴露数据库等异常，也避免挂起的 Future 无限堆积
+        while (!pending.isEmpty() && pending.peek().isDone()) {
+            awaitChunk(pending.poll());
+        }
+        pending.add(validationExecutor.submit(() -> {
+            if (raw) {
+                validateRawChunk(chunkStart, records, flags, collector);
+            } else {
+                validateStandardChunk(chunkStart, records, flags, collector);
+            }
+        }));
+    }
+
+    private void awaitChunk(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("校验被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private void validateRawChunk(long chunkStart, List<Map<String, Object>> records, byte[] flags,
+                                  Collector collector) {
+        // 只核对在本块首次出现的来源ID，文件内重复的记录不重复计入“已存在”
+        Set<Integer> questionIds = new HashSet<>();
+        for (int i = 0; i < records.size(); i++) {
+            Integer id = toInteger(records.get(i).get("source_question_id"));
+            if (id != null && (flags[i] & DUPLICATE_QUESTION) == 0) {
+                questionIds.add(id);
+            }
+        }
+        Set<Integer> existing = existingIds(SELECT_EXISTING_RAW_QUESTIONS_SQL, questionIds);
+
+        for (int i = 0; i < records.size() && !collector.aborted.get(); i++) {
+            Map<String, Object> record = records.get(i);
+            long index = chunkStart + i + 1;
+            RecordIssues issues = new RecordIssues(index);
+            checkTypes(record, RAW_INTEGER_FIELDS, RAW_STRING_FIELDS, issues);
+
+            if (isBlank(record.get("question_body"))) {
+                issues.error("question_body", "question_body不能为空");
+            }
+            if (record.get("source_answer_id") != null && isBlank(record.get("answer_body"))) {
+                issues.error("answer_body", "answer_body不能为空");
+            }
+            Object accepted = record.get("is_accepted");
+            if (accepted != null && !(accepted instanceof Boolean)) {
+                issues.error("is_accepted", "is_accepted必须是布尔值");
+            }
+            if ((flags[i] & DUPLICATE_ANSWER) != 0) {
+                issues.error("source_answer_id", "source_answer_id在文件中重复");
+            }
+
+            Integer sourceQuestionId = toInteger(record.get("source_question_id"));
+            if (sourceQuestionId == null) {
+                issues.warning("source_question_id", "缺少source_question_id，重复导入会产生重复问题");
+            } else if (existing.contains(sourceQuestionId)) {
+                collector.existingInDatabase.incrementAndGet();
+            }
+            // 原始问答每条记录是一个回答，同一问题出现多次是正常的，只计数不报告
+            if ((flags[i] & DUPLICATE_QUESTION) != 0) {
+                collector.duplicateInFile.incrementAndGet();
+            }
+            collector.accept(issues);
+        }
+    }
+
+    private void validateStandardChunk(long chunkStart, List<Map<String, Object>> records, byte[] flags,
+                                       Collector collector) {
+        Set<Integer> questionIds = new HashSet<>();
+        Set<Integer> answerIds = new HashSet<>();
+        for (Map<String, Object> record : records) {
+            Integer questionId = toInteger(record.get("source_question_id"));
+            if (questionId != null) {
+                questionIds.add(questionId);
+            }
+            Integer answerId = toInteger(record.get("source_answer_id"));
+            if (answerId != null) {
+                answerIds.add(answerId);
+            }
+        }
+        Set<Integer> knownQuestions = existingIds(SELECT_EXISTING_RAW_QUESTIONS_SQL, questionIds);
+        Set<Integer> knownAnswers = existingIds(SELECT_EXISTING_RAW_ANSWERS_SQL, answerIds);
+
+        for (int i = 0; i < records.size() && !collector.aborted.get(); i++) {
+            Map<String, Object> record = records.get(i);
+            long index = chunkStart + i + 1;
+            RecordIssues issues = new RecordIssues(index);
+            checkTypes(record, STANDARD_INTEGER_FIELDS, STANDARD_STRING_FIELDS, issues);
+
+            if (isBlank(record.get("question"))) {
+                issues.error("question", "question不能为空");
+            }
+            if (isBlank(record.get("answer"))) {
+                issues.error("answer", "answer不能为空");
+            }
+            checkKeyPoints(record.get("key_points"), issues);
+
+            if ((flags[i] & DUPLICATE_QUESTION) != 0) {
+                collector.duplicateInFile.incrementAndGet();
+                issues.warning("source_question_id", "source_question_id在文件中重复");
+            }
+            Integer sourceQuestionId = toInteger(record.get("source_question_id"));
+            if (sourceQuestionId != null && !knownQuestions.contains(sourceQuestionId)) {
+                collector.unresolvedReferences.incrementAndGet();
+                issues.warning("source_question_id", "source_question_id在原始问题中不存在，导入后不关联原始问题");
+            }
+            Integer sourceAnswerId = toInteger(record.get("source_answer_id"));
+            if (sourceAnswerId != null && !knownAnswers.contains(sourceAnswerId)) {
+                collector.unresolvedReferences.incrementAndGet();
+                issues.warning("source_answer_id", "source_answer_id在原始回答中不存在，导入后不关联原始回答");
+            }
+            collector.accept(issues);
+        }
+    }
+
+    private void checkKeyPoints(Object value, RecordIssues issues) {
+        if (value == null) {
+            return;
+        }
+        if (!(value instanceof List)) {
+            issues.error("key_points", "key_points必须是字符串数组");
+            return;
+        }
+        Set<String> seen = new HashSet<>();
+        boolean duplicated = false;
+        for (Object point : (List<?>) value) {
+            if (!(point instanceof String)) {
+                // 导入时会静默丢弃非字符串的关键点，这里明确报出
+                issues.error("key_points", "key_points包含非字符串项");
+                return;
+            }
+            String text = ((String) point).trim();
+            if (text.isEmpty()) {
+                issues.error("key_points", "key_points包含空项");
+                return;
+            }
+            duplicated |= !seen.add(text);
+        }
+        if (duplicated) {
+            issues.warning("key_points", "key_points包含重复项");
+        }
+    }
+
+    private void checkTypes(Map<String, Object> record, String[] integerFields, String[] stringFields,
+                            RecordIssues issues) {
+        for (String field : integerFields) {
+            Object value = record.get(field);
+            if (value != null && toInteger(value) == null) {
+                issues.error(field, field + "必须是整数");
+            }
+        }
+        for (String field : stringFields) {
+            Object value = record.get(field);
+            if (value instanceof Map || value instanceof List) {
+                issues.error(field, field + "必须是字符串");
+            }
+        }
+    }
+
+    private Set<Integer> existingIds(String sql, Set<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return new HashSet<>(namedParameterJdbcTemplate.queryForList(
+                sql, new MapSqlParameterSource("ids", ids), Integer.class));
+    }
+
+    /**
+     * 与导入时的整数转换规则一致，但不接受小数和超出 int 范围的值
+     */
+    private static Integer toInteger(Object value) {
+        if (value instanceof Integer) {
+            return (Integer) value;
+        }
+        if (value instanceof Long || value instanceof BigInteger) {
+            long longValue = ((Number) value).longValue();
+            boolean fits = value instanceof Long || ((BigInteger) value).bitLength() < 32;
+            return fits && longValue == (int) longValue ? (int) longValue : null;
+        }
+        if (value instanceof String) {
+            try {
+                return Integer.parseInt(((String) value).trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isBlank(Object value) {
+        return value == null || value.toString().isBlank();
+    }
+
+    private static String describe(Throwable e) {
+        if (e instanceof JsonProcessingException) {
+            return "JSON格式错误: " + ((JsonProcessingException) e).getOriginalMessage();
+        }
+        return e.getMessage();
+    }
+
+    /**
+     * 单条记录的问题列表，记录校验完后一次性交给汇总器
+     */
+    private static final class RecordIssues {
+        private final long index;
+        private List<ValidationIssueDTO> errors;
+        private List<ValidationIssueDTO> warnings;
+
+        RecordIssues(long index) {
+            this.index = index;
+        }
+
+        void error(String field, String message) {
+            if (errors == null) {
+                errors = new ArrayList<>(2);
+            }
+            errors.add(new ValidationIssueDTO((int) index, field, message));
+        }
+
+        void warning(String field, String message) {
+            if (warnings == null) {
+                warnings = new ArrayList<>(2);
+            }
+            warnings.add(new ValidationIssueDTO((int) index, field, message));
+        }
+    }
+
+    /**
+     * 多个校验任务共享的结果汇总：计数全部保留，明细只保留序号最小的 maxIssues 条
+     */
+    private static final class Collector {
+        private static final Comparator<ValidationIssueDTO> LATEST_FIRST =
+                Comparator.comparingInt(ValidationIssueDTO::getRecordIndex).reversed();
+
+        private final int errorBudget;
+        private final int maxIssues;
+        private final AtomicBoolean aborted = new AtomicBoolean();
+        private final AtomicInteger errorCount = new AtomicInteger();
+        private final AtomicInteger warningCount = new AtomicInteger();
+        private final AtomicInteger invalidRecords = new AtomicInteger();
+        private final AtomicInteger duplicateInFile = new AtomicInteger();
+        private final AtomicInteger existingInDatabase = new AtomicInteger();
+        private final AtomicInteger unresolvedReferences = new AtomicInteger();
+        private final Map<String, AtomicInteger> errorSummary = new ConcurrentHashMap<>();
+        private final PriorityQueue<ValidationIssueDTO> errors = new PriorityQueue<>(LATEST_FIRST);
+        private final PriorityQueue<ValidationIssueDTO> warnings = new PriorityQueue<>(LATEST_FIRST);
+
+        Collector(int errorBudget, int maxIssues) {
+            this.errorBudget = errorBudget;
+            this.maxIssues = maxIssues;
+        }
+
+        void accept(RecordIssues issues) {
+            if (issues.warnings != null) {
+                warningCount.addAndGet(issues.warnings.size());
+                keep(warnings, issues.warnings);
+            }
+            if (issues.errors != null) {
+                invalidRecords.incrementAndGet();
+                for (ValidationIssueDTO issue : issues.errors) {
+                    errorSummary.computeIfAbsent(issue.getMessage(), k -> new AtomicInteger()).incrementAndGet();
+                }
+                keep(errors, issues.errors);
+                if (errorCount.addAndGet(issues.errors.size()) > errorBudget) {
+                    aborted.set(true);
+                }
+            }
+        }
+
+        void parseError(long index, String message) {
+            RecordIssues issues = new RecordIssues(index);
+            issues.error(null, message);
+            errorCount.incrementAndGet();
+            invalidRecords.incrementAndGet();
+            errorSummary.computeIfAbsent("JSON格式错误", k -> new AtomicInteger()).incrementAndGet();
+            keep(errors, issues.errors);
+        }
+
+        private void keep(PriorityQueue<ValidationIssueDTO> queue, List<ValidationIssueDTO> issues) {
+            synchronized (queue) {
+                for (ValidationIssueDTO issue : issues) {
+                    queue.add(issue);
+                    if (queue.size() > maxIssues) {
+                        queue.poll();
+                    }
+                }
+            }
+        }
+
+        DataValidationResultDTO toResult(long total) {
+            DataValidationResultDTO result = new DataValidationResultDTO();
+            result.setTotalRecords((int) total);
+            result.setInvalidRecords(invalidRecords.get());
+            result.setErrorCount(errorCount.get());
+            result.setWarningCount(warningCount.get());
+            result.setDuplicateInFile(duplicateInFile.get());
+            result.setExistingInDatabase(existingInDatabase.get());
+            result.setUnresolvedReferences(unresolvedReferences.get());
+            Map<String, Integer> summary = new TreeMap<>();
+            errorSummary.forEach((message, count) -> summary.put(message, count.get()));
+            result.setErrorSummary(summary);
+            result.setIssues(sorted(errors));
+            result.setWarnings(sorted(warnings));
+            result.setValid(total > 0 && errorCount.get() == 0 && !aborted.get());
+            return result;
+        }
+
+        private static List<ValidationIssueDTO> sorted(PriorityQueue<ValidationIssueDTO> queue) {
+            synchronized (queue) {
+                List<ValidationIssueDTO> list = new ArrayList<>(queue);
+                list.sort(Comparator.comparingInt(ValidationIssueDTO::getRecordIndex));
+                return list;
+            }
+        }
+    }
+
+    /**
+     * 开放寻址的 int 集合，用于大文件的来源ID查重，避免逐个装箱
+     */
+    private static final class IntHashSet {
+        private static final int EMPTY = Integer.MIN_VALUE;
+
+        private int[] slots = newSlots(1 << 12);
+        private int size;
+        private boolean containsEmpty;
+
+        boolean add(int value) {
+            if (value == EMPTY) {
+                boolean added = !containsEmpty;
+                containsEmpty = true;
+                return added;
+            }
+            if ((size + 1) * 2 > slots.length) {
+                grow();
+            }
+            return insert(slots, value);
+        }
+
+        private boolean insert(int[] table, int value) {
+            int mask = table.length - 1;
+            int i = mix(value) & mask;
+            while (table[i] != EMPTY) {
+                if (table[i] == value) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            table[i] = value;
+            if (table == slots) {
+                size++;
+            }
+            return true;
+        }
+
+        private void grow() {
+            int[] old = slots;
+            slots = newSlots(old.length << 1);
+            size = 0;
+            for (int value : old) {
+                if (value != EMPTY) {
+                    insert(slots, value);
+                }
+            }
+        }
+
+        private static int mix(int value) {
+            int h = value * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        private static int[] newSlots(int capacity) {
+            int[] table = new int[capacity];
+            Arrays.fill(table, EMPTY);
+            return table;
+        }
+    }
+}
@@ -0,0 +1,577 @@
+package com.llm.eval.service.impl;
+
+import com.llm.eval.dto.RawAnswerImportDTO;
+import com.llm.eval.dto.RawQuestionImportDTO;
+import com.llm.eval.dto.StandardQAImportDTO;
+import com.llm.eval.event.QuestionContentChangedEvent;
+import com.llm.eval.event.StatisticsChangedEvent;
+import com.llm.eval.util.ContentFingerprint;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 问答数据批量写入器
+ * 每次写入一个数据块：源ID通过IN查询批量解析，插入/更新走JDBC批处理，整块在一个事务内提交；
+ * 原始问题和原始回答按来源ID用多行 INSERT ... ON DUPLICATE KEY UPDATE 写入，每块只需几条语句；
+ * 整块失败时回滚到保存点后逐条重试以定位出错记录，调用方的提交前回调与数据块在同一事务中执行
+ */
+@Component
+@Slf4j
+public class QAImportWriter {
+
+    private static final String SELECT_RAW_QUESTION_IDS_SQL =
+            "SELECT question_id, source_question_id FROM raw_questions " +
+            "WHERE deleted_at IS NULL AND source_question_id IN (:ids)";
+
+    private static final String SELECT_RAW_ANSWER_IDS_SQL =
+            "SELECT answer_id, source_answer_id FROM raw_answers " +
+            "WHERE deleted_at IS NULL AND source_answer_id IN (:ids)";
+
+    private static final String INSERT_RAW_QUESTION_SQL =
+            "INSERT INTO raw_questions (source_question_id, question_title, question_body, content_fingerprint, " +
+            "source, source_id, source_url, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, NOW(), NOW())";
+
+    // 多行 upsert：唯一键为未删除记录的来源ID（live_source_question_id / live_source_answer_id）
+    private static final String UPSERT_RAW_QUESTIONS_HEAD =
+            "INSERT INTO raw_questions (source_question_id, question_title, question_body, content_fingerprint, " +
+            "source, source_id, source_url, created_at, updated_at) VALUES ";
+
+    private static final String RAW_QUESTION_ROW = "(?, ?, ?, ?, ?, ?, ?, NOW(), NOW())";
+
+    private static final String UPSERT_RAW_QUESTIONS_TAIL =
+            " ON DUPLICATE KEY UPDATE question_title = VALUES(question_title), question_body = VALUES(question_body), " +
+            "content_fingerprint = VALUES(content_fingerprint), source = VALUES(source), source_id = VALUES(source_id), source_url = VALUES(source_url), updated_at = NOW()";
+
+    private static final String INSERT_RAW_ANSWERS_HEAD =
+            "INSERT INTO raw_answers (source_answer_id, question_id, answer_body, author_info, upvotes, " +
+            "is_accepted, created_at, updated_at) VALUES ";
+
+    private static final String RAW_ANSWER_ROW = "(?, ?, ?, ?, ?, ?, NOW(), NOW())";
+
+    // 已存在的回答不改变所属问题
+    private static final String UPSERT_RAW_ANSWERS_TAIL =
+            " ON DUPLICATE KEY UPDATE answer_body = VALUES(answer_body), author_info = VALUES(author_info), " +
+            "upvotes = VALUES(upvotes), is_accepted = VALUES(is_accepted), updated_at = NOW()";
+
+    // 单条多行语句的行数和参数文本长度上限，避免超过 max_allowed_packet
+    private static final int MAX_STATEMENT_ROWS = 1000;
+    private static final long MAX_STATEMENT_CHARS = 4L << 20;
+
+    private static final String SELECT_STANDARD_QUESTIONS_SQL =
+            "SELECT standard_question_id, content_fingerprint, source_question_id FROM standard_questions " +
+            "WHERE deleted_at IS NULL AND content_fingerprint IN (:fingerprints) ORDER BY standard_question_id";
+
+    private static final String INSERT_STANDARD_QUESTION_SQL =
+            "INSERT INTO standard_questions (question, content_fingerprint, question_type, difficulty, " +
+            "source_question_id, status, created_at, updated_at, version) " +
+            "VALUES (?, ?, 'subjective', 'medium', ?, 'approved', NOW(), NOW(), 1)";
+
+    private static final String TOUCH_STANDARD_QUESTION_SQL =
+            "UPDATE standard_questions SET updated_at = NOW() WHERE standard_question_id = ?";
+
+    private static final String INSERT_STANDARD_ANSWER_SQL =
+            "INSERT INTO standard_answers (standard_question_id, answer, source_answer_id, source_type, is_final, " +
+            "created_at, updated_at, version) VALUES (?, ?, ?, ?, TRUE, NOW(), NOW(), 1)";
+
+    private static final String INSERT_KEY_POINT_SQL =
+            "INSERT INTO answer_key_points (standard_answer_id, point_text, point_order, point_weight, point_type, " +
+            "created_at, updated_at, version) VALUES (?, ?, ?, 1.00, 'required', NOW(), NOW(), 1)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    // 在数据块事务内以保存点执行，失败时只回滚本次写入
+    private final TransactionTemplate savepointTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public QAImportWriter(JdbcTemplate jdbcTemplate,
+                          NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.savepointTemplate = new TransactionTemplate(transactionManager);
+        this.savepointTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * 写入一块原始问答数据
+     *
+     * @param records 原始问题（可带一个答案）
+     * @return 写入结果
+     */
+    public ChunkResult writeRawQAs(List<RawQuestionImportDTO> records) {
+        return writeRawQAs(records, null);
+    }
+
+    /**
+     * 写入一块原始问答数据，提交前在同一事务中执行回调
+     *
+     * @param records 原始问题（可带一个答案）
+     * @param beforeCommit 提交前回调（可为null），抛出异常时整块回滚
+     * @return 写入结果
+     */
+    public ChunkResult writeRawQAs(List<RawQuestionImportDTO> records, Consumer<ChunkResult> beforeCommit) {
+        return writeChunk(records, this::validateRawQA, this::doWriteRawQAs, beforeCommit);
+    }
+
+    /**
+     * 写入一块标准问答数据
+     *
+     * @param records 标准问答对
+     * @return 写入结果
+     */
+    public ChunkResult writeStandardQAs(List<StandardQAImportDTO> records) {
+        return writeStandardQAs(records, null, null);
+    }
+
+    /**
+     * 写入一块标准问答数据，写入前检查与已有标准问题的近似重复
+     *
+     * @param records 标准问答对
+     * @param filter 近似重复检查，为 null 时不检查
+     * @return 写入结果，含被跳过和被标记的记录
+     */
+    public ChunkResult writeStandardQAs(List<StandardQAImportDTO> records, NearDuplicateFilter filter) {
+        return writeStandardQAs(records, filter, null);
+    }
+
+    /**
+     * 写入一块标准问答数据，提交前在同一事务中执行回调
+     *
+     * @param records 标准问答对
+     * @param filter 近似重复检查，为 null 时不检查
+     * @param beforeCommit 提交前回调（可为null），抛出异常时整块回滚
+     * @return 写入结果，含被跳过和被标记的记录
+     */
+    public ChunkResult writeStandardQAs(List<StandardQAImportDTO> records, NearDuplicateFilter filter,
+                                        Consumer<ChunkResult> beforeCommit) {
+        ChunkResult result = new ChunkResult();
+        List<StandardQAImportDTO> kept = new ArrayList<>(records.size());
+        List<Integer> keptIndexes = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            StandardQAImportDTO record = records.get(i);
+            String note = filter != null && record.getQuestion() != null ? filter.check(record.getQuestion()) : null;
+            if (note != null && filter.isSkip()) {
+                result.skipped.put(i, note);
+                continue;
+            }
+            if (note != null) {
+                result.flagged.put(i, note);
+            }
+            kept.add(record);
+            keptIndexes.add(i);
+        }
+        return writeChunk(kept, keptIndexes, result, this::validateStandardQA, this::doWriteStandardQAs, beforeCommit);
+    }
+
+    private <T> ChunkResult writeChunk(List<T> records,
+                                       Function<T, String> validator,
+                                       Consumer<List<T>> writer,
+                                       Consumer<ChunkResult> beforeCommit) {
+        List<Integer> indexes = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            indexes.add(i);
+        }
+        return writeChunk(records, indexes, new ChunkResult(), validator, writer, beforeCommit);
+    }
+
+    /**
+     * @param indexes records 中每条记录在数据块内的下标，结果中的错误按该下标记录
+     */
+    private <T> ChunkResult writeChunk(List<T> records,
+                                       List<Integer> indexes,
+                                       ChunkResult result,
+                                       Function<T, String> validator,
+                                       Consumer<List<T>> writer,
+                                       Consumer<ChunkResult> beforeCommit) {
+        List<T> valid = new ArrayList<>(records.size());
+        List<Integer> validIndexes = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            String error = validator.apply(records.get(i));
+            if (error != null) {
+                result.addError(indexes.get(i), error);
+            } else {
+                valid.add(records.get(i));
+                validIndexes.add(indexes.get(i));
+            }
+        }
+        if (valid.isEmpty() && beforeCommit == null) {
+            return result;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!valid.isEmpty()) {
+                writeValid(valid, validIndexes, writer, result);
+            }
+            if (beforeCommit != null) {
+                beforeCommit.accept(result);
+            }
+        });
+        if (result.imported > 0) {
+            // 一块中新增与更新混合，无法逐项给出增量，交给统计快照重新统计
+            eventPublisher.publishEvent(StatisticsChangedEvent.recount());
+        }
+        return result;
+    }
+
+    /**
+     * 在数据块事务内写入通过校验的记录：整块写入失败时回滚到保存点，再逐条以保存点重试
+     */
+    private <T> void writeValid(List<T> valid, List<Integer> validIndexes, Consumer<List<T>> writer,
+                                ChunkResult result) {
+        try {
+            savepointTemplate.executeWithoutResult(status -> writer.accept(valid));
+            result.imported += valid.size();
+        } catch (Exception e) {
+            if (valid.size() == 1) {
+                result.addError(validIndexes.get(0), rootMessage(e));
+                return;
+            }
+            // 整块失败时逐条重试，定位出错记录
+            log.warn("批量写入{}条记录失败，改为逐条写入: {}", valid.size(), rootMessage(e));
+            for (int i = 0; i < valid.size(); i++) {
+                T record = valid.get(i);
+                try {
+                    savepointTemplate.executeWithoutResult(status -> writer.accept(List.of(record)));
+                    result.imported++;
+                } catch (Exception ex) {
+                    result.addError(validIndexes.get(i), rootMessage(ex));
+                }
+            }
+        }
+    }
+
+    private String validateRawQA(RawQuestionImportDTO record) {
+        if (record.getQuestionBody() == null || record.getQuestionBody().isBlank()) {
+            return "question_body不能为空";
+        }
+        RawAnswerImportDTO answer = record.getAnswer();
+        if (answer != null && answer.getSourceAnswerId() != null
+                && (answer.getAnswerBody() == null || answer.getAnswerBody().isBlank())) {
+            return "answer_body不能为空";
+        }
+        return null;
+    }
+
+    private String validateStandardQA(StandardQAImportDTO record) {
+        if (record.getQuestion() == null || record.getQuestion().isBlank()) {
+            return "question不能为空";
+        }
+        if (record.getAnswer() == null || record.getAnswer().isBlank()) {
+            return "answer不能为空";
+        }
+        return null;
+    }
+
+    private void doWriteRawQAs(List<RawQuestionImportDTO> records) {
+        // 1. 有来源ID的问题多行 upsert；同一块内重复的来源ID以最后一条为准
+        Map<Integer, RawQuestionImportDTO> bySourceId = new LinkedHashMap<>();
+        List<RawQuestionImportDTO> withoutSourceId = new ArrayList<>();
+        for (RawQuestionImportDTO record : records) {
+            if (record.getSourceQuestionId() != null) {
+                bySourceId.put(record.getSourceQuestionId(), record);
+            } else {
+                withoutSourceId.add(record);
+            }
+        }
+        List<Object[]> questionRows = new ArrayList<>(bySourceId.size());
+        for (RawQuestionImportDTO q : bySourceId.values()) {
+            questionRows.add(new Object[]{q.getSourceQuestionId(), q.getQuestionTitle(), q.getQuestionBody(),
+                    ContentFingerprint.of(q.getQuestionBody()), q.getSource(), q.getSourceId(), q.getSourceUrl()});
+        }
+        multiRowUpdate(UPSERT_RAW_QUESTIONS_HEAD, RAW_QUESTION_ROW, UPSERT_RAW_QUESTIONS_TAIL, questionRows);
+
+        // 2. 没有来源ID的问题总是新建，需要取回主键关联答案
+        Map<RawQuestionImportDTO, Integer> insertedIds = new IdentityHashMap<>();
+        if (!withoutSourceId.isEmpty()) {
+            List<Integer> keys = batchInsertReturningKeys(INSERT_RAW_QUESTION_SQL, withoutSourceId, (ps, q) -> {
+                setNullableInt(ps, 1, q.getSourceQuestionId());
+                ps.setString(2, q.getQuestionTitle());
+                ps.setString(3, q.getQuestionBody());
+                ps.setString(4, ContentFingerprint.of(q.getQuestionBody()));
+                ps.setString(5, q.getSource());
+                setNullableInt(ps, 6, q.getSourceId());
+                ps.setString(7, q.getSourceUrl());
+            });
+            for (int i = 0; i < withoutSourceId.size(); i++) {
+                insertedIds.put(withoutSourceId.get(i), keys.get(i));
+            }
+        }
+
+        // 3. upsert 后按来源ID一次查询本地主键，用于关联答案和更新相似问题索引
+        Map<Integer, Integer> questionIds = findIdsBySourceIds(SELECT_RAW_QUESTION_IDS_SQL,
+                "question_id", "source_question_id", bySourceId.keySet());
+        Map<Integer, String> contents = new HashMap<>();
+        bySourceId.forEach((sourceId, q) -> {
+            Integer questionId = questionIds.get(sourceId);
+            if (questionId != null) {
+                contents.put(questionId, q.getQuestionBody());
+            }
+        });
+        insertedIds.forEach((q, questionId) -> contents.put(questionId, q.getQuestionBody()));
+        eventPublisher.publishEvent(QuestionContentChangedEvent.saved(
+                QuestionContentChangedEvent.Corpus.RAW_QUESTION, contents));
+
+        // 4. 有来源ID的答案多行 upsert，其余多行插入
+        Map<Integer, Object[]> answersBySourceId = new LinkedHashMap<>();
+        List<Object[]> answersWithoutSourceId = new ArrayList<>();
+        for (RawQuestionImportDTO record : records) {
+            RawAnswerImportDTO answer = record.getAnswer();
+            if (answer == null || answer.getAnswerBody() == null) {
+                continue;
+            }
+            Integer questionId = record.getSourceQuestionId() != null
+                    ? questionIds.get(record.getSourceQuestionId())
+                    : insertedIds.get(record);
+            Object[] row = new Object[]{answer.getSourceAnswerId(), questionId, answer.getAnswerBody(),
+                    answer.getAuthorInfo(),
+                    answer.getUpvotes() != null ? answer.getUpvotes() : 0,
+                    answer.getIsAccepted() != null ? answer.getIsAccepted() : Boolean.FALSE};
+            if (answer.getSourceAnswerId() != null) {
+                answersBySourceId.put(answer.getSourceAnswerId(), row);
+            } else {
+                answersWithoutSourceId.add(row);
+            }
+        }
+        multiRowUpdate(INSERT_RAW_ANSWERS_HEAD, RAW_ANSWER_ROW, UPSERT_RAW_ANSWERS_TAIL,
+                new ArrayList<>(answersBySourceId.values()));
+        multiRowUpdate(INSERT_RAW_ANSWERS_HEAD, RAW_ANSWER_ROW, "", answersWithoutSourceId);
+    }
+
+    /**
+     * 把多行数据拼成 head + (row), (row)... + tail 的多行语句执行，按行数和参数文本长度拆分为多条语句
+     */
+    private void multiRowUpdate(String head, String rowPlaceholders, String tail, List<Object[]> rows) {
+        int from = 0;
+        while (from < rows.size()) {
+            int to = from;
+            long chars = 0;
+            while (to < rows.size() && to - from < MAX_STATEMENT_ROWS
+                    && (to == from || chars + estimateChars(rows.get(to)) <= MAX_STATEMENT_CHARS)) {
+                chars += estimateChars(rows.get(to));
+                to++;
+            }
+            StringBuilder sql = new StringBuilder(head.length() + tail.length() + (to - from) * (rowPlaceholders.length() + 2));
+            sql.append(head);
+            List<Object> args = new ArrayList<>((to - from) * rows.get(from).length);
+            for (int i = from; i < to; i++) {
+                if (i > from) {
+                    sql.append(", ");
+                }
+                sql.append(rowPlaceholders);
+                Collections.addAll(args, rows.get(i));
+            }
+            sql.append(tail);
+            jdbcTemplate.update(sql.toString(), args.toArray());
+            from = to;
+        }
+    }
+
+    private static long estimateChars(Object[] row) {
+        long chars = 0;
+        for (Object value : row) {
+            chars += value instanceof String ? ((String) value).length() : 8;
+        }
+        return chars;
+    }
+
+    private void doWriteStandardQAs(List<StandardQAImportDTO> records) {
+        // 1. 批量解析原始问题和原始答案
+        Set<Integer> sourceQuestionIds = new HashSet<>();
+        Set<Integer> sourceAnswerIds = new HashSet<>();
+        Map<StandardQAImportDTO, String> fingerprints = new IdentityHashMap<>();
+        for (StandardQAImportDTO record : records) {
+            if (record.getSourceQuestionId() != null) {
+                sourceQuestionIds.add(record.getSourceQuestionId());
+            }
+            if (record.getSourceAnswerId() != null) {
+                sourceAnswerIds.add(record.getSourceAnswerId());
+            }
+            fingerprints.put(record, ContentFingerprint.of(record.getQuestion()));
+        }
+        Map<Integer, Integer> rawQuestionIds = findIdsBySourceIds(SELECT_RAW_QUESTION_IDS_SQL,
+                "question_id", "source_question_id", sourceQuestionIds);
+        Map<Integer, Integer> rawAnswerIds = findIdsBySourceIds(SELECT_RAW_ANSWER_IDS_SQL,
+                "answer_id", "source_answer_id", sourceAnswerIds);
+
+        // 2. 按内容指纹查找已存在的标准问题（指纹与关联原始问题均相同视为同一问题）
+        Map<String, Integer> standardQuestionIds = new HashMap<>();
+        namedParameterJdbcTemplate.query(SELECT_STANDARD_QUESTIONS_SQL,
+                new MapSqlParameterSource("fingerprints", new HashSet<>(fingerprints.values())),
+                rs -> {
+                    int rawId = rs.getInt("source_question_id");
+                    Integer sourceQuestionId = rs.wasNull() ? null : rawId;
+                    standardQuestionIds.putIfAbsent(questionKey(rs.getString("content_fingerprint"), sourceQuestionId),
+                            rs.getInt("standard_question_id"));
+                });
+
+        Set<Integer> touched = new LinkedHashSet<>();
+        Map<String, StandardQAImportDTO> newQuestions = new LinkedHashMap<>();
+        for (StandardQAImportDTO record : records) {
+            String key = questionKey(fingerprints.get(record), rawQuestionIds.get(record.getSourceQuestionId()));
+            Integer existingId = standardQuestionIds.get(key);
+            if (existingId != null) {
+                touched.add(existingId);
+            } else {
+                newQuestions.putIfAbsent(key, record);
+            }
+        }
+        if (!touched.isEmpty()) {
+            jdbcTemplate.batchUpdate(TOUCH_STANDARD_QUESTION_SQL,
+                    touched.stream().map(id -> new Object[]{id}).toList());
+        }
+
+        // 3. 插入新标准问题
+        if (!newQuestions.isEmpty()) {
+            List<String> keys = new ArrayList<>(newQuestions.keySet());
+            List<StandardQAImportDTO> rows = new ArrayList<>(newQuestions.values());
+            List<Integer> ids = batchInsertReturningKeys(INSERT_STANDARD_QUESTION_SQL, rows, (ps, q) -> {
+                ps.setString(1, q.getQuestion());
+                ps.setString(2, fingerprints.get(q));
+                setNullableInt(ps, 3, rawQuestionIds.get(q.getSourceQuestionId()));
+            });
+            Map<Integer, String> contents = new HashMap<>();
+            for (int i = 0; i < keys.size(); i++) {
+                standardQuestionIds.put(keys.get(i), ids.get(i));
+                contents.put(ids.get(i), rows.get(i).getQuestion());
+            }
+            eventPublisher.publishEvent(QuestionContentChangedEvent.saved(
+                    QuestionContentChangedEvent.Corpus.STANDARD_QUESTION, contents));
+        }
+
+        // 4. 每条记录创建一个最终标准答案
+        List<Integer> answerIds = batchInsertReturningKeys(INSERT_STANDARD_ANSWER_SQL, records, (ps, qa) -> {
+            ps.setInt(1, standardQuestionIds.get(
+                    questionKey(fingerprints.get(qa), rawQuestionIds.get(qa.getSourceQuestionId()))));
+            ps.setString(2, qa.getAnswer());
+            Integer rawAnswerId = rawAnswerIds.get(qa.getSourceAnswerId());
+            setNullableInt(ps, 3, rawAnswerId);
+            ps.setString(4, rawAnswerId != null ? "raw" : "manual");
+        });
+
+        // 5. 关键点
+        List<Object[]> keyPoints = new ArrayList<>();
+        for (int i = 0; i < records.size(); i++) {
+            List<String> points = records.get(i).getKeyPoints();
+            if (points == null) {
+                continue;
+            }
+            int order = 1;
+            for (String point : points) {
+                if (point != null && !point.isBlank()) {
+                    keyPoints.add(new Object[]{answerIds.get(i), point, order++});
+                }
+            }
+        }
+        if (!keyPoints.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_KEY_POINT_SQL, keyPoints);
+        }
+    }
+
+    private String questionKey(String fingerprint, Integer rawQuestionId) {
+        return fingerprint + ':' + (rawQuestionId != null ? rawQuestionId : "");
+    }
+
+    /**
+     * 按源ID批量查询本地主键
+     */
+    private Map<Integer, Integer> findIdsBySourceIds(String sql, String idColumn, String sourceIdColumn,
+                                                    Collection<Integer> sourceIds) {
+        Map<Integer, Integer> ids = new HashMap<>();
+        if (sourceIds.isEmpty()) {
+            return ids;
+        }
+        namedParameterJdbcTemplate.query(sql, new MapSqlParameterSource("ids", sourceIds),
+                rs -> {
+                    ids.putIfAbsent(rs.getInt(sourceIdColumn), rs.getInt(idColumn));
+                });
+        return ids;
+    }
+
+    /**
+     * JDBC批量插入并按顺序返回自增主键
+     */
+    private <T> List<Integer> batchInsertReturningKeys(String sql, List<T> rows,
+                                                      ParameterizedPreparedStatementSetter<T> setter) {
+        List<Integer> keys = jdbcTemplate.execute((ConnectionCallback<List<Integer>>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (T row : rows) {
+                    setter.setValues(ps, row);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                List<Integer> generated = new ArrayList<>(rows.size());
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    while (rs.next()) {
+                        generated.add(rs.getInt(1));
+                    }
+                }
+                return generated;
+            }
+        });
+        if (keys == null || keys.size() != rows.size()) {
+            throw new IllegalStateException("批量插入返回的主键数量与记录数不一致");
+        }
+        return keys;
+    }
+
+    private static void setNullableInt(PreparedStatement ps, int index, Integer value) throws java.sql.SQLException {
+        if (value != null) {
+            ps.setInt(index, value);
+        } else {
+            ps.setNull(index, Types.INTEGER);
+        }
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+    }
+
+    /**
+     * 单个数据块的写入结果
+     */
+    @Getter
+    public static class ChunkResult {
+        private int imported;
+        // 块内记录下标 -> 错误信息
+        private final Map<Integer, String> errors = new LinkedHashMap<>();
+        // 块内记录下标 -> 近似重复说明
+        private final Map<Integer, String> skipped = new LinkedHashMap<>();
+        private final Map<Integer, String> flagged = new LinkedHashMap<>();
+
+        void addError(int index, String message) {
+            errors.put(index, message);
+        }
+
+        public int getFailed() {
+            return errors.size();
+        }
+    }
+}
@@ -0,0 +1,527 @@
+package com.llm.eval.service.impl;
+
+import com.llm.eval.event.QuestionContentChangedEvent;
+import com.llm.eval.event.QuestionContentChangedEvent.Corpus;
+import com.llm.eval.util.ContentFingerprint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 相似问题索引（MinHash + LSH）
+ *
+ * 问题文本按 ContentFingerprint 的规则归一化后切成字符3-gram，计算64个 MinHash 值，每个值只保留低16位，
+ * 两个问题签名中相同位置值相等的比例即为字符3-gram集合 Jaccard 相似度的估计。
+ * 签名分为16个band、每个band 4行，任一band完全相同的问题成为候选，再按完整签名估计相似度；
+ * 相似度0.8以上的问题几乎必然成为候选，0.6时约为89%，0.5时约为64%。
+ *
+ * 签名和桶链表按问题ID存放在连续数组中（每个问题约210字节），原始问题和标准问题各一份，常驻内存。
+ * 服务启动后按主键分页读取未删除的问题并在线程池中并行计算签名；
+ * 之后问题新增、修改、删除时由 QuestionContentChangedEvent 在事务提交后增量更新。
+ */
+@Component
+@Slf4j
+public class QuestionSimilarityIndex {
+
+    private static final int BANDS = 16;
+    private static final int ROWS = 4;
+    private static final int HASHES = BANDS * ROWS;
+    private static final int SHINGLE = 3;
+
+    /** 单次查询最多检查的候选数，防止高频模板问题所在的桶拖慢查询 */
+    private static final int MAX_CANDIDATES = 5000;
+
+    private static final long[] MULTIPLIERS = new long[HASHES];
+    private static final long[] OFFSETS = new long[HASHES];
+
+    static {
+        // 固定种子，同一文本在不同节点、不同启动间得到相同签名
+        SplittableRandom random = new SplittableRandom(0x5EEDL);
+        for (int i = 0; i < HASHES; i++) {
+            MULTIPLIERS[i] = random.nextLong() | 1L;
+            OFFSETS[i] = random.nextLong();
+        }
+    }
+
+    private static final String SELECT_RAW_QUESTIONS_SQL =
+            "SELECT question_id, question_body FROM raw_questions " +
+            "WHERE deleted_at IS NULL AND question_id > ? ORDER BY question_id LIMIT ?";
+
+    private static final String SELECT_STANDARD_QUESTIONS_SQL =
+            "SELECT standard_question_id, question FROM standard_questions " +
+            "WHERE deleted_at IS NULL AND standard_question_id > ? ORDER BY standard_question_id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ThreadPoolTaskExecutor similarityExecutor;
+    private final Map<Corpus, SignatureStore> stores = new EnumMap<>(Corpus.class);
+
+    @Value("${similarity.enabled:true}")
+    private boolean enabled;
+
+    @Value("${similarity.build-batch-size:5000}")
+    private int buildBatchSize;
+
+    @Value("${similarity.default-threshold:0.9}")
+    private double defaultThreshold;
+
+    @Autowired
+    public QuestionSimilarityIndex(JdbcTemplate jdbcTemplate,
+                                   @Qualifier("similarityExecutor") ThreadPoolTaskExecutor similarityExecutor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.similarityExecutor = similarityExecutor;
+        for (Corpus corpus : Corpus.values()) {
+            stores.put(corpus, new SignatureStore());
+        }
+    }
+
+    /**
+     * 相似问题匹配结果
+     */
+    public static final class Match {
+        private final int questionId;
+        private final double similarity;
+        private final boolean exact;
+
+        Match(int questionId, double similarity, boolean exact) {
+            this.questionId = questionId;
+            this.similarity = similarity;
+            this.exact = exact;
+        }
+
+        public int getQuestionId() {
+            return questionId;
+        }
+
+        /** 估计的 Jaccard 相似度，精度约为1/64 */
+        public double getSimilarity() {
+            return similarity;
+        }
+
+        /** 归一化后文本完全相同（与内容指纹判重的口径一致） */
+        public boolean isExact() {
+            return exact;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public double getDefaultThreshold() {
+        return defaultThreshold;
+    }
+
+    /**
+     * 启动构建是否已完成；构建期间查询只能命中已计算的部分
+     */
+    public boolean isReady(Corpus corpus) {
+        return stores.get(corpus).ready;
+    }
+
+    public int size(Corpus corpus) {
+        return stores.get(corpus).size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startBuild() {
+        if (!enabled) {
+            return;
+        }
+        similarityExecutor.execute(() -> build(Corpus.STANDARD_QUESTION, SELECT_STANDARD_QUESTIONS_SQL,
+                "standard_question_id", "question"));
+        similarityExecutor.execute(() -> build(Corpus.RAW_QUESTION, SELECT_RAW_QUESTIONS_SQL,
+                "question_id", "question_body"));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQuestionContentChanged(QuestionContentChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        SignatureStore store = stores.get(event.getCorpus());
+        List<Integer> ids = new ArrayList<>(event.getContents().size());
+        List<Signature> signatures = new ArrayList<>(event.getContents().size());
+        event.getContents().forEach((id, text) -> {
+            if (id != null) {
+                ids.add(id);
+                signatures.add(text != null ? Signature.of(text) : null);
+            }
+        });
+        store.putAll(ids, signatures, true);
+    }
+
+    /**
+     * 查找与给定文本相似的问题
+     *
+     * @param corpus 在原始问题还是标准问题中查找
+     * @param text 问题文本
+     * @param threshold 相似度阈值（0-1）
+     * @param limit 最多返回条数
+     * @return 按相似度从高到低排列的匹配结果
+     */
+    public List<Match> findSimilar(Corpus corpus, String text, double threshold, int limit) {
+        Signature signature = text != null ? Signature.of(text) : null;
+        if (signature == null) {
+            return List.of();
+        }
+        return stores.get(corpus).query(signature, -1, threshold, limit);
+    }
+
+    /**
+     * 查找与已有问题相似的其他问题；问题尚未进入索引时按给定文本计算签名
+     */
+    public List<Match> findSimilar(Corpus corpus, int questionId, String text, double threshold, int limit) {
+        SignatureStore store = stores.get(corpus);
+        Signature signature = store.get(questionId);
+        if (signature == null && text != null) {
+            signature = Signature.of(text);
+        }
+        if (signature == null) {
+            return List.of();
+        }
+        return store.query(signature, questionId, threshold, limit);
+    }
+
+    private void build(Corpus corpus, String selectSql, String idColumn, String textColumn) {
+        SignatureStore store = stores.get(corpus);
+        long startTime = System.currentTimeMillis();
+        // 每页一个计算任务，全部完成（计数归零）时标记就绪；不等待任务，避免占满线程池时互相等待
+        AtomicInteger outstanding = new AtomicInteger(1);
+        AtomicBoolean failed = new AtomicBoolean();
+        Runnable done = () -> {
+            if (outstanding.decrementAndGet() == 0 && !failed.get()) {
+                store.ready = true;
+                log.info("相似问题索引构建完成: {} {}条, 耗时{}ms",
+                        corpus, store.size(), System.currentTimeMillis() - startTime);
+            }
+        };
+        try {
+            int lastId = 0;
+            while (true) {
+                List<Integer> ids = new ArrayList<>(buildBatchSize);
+                List<String> texts = new ArrayList<>(buildBatchSize);
+                jdbcTemplate.query(selectSql, (RowCallbackHandler) rs -> {
+                    ids.add(rs.getInt(idColumn));
+                    texts.add(rs.getString(textColumn));
+                }, lastId, buildBatchSize);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                lastId = ids.get(ids.size() - 1);
+                outstanding.incrementAndGet();
+                similarityExecutor.execute(() -> {
+                    try {
+                        List<Signature> signatures = new ArrayList<>(texts.size());
+                        for (String text : texts) {
+                            signatures.add(text != null ? Signature.of(text) : null);
+                        }
+                        // 构建期间已由事件写入的问题以事件为准
+                        store.putAll(ids, signatures, false);
+                    } finally {
+                        done.run();
+                    }
+                });
+                if (ids.size() < buildBatchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            failed.set(true);
+            log.warn("相似问题索引构建失败，仅包含之后增量写入的问题: {} {}", corpus, e.getMessage());
+        } finally {
+            done.run();
+        }
+    }
+
+    /**
+     * 一条问题文本的 MinHash 签名
+     */
+    private static final class Signature {
+        final short[] values;
+        final int exactHash;
+
+        private Signature(short[] values, int exactHash) {
+            this.values = values;
+            this.exactHash = exactHash;
+        }
+
+        /**
+         * @return 签名；归一化后为空的文本没有可比较的内容，返回 null
+         */
+        static Signature of(String text) {
+            String normalized = ContentFingerprint.normalize(text);
+            int length = normalized.length();
+            if (length == 0) {
+                return null;
+            }
+            long[] mins = new long[HASHES];
+            Arrays.fill(mins, Long.MAX_VALUE);
+            int shingles = Math.max(1, length - SHINGLE + 1);
+            for (int start = 0; start < shingles; start++) {
+                long h = 0xCBF29CE484222325L;
+                for (int i = start, end = Math.min(length, start + SHINGLE); i < end; i++) {
+                    h = (h ^ normalized.charAt(i)) * 0x100000001B3L;
+                }
+                h = mix(h);
+                for (int i = 0; i < HASHES; i++) {
+                    long value = (MULTIPLIERS[i] * h + OFFSETS[i]) >>> 32;
+                    if (value < mins[i]) {
+                        mins[i] = value;
+                    }
+                }
+            }
+            short[] values = new short[HASHES];
+            for (int i = 0; i < HASHES; i++) {
+                values[i] = (short) mins[i];
+            }
+            return new Signature(values, normalized.hashCode());
+        }
+
+        private static long mix(long h) {
+            h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+            h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+            return h ^ (h >>> 33);
+        }
+    }
+
+    /**
+     * 一类问题的签名存储
+     *
+     * 问题ID经 slots 映射到紧凑的槽位，数组按槽位而非ID分配，内存只随存活问题数增长：
+     * signatures[slot * 64 ..] 为签名，heads[band][桶] 和 next[band][slot] 以“槽位+1”串成每个band的桶链表，
+     * 0 表示链表结束。移除时把最后一个槽位搬到空出的位置，保持槽位连续。
+     * 容量按2的幂扩展，扩展时重建桶链表。读写锁保护全部数组。
+     */
+    private static final class SignatureStore {
+        // 签名数组长度不能超过 int 上限
+        private static final int MAX_CAPACITY = Integer.highestOneBit((Integer.MAX_VALUE - 8) / HASHES);
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<Integer, Integer> slots = new HashMap<>();
+        private int[] ids = new int[0];
+        private short[] signatures = new short[0];
+        private int[] exactHashes = new int[0];
+        private final int[][] heads = new int[BANDS][0];
+        private final int[][] next = new int[BANDS][0];
+        private int count;
+        private int capacity;
+        private int bucketMask;
+        volatile boolean ready;
+
+        int size() {
+            lock.readLock().lock();
+            try {
+                return count;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        Signature get(int id) {
+            lock.readLock().lock();
+            try {
+                Integer slot = slots.get(id);
+                if (slot == null) {
+                    return null;
+                }
+                int offset = slot * HASHES;
+                return new Signature(Arrays.copyOfRange(signatures, offset, offset + HASHES), exactHashes[slot]);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * 批量写入签名，签名为 null 表示移除
+         *
+         * @param overwrite 为 false 时已存在的问题保持不变
+         */
+        void putAll(List<Integer> questionIds, List<Signature> values, boolean overwrite) {
+            lock.writeLock().lock();
+            try {
+                for (int i = 0; i < questionIds.size(); i++) {
+                    int id = questionIds.get(i);
+                    Signature signature = values.get(i);
+                    Integer existing = slots.get(id);
+                    if (existing != null && !overwrite) {
+                        continue;
+                    }
+                    if (signature == null) {
+                        if (existing != null) {
+                            remove(existing);
+                        }
+                        continue;
+                    }
+                    int slot;
+                    if (existing != null) {
+                        slot = existing;
+                        unlink(slot);
+                    } else {
+                        ensureCapacity(count + 1);
+                        slot = count++;
+                        ids[slot] = id;
+                        slots.put(id, slot);
+                    }
+                    System.arraycopy(signature.values, 0, signatures, slot * HASHES, HASHES);
+                    exactHashes[slot] = signature.exactHash;
+                    link(slot);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        List<Match> query(Signature signature, int excludeId, double threshold, int limit) {
+            if (limit <= 0) {
+                return List.of();
+            }
+            int minMatches = (int) Math.ceil(threshold * HASHES);
+            List<Match> matches = new ArrayList<>();
+            lock.readLock().lock();
+            try {
+                if (count == 0) {
+                    return List.of();
+                }
+                Set<Integer> seen = new HashSet<>();
+                int visited = 0;
+                for (int band = 0; band < BANDS && visited < MAX_CANDIDATES; band++) {
+                    int bucket = bucket(signature.values, 0, band) & bucketMask;
+                    for (int entry = heads[band][bucket]; entry != 0 && visited < MAX_CANDIDATES;
+                         entry = next[band][entry - 1]) {
+                        int slot = entry - 1;
+                        int id = ids[slot];
+                        visited++;
+                        // 不同band取值可能落在同一个桶，只有该band完全相同才算候选
+                        if (id == excludeId || !bandEquals(signature.values, slot, band) || !seen.add(slot)) {
+                            continue;
+                        }
+                        int same = 0;
+                        int offset = slot * HASHES;
+                        for (int i = 0; i < HASHES; i++) {
+                            if (signatures[offset + i] == signature.values[i]) {
+                                same++;
+                            }
+                        }
+                        if (same >= minMatches) {
+                            matches.add(new Match(id, (double) same / HASHES,
+                                    same == HASHES && exactHashes[slot] == signature.exactHash));
+                        }
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            matches.sort(Comparator.comparingDouble(Match::getSimilarity).reversed()
+                    .thenComparingInt(Match::getQuestionId));
+            return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+        }
+
+        /**
+         * 移除一个槽位，把最后一个槽位搬过来填补空位
+         */
+        private void remove(int slot) {
+            unlink(slot);
+            slots.remove(ids[slot]);
+            int last = --count;
+            if (slot != last) {
+                unlink(last);
+                System.arraycopy(signatures, last * HASHES, signatures, slot * HASHES, HASHES);
+                exactHashes[slot] = exactHashes[last];
+                ids[slot] = ids[last];
+                slots.put(ids[slot], slot);
+                link(slot);
+            }
+        }
+
+        private boolean bandEquals(short[] values, int slot, int band) {
+            int offset = slot * HASHES + band * ROWS;
+            for (int row = 0; row < ROWS; row++) {
+                if (signatures[offset + row] != values[band * ROWS + row]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void ensureCapacity(int required) {
+            if (required <= capacity) {
+                return;
+            }
+            if (required > MAX_CAPACITY) {
+                throw new IllegalStateException("相似问题索引已达容量上限: " + MAX_CAPACITY);
+            }
+            int newCapacity = Math.max(1024, Integer.highestOneBit(required - 1) << 1);
+            ids = Arrays.copyOf(ids, newCapacity);
+            signatures = Arrays.copyOf(signatures, Math.multiplyExact(newCapacity, HASHES));
+            exactHashes = Arrays.copyOf(exactHashes, newCapacity);
+            // 桶数取容量的1/4，平均链长4，换取更小的常驻内存
+            int buckets = newCapacity >> 2;
+            for (int band = 0; band < BANDS; band++) {
+                heads[band] = new int[buckets];
+                next[band] = new int[newCapacity];
+            }
+            capacity = newCapacity;
+            bucketMask = buckets - 1;
+            for (int slot = 0; slot < count; slot++) {
+                link(slot);
+            }
+        }
+
+        private void link(int slot) {
+            for (int band = 0; band < BANDS; band++) {
+                int bucket = bucket(signatures, slot * HASHES, band) & bucketMask;
+                next[band][slot] = heads[band][bucket];
+                heads[band][bucket] = slot + 1;
+            }
+        }
+
+        private void unlink(int slot) {
+            for (int band = 0; band < BANDS; band++) {
+                int bucket = bucket(signatures, slot * HASHES, band) & bucketMask;
+                int previous = 0;
+                for (int entry = heads[band][bucket]; entry != 0; entry = next[band][entry - 1]) {
+                    if (entry - 1 == slot) {
+                        if (previous == 0) {
+                            heads[band][bucket] = next[band][slot];
+                        } else {
+                            next[band][previous - 1] = next[band][slot];
+                        }
+                        break;
+                    }
+                    previous = entry;
+                }
+                next[band][slot] = 0;
+            }
+        }
+
+        private static int bucket(short[] values, int offset, int band) {
+            int h = band * 0x9E3779B9;
+            for (int row = 0; row < ROWS; row++) {
+                h = (h ^ (values[offset + band * ROWS + row] & 0xFFFF)) * 0x01000193;
+            }
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.llm.eval.service.impl;
 
+import com.llm.eval.event.StatisticsChangedEvent;
 import com.llm.eval.model.RawAnswer;
 import com.llm.eval.model.RawQuestion;
 import com.llm.eval.model.StandardAnswer;
@@ -11,6 +12,7 @@ import com.llm.eval.repository.StandardQuestionRepository;
 import com.llm.eval.service.RawAnswerService;
 import com.llm.eval.service.StandardAnswerService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -28,18 +30,21 @@ public class RawAnswerServiceImpl implements RawAnswerService {
     private final StandardQuestionRepository standardQuestionRepository;
     private final StandardAnswerRepository standardAnswerRepository;
     private final StandardAnswerService standardAnswerService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public RawAnswerServiceImpl(RawAnswerRepository rawAnswerRepository, 
                               RawQuestionRepository rawQuestionRepository,
                               StandardQuestionRepository standardQuestionRepository,
                               StandardAnswerRepository standardAnswerRepository,
-                              StandardAnswerService standardAnswerService) {
+                              StandardAnswerService standardAnswerService,
+                              ApplicationEventPublisher eventPublisher) {
         this.rawAnswerRepository = rawAnswerRepository;
         this.rawQuestionRepository = rawQuestionRepository;
         this.standardQuestionRepository = standardQuestionRepository;
         this.standardAnswerRepository = standardAnswerRepository;
         this.standardAnswerService = standardAnswerService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -76,7 +81,12 @@ public class RawAnswerServiceImpl implements RawAnswerService {
         // 设置问题关联
         rawAnswer.setQuestion(question);
         
-        return rawAnswerRepository.save(rawAnswer);
+        boolean isNew = rawAnswer.getAnswerId() == null;
+        RawAnswer saved = rawAnswerRepository.save(rawAnswer);
+        if (isNew) {
+            eventPublisher.publishEvent(StatisticsChangedEvent.of(StatisticsChangedEvent.Metric.RAW_ANSWER, 1));
+        }
+        return saved;
     }
 
     @Override
@@ -109,7 +119,11 @@ public class RawAnswerServiceImpl implements RawAnswerService {
 
     @Override
     public void deleteRawAnswer(Integer id) {
+        boolean exists = rawAnswerRepository.existsById(id);
         rawAnswerRepository.deleteById(id);
+        if (exists) {
+            eventPublisher.publishEvent(StatisticsChangedEvent.of(StatisticsChangedEvent.Metric.RAW_ANSWER, -1));
+        }
     }
 
     @Override
@@ -163,6 +177,9 @@ public class RawAnswerServiceImpl implements RawAnswerService {
             });
         }
         
+        // 转换可能同时改变标准答案数、最终答案数和无答案问题数，交给快照重新统计
+        eventPublisher.publishEvent(StatisticsChangedEvent.recount());
+        
         // 6. 构建并返回结果
         Map<String, Object> result = new HashMap<>();
         result.put("success", true);
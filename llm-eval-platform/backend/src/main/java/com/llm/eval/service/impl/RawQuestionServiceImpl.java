@@ -5,14 +5,20 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.jpa.domain.Specification;
 import com.llm.eval.dto.QueryParams;
+import com.llm.eval.event.QuestionContentChangedEvent;
+import com.llm.eval.event.StatisticsChangedEvent;
 import com.llm.eval.dto.RawQuestionConverter;
+import com.llm.eval.dto.SimilarQuestionDTO;
 import com.llm.eval.model.RawQuestion;
 import com.llm.eval.model.StandardQuestion;
 import com.llm.eval.model.QuestionCategory;
 import com.llm.eval.repository.RawQuestionRepository;
 import com.llm.eval.service.RawQuestionService;
+import com.llm.eval.service.SimilarQuestionService;
 import com.llm.eval.service.StandardQuestionService;
+import com.llm.eval.util.ContentFingerprint;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
@@ -38,6 +44,8 @@ public class RawQuestionServiceImpl implements RawQuestionService {
     
     private final RawQuestionRepository rawQuestionRepository;
     private final StandardQuestionService standardQuestionService;
+    private final SimilarQuestionService similarQuestionService;
+    private final ApplicationEventPublisher eventPublisher;
     
     // 简单的内存缓存
     private final Map<Integer, RawQuestion> questionCache = new ConcurrentHashMap<>();
@@ -51,9 +59,13 @@ public class RawQuestionServiceImpl implements RawQuestionService {
 
     @Autowired
     public RawQuestionServiceImpl(RawQuestionRepository rawQuestionRepository, 
-                                StandardQuestionService standardQuestionService) {
+                                StandardQuestionService standardQuestionService,
+                                SimilarQuestionService similarQuestionService,
+                                ApplicationEventPublisher eventPublisher) {
         this.rawQuestionRepository = rawQuestionRepository;
         this.standardQuestionService = standardQuestionService;
+        this.similarQuestionService = similarQuestionService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -140,7 +152,22 @@ public class RawQuestionServiceImpl implements RawQuestionService {
     public RawQuestion saveRawQuestion(RawQuestion rawQuestion) {
         try {
             logger.debug("保存原始问题: {}", rawQuestion);
-            return rawQuestionRepository.save(rawQuestion);
+            boolean isNew = rawQuestion.getQuestionId() == null;
+            if (isNew) {
+                // 与导入一致：不同来源允许收录相同内容，只拒绝同一来源下的重复
+                List<RawQuestion> duplicates = rawQuestionRepository.findByContentFingerprintAndSource(
+                        ContentFingerprint.of(rawQuestion.getQuestionBody()), rawQuestion.getSource());
+                if (!duplicates.isEmpty()) {
+                    throw new IllegalArgumentException("该来源下已存在内容相同的原始问题，ID: " + duplicates.get(0).getQuestionId());
+                }
+            }
+            RawQuestion saved = rawQuestionRepository.save(rawQuestion);
+            if (isNew) {
+                eventPublisher.publishEvent(StatisticsChangedEvent.of(StatisticsChangedEvent.Metric.RAW_QUESTION, 1));
+            }
+            eventPublisher.publishEvent(QuestionContentChangedEvent.saved(
+                    QuestionContentChangedEvent.Corpus.RAW_QUESTION, saved.getQuestionId(), saved.getQuestionBody()));
+            return saved;
         } catch (Exception e) {
             logger.error("保存原始问题失败", e);
             throw new RuntimeException("保存原始问题失败: " + e.getMessage(), e);
@@ -155,7 +182,10 @@ public class RawQuestionServiceImpl implements RawQuestionService {
         }
         try {
             logger.debug("更新原始问题: {}", rawQuestion);
-            return rawQuestionRepository.save(rawQuestion);
+            RawQuestion saved = rawQuestionRepository.save(rawQuestion);
+            eventPublisher.publishEvent(QuestionContentChangedEvent.saved(
+                    QuestionContentChangedEvent.Corpus.RAW_QUESTION, saved.getQuestionId(), saved.getQuestionBody()));
+            return saved;
         } catch (Exception e) {
             logger.error("更新原始问题失败", e);
             throw new RuntimeException("更新原始问题失败: " + e.getMessage(), e);
@@ -167,6 +197,10 @@ public class RawQuestionServiceImpl implements RawQuestionService {
         try {
             logger.debug("删除原始问题，ID: {}", id);
             rawQuestionRepository.deleteById(id);
+            // 问题删除后其回答是否仍计入由数据决定，交给快照重新统计
+            eventPublisher.publishEvent(StatisticsChangedEvent.recount());
+            eventPublisher.publishEvent(QuestionContentChangedEvent.deleted(
+                    QuestionContentChangedEvent.Corpus.RAW_QUESTION, id));
         } catch (Exception e) {
             logger.error("删除原始问题失败，ID: {}", id, e);
             throw new RuntimeException("删除原始问题失败: " + e.getMessage(), e);
@@ -255,8 +289,15 @@ public class RawQuestionServiceImpl implements RawQuestionService {
             // 设置默认状态
             standardQuestion.setStatus(StandardQuestion.QuestionStatus.draft);
             
-            // 保存标准问题
-            StandardQuestion savedQuestion = standardQuestionService.createStandardQuestion(standardQuestion);
+            // 该原始问题已转换出内容相同的标准问题时复用已有问题，不重复创建
+            StandardQuestion existingQuestion = standardQuestionService.findDuplicate(standardQuestion);
+            // 内容不同但高度相似的已有标准问题只提示，不阻止转换
+            List<SimilarQuestionDTO> similarQuestions = existingQuestion == null
+                    ? similarQuestionService.findNearDuplicateStandardQuestions(standardQuestion.getQuestion(), 5)
+                    : List.of();
+            StandardQuestion savedQuestion = existingQuestion != null
+                    ? existingQuestion
+                    : standardQuestionService.createStandardQuestion(standardQuestion);
             
             // 关联标签
             if (converter.getTagIds() != null && !converter.getTagIds().isEmpty()) {
@@ -269,6 +310,8 @@ public class RawQuestionServiceImpl implements RawQuestionService {
             Map<String, Object> result = new HashMap<>();
             result.put("standardQuestion", savedQuestion);
             result.put("success", true);
+            result.put("duplicate", existingQuestion != null);
+            result.put("similarQuestions", similarQuestions);
             
             logger.debug("转换标准问题成功，标准问题ID: {}", savedQuestion.getStandardQuestionId());
             return result;
@@ -0,0 +1,160 @@
+package com.llm.eval.service.impl;
+
+import com.llm.eval.dto.SimilarQuestionDTO;
+import com.llm.eval.event.QuestionContentChangedEvent.Corpus;
+import com.llm.eval.model.RawQuestion;
+import com.llm.eval.model.StandardQuestion;
+import com.llm.eval.repository.RawQuestionRepository;
+import com.llm.eval.repository.StandardQuestionRepository;
+import com.llm.eval.service.SimilarQuestionService;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 相似问题查询服务实现
+ * 候选由内存中的 QuestionSimilarityIndex 给出，问题内容再从数据库批量读取（已删除的问题在此过滤）
+ */
+@Service
+@Transactional(readOnly = true)
+public class SimilarQuestionServiceImpl implements SimilarQuestionService {
+
+    private static final int DEFAULT_LIMIT = 10;
+    private static final int MAX_LIMIT = 100;
+
+    private final QuestionSimilarityIndex similarityIndex;
+    private final RawQuestionRepository rawQuestionRepository;
+    private final StandardQuestionRepository standardQuestionRepository;
+
+    @Autowired
+    public SimilarQuestionServiceImpl(QuestionSimilarityIndex similarityIndex,
+                                      RawQuestionRepository rawQuestionRepository,
+                                      StandardQuestionRepository standardQuestionRepository) {
+        this.similarityIndex = similarityIndex;
+        this.rawQuestionRepository = rawQuestionRepository;
+        this.standardQuestionRepository = standardQuestionRepository;
+    }
+
+    @Override
+    public Map<String, Object> findSimilarByText(String type, String text, Double threshold, Integer limit) {
+        if (text == null || text.isBlank()) {
+            throw new IllegalArgumentException("问题文本不能为空");
+        }
+        Corpus corpus = parseCorpus(type);
+        List<QuestionSimilarityIndex.Match> matches = similarityIndex.findSimilar(
+                corpus, text, parseThreshold(threshold), parseLimit(limit));
+        return buildResult(corpus, matches);
+    }
+
+    @Override
+    public Map<String, Object> findSimilarToQuestion(String type, Integer questionId, Double threshold, Integer limit) {
+        Corpus corpus = parseCorpus(type);
+        String text;
+        if (corpus == Corpus.RAW_QUESTION) {
+            text = rawQuestionRepository.findById(questionId)
+                    .map(RawQuestion::getQuestionBody)
+                    .orElseThrow(() -> new EntityNotFoundException("原始问题不存在: " + questionId));
+        } else {
+            text = standardQuestionRepository.findById(questionId)
+                    .map(StandardQuestion::getQuestion)
+                    .orElseThrow(() -> new EntityNotFoundException("标准问题不存在: " + questionId));
+        }
+        List<QuestionSimilarityIndex.Match> matches = similarityIndex.findSimilar(
+                corpus, questionId, text, parseThreshold(threshold), parseLimit(limit));
+        return buildResult(corpus, matches);
+    }
+
+    @Override
+    public List<SimilarQuestionDTO> findNearDuplicateStandardQuestions(String text, int limit) {
+        if (!similarityIndex.isEnabled() || text == null) {
+            return List.of();
+        }
+        List<QuestionSimilarityIndex.Match> matches = new ArrayList<>();
+        for (QuestionSimilarityIndex.Match match : similarityIndex.findSimilar(Corpus.STANDARD_QUESTION, text,
+                similarityIndex.getDefaultThreshold(), limit + 1)) {
+            if (!match.isExact() && matches.size() < limit) {
+                matches.add(match);
+            }
+        }
+        return toDTOs(Corpus.STANDARD_QUESTION, matches);
+    }
+
+    private Map<String, Object> buildResult(Corpus corpus, List<QuestionSimilarityIndex.Match> matches) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("indexReady", similarityIndex.isReady(corpus));
+        result.put("indexedCount", similarityIndex.size(corpus));
+        result.put("results", toDTOs(corpus, matches));
+        return result;
+    }
+
+    private List<SimilarQuestionDTO> toDTOs(Corpus corpus, List<QuestionSimilarityIndex.Match> matches) {
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+        List<Integer> ids = matches.stream().map(QuestionSimilarityIndex.Match::getQuestionId).toList();
+        Map<Integer, String[]> contents = new LinkedHashMap<>();
+        if (corpus == Corpus.RAW_QUESTION) {
+            for (RawQuestion question : rawQuestionRepository.findAllById(ids)) {
+                contents.put(question.getQuestionId(),
+                        new String[]{question.getQuestionTitle(), question.getQuestionBody()});
+            }
+        } else {
+            for (StandardQuestion question : standardQuestionRepository.findAllById(ids)) {
+                contents.put(question.getStandardQuestionId(), new String[]{null, question.getQuestion()});
+            }
+        }
+        List<SimilarQuestionDTO> result = new ArrayList<>(matches.size());
+        for (QuestionSimilarityIndex.Match match : matches) {
+            String[] content = contents.get(match.getQuestionId());
+            if (content == null) {
+                continue;
+            }
+            SimilarQuestionDTO dto = new SimilarQuestionDTO();
+            dto.setQuestionId(match.getQuestionId());
+            dto.setTitle(content[0]);
+            dto.setQuestion(content[1]);
+            dto.setSimilarity(match.getSimilarity());
+            dto.setExact(match.isExact());
+            result.add(dto);
+        }
+        return result;
+    }
+
+    private Corpus parseCorpus(String type) {
+        if (!similarityIndex.isEnabled()) {
+            throw new IllegalArgumentException("相似问题索引未启用");
+        }
+        if (type == null || "standard".equalsIgnoreCase(type)) {
+            return Corpus.STANDARD_QUESTION;
+        }
+        if ("raw".equalsIgnoreCase(type)) {
+            return Corpus.RAW_QUESTION;
+        }
+        throw new IllegalArgumentException("type只能为raw或standard: " + type);
+    }
+
+    private double parseThreshold(Double threshold) {
+        double value = threshold != null ? threshold : similarityIndex.getDefaultThreshold();
+        if (value <= 0 || value > 1) {
+            throw new IllegalArgumentException("threshold必须在(0, 1]范围内: " + value);
+        }
+        return value;
+    }
+
+    private int parseLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit必须大于0");
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+}
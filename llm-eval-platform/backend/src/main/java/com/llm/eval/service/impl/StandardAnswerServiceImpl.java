@@ -1,5 +1,7 @@
 package com.llm.eval.service.impl;
 
+import com.llm.eval.event.StatisticsChangedEvent;
+import com.llm.eval.event.StatisticsChangedEvent.Metric;
 import com.llm.eval.model.StandardAnswer;
 import com.llm.eval.model.AnswerKeyPoint;
 import com.llm.eval.repository.StandardAnswerRepository;
@@ -8,6 +10,7 @@ import com.llm.eval.repository.AnswerKeyPointRepository;
 import com.llm.eval.service.StandardAnswerService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -25,15 +28,18 @@ public class StandardAnswerServiceImpl implements StandardAnswerService {
     private final StandardAnswerRepository standardAnswerRepository;
     private final StandardQuestionRepository standardQuestionRepository;
     private final AnswerKeyPointRepository answerKeyPointRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Autowired
     public StandardAnswerServiceImpl(
             StandardAnswerRepository standardAnswerRepository,
             StandardQuestionRepository standardQuestionRepository,
-            AnswerKeyPointRepository answerKeyPointRepository) {
+            AnswerKeyPointRepository answerKeyPointRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.standardAnswerRepository = standardAnswerRepository;
         this.standardQuestionRepository = standardQuestionRepository;
         this.answerKeyPointRepository = answerKeyPointRepository;
+        this.eventPublisher = eventPublisher;
     }
     
     @Override
@@ -114,7 +120,18 @@ public class StandardAnswerServiceImpl implements StandardAnswerService {
             throw new EntityNotFoundException("Standard question not found with id: " + questionId);
         }
         
-        return standardAnswerRepository.save(standardAnswer);
+        boolean firstAnswer = standardAnswerRepository.countByFilters(questionId, null) == 0;
+        StandardAnswer saved = standardAnswerRepository.save(standardAnswer);
+        
+        StatisticsChangedEvent event = StatisticsChangedEvent.of(Metric.STANDARD_ANSWER, 1);
+        if (Boolean.TRUE.equals(saved.getIsFinal())) {
+            event = event.and(Metric.FINAL_STANDARD_ANSWER, 1);
+        }
+        if (firstAnswer) {
+            event = event.and(Metric.QUESTION_WITHOUT_STANDARD_ANSWER, -1);
+        }
+        eventPublisher.publishEvent(event);
+        return saved;
     }
     
     @Override
@@ -122,6 +139,7 @@ public class StandardAnswerServiceImpl implements StandardAnswerService {
     public StandardAnswer updateStandardAnswer(Integer id, StandardAnswer standardAnswer) {
         StandardAnswer existingAnswer = standardAnswerRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Standard answer not found with id: " + id));
+        boolean wasFinal = Boolean.TRUE.equals(existingAnswer.getIsFinal());
         
         // Update properties
         existingAnswer.setAnswer(standardAnswer.getAnswer());
@@ -156,6 +174,9 @@ public class StandardAnswerServiceImpl implements StandardAnswerService {
         
         // 保存更新后的答案
         StandardAnswer savedAnswer = standardAnswerRepository.save(existingAnswer);
+        if (wasFinal != Boolean.TRUE.equals(savedAnswer.getIsFinal())) {
+            eventPublisher.publishEvent(StatisticsChangedEvent.recount());
+        }
         
         // 处理关键点更新
         if (standardAnswer.getKeyPoints() != null && !standardAnswer.getKeyPoints().isEmpty()) {
@@ -219,10 +240,14 @@ public class StandardAnswerServiceImpl implements StandardAnswerService {
         // Get the question ID
         Integer questionId = answerToMark.getStandardQuestion().getStandardQuestionId();
         System.out.println("标记答案为最终版本，答案ID: " + id + ", 问题ID: " + questionId);
+        boolean wasFinal = Boolean.TRUE.equals(answerToMark.getIsFinal());
         
         // Find any existing final answers for this question and unmark them
         Optional<StandardAnswer> existingFinalAnswer = 
                 standardAnswerRepository.findByStandardQuestionStandardQuestionIdAndIsFinalTrue(questionId);
+        boolean unmarkedOther = existingFinalAnswer
+                .map(answer -> !answer.getStandardAnswerId().equals(id))
+                .orElse(false);
         
         existingFinalAnswer.ifPresent(answer -> {
             System.out.println("找到现有最终版本答案，ID: " + answer.getStandardAnswerId() + ", 取消其最终版本标记");
@@ -240,6 +265,11 @@ public class StandardAnswerServiceImpl implements StandardAnswerService {
         StandardAnswer savedNewFinal = standardAnswerRepository.save(answerToMark);
         System.out.println("保存新的最终版本答案，ID: " + savedNewFinal.getStandardAnswerId() + ", isFinal: " + savedNewFinal.getIsFinal());
         
+        long finalDelta = (wasFinal ? 0 : 1) - (unmarkedOther ? 1 : 0);
+        if (finalDelta != 0) {
+            eventPublisher.publishEvent(StatisticsChangedEvent.of(Metric.FINAL_STANDARD_ANSWER, finalDelta));
+        }
+        
         // 验证设置是否成功
         List<StandardAnswer> allAnswers = standardAnswerRepository.findByStandardQuestionStandardQuestionId(questionId);
         System.out.println("问题所有答案的最终版本状态:");
@@ -254,6 +284,7 @@ public class StandardAnswerServiceImpl implements StandardAnswerService {
     @Transactional
     public void deleteStandardAnswer(Integer id) {
         standardAnswerRepository.deleteById(id);
+        eventPublisher.publishEvent(StatisticsChangedEvent.recount());
     }
     
     @Override
@@ -1,5 +1,7 @@
 package com.llm.eval.service.impl;
 
+import com.llm.eval.event.QuestionContentChangedEvent;
+import com.llm.eval.event.StatisticsChangedEvent;
 import com.llm.eval.model.QuestionCategory;
 import com.llm.eval.model.StandardQuestion;
 import com.llm.eval.model.Tag;
@@ -7,9 +9,11 @@ import com.llm.eval.repository.QuestionCategoryRepository;
 import com.llm.eval.repository.StandardQuestionRepository;
 import com.llm.eval.repository.TagRepository;
 import com.llm.eval.service.StandardQuestionService;
+import com.llm.eval.util.ContentFingerprint;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -28,6 +32,7 @@ public class StandardQuestionServiceImpl implements StandardQuestionService {
     private final StandardQuestionRepository standardQuestionRepository;
     private final TagRepository tagRepository;
     private final QuestionCategoryRepository categoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     @PersistenceContext
     private EntityManager entityManager;
@@ -35,10 +40,12 @@ public class StandardQuestionServiceImpl implements StandardQuestionService {
     public StandardQuestionServiceImpl(
             StandardQuestionRepository standardQuestionRepository,
             TagRepository tagRepository,
-            QuestionCategoryRepository categoryRepository) {
+            QuestionCategoryRepository categoryRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.standardQuestionRepository = standardQuestionRepository;
         this.tagRepository = tagRepository;
         this.categoryRepository = categoryRepository;
+        this.eventPublisher = eventPublisher;
     }
     
     /**
@@ -221,7 +228,30 @@ public class StandardQuestionServiceImpl implements StandardQuestionService {
             standardQuestion.setQuestionType(StandardQuestion.QuestionType.subjective);
         }
         
-        return standardQuestionRepository.save(standardQuestion);
+        // 同一原始问题下内容相同（仅空白或标点不同）的标准问题只保留一个
+        StandardQuestion duplicate = findDuplicate(standardQuestion);
+        if (duplicate != null) {
+            throw new IllegalArgumentException("已存在内容相同的标准问题，ID: " + duplicate.getStandardQuestionId());
+        }
+        
+        StandardQuestion saved = standardQuestionRepository.save(standardQuestion);
+        // 新建的问题尚无标准答案
+        eventPublisher.publishEvent(StatisticsChangedEvent
+                .of(StatisticsChangedEvent.Metric.STANDARD_QUESTION, 1)
+                .and(StatisticsChangedEvent.Metric.QUESTION_WITHOUT_STANDARD_ANSWER, 1));
+        eventPublisher.publishEvent(QuestionContentChangedEvent.saved(
+                QuestionContentChangedEvent.Corpus.STANDARD_QUESTION, saved.getStandardQuestionId(), saved.getQuestion()));
+        return saved;
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public StandardQuestion findDuplicate(StandardQuestion standardQuestion) {
+        Integer sourceQuestionId = standardQuestion.getSourceQuestion() != null
+                ? standardQuestion.getSourceQuestion().getQuestionId() : null;
+        return standardQuestionRepository.findByContentFingerprintAndSourceQuestionId(
+                        ContentFingerprint.of(standardQuestion.getQuestion()), sourceQuestionId)
+                .stream().findFirst().orElse(null);
     }
     
     @Override
@@ -243,7 +273,10 @@ public class StandardQuestionServiceImpl implements StandardQuestionService {
         // 不要在这里更新tags，避免循环引用导致的hashCode栈溢出
         // 使用专门的方法来更新tags: addTagsToQuestion 和 removeTagsFromQuestion
         
-        return standardQuestionRepository.save(existingQuestion);
+        StandardQuestion saved = standardQuestionRepository.save(existingQuestion);
+        eventPublisher.publishEvent(QuestionContentChangedEvent.saved(
+                QuestionContentChangedEvent.Corpus.STANDARD_QUESTION, saved.getStandardQuestionId(), saved.getQuestion()));
+        return saved;
     }
     
     @Override
@@ -336,6 +369,9 @@ public class StandardQuestionServiceImpl implements StandardQuestionService {
     @Transactional
     public void deleteStandardQuestion(Integer id) {
         standardQuestionRepository.deleteById(id);
+        eventPublisher.publishEvent(StatisticsChangedEvent.recount());
+        eventPublisher.publishEvent(QuestionContentChangedEvent.deleted(
+                QuestionContentChangedEvent.Corpus.STANDARD_QUESTION, id));
     }
     
     @Override
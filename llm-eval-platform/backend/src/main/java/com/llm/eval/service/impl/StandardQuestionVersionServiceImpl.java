@@ -3,12 +3,14 @@ package com.llm.eval.service.impl;
 import com.llm.eval.dto.PagedResponseDTO;
 import com.llm.eval.dto.StandardQuestionVersionDTO;
 import com.llm.eval.dto.VersionComparisonDTO;
+import com.llm.eval.event.QuestionContentChangedEvent;
 import com.llm.eval.model.StandardQuestion;
 import com.llm.eval.model.StandardQuestionVersion;
 import com.llm.eval.repository.StandardQuestionRepository;
 import com.llm.eval.repository.StandardQuestionVersionRepository;
 import com.llm.eval.service.StandardQuestionVersionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -33,6 +35,9 @@ public class StandardQuestionVersionServiceImpl implements StandardQuestionVersi
     @Autowired
     private StandardQuestionRepository questionRepository;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     @Override
     public StandardQuestionVersionDTO createQuestionVersion(Integer questionId, String versionName, String changeReason,
                                                           String questionTitle, String questionBody,
@@ -79,6 +84,8 @@ public class StandardQuestionVersionServiceImpl implements StandardQuestionVersi
         // 更新标准问题的当前内容
         question.setQuestion(questionBody);
         questionRepository.save(question);
+        eventPublisher.publishEvent(QuestionContentChangedEvent.saved(
+                QuestionContentChangedEvent.Corpus.STANDARD_QUESTION, questionId, questionBody));
         
         return convertToDTO(savedVersion);
     }
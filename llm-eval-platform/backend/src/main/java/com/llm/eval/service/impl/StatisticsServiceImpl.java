@@ -1,8 +1,7 @@
 package com.llm.eval.service.impl;
 
-import com.llm.eval.model.QuestionCategory;
-import com.llm.eval.model.Tag;
-import com.llm.eval.repository.*;
+import com.llm.eval.event.StatisticsChangedEvent.Metric;
+import com.llm.eval.repository.StandardQuestionRepository;
 import com.llm.eval.service.StatisticsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -14,82 +13,95 @@ import java.util.Map;
 @Service
 public class StatisticsServiceImpl implements StatisticsService {
     
-    private final RawQuestionRepository rawQuestionRepository;
-    private final RawAnswerRepository rawAnswerRepository;
+    private static final String UNCATEGORIZED_LABEL = "未分类";
+    private static final String UNTAGGED_LABEL = "无标签";
+    
     private final StandardQuestionRepository standardQuestionRepository;
-    private final StandardAnswerRepository standardAnswerRepository;
-    private final QuestionCategoryRepository categoryRepository;
-    private final TagRepository tagRepository;
-    private final DatasetVersionRepository datasetVersionRepository;
+    private final StatisticsSnapshotStore snapshotStore;
     
     @Autowired
     public StatisticsServiceImpl(
-            RawQuestionRepository rawQuestionRepository,
-            RawAnswerRepository rawAnswerRepository,
             StandardQuestionRepository standardQuestionRepository,
-            StandardAnswerRepository standardAnswerRepository,
-            QuestionCategoryRepository categoryRepository,
-            TagRepository tagRepository,
-            DatasetVersionRepository datasetVersionRepository) {
-        this.rawQuestionRepository = rawQuestionRepository;
-        this.rawAnswerRepository = rawAnswerRepository;
+            StatisticsSnapshotStore snapshotStore) {
         this.standardQuestionRepository = standardQuestionRepository;
-        this.standardAnswerRepository = standardAnswerRepository;
-        this.categoryRepository = categoryRepository;
-        this.tagRepository = tagRepository;
-        this.datasetVersionRepository = datasetVersionRepository;
+        this.snapshotStore = snapshotStore;
     }
     
     @Override
-    public Map<String, Long> getRawQuestionAndAnswerCounts() {
-        Map<String, Long> counts = new HashMap<>();
-        counts.put("rawQuestionCount", rawQuestionRepository.countRawQuestions());
-        counts.put("rawAnswerCount", rawAnswerRepository.countRawAnswers());
-        return counts;
+    public Map<String, Long> getRawQuestionAndAnswerCounts(boolean forceRefresh) {
+        return toRawCounts(snapshotStore.getCounts(forceRefresh));
     }
     
     @Override
-    public Map<String, Long> getStandardQuestionAndAnswerCounts() {
-        Map<String, Long> counts = new HashMap<>();
-        counts.put("standardQuestionCount", standardQuestionRepository.countStandardQuestions());
-        counts.put("standardAnswerCount", standardAnswerRepository.countStandardAnswers());
-        counts.put("finalStandardAnswerCount", standardAnswerRepository.countFinalStandardAnswers());
-        return counts;
+    public Map<String, Long> getStandardQuestionAndAnswerCounts(boolean forceRefresh) {
+        return toStandardCounts(snapshotStore.getCounts(forceRefresh));
     }
     
     @Override
     public Map<String, Long> getQuestionCountsByCategory() {
-        Map<String, Long> counts = new HashMap<>();
-        List<QuestionCategory> categories = categoryRepository.findAll();
-        
-        for (QuestionCategory category : categories) {
-            long count = standardQuestionRepository.countByCategoryId(category.getCategoryId());
-            counts.put(category.getName(), count);
-        }
-        
-        return counts;
+        return toCountMap(standardQuestionRepository.countGroupByCategory(), UNCATEGORIZED_LABEL);
     }
     
     @Override
     public Map<String, Long> getQuestionCountsByTag() {
+        return toCountMap(standardQuestionRepository.countGroupByTag(), UNTAGGED_LABEL);
+    }
+    
+    @Override
+    public long getQuestionsWithoutStandardAnswerCount(boolean forceRefresh) {
+        return snapshotStore.getCount(Metric.QUESTION_WITHOUT_STANDARD_ANSWER, forceRefresh);
+    }
+    
+    @Override
+    public Map<String, Long> getDatasetVersionCounts(boolean forceRefresh) {
+        Map<Metric, Long> snapshot = snapshotStore.getCounts(forceRefresh);
         Map<String, Long> counts = new HashMap<>();
-        List<Tag> tags = tagRepository.findAll();
-        
-        for (Tag tag : tags) {
-            long count = standardQuestionRepository.countByTagId(tag.getTagId());
-            counts.put(tag.getTagName(), count);
-        }
-        
+        counts.put("count", snapshot.get(Metric.DATASET_VERSION));
+        counts.put("publishedCount", snapshot.get(Metric.PUBLISHED_DATASET_VERSION));
         return counts;
     }
     
     @Override
-    public long getQuestionsWithoutStandardAnswerCount() {
-        return standardQuestionRepository.countWithoutStandardAnswers();
+    public Map<String, Object> getStatisticsSummary(boolean forceRefresh) {
+        Map<Metric, Long> snapshot = snapshotStore.getCounts(forceRefresh);
+        
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("rawCounts", toRawCounts(snapshot));
+        summary.put("standardCounts", toStandardCounts(snapshot));
+        summary.put("questionsWithoutStandardAnswer", snapshot.get(Metric.QUESTION_WITHOUT_STANDARD_ANSWER));
+        summary.put("datasetVersionCount", snapshot.get(Metric.DATASET_VERSION));
+        summary.put("snapshotTime", snapshotStore.getLoadedAt());
+        return summary;
     }
     
-    @Override
-    public long getDatasetVersionCount() {
-        return datasetVersionRepository.countDatasetVersions();
+    private Map<String, Long> toRawCounts(Map<Metric, Long> snapshot) {
+        Map<String, Long> counts = new HashMap<>();
+        counts.put("rawQuestionCount", snapshot.get(Metric.RAW_QUESTION));
+        counts.put("rawAnswerCount", snapshot.get(Metric.RAW_ANSWER));
+        return counts;
+    }
+    
+    private Map<String, Long> toStandardCounts(Map<Metric, Long> snapshot) {
+        Map<String, Long> counts = new HashMap<>();
+        counts.put("standardQuestionCount", snapshot.get(Metric.STANDARD_QUESTION));
+        counts.put("standardAnswerCount", snapshot.get(Metric.STANDARD_ANSWER));
+        counts.put("finalStandardAnswerCount", snapshot.get(Metric.FINAL_STANDARD_ANSWER));
+        return counts;
+    }
+    
+    /**
+     * 将 [名称, 数量] 分组结果转为Map，名称为 NULL 的行归入指定的兜底分组；同名分组数量累加
+     */
+    private Map<String, Long> toCountMap(List<Object[]> rows, String nullLabel) {
+        Map<String, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            String name = row[0] != null ? row[0].toString() : nullLabel;
+            counts.merge(name, toLong(row[1]), Long::sum);
+        }
+        return counts;
+    }
+    
+    private long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,142 @@
+package com.llm.eval.service.impl;
+
+import com.llm.eval.event.StatisticsChangedEvent;
+import com.llm.eval.event.StatisticsChangedEvent.Metric;
+import com.llm.eval.repository.StandardQuestionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 统计快照存储
+ * 
+ * 首次读取或快照过期时用一条聚合查询重建全部计数，之后由 {@link StatisticsChangedEvent}
+ * 在事务提交后增量维护；读取直接返回内存中的计数。无法增量维护的变更会把快照标记为失效，
+ * 下次读取时重建。
+ */
+@Component
+@Slf4j
+public class StatisticsSnapshotStore {
+
+    private final StandardQuestionRepository standardQuestionRepository;
+
+    @Value("${statistics.snapshot.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private volatile Snapshot snapshot;
+
+    // 每收到一个事件加一，用于发现重建期间到达的事件
+    private final AtomicLong eventSequence = new AtomicLong();
+
+    @Autowired
+    public StatisticsSnapshotStore(StandardQuestionRepository standardQuestionRepository) {
+        this.standardQuestionRepository = standardQuestionRepository;
+    }
+
+    /**
+     * 获取统计快照
+     * 
+     * @param forceRefresh 是否忽略缓存强制重新统计
+     * @return 各项计数
+     */
+    public Map<Metric, Long> getCounts(boolean forceRefresh) {
+        Snapshot current = snapshot;
+        if (forceRefresh || current == null || current.isExpired(ttlSeconds)) {
+            current = reload();
+        }
+        return current.toMap();
+    }
+
+    public long getCount(Metric metric, boolean forceRefresh) {
+        return getCounts(forceRefresh).getOrDefault(metric, 0L);
+    }
+
+    /**
+     * 快照生成时间，尚未生成时为 null
+     */
+    public Instant getLoadedAt() {
+        Snapshot current = snapshot;
+        return current != null ? current.loadedAt : null;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatisticsChanged(StatisticsChangedEvent event) {
+        eventSequence.incrementAndGet();
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        if (event.isRecountRequired()) {
+            current.invalidate();
+            return;
+        }
+        event.getDeltas().forEach(current::add);
+    }
+
+    private synchronized Snapshot reload() {
+        long sequenceBefore = eventSequence.get();
+        List<Object[]> rows = standardQuestionRepository.summarizeCounts();
+        Object[] row = rows.isEmpty() ? new Object[8] : rows.get(0);
+
+        Snapshot fresh = new Snapshot();
+        fresh.set(Metric.RAW_QUESTION, row[0]);
+        fresh.set(Metric.RAW_ANSWER, row[1]);
+        fresh.set(Metric.STANDARD_QUESTION, row[2]);
+        fresh.set(Metric.STANDARD_ANSWER, row[3]);
+        fresh.set(Metric.FINAL_STANDARD_ANSWER, row[4]);
+        fresh.set(Metric.QUESTION_WITHOUT_STANDARD_ANSWER, row[5]);
+        fresh.set(Metric.DATASET_VERSION, row[6]);
+        fresh.set(Metric.PUBLISHED_DATASET_VERSION, row[7]);
+
+        // 统计期间有变更提交时无法确定查询是否已包含该变更，下次读取再重建一次
+        if (eventSequence.get() != sequenceBefore) {
+            fresh.invalidate();
+        }
+        snapshot = fresh;
+        log.debug("统计快照已重建: {}", fresh.toMap());
+        return fresh;
+    }
+
+    private static class Snapshot {
+        private final Map<Metric, AtomicLong> counts = new EnumMap<>(Metric.class);
+        private final Instant loadedAt = Instant.now();
+        private volatile boolean invalid;
+
+        Snapshot() {
+            for (Metric metric : Metric.values()) {
+                counts.put(metric, new AtomicLong());
+            }
+        }
+
+        void set(Metric metric, Object value) {
+            counts.get(metric).set(value instanceof Number ? ((Number) value).longValue() : 0L);
+        }
+
+        void add(Metric metric, long delta) {
+            counts.get(metric).updateAndGet(v -> Math.max(0L, v + delta));
+        }
+
+        void invalidate() {
+            invalid = true;
+        }
+
+        boolean isExpired(long ttlSeconds) {
+            return invalid || Duration.between(loadedAt, Instant.now()).getSeconds() >= ttlSeconds;
+        }
+
+        Map<Metric, Long> toMap() {
+            Map<Metric, Long> result = new EnumMap<>(Metric.class);
+            counts.forEach((metric, value) -> result.put(metric, value.get()));
+            return result;
+        }
+    }
+}
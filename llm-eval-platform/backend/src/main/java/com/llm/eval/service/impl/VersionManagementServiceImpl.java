@@ -1,6 +1,9 @@
 package com.llm.eval.service.impl;
 
 import com.llm.eval.dto.*;
+import com.llm.eval.event.QuestionContentChangedEvent;
+import com.llm.eval.event.StatisticsChangedEvent;
+import com.llm.eval.event.StatisticsChangedEvent.Metric;
 import com.llm.eval.model.DatasetVersion;
 import com.llm.eval.model.StandardQuestion;
 import com.llm.eval.model.StandardQuestionVersion;
@@ -10,6 +13,7 @@ import com.llm.eval.repository.StandardQuestionRepository;
 import com.llm.eval.repository.StandardQuestionVersionRepository;
 import com.llm.eval.service.VersionManagementService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -32,6 +36,9 @@ public class VersionManagementServiceImpl implements VersionManagementService {
     @Autowired
     private StandardQuestionVersionRepository questionVersionRepository;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     @Override
     public DatasetVersionDTO createDatasetVersion(CreateDatasetVersionRequest request) {
         // 检查版本名称是否已存在
@@ -56,6 +63,7 @@ public class VersionManagementServiceImpl implements VersionManagementService {
         }
         
         datasetVersion = datasetVersionRepository.save(datasetVersion);
+        eventPublisher.publishEvent(StatisticsChangedEvent.of(Metric.DATASET_VERSION, 1));
         
         return convertToDatasetVersionDTO(datasetVersion, true);
     }
@@ -96,10 +104,14 @@ public class VersionManagementServiceImpl implements VersionManagementService {
     public DatasetVersionDTO publishDatasetVersion(Integer versionId) {
         DatasetVersion version = datasetVersionRepository.findById(versionId)
             .orElseThrow(() -> new RuntimeException("数据集版本不存在: " + versionId));
+        boolean wasPublished = Boolean.TRUE.equals(version.getIsPublished());
         
         version.setIsPublished(true);
         version.setReleaseDate(java.time.LocalDate.now());
         version = datasetVersionRepository.save(version);
+        if (!wasPublished) {
+            eventPublisher.publishEvent(StatisticsChangedEvent.of(Metric.PUBLISHED_DATASET_VERSION, 1));
+        }
         
         return convertToDatasetVersionDTO(version, false);
     }
@@ -157,10 +169,16 @@ public class VersionManagementServiceImpl implements VersionManagementService {
     
     @Override
     public void deleteDatasetVersion(Integer versionId) {
-        if (!datasetVersionRepository.existsById(versionId)) {
-            throw new RuntimeException("数据集版本不存在: " + versionId);
-        }
+        DatasetVersion version = datasetVersionRepository.findById(versionId)
+            .orElseThrow(() -> new RuntimeException("数据集版本不存在: " + versionId));
+        boolean wasPublished = Boolean.TRUE.equals(version.getIsPublished());
         datasetVersionRepository.deleteById(versionId);
+        
+        StatisticsChangedEvent event = StatisticsChangedEvent.of(Metric.DATASET_VERSION, -1);
+        if (wasPublished) {
+            event = event.and(Metric.PUBLISHED_DATASET_VERSION, -1);
+        }
+        eventPublisher.publishEvent(event);
     }      @Override
     public List<StandardQuestionVersionDTO> getQuestionVersionHistory(Integer questionId) {
         List<StandardQuestionVersion> versions = questionVersionRepository
@@ -243,6 +261,8 @@ public class VersionManagementServiceImpl implements VersionManagementService {
         question.setVersion(nextVersion);
         
         standardQuestionRepository.save(question);
+        eventPublisher.publishEvent(QuestionContentChangedEvent.saved(
+                QuestionContentChangedEvent.Corpus.STANDARD_QUESTION, questionId, question.getQuestion()));
         
         return convertToQuestionVersionDTO(rollbackVersion);
     }
@@ -0,0 +1,365 @@
+package com.llm.eval.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 批次评测工作单元队列
+ *
+ * 批次启动时按回答ID区间切分为 batch_work_units 中的工作单元，各节点的工作线程以
+ * SELECT ... FOR UPDATE SKIP LOCKED 领取单元并获得租约，处理期间由心跳续租。
+ * 租约到期时间使用数据库时间，节点宕机后租约过期的单元会被其他节点重新领取；
+ * 完成、释放和续租都以租约持有者为条件，丢失租约的节点无法覆盖新持有者的状态；
+ * 写入评测结果的事务先以 {@link #holdLease} 确认并锁定租约，丢失租约时整个事务回滚。
+ * 完成的单元同时记录区间内评测结果的指标状态，已完成单元即批次的检查点，恢复运行时只需重新处理其余单元。
+ */
+@Component
+@Slf4j
+public class WorkUnitQueue {
+
+    private static final String DELETE_UNITS_SQL =
+            "DELETE FROM batch_work_units WHERE batch_id = ?";
+
+    // 按回答ID排序后每 chunkSize 个回答划为一个单元，区间边界由数据库一次计算
+    private static final String PLAN_UNITS_SQL =
+            "INSERT INTO batch_work_units (batch_id, first_answer_id, last_answer_id, answer_count, status) " +
+            "SELECT ?, MIN(llm_answer_id), MAX(llm_answer_id), COUNT(*), 'pending' FROM (" +
+            "SELECT llm_answer_id, (ROW_NUMBER() OVER (ORDER BY llm_answer_id) - 1) DIV ? AS unit_no " +
+            "FROM llm_answers WHERE batch_id = ? AND is_final = TRUE AND deleted_at IS NULL) ranked " +
+            "GROUP BY unit_no";
+
+    private static final String SELECT_PENDING_UNIT_SQL =
+            "SELECT unit_id, batch_id, first_answer_id, last_answer_id, attempts FROM batch_work_units " +
+            "WHERE status = 'pending' ORDER BY unit_id LIMIT 1 FOR UPDATE SKIP LOCKED";
+
+    private static final String SELECT_EXPIRED_UNIT_SQL =
+            "SELECT unit_id, batch_id, first_answer_id, last_answer_id, attempts FROM batch_work_units " +
+            "WHERE status = 'leased' AND lease_expires_at < NOW() ORDER BY lease_expires_at LIMIT 1 " +
+            "FOR UPDATE SKIP LOCKED";
+
+    private static final String LEASE_UNIT_SQL =
+            "UPDATE batch_work_units SET status = 'leased', lease_owner = ?, " +
+            "lease_expires_at = NOW() + INTERVAL ? SECOND, attempts = attempts + 1 WHERE unit_id = ?";
+
+    private static final String EXHAUST_UNIT_SQL =
+            "UPDATE batch_work_units SET status = 'failed', lease_owner = NULL, lease_expires_at = NULL, " +
+            "last_error = ? WHERE unit_id = ?";
+
+    private static final String RENEW_LEASES_SQL =
+            "UPDATE batch_work_units SET lease_expires_at = NOW() + INTERVAL :seconds SECOND " +
+            "WHERE unit_id IN (:unitIds) AND lease_owner = :owner AND status = 'leased'";
+
+    // 锁定本节点持有的单元行直到事务提交，期间其他节点无法领取该单元
+    private static final String HOLD_LEASE_SQL =
+            "UPDATE batch_work_units SET lease_expires_at = GREATEST(lease_expires_at, NOW() + INTERVAL ? SECOND) " +
+            "WHERE unit_id = ? AND lease_owner = ? AND status = 'leased'";
+
+    private static final String COMPLETE_UNIT_SQL =
+            "UPDATE batch_work_units SET status = 'completed', lease_expires_at = NULL, " +
+            "processed_count = ?, evaluated_count = ?, skipped_count = ?, failed_count = ?, cache_hit_count = ?, " +
+            "metrics_state = ? WHERE unit_id = ? AND lease_owner = ? AND status = 'leased'";
+
+    // 未超过最大尝试次数的单元回到待领取状态
+    private static final String RELEASE_UNIT_SQL =
+            "UPDATE batch_work_units SET status = IF(attempts >= ?, 'failed', 'pending'), " +
+            "lease_owner = NULL, lease_expires_at = NULL, last_error = ? " +
+            "WHERE unit_id = ? AND lease_owner = ? AND status = 'leased'";
+
+    // 停机释放的单元不计入领取次数
+    private static final String RELEASE_OWNER_SQL =
+            "UPDATE batch_work_units SET status = 'pending', lease_owner = NULL, lease_expires_at = NULL, " +
+            "attempts = GREATEST(attempts - 1, 0) WHERE lease_owner = ? AND status = 'leased'";
+
+    private static final String REQUEUE_FAILED_SQL =
+            "UPDATE batch_work_units SET status = 'pending', attempts = 0, lease_owner = NULL, lease_expires_at = NULL " +
+            "WHERE batch_id = ? AND status = 'failed'";
+
+    private static final String HAS_UNITS_SQL =
+            "SELECT EXISTS (SELECT 1 FROM batch_work_units WHERE batch_id = ?)";
+
+    private static final String HAS_ACTIVE_UNITS_SQL =
+            "SELECT EXISTS (SELECT 1 FROM batch_work_units WHERE batch_id = ? AND status IN ('pending', 'leased'))";
+
+    private static final String COUNT_BY_STATUS_SQL =
+            "SELECT status, COUNT(*) AS units, COALESCE(SUM(answer_count), 0) AS answers, " +
+            "COALESCE(SUM(processed_count), 0) AS processed, COALESCE(SUM(evaluated_count), 0) AS evaluated, " +
+            "COALESCE(SUM(skipped_count), 0) AS skipped, COALESCE(SUM(failed_count), 0) AS failed, " +
+            "COALESCE(SUM(cache_hit_count), 0) AS cache_hits, COUNT(DISTINCT lease_owner) AS owners " +
+            "FROM batch_work_units WHERE batch_id = ? GROUP BY status";
+
+    private static final String SELECT_LAST_ERROR_SQL =
+            "SELECT last_error FROM batch_work_units WHERE batch_id = ? AND status = 'failed' " +
+            "AND last_error IS NOT NULL ORDER BY updated_at DESC LIMIT 1";
+
+    private static final String SELECT_COMPLETED_STATES_SQL =
+            "SELECT metrics_state FROM batch_work_units WHERE batch_id = ? AND status = 'completed' ORDER BY unit_id";
+
+    // 检查点：第一个未完成单元之前的连续已完成区间的最后一个回答ID
+    private static final String SELECT_CHECKPOINT_SQL =
+            "SELECT COALESCE(MAX(last_answer_id), 0) FROM batch_work_units " +
+            "WHERE batch_id = ? AND status = 'completed' AND first_answer_id < COALESCE(" +
+            "(SELECT MIN(first_answer_id) FROM batch_work_units WHERE batch_id = ? AND status <> 'completed'), " +
+            "2147483647)";
+
+    // 所有单元结束后由第一个执行到此处的节点结束批次，有失败单元时批次标记为失败
+    private static final String FINISH_BATCH_SQL =
+            "UPDATE evaluation_batches SET end_time = NOW(), status = IF(EXISTS (" +
+            "SELECT 1 FROM batch_work_units WHERE batch_id = ? AND status = 'failed'), 'failed', 'completed') " +
+            "WHERE batch_id = ? AND status = 'in_progress' AND NOT EXISTS (" +
+            "SELECT 1 FROM batch_work_units WHERE batch_id = ? AND status IN ('pending', 'leased'))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public WorkUnitQueue(JdbcTemplate jdbcTemplate,
+                         NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                         PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 清除批次上一次运行的工作单元并重新切分，需在锁定批次行的事务中调用
+     *
+     * @return 生成的工作单元数
+     */
+    public int plan(Integer batchId, int unitSize) {
+        jdbcTemplate.update(DELETE_UNITS_SQL, batchId);
+        return jdbcTemplate.update(PLAN_UNITS_SQL, batchId, unitSize, batchId);
+    }
+
+    /**
+     * 领取一个工作单元：优先领取待处理单元，其次是租约已过期的单元。
+     * 领取次数已达上限的过期单元直接标记为失败，以 exhausted 返回供调用方检查批次是否结束
+     *
+     * @param owner 领取节点
+     * @param leaseSeconds 租约时长
+     * @param maxAttempts 单元最多被领取的次数
+     * @return 领取到的单元，没有可领取的单元时返回 null
+     */
+    public WorkUnit claim(String owner, int leaseSeconds, int maxAttempts) {
+        return transactionTemplate.execute(status -> {
+            WorkUnit unit = selectForUpdate(SELECT_PENDING_UNIT_SQL);
+            if (unit == null) {
+                unit = selectForUpdate(SELECT_EXPIRED_UNIT_SQL);
+            }
+            if (unit == null) {
+                return null;
+            }
+            if (unit.attempts >= maxAttempts) {
+                jdbcTemplate.update(EXHAUST_UNIT_SQL, "租约多次过期未完成，已达最大尝试次数", unit.unitId);
+                return new WorkUnit(unit.unitId, unit.batchId, unit.firstAnswerId, unit.lastAnswerId,
+                        unit.attempts, true);
+            }
+            jdbcTemplate.update(LEASE_UNIT_SQL, owner, leaseSeconds, unit.unitId);
+            return new WorkUnit(unit.unitId, unit.batchId, unit.firstAnswerId, unit.lastAnswerId,
+                    unit.attempts + 1, false);
+        });
+    }
+
+    private WorkUnit selectForUpdate(String sql) {
+        List<WorkUnit> units = jdbcTemplate.query(sql, (rs, rowNum) -> new WorkUnit(
+                rs.getInt("unit_id"),
+                rs.getInt("batch_id"),
+                rs.getInt("first_answer_id"),
+                rs.getInt("last_answer_id"),
+                rs.getInt("attempts"),
+                false));
+        return units.isEmpty() ? null : units.get(0);
+    }
+
+    /**
+     * 为本节点持有的单元续租
+     *
+     * @return 成功续租的单元数，小于持有数说明部分租约已被其他节点接管
+     */
+    public int renew(String owner, Collection<Integer> unitIds, int leaseSeconds) {
+        if (unitIds.isEmpty()) {
+            return 0;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("seconds", leaseSeconds)
+                .addValue("unitIds", unitIds)
+                .addValue("owner", owner);
+        return namedParameterJdbcTemplate.update(RENEW_LEASES_SQL, params);
+    }
+
+    /**
+     * 确认本节点仍持有单元租约并锁定单元行，需在写入评测结果的事务中先于写入调用
+     *
+     * @throws LeaseLostException 租约已被其他节点接管或单元已结束，调用方事务随之回滚
+     */
+    public void holdLease(WorkUnit unit, String owner, int leaseSeconds) {
+        if (jdbcTemplate.update(HOLD_LEASE_SQL, leaseSeconds, unit.unitId, owner) == 0) {
+            throw new LeaseLostException(unit);
+        }
+    }
+
+    /**
+     * 标记单元完成，记录计数和区间内评测结果的指标状态
+     *
+     * @return 是否仍持有租约，为 false 时单元已被其他节点接管
+     */
+    public boolean complete(WorkUnit unit, String owner, UnitCounts counts, String metricsState) {
+        return jdbcTemplate.update(COMPLETE_UNIT_SQL, counts.processed, counts.evaluated, counts.skipped,
+                counts.failed, counts.cacheHits, metricsState, unit.unitId, owner) > 0;
+    }
+
+    /**
+     * 处理失败时释放单元，未达最大尝试次数的单元重新排队，否则标记为失败
+     */
+    public void release(WorkUnit unit, String owner, String error, int maxAttempts) {
+        jdbcTemplate.update(RELEASE_UNIT_SQL, maxAttempts, error, unit.unitId, owner);
+    }
+
+    /**
+     * 释放节点持有的全部租约，用于停机和以相同节点ID重启时让单元立即可被领取
+     */
+    public int releaseAll(String owner) {
+        return jdbcTemplate.update(RELEASE_OWNER_SQL, owner);
+    }
+
+    /**
+     * 失败的单元重新排队并清零领取次数，用于恢复批次
+     *
+     * @return 重新排队的单元数
+     */
+    public int requeueFailed(Integer batchId) {
+        return jdbcTemplate.update(REQUEUE_FAILED_SQL, batchId);
+    }
+
+    public boolean hasUnits(Integer batchId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(HAS_UNITS_SQL, Boolean.class, batchId));
+    }
+
+    public boolean hasActiveUnits(Integer batchId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(HAS_ACTIVE_UNITS_SQL, Boolean.class, batchId));
+    }
+
+    /**
+     * 已完成单元的指标状态，旧版本完成的单元没有状态时对应元素为 null
+     */
+    public List<String> completedMetricStates(Integer batchId) {
+        return jdbcTemplate.queryForList(SELECT_COMPLETED_STATES_SQL, String.class, batchId);
+    }
+
+    /**
+     * 所有单元都已结束时把批次标记为完成或失败
+     *
+     * @return 是否由本次调用结束了批次
+     */
+    public boolean finishBatchIfDone(Integer batchId) {
+        return jdbcTemplate.update(FINISH_BATCH_SQL, batchId, batchId, batchId) > 0;
+    }
+
+    /**
+     * 汇总批次全部单元的进度
+     */
+    public BatchUnitSummary summarize(Integer batchId) {
+        BatchUnitSummary summary = new BatchUnitSummary();
+        jdbcTemplate.query(COUNT_BY_STATUS_SQL, rs -> {
+            String status = rs.getString("status");
+            long units = rs.getLong("units");
+            summary.units += units;
+            summary.answers += rs.getLong("answers");
+            summary.processed += rs.getLong("processed");
+            summary.evaluated += rs.getLong("evaluated");
+            summary.skipped += rs.getLong("skipped");
+            summary.failed += rs.getLong("failed");
+            summary.cacheHits += rs.getLong("cache_hits");
+            switch (status) {
+                case "pending" -> summary.pendingUnits = units;
+                case "leased" -> {
+                    summary.leasedUnits = units;
+                    summary.activeNodes = rs.getLong("owners");
+                }
+                case "completed" -> summary.completedUnits = units;
+                case "failed" -> summary.failedUnits = units;
+                default -> { }
+            }
+        }, batchId);
+        Integer checkpoint = jdbcTemplate.queryForObject(SELECT_CHECKPOINT_SQL, Integer.class, batchId, batchId);
+        summary.checkpointAnswerId = checkpoint != null ? checkpoint : 0;
+        if (summary.failedUnits > 0) {
+            List<String> errors = jdbcTemplate.queryForList(SELECT_LAST_ERROR_SQL, String.class, batchId);
+            summary.lastError = errors.isEmpty() ? null : errors.get(0);
+        }
+        return summary;
+    }
+
+    /**
+     * 已领取的工作单元，包含回答ID闭区间 [firstAnswerId, lastAnswerId]
+     */
+    public static final class WorkUnit {
+        final int unitId;
+        final int batchId;
+        final int firstAnswerId;
+        final int lastAnswerId;
+        final int attempts;
+        final boolean exhausted;
+
+        WorkUnit(int unitId, int batchId, int firstAnswerId, int lastAnswerId, int attempts, boolean exhausted) {
+            this.unitId = unitId;
+            this.batchId = batchId;
+            this.firstAnswerId = firstAnswerId;
+            this.lastAnswerId = lastAnswerId;
+            this.attempts = attempts;
+            this.exhausted = exhausted;
+        }
+    }
+
+    /**
+     * 节点已不再持有工作单元的租约
+     */
+    public static final class LeaseLostException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        LeaseLostException(WorkUnit unit) {
+            super("评测批次 " + unit.batchId + " 的工作单元 " + unit.unitId + " 租约已被其他节点接管");
+        }
+    }
+
+    /**
+     * 单个工作单元的处理计数，仅由处理该单元的工作线程修改
+     */
+    static final class UnitCounts {
+        long processed;
+        long evaluated;
+        long skipped;
+        long failed;
+        long cacheHits;
+    }
+
+    /**
+     * 批次全部工作单元的汇总
+     */
+    static final class BatchUnitSummary {
+        long units;
+        long pendingUnits;
+        long leasedUnits;
+        long completedUnits;
+        long failedUnits;
+        long activeNodes;
+        long answers;
+        long processed;
+        long evaluated;
+        long skipped;
+        long failed;
+        long cacheHits;
+        // 该回答ID及之前的回答所在单元均已完成
+        int checkpointAnswerId;
+        String lastError;
+    }
+}
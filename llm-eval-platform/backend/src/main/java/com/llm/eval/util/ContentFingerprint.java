@@ -0,0 +1,66 @@
+package com.llm.eval.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * 问题文本的内容指纹
+ *
+ * 文本先做 NFKC 归一化（全角转半角等）并转小写，空白、标点和符号统一折叠为单个空格，
+ * 中日韩文字两侧的空格再去掉（这些文字本身不用空格分词），然后取 SHA-256 的前16字节，
+ * 以32位十六进制字符串存入 content_fingerprint 列。仅空白或标点不同的问题指纹相同，可走索引做等值查重。
+ * 原始问题按 question_body 计算，与由其转换出的标准问题文本可以直接比较。
+ */
+public final class ContentFingerprint {
+
+    /** 指纹长度（十六进制字符数），与数据库列 CHAR(32) 一致 */
+    public static final int LENGTH = 32;
+
+    private static final Pattern SEPARATORS = Pattern.compile("[\\s\\p{Z}\\p{P}\\p{S}\\p{Cc}\\p{Cf}]+");
+
+    private static final Pattern SPACE_NEAR_CJK = Pattern.compile(
+            " (?=[\\p{IsHan}\\p{IsHiragana}\\p{IsKatakana}\\p{IsHangul}])" +
+            "|(?<=[\\p{IsHan}\\p{IsHiragana}\\p{IsKatakana}\\p{IsHangul}]) ");
+
+    private ContentFingerprint() {
+    }
+
+    /**
+     * 计算文本的内容指纹
+     *
+     * @param text 问题文本
+     * @return 指纹；文本为 null 时返回 null
+     */
+    public static String of(String text) {
+        if (text == null) {
+            return null;
+        }
+        String normalized = normalize(text);
+        // 全部由标点组成的文本归一化后为空，退回原文计算，避免彼此误判为重复
+        byte[] bytes = (normalized.isEmpty() ? text.strip() : normalized).getBytes(StandardCharsets.UTF_8);
+        byte[] digest = sha256().digest(bytes);
+        return HexFormat.of().formatHex(digest, 0, LENGTH / 2);
+    }
+
+    /**
+     * 查重使用的归一化文本
+     */
+    public static String normalize(String text) {
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        String spaced = SEPARATORS.matcher(folded).replaceAll(" ").strip();
+        return SPACE_NEAR_CJK.matcher(spaced).replaceAll("");
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("当前JVM不支持SHA-256", e);
+        }
+    }
+}
@@ -0,0 +1,2 @@
+-- 数据集问题回答汇总查询所需索引：按问题+数据集版本关联模型回答
+CREATE INDEX idx_llm_answers_question_version ON llm_answers(standard_question_id, version_id, deleted_at);
@@ -0,0 +1,7 @@
+-- 裁判模型任务队列：记录调用次数与开始时间，同一批次内每个回答只生成一个任务
+ALTER TABLE judge_tasks
+    ADD COLUMN attempts INT NOT NULL DEFAULT 0 COMMENT '裁判模型调用次数' AFTER result_reason,
+    ADD COLUMN started_at TIMESTAMP NULL COMMENT '开始执行时间' AFTER created_at,
+    ADD UNIQUE KEY uk_judge_tasks_batch_answer (batch_id, llm_answer_id);
+
+CREATE INDEX idx_judge_tasks_batch_status ON judge_tasks(batch_id, status, task_id);
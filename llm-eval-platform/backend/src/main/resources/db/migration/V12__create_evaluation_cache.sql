@@ -0,0 +1,11 @@
+-- 评测结果缓存：相同回答内容在相同评分标准下复用已有评分，不再重复调用裁判模型
+CREATE TABLE evaluation_cache (
+    cache_key CHAR(64) PRIMARY KEY COMMENT '回答内容、标准答案及关键点版本、评测方法、裁判模型与评分模板的SHA-256',
+    method VARCHAR(20) NOT NULL COMMENT '评测方法',
+    standard_answer_id INT NOT NULL COMMENT '标准答案',
+    judge_model_id INT NULL COMMENT '裁判模型',
+    score DECIMAL(5,2) NOT NULL COMMENT '缓存的评分',
+    key_points_evaluation JSON COMMENT '缓存的关键点评估结果',
+    comments TEXT COMMENT '缓存的评语',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+) COMMENT='评测结果缓存';
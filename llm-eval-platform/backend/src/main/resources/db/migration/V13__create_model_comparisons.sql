@@ -0,0 +1,21 @@
+-- 模型回答的两两比较：同一问题下两个模型回答的显式胜负判定，与评分推导出的胜负一起用于计算排行榜
+CREATE TABLE model_comparisons (
+    comparison_id INT AUTO_INCREMENT PRIMARY KEY,
+    standard_question_id INT NOT NULL COMMENT '关联的标准问题',
+    answer1_id INT NOT NULL COMMENT '第一个模型回答ID',
+    answer2_id INT NOT NULL COMMENT '第二个模型回答ID',
+    model1_id INT NOT NULL COMMENT '第一个回答的模型',
+    model2_id INT NOT NULL COMMENT '第二个回答的模型',
+    winner ENUM('answer1', 'answer2', 'tie') NOT NULL COMMENT '选择的胜出方',
+    comparer_id INT NULL COMMENT '人工比较者ID',
+    judge_model_id INT NULL COMMENT '裁判模型ID（如果是模型比较）',
+    comparison_reason TEXT COMMENT '比较理由',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (standard_question_id) REFERENCES standard_questions(standard_question_id) ON DELETE CASCADE,
+    FOREIGN KEY (answer1_id) REFERENCES llm_answers(llm_answer_id) ON DELETE CASCADE,
+    FOREIGN KEY (answer2_id) REFERENCES llm_answers(llm_answer_id) ON DELETE CASCADE,
+    FOREIGN KEY (model1_id) REFERENCES llm_models(model_id) ON DELETE CASCADE,
+    FOREIGN KEY (model2_id) REFERENCES llm_models(model_id) ON DELETE CASCADE,
+    FOREIGN KEY (comparer_id) REFERENCES users(user_id) ON DELETE SET NULL,
+    FOREIGN KEY (judge_model_id) REFERENCES llm_models(model_id) ON DELETE SET NULL
+) COMMENT='模型回答的两两比较';
@@ -0,0 +1,26 @@
+-- 批次评测工作单元：批次按回答ID区间切分，各节点以 SELECT ... FOR UPDATE SKIP LOCKED 领取并定期续租，
+-- 租约过期的单元可被其他节点重新领取
+CREATE TABLE batch_work_units (
+    unit_id INT AUTO_INCREMENT PRIMARY KEY,
+    batch_id INT NOT NULL COMMENT '评测批次',
+    first_answer_id INT NOT NULL COMMENT '区间内第一个回答ID',
+    last_answer_id INT NOT NULL COMMENT '区间内最后一个回答ID',
+    answer_count INT NOT NULL COMMENT '区间内的回答数',
+    status ENUM('pending', 'leased', 'completed', 'failed') NOT NULL DEFAULT 'pending',
+    lease_owner VARCHAR(128) NULL COMMENT '持有租约的节点',
+    lease_expires_at DATETIME NULL COMMENT '租约到期时间（数据库时间）',
+    attempts INT NOT NULL DEFAULT 0 COMMENT '领取次数',
+    processed_count INT NOT NULL DEFAULT 0,
+    evaluated_count INT NOT NULL DEFAULT 0,
+    skipped_count INT NOT NULL DEFAULT 0,
+    failed_count INT NOT NULL DEFAULT 0,
+    cache_hit_count INT NOT NULL DEFAULT 0,
+    last_error TEXT COMMENT '最近一次执行失败的原因',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    UNIQUE KEY uk_batch_work_units_range (batch_id, first_answer_id),
+    FOREIGN KEY (batch_id) REFERENCES evaluation_batches(batch_id) ON DELETE CASCADE
+) COMMENT='批次评测工作单元';
+
+CREATE INDEX idx_batch_work_units_claim ON batch_work_units(status, lease_expires_at, unit_id);
+CREATE INDEX idx_batch_work_units_batch_status ON batch_work_units(batch_id, status);
@@ -0,0 +1,4 @@
+-- 工作单元完成时记录区间内评测结果的指标累加状态，作为批次的检查点，
+-- 批次恢复运行时已完成单元的指标直接合并，无需重新统计
+ALTER TABLE batch_work_units
+    ADD COLUMN metrics_state JSON NULL COMMENT '单元回答区间内评测结果的指标累加状态' AFTER cache_hit_count;
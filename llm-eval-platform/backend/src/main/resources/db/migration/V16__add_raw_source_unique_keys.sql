@@ -0,0 +1,52 @@
+-- 原始问题、原始回答按来源ID批量 upsert（INSERT ... ON DUPLICATE KEY UPDATE）所需唯一约束
+-- 软删除的记录不参与约束：生成列只在未删除时取来源ID，删除后为 NULL，重新导入同一来源ID会新建记录
+
+-- 未删除记录中重复的来源ID只保留ID最小的一条，其余软删除；
+-- 软删除前先把引用重复记录的外键改指向保留的记录，避免引用方从未删除记录的关联查询中消失
+CREATE TEMPORARY TABLE tmp_duplicate_raw_answers AS
+SELECT a.answer_id, d.keep_id FROM raw_answers a
+JOIN (SELECT source_answer_id, MIN(answer_id) AS keep_id FROM raw_answers
+      WHERE deleted_at IS NULL AND source_answer_id IS NOT NULL
+      GROUP BY source_answer_id HAVING COUNT(*) > 1) d ON d.source_answer_id = a.source_answer_id
+WHERE a.deleted_at IS NULL AND a.answer_id <> d.keep_id;
+
+CREATE TEMPORARY TABLE tmp_duplicate_raw_questions AS
+SELECT q.question_id, d.keep_id FROM raw_questions q
+JOIN (SELECT source_question_id, MIN(question_id) AS keep_id FROM raw_questions
+      WHERE deleted_at IS NULL AND source_question_id IS NOT NULL
+      GROUP BY source_question_id HAVING COUNT(*) > 1) d ON d.source_question_id = q.source_question_id
+WHERE q.deleted_at IS NULL AND q.question_id <> d.keep_id;
+
+UPDATE standard_answers sa JOIN tmp_duplicate_raw_answers t ON t.answer_id = sa.source_answer_id
+SET sa.source_answer_id = t.keep_id;
+
+UPDATE standard_qa_pairs p JOIN tmp_duplicate_raw_answers t ON t.answer_id = p.source_answer_id
+SET p.source_answer_id = t.keep_id;
+
+UPDATE raw_answers a JOIN tmp_duplicate_raw_answers t ON t.answer_id = a.answer_id
+SET a.deleted_at = NOW();
+
+UPDATE raw_answers a JOIN tmp_duplicate_raw_questions t ON t.question_id = a.question_id
+SET a.question_id = t.keep_id;
+
+UPDATE standard_questions sq JOIN tmp_duplicate_raw_questions t ON t.question_id = sq.source_question_id
+SET sq.source_question_id = t.keep_id;
+
+UPDATE standard_qa_pairs p JOIN tmp_duplicate_raw_questions t ON t.question_id = p.source_question_id
+SET p.source_question_id = t.keep_id;
+
+UPDATE raw_questions q JOIN tmp_duplicate_raw_questions t ON t.question_id = q.question_id
+SET q.deleted_at = NOW();
+
+DROP TEMPORARY TABLE tmp_duplicate_raw_answers;
+DROP TEMPORARY TABLE tmp_duplicate_raw_questions;
+
+ALTER TABLE raw_questions
+    ADD COLUMN live_source_question_id INT AS (IF(deleted_at IS NULL, source_question_id, NULL)) VIRTUAL
+        COMMENT '未删除记录的来源问题ID，用于唯一约束' AFTER deleted_at,
+    ADD UNIQUE KEY uk_raw_questions_live_source (live_source_question_id);
+
+ALTER TABLE raw_answers
+    ADD COLUMN live_source_answer_id INT AS (IF(deleted_at IS NULL, source_answer_id, NULL)) VIRTUAL
+        COMMENT '未删除记录的来源回答ID，用于唯一约束' AFTER deleted_at,
+    ADD UNIQUE KEY uk_raw_answers_live_source (live_source_answer_id);
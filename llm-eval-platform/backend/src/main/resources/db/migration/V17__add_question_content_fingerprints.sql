@@ -0,0 +1,10 @@
+-- 问题文本内容指纹（归一化文本的 SHA-256 前16字节，十六进制），用于按索引等值查重
+-- 指纹由应用计算：新写入的记录在写入时填充，已有记录由启动后的回填任务补齐（指纹为 NULL 的记录）
+ALTER TABLE raw_questions
+    ADD COLUMN content_fingerprint CHAR(32) NULL COMMENT '问题内容指纹（按question_body计算）' AFTER question_body;
+
+ALTER TABLE standard_questions
+    ADD COLUMN content_fingerprint CHAR(32) NULL COMMENT '问题内容指纹' AFTER question;
+
+CREATE INDEX idx_raw_questions_fingerprint ON raw_questions(content_fingerprint);
+CREATE INDEX idx_standard_questions_fingerprint ON standard_questions(content_fingerprint, source_question_id);
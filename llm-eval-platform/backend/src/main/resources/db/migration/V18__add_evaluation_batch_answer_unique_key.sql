@@ -0,0 +1,12 @@
+-- 批次内每个回答只保留一条评测结果：工作单元被其他节点接手时，重复写入由唯一约束拦截
+
+-- 已有的重复结果保留最先写入（ID最小）的一条
+DELETE e FROM evaluations e
+JOIN (SELECT batch_id, llm_answer_id, MIN(evaluation_id) AS keep_id FROM evaluations
+      WHERE batch_id IS NOT NULL
+      GROUP BY batch_id, llm_answer_id HAVING COUNT(*) > 1) d
+    ON d.batch_id = e.batch_id AND d.llm_answer_id = e.llm_answer_id
+WHERE e.evaluation_id <> d.keep_id;
+
+ALTER TABLE evaluations
+    ADD UNIQUE KEY uk_evaluations_batch_answer (batch_id, llm_answer_id);
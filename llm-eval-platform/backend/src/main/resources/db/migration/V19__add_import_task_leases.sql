@@ -0,0 +1,7 @@
+-- 导入任务租约：执行节点在提交任务和每个数据块提交时续租，
+-- 服务启动和心跳时只把本节点遗留的或租约已过期的未结束任务标记为失败
+ALTER TABLE import_tasks
+    ADD COLUMN lease_owner VARCHAR(128) NULL COMMENT '持有租约的节点' AFTER status,
+    ADD COLUMN lease_expires_at DATETIME NULL COMMENT '租约到期时间（数据库时间）' AFTER lease_owner;
+
+CREATE INDEX idx_import_tasks_lease ON import_tasks(status, lease_expires_at);
@@ -0,0 +1,19 @@
+-- 回答生成按批次认领：节点以条件 UPDATE 认领批次并定期续租，租约过期的批次可被其他节点重新认领
+ALTER TABLE evaluation_batches
+    ADD COLUMN generation_owner VARCHAR(128) NULL COMMENT '正在生成回答的节点' AFTER status,
+    ADD COLUMN generation_lease_expires_at DATETIME NULL COMMENT '回答生成租约到期时间（数据库时间）' AFTER generation_owner;
+
+-- 批次内每个问题只保留一条未删除的最终回答：多个节点重复生成时，回写由唯一约束拦截
+-- 已有的重复回答保留最先写入（ID最小）的一条，其余软删除
+UPDATE llm_answers a
+JOIN (SELECT batch_id, standard_question_id, MIN(llm_answer_id) AS keep_id FROM llm_answers
+      WHERE deleted_at IS NULL AND is_final AND batch_id IS NOT NULL
+      GROUP BY batch_id, standard_question_id HAVING COUNT(*) > 1) d
+    ON d.batch_id = a.batch_id AND d.standard_question_id = a.standard_question_id
+SET a.deleted_at = NOW()
+WHERE a.deleted_at IS NULL AND a.is_final AND a.llm_answer_id <> d.keep_id;
+
+ALTER TABLE llm_answers
+    ADD COLUMN live_batch_id INT AS (IF(deleted_at IS NULL AND is_final, batch_id, NULL)) VIRTUAL
+        COMMENT '未删除的最终回答所属批次，用于唯一约束' AFTER deleted_at,
+    ADD UNIQUE KEY uk_llm_answers_live_batch_question (live_batch_id, standard_question_id);
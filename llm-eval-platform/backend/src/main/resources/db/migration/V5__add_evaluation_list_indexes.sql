@@ -0,0 +1,3 @@
+-- 评测结果列表分页筛选所需索引
+CREATE INDEX idx_llm_answers_version ON llm_answers(version_id);
+CREATE INDEX idx_evaluations_method_score ON evaluations(method, score);
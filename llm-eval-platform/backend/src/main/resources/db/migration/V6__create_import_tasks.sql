@@ -0,0 +1,37 @@
+-- 数据导入任务表
+CREATE TABLE import_tasks (
+    import_id INT AUTO_INCREMENT PRIMARY KEY,
+    type VARCHAR(50) NOT NULL COMMENT '导入类型(RAW_QA/STANDARD_QA等)',
+    filename VARCHAR(255) COMMENT '上传的原始文件名',
+    file_path VARCHAR(1024) COMMENT '服务端暂存文件路径，用于后台导入和断点重试',
+    processed_count INT DEFAULT 0 COMMENT '已提交的记录数，重试时从该偏移量继续',
+    imported_count INT DEFAULT 0 COMMENT '成功导入数量',
+    updated_count INT DEFAULT 0 COMMENT '更新数量',
+    failed_count INT DEFAULT 0 COMMENT '失败数量',
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING' COMMENT '任务状态(PENDING/IN_PROGRESS/COMPLETED/FAILED/CANCELLED)',
+    details TEXT COMMENT '结果说明',
+    start_time TIMESTAMP NULL,
+    end_time TIMESTAMP NULL,
+    user_id INT COMMENT '发起导入的用户',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    deleted_at DATETIME NULL COMMENT '软删除标记，非空表示已删除',
+    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE SET NULL
+) COMMENT='数据导入任务';
+
+-- 数据导入任务日志表
+CREATE TABLE import_task_logs (
+    log_id INT AUTO_INCREMENT PRIMARY KEY,
+    import_id INT NOT NULL,
+    log_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    message TEXT NOT NULL,
+    log_level VARCHAR(20) DEFAULT 'INFO',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    deleted_at DATETIME NULL COMMENT '软删除标记，非空表示已删除',
+    FOREIGN KEY (import_id) REFERENCES import_tasks(import_id) ON DELETE CASCADE
+) COMMENT='数据导入任务日志';
+
+CREATE INDEX idx_import_tasks_type ON import_tasks(type, created_at);
+CREATE INDEX idx_import_tasks_status ON import_tasks(status);
+CREATE INDEX idx_import_task_logs_task ON import_task_logs(import_id, log_time);
@@ -0,0 +1,4 @@
+-- 待评测回答反连接查询所需索引
+-- evaluations(llm_answer_id) 已由 idx_evaluations_answer 覆盖，NOT EXISTS 子查询走该索引
+CREATE INDEX idx_llm_answers_model_deleted ON llm_answers(model_id, deleted_at);
+CREATE INDEX idx_standard_questions_category_type ON standard_questions(category_id, question_type);
@@ -0,0 +1,3 @@
+-- 按问题查找最终/最新标准答案所需复合索引
+-- 覆盖 standard_question_id + is_final 过滤与 updated_at 倒序取首条
+CREATE INDEX idx_standard_answers_question_final_updated ON standard_answers(standard_question_id, is_final, updated_at);
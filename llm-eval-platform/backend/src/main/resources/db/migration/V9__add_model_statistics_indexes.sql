@@ -0,0 +1,5 @@
+-- 模型评分统计所需索引
+-- evaluations 按 llm_answer_id 关联时直接从索引读取 score，无需回表
+CREATE INDEX idx_evaluations_answer_score ON evaluations(llm_answer_id, score);
+-- 按批次筛选统计
+CREATE INDEX idx_evaluations_batch_answer_score ON evaluations(batch_id, llm_answer_id, score);
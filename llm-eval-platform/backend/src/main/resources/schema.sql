@@ -8,13 +8,16 @@ CREATE TABLE raw_questions (
     source_question_id INT COMMENT '来源平台的问题ID',
     question_title TEXT COMMENT '问题标题',
     question_body TEXT NOT NULL COMMENT '问题内容(HTML格式)',
+    content_fingerprint CHAR(32) NULL COMMENT '问题内容指纹（按question_body计算）',
     source VARCHAR(255) COMMENT '来源网站',
     source_id INT COMMENT '来源网站上的ID',
     source_url VARCHAR(1024) COMMENT '来源URL',
     crawled_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '抓取时间',
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
-    deleted_at DATETIME NULL COMMENT '软删除标记，非空表示已删除'
+    deleted_at DATETIME NULL COMMENT '软删除标记，非空表示已删除',
+    live_source_question_id INT AS (IF(deleted_at IS NULL, source_question_id, NULL)) VIRTUAL COMMENT '未删除记录的来源问题ID，用于唯一约束',
+    UNIQUE KEY uk_raw_questions_live_source (live_source_question_id)
 ) COMMENT='存储从问答社区收集的原始问题';
 
 -- 原始回答表
@@ -29,7 +32,9 @@ CREATE TABLE raw_answers (
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     deleted_at DATETIME NULL COMMENT '软删除标记，非空表示已删除',
-    FOREIGN KEY (question_id) REFERENCES raw_questions(question_id) ON DELETE CASCADE
+    live_source_answer_id INT AS (IF(deleted_at IS NULL, source_answer_id, NULL)) VIRTUAL COMMENT '未删除记录的来源回答ID，用于唯一约束',
+    FOREIGN KEY (question_id) REFERENCES raw_questions(question_id) ON DELETE CASCADE,
+    UNIQUE KEY uk_raw_answers_live_source (live_source_answer_id)
 ) COMMENT='存储原始问题的回答';
 
 -- 问题分类表
@@ -67,6 +72,7 @@ CREATE TABLE users (
 CREATE TABLE standard_questions (
     standard_question_id INT AUTO_INCREMENT PRIMARY KEY,
     question TEXT NOT NULL COMMENT '标准化后的问题文本',
+    content_fingerprint CHAR(32) NULL COMMENT '问题内容指纹',
     category_id INT,
     question_type ENUM('single_choice', 'multiple_choice', 'simple_fact', 'subjective') DEFAULT 'subjective' COMMENT '问题类型',
     difficulty ENUM('easy', 'medium', 'hard') COMMENT '问题难度',
@@ -384,6 +390,7 @@ CREATE TABLE evaluations (
     comments TEXT,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    UNIQUE KEY uk_evaluations_batch_answer (batch_id, llm_answer_id),
     FOREIGN KEY (llm_answer_id) REFERENCES llm_answers(llm_answer_id) ON DELETE CASCADE,
     FOREIGN KEY (standard_answer_id) REFERENCES standard_answers(standard_answer_id) ON DELETE CASCADE,
     FOREIGN KEY (judge_model_id) REFERENCES llm_models(model_id) ON DELETE SET NULL,
@@ -423,8 +430,11 @@ CREATE TABLE judge_tasks (
     status ENUM('pending', 'in_progress', 'completed', 'failed') DEFAULT 'pending',
     result_score DECIMAL(5,2) COMMENT '评分结果',
     result_reason TEXT COMMENT '评分理由',
+    attempts INT NOT NULL DEFAULT 0 COMMENT '裁判模型调用次数',
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    started_at TIMESTAMP NULL COMMENT '开始执行时间',
     completed_at TIMESTAMP NULL COMMENT '完成时间',
+    UNIQUE KEY uk_judge_tasks_batch_answer (batch_id, llm_answer_id),
     FOREIGN KEY (batch_id) REFERENCES evaluation_batches(batch_id) ON DELETE CASCADE,
     FOREIGN KEY (llm_answer_id) REFERENCES llm_answers(llm_answer_id) ON DELETE CASCADE,
     FOREIGN KEY (standard_answer_id) REFERENCES standard_answers(standard_answer_id) ON DELETE CASCADE,
@@ -474,6 +484,99 @@ CREATE TABLE answer_comparisons (
     FOREIGN KEY (comparer_id) REFERENCES users(user_id) ON DELETE CASCADE
 ) COMMENT='众包答案的两两比较';
 
+-- 数据导入任务表
+CREATE TABLE import_tasks (
+    import_id INT AUTO_INCREMENT PRIMARY KEY,
+    type VARCHAR(50) NOT NULL COMMENT '导入类型(RAW_QA/STANDARD_QA等)',
+    filename VARCHAR(255) COMMENT '上传的原始文件名',
+    file_path VARCHAR(1024) COMMENT '服务端暂存文件路径，用于后台导入和断点重试',
+    processed_count INT DEFAULT 0 COMMENT '已提交的记录数，重试时从该偏移量继续',
+    imported_count INT DEFAULT 0 COMMENT '成功导入数量',
+    updated_count INT DEFAULT 0 COMMENT '更新数量',
+    failed_count INT DEFAULT 0 COMMENT '失败数量',
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING' COMMENT '任务状态(PENDING/IN_PROGRESS/COMPLETED/FAILED/CANCELLED)',
+    details TEXT COMMENT '结果说明',
+    start_time TIMESTAMP NULL,
+    end_time TIMESTAMP NULL,
+    user_id INT COMMENT '发起导入的用户',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    deleted_at DATETIME NULL COMMENT '软删除标记，非空表示已删除',
+    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE SET NULL
+) COMMENT='数据导入任务';
+
+-- 数据导入任务日志表
+CREATE TABLE import_task_logs (
+    log_id INT AUTO_INCREMENT PRIMARY KEY,
+    import_id INT NOT NULL,
+    log_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    message TEXT NOT NULL,
+    log_level VARCHAR(20) DEFAULT 'INFO',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    deleted_at DATETIME NULL COMMENT '软删除标记，非空表示已删除',
+    FOREIGN KEY (import_id) REFERENCES import_tasks(import_id) ON DELETE CASCADE
+) COMMENT='数据导入任务日志';
+
+-- 评测结果缓存：相同回答内容在相同评分标准下复用已有评分，不再重复调用裁判模型
+CREATE TABLE evaluation_cache (
+    cache_key CHAR(64) PRIMARY KEY COMMENT '回答内容、标准答案及关键点版本、评测方法、裁判模型与评分模板的SHA-256',
+    method VARCHAR(20) NOT NULL COMMENT '评测方法',
+    standard_answer_id INT NOT NULL COMMENT '标准答案',
+    judge_model_id INT NULL COMMENT '裁判模型',
+    score DECIMAL(5,2) NOT NULL COMMENT '缓存的评分',
+    key_points_evaluation JSON COMMENT '缓存的关键点评估结果',
+    comments TEXT COMMENT '缓存的评语',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+) COMMENT='评测结果缓存';
+
+-- 模型回答的两两比较：同一问题下两个模型回答的显式胜负判定，与评分推导出的胜负一起用于计算排行榜
+CREATE TABLE model_comparisons (
+    comparison_id INT AUTO_INCREMENT PRIMARY KEY,
+    standard_question_id INT NOT NULL COMMENT '关联的标准问题',
+    answer1_id INT NOT NULL COMMENT '第一个模型回答ID',
+    answer2_id INT NOT NULL COMMENT '第二个模型回答ID',
+    model1_id INT NOT NULL COMMENT '第一个回答的模型',
+    model2_id INT NOT NULL COMMENT '第二个回答的模型',
+    winner ENUM('answer1', 'answer2', 'tie') NOT NULL COMMENT '选择的胜出方',
+    comparer_id INT NULL COMMENT '人工比较者ID',
+    judge_model_id INT NULL COMMENT '裁判模型ID（如果是模型比较）',
+    comparison_reason TEXT COMMENT '比较理由',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (standard_question_id) REFERENCES standard_questions(standard_question_id) ON DELETE CASCADE,
+    FOREIGN KEY (answer1_id) REFERENCES llm_answers(llm_answer_id) ON DELETE CASCADE,
+    FOREIGN KEY (answer2_id) REFERENCES llm_answers(llm_answer_id) ON DELETE CASCADE,
+    FOREIGN KEY (model1_id) REFERENCES llm_models(model_id) ON DELETE CASCADE,
+    FOREIGN KEY (model2_id) REFERENCES llm_models(model_id) ON DELETE CASCADE,
+    FOREIGN KEY (comparer_id) REFERENCES users(user_id) ON DELETE SET NULL,
+    FOREIGN KEY (judge_model_id) REFERENCES llm_models(model_id) ON DELETE SET NULL
+) COMMENT='模型回答的两两比较';
+
+-- 批次评测工作单元：批次按回答ID区间切分，各节点以 SELECT ... FOR UPDATE SKIP LOCKED 领取并定期续租，
+-- 租约过期的单元可被其他节点重新领取
+CREATE TABLE batch_work_units (
+    unit_id INT AUTO_INCREMENT PRIMARY KEY,
+    batch_id INT NOT NULL COMMENT '评测批次',
+    first_answer_id INT NOT NULL COMMENT '区间内第一个回答ID',
+    last_answer_id INT NOT NULL COMMENT '区间内最后一个回答ID',
+    answer_count INT NOT NULL COMMENT '区间内的回答数',
+    status ENUM('pending', 'leased', 'completed', 'failed') NOT NULL DEFAULT 'pending',
+    lease_owner VARCHAR(128) NULL COMMENT '持有租约的节点',
+    lease_expires_at DATETIME NULL COMMENT '租约到期时间（数据库时间）',
+    attempts INT NOT NULL DEFAULT 0 COMMENT '领取次数',
+    processed_count INT NOT NULL DEFAULT 0,
+    evaluated_count INT NOT NULL DEFAULT 0,
+    skipped_count INT NOT NULL DEFAULT 0,
+    failed_count INT NOT NULL DEFAULT 0,
+    cache_hit_count INT NOT NULL DEFAULT 0,
+    metrics_state JSON NULL COMMENT '单元回答区间内评测结果的指标累加状态',
+    last_error TEXT COMMENT '最近一次执行失败的原因',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    UNIQUE KEY uk_batch_work_units_range (batch_id, first_answer_id),
+    FOREIGN KEY (batch_id) REFERENCES evaluation_batches(batch_id) ON DELETE CASCADE
+) COMMENT='批次评测工作单元';
+
 -- 创建额外的索引以优化查询性能
 CREATE INDEX idx_dataset_version_mapping ON dataset_question_mapping(version_id, standard_question_id);
 CREATE INDEX idx_source_question_ids ON raw_questions(source_question_id);
@@ -487,6 +590,8 @@ CREATE INDEX idx_raw_questions_source ON raw_questions(source);
 CREATE INDEX idx_raw_questions_deleted ON raw_questions(deleted_at);
 CREATE INDEX idx_standard_questions_category ON standard_questions(category_id);
 CREATE INDEX idx_standard_questions_status ON standard_questions(status);
+CREATE INDEX idx_raw_questions_fingerprint ON raw_questions(content_fingerprint);
+CREATE INDEX idx_standard_questions_fingerprint ON standard_questions(content_fingerprint, source_question_id);
 CREATE INDEX idx_standard_questions_type ON standard_questions(question_type);
 CREATE INDEX idx_standard_questions_deleted ON standard_questions(deleted_at);
 CREATE INDEX idx_standard_answers_deleted ON standard_answers(deleted_at);
@@ -496,9 +601,11 @@ CREATE INDEX idx_llm_answers_model ON llm_answers(model_id);
 CREATE INDEX idx_llm_answers_question ON llm_answers(standard_question_id);
 CREATE INDEX idx_llm_answers_batch ON llm_answers(batch_id);
 CREATE INDEX idx_llm_answers_deleted ON llm_answers(deleted_at);
+CREATE INDEX idx_llm_answers_version ON llm_answers(version_id);
 CREATE INDEX idx_evaluations_score ON evaluations(score);
 CREATE INDEX idx_evaluations_answer ON evaluations(llm_answer_id);
 CREATE INDEX idx_evaluations_method ON evaluations(method);
+CREATE INDEX idx_evaluations_method_score ON evaluations(method, score);
 CREATE INDEX idx_evaluations_key_points ON evaluation_key_points(evaluation_id);
 CREATE INDEX idx_crowdsourced_answers_question ON crowdsourced_answers(standard_question_id);
 CREATE INDEX idx_crowdsourced_answers_task ON crowdsourced_answers(task_id);
@@ -508,6 +615,18 @@ CREATE INDEX idx_expert_answers_question ON expert_answers(standard_question_id)
 CREATE INDEX idx_judge_tasks_status ON judge_tasks(status);
 CREATE INDEX idx_judge_tasks_batch ON judge_tasks(batch_id);
 CREATE INDEX idx_objective_options_question ON objective_question_options(standard_question_id);
+CREATE INDEX idx_import_tasks_type ON import_tasks(type, created_at);
+CREATE INDEX idx_import_tasks_status ON import_tasks(status);
+CREATE INDEX idx_import_task_logs_task ON import_task_logs(import_id, log_time);
+CREATE INDEX idx_llm_answers_model_deleted ON llm_answers(model_id, deleted_at);
+CREATE INDEX idx_standard_questions_category_type ON standard_questions(category_id, question_type);
+CREATE INDEX idx_standard_answers_question_final_updated ON standard_answers(standard_question_id, is_final, updated_at);
+CREATE INDEX idx_evaluations_answer_score ON evaluations(llm_answer_id, score);
+CREATE INDEX idx_evaluations_batch_answer_score ON evaluations(batch_id, llm_answer_id, score);
+CREATE INDEX idx_llm_answers_question_version ON llm_answers(standard_question_id, version_id, deleted_at);
+CREATE INDEX idx_judge_tasks_batch_status ON judge_tasks(batch_id, status, task_id);
+CREATE INDEX idx_batch_work_units_claim ON batch_work_units(status, lease_expires_at, unit_id);
+CREATE INDEX idx_batch_work_units_batch_status ON batch_work_units(batch_id, status);
 
 -- 添加版本历史索引
 CREATE INDEX idx_standard_question_versions ON standard_question_versions(standard_question_id, version);
@@ -0,0 +1,253 @@
+package com.llm.eval.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.llm.eval.dto.AnswerGenerationRequest;
+import com.llm.eval.model.DatasetVersion;
+import com.llm.eval.model.EvaluationBatch;
+import com.llm.eval.repository.EvaluationBatchRepository;
+import com.llm.eval.service.impl.StubModelServer.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 回答生成执行器测试：对本地桩服务验证回答按批写入、耗时与用量记录、中途取消以及批次认领
+ */
+class AnswerGenerationRunnerTest {
+
+    private static final int BATCH_ID = 5;
+    private static final int MODEL_ID = 2;
+    private static final int VERSION_ID = 4;
+    private static final String INSERT_ANSWER_PREFIX = "INSERT INTO llm_answers";
+    private static final String CLAIM_PREFIX = "UPDATE evaluation_batches SET generation_owner = ?, ";
+    private static final String RELEASE_PREFIX = "UPDATE evaluation_batches SET generation_owner = NULL";
+    private static final String NODE_ID = "node-a";
+
+    private StubModelServer server;
+    private RecordingJdbcTemplate jdbcTemplate;
+    private ThreadPoolTaskExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    void testAnswersArePersistedInJdbcBatches() throws Exception {
+        server = new StubModelServer((requestNo, body) -> body.contains("问题3")
+                ? Response.status(400, "{\"error\": \"bad request\"}")
+                : Response.ok("回答" + requestNo, 10).delay(20));
+        AnswerGenerationRunner runner = newRunner(batch("\"parameters\": {\"temperature\": 0.3}"), 2);
+        pendingQuestions(5);
+
+        AnswerGenerationRequest request = new AnswerGenerationRequest();
+        request.setPromptTemplate("请回答（{{lang}}）：{{question}}");
+        request.setPromptParams(Map.of("lang", "中文"));
+        Map<String, Object> progress = runner.run(BATCH_ID, request);
+
+        assertEquals("COMPLETED", progress.get("status"));
+        assertEquals(5L, progress.get("total"));
+        assertEquals(4, progress.get("generated"));
+        assertEquals(1, progress.get("failed"));
+        assertEquals(40L, progress.get("tokensUsed"));
+        assertTrue((Long) progress.get("averageLatencyMs") >= 20);
+
+        // 每批回答在一个事务中以一条批量语句写入
+        List<RecordingJdbcTemplate.Statement> inserts = jdbcTemplate.statements(INSERT_ANSWER_PREFIX);
+        assertTrue(inserts.size() >= 2, "回答应分多批写入，实际 " + inserts.size() + " 批");
+        for (RecordingJdbcTemplate.Statement insert : inserts) {
+            assertNotNull(insert.transactionId);
+            assertTrue(insert.rows.size() <= 4);
+        }
+        List<Map<Integer, Object>> rows = new ArrayList<>();
+        inserts.forEach(insert -> rows.addAll(insert.rows));
+        assertEquals(4, rows.size());
+        for (Map<Integer, Object> row : rows) {
+            assertEquals(MODEL_ID, row.get(1));
+            assertNotEquals(3, row.get(2));
+            assertEquals(VERSION_ID, row.get(3));
+            assertTrue(((String) row.get(4)).startsWith("回答"));
+            assertTrue((Integer) row.get(5) >= 20);
+            assertEquals(10, row.get(6));
+            assertEquals("请回答（{{lang}}）：{{question}}", row.get(7));
+            assertEquals("{\"lang\":\"中文\"}", row.get(8));
+            assertEquals(0.3, row.get(9));
+            assertNull(row.get(10));
+            assertEquals(BATCH_ID, row.get(11));
+            assertEquals(0, row.get(12));
+        }
+        assertTrue(server.requestBodies().stream().anyMatch(body -> body.contains("请回答（中文）：问题1")));
+        // 回写以唯一键去重，生成前认领批次、结束后释放
+        assertTrue(inserts.get(0).sql.contains("ON DUPLICATE KEY UPDATE"));
+        RecordingJdbcTemplate.Statement claim = jdbcTemplate.statements(CLAIM_PREFIX).get(0);
+        assertEquals(NODE_ID, claim.rows.get(0).get(1));
+        assertEquals(BATCH_ID, claim.rows.get(0).get(3));
+        RecordingJdbcTemplate.Statement release = jdbcTemplate.statements(RELEASE_PREFIX).get(0);
+        assertEquals(BATCH_ID, release.rows.get(0).get(1));
+        assertEquals(NODE_ID, release.rows.get(0).get(2));
+    }
+
+    @Test
+    void testBatchClaimedByAnotherNodeIsRejected() throws Exception {
+        server = new StubModelServer((requestNo, body) -> Response.ok("回答", 5));
+        AnswerGenerationRunner runner = newRunner(batch(null), 10);
+        pendingQuestions(3);
+        // 其他节点持有未过期的租约，认领不影响任何行
+        jdbcTemplate.onUpdate((sql, args) -> sql.startsWith(CLAIM_PREFIX) ? 0 : 1);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> runner.run(BATCH_ID, new AnswerGenerationRequest()));
+        assertTrue(e.getMessage().contains("其他节点"));
+        assertTrue(server.requestBodies().isEmpty());
+        assertTrue(jdbcTemplate.statements(INSERT_ANSWER_PREFIX).isEmpty());
+        assertTrue(jdbcTemplate.statements(RELEASE_PREFIX).isEmpty());
+        assertTrue(runner.getProgress(BATCH_ID).isEmpty());
+    }
+
+    @Test
+    void testStreamingAnswersRecordUsage() throws Exception {
+        server = new StubModelServer((requestNo, body) -> Response.stream(
+                StubModelServer.chunk("流式", null),
+                StubModelServer.chunk("回答", null),
+                StubModelServer.chunk(null, 25)));
+        AnswerGenerationRunner runner = newRunner(batch(null), 10);
+        pendingQuestions(3);
+
+        AnswerGenerationRequest request = new AnswerGenerationRequest();
+        request.setStream(true);
+        request.setSystemPrompt("你是数据库课程助教");
+        Map<String, Object> progress = runner.run(BATCH_ID, request);
+
+        assertEquals(3, progress.get("generated"));
+        assertEquals(75L, progress.get("tokensUsed"));
+        List<RecordingJdbcTemplate.Statement> inserts = jdbcTemplate.statements(INSERT_ANSWER_PREFIX);
+        assertEquals(3, inserts.stream().mapToInt(insert -> insert.rows.size()).sum());
+        for (RecordingJdbcTemplate.Statement insert : inserts) {
+            for (Map<Integer, Object> row : insert.rows) {
+                assertEquals("流式回答", row.get(4));
+                assertEquals(25, row.get(6));
+            }
+        }
+        assertTrue(server.requestBodies().stream().allMatch(body -> body.contains("你是数据库课程助教")));
+    }
+
+    @Test
+    void testCancelMidBatchKeepsReturnedAnswers() throws Exception {
+        // 前两个问题立即返回，其余请求一直挂起直到被取消
+        server = new StubModelServer((requestNo, body) -> body.contains("问题1") || body.contains("问题2")
+                ? Response.ok("回答", 5)
+                : Response.ok("迟到的回答", 5).delay(10_000));
+        AnswerGenerationRunner runner = newRunner(batch(null), 100);
+        pendingQuestions(6);
+
+        runner.start(BATCH_ID, new AnswerGenerationRequest());
+        awaitProgress(runner, progress -> (Integer) progress.get("generated") == 2
+                && (Integer) progress.get("inFlight") == 4);
+
+        long start = System.nanoTime();
+        assertTrue(runner.cancel(BATCH_ID));
+        Map<String, Object> progress = awaitProgress(runner, p -> !"RUNNING".equals(p.get("status")));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals("CANCELLED", progress.get("status"));
+        assertEquals(2, progress.get("generated"));
+        // 被取消的请求不计为失败
+        assertEquals(0, progress.get("failed"));
+        assertEquals(0, progress.get("inFlight"));
+        assertEquals(4L, progress.get("remaining"));
+        assertTrue(elapsedMs < 5000, "取消后应立即结束，实际耗时 " + elapsedMs + "ms");
+        assertEquals(2, jdbcTemplate.statements(INSERT_ANSWER_PREFIX).stream()
+                .mapToInt(insert -> insert.rows.size()).sum());
+        assertFalse(runner.cancel(BATCH_ID));
+    }
+
+    private AnswerGenerationRunner newRunner(EvaluationBatch batch, int writeBatchSize) {
+        jdbcTemplate = new RecordingJdbcTemplate();
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.initialize();
+        EvaluationBatchRepository batchRepository = (EvaluationBatchRepository) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{EvaluationBatchRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findById")) {
+                        return Optional.of(batch).filter(b -> b.getBatchId().equals(args[0]));
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        AnswerGenerationRunner runner = new AnswerGenerationRunner(batchRepository, StubModelServer.newClient(1, 10),
+                new ObjectMapper(), jdbcTemplate, jdbcTemplate.transactionManager(), executor,
+                new ThreadPoolTaskScheduler(), new ClusterNode(NODE_ID));
+        ReflectionTestUtils.setField(runner, "maxInFlight", 4);
+        ReflectionTestUtils.setField(runner, "pageSize", 3);
+        ReflectionTestUtils.setField(runner, "writeBatchSize", writeBatchSize);
+        ReflectionTestUtils.setField(runner, "flushIntervalMs", 50L);
+        ReflectionTestUtils.setField(runner, "leaseSeconds", 60);
+        return runner;
+    }
+
+    private EvaluationBatch batch(String modelConfig) {
+        DatasetVersion version = new DatasetVersion();
+        version.setVersionId(VERSION_ID);
+        EvaluationBatch batch = new EvaluationBatch();
+        batch.setBatchId(BATCH_ID);
+        batch.setModel(server.model(MODEL_ID, "gen", modelConfig));
+        batch.setDatasetVersion(version);
+        return batch;
+    }
+
+    /**
+     * 待生成问题的ID为 1..count，内容为"问题N"
+     */
+    private void pendingQuestions(int count) {
+        List<Map<String, Object>> questions = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("standard_question_id", i);
+            row.put("question", "问题" + i);
+            row.put("question_type", "subjective");
+            questions.add(row);
+        }
+        jdbcTemplate.onQuery((sql, args) -> {
+            if (sql.startsWith("SELECT COUNT(*)")) {
+                return List.of(Map.of("count", (long) count));
+            }
+            assertEquals(VERSION_ID, args[0]);
+            assertEquals(BATCH_ID, args[1]);
+            int afterQuestionId = (Integer) args[2];
+            int limit = (Integer) args[3];
+            return questions.stream()
+                    .filter(row -> (Integer) row.get("standard_question_id") > afterQuestionId)
+                    .limit(limit).toList();
+        });
+    }
+
+    private static Map<String, Object> awaitProgress(AnswerGenerationRunner runner,
+                                                     Predicate<Map<String, Object>> condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        Map<String, Object> progress = runner.getProgress(BATCH_ID).orElseThrow();
+        while (!condition.test(progress) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            progress = runner.getProgress(BATCH_ID).orElseThrow();
+        }
+        assertTrue(condition.test(progress), "进度未达到预期: " + progress);
+        return progress;
+    }
+}
@@ -0,0 +1,158 @@
+package com.llm.eval.service.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 批次指标累加器测试：分块累加后合并与单次遍历的结果一致，状态经 JSON 往返后可继续合并
+ */
+class BatchMetricsTest {
+
+    private static final double[] PASS_THRESHOLDS = {6.0, 8.5};
+    private static final String[] CATEGORIES = {"数据库", "操作系统", null};
+    private static final String[] DIFFICULTIES = {"easy", "medium", "hard"};
+
+    @Test
+    void testQuantilesAndMomentsOnKnownScores() {
+        BatchMetrics metrics = new BatchMetrics(PASS_THRESHOLDS);
+        for (int score = 1; score <= 10; score++) {
+            metrics.add(BigDecimal.valueOf(score), "数据库", "easy");
+        }
+        metrics.add(null, "数据库", "easy");
+
+        Map<String, Object> map = metrics.toMap();
+
+        assertEquals(10L, map.get("count"));
+        assertEquals(1L, map.get("unscored"));
+        assertEquals(5.5, map.get("mean"));
+        // 总体标准差 sqrt(8.25)
+        assertEquals(2.8723, map.get("stddev"));
+        assertEquals(1.0, map.get("min"));
+        assertEquals(10.0, map.get("max"));
+        // 最近秩法：p50 为第 5 个、p90 为第 9 个、p99 为第 10 个
+        assertEquals(Map.of("p50", 5.0, "p90", 9.0, "p99", 10.0), map.get("quantiles"));
+        assertEquals(Map.of("6.0", 0.5, "8.5", 0.2), map.get("passRates"));
+    }
+
+    @Test
+    void testMergedChunksEqualSinglePass() {
+        List<Row> rows = rows(2000, 7);
+        BatchMetrics single = new BatchMetrics(PASS_THRESHOLDS);
+        rows.forEach(row -> row.addTo(single));
+
+        // 大小不一的数据块，包含空块和只有未评分记录的块
+        int[] bounds = {0, 1, 1, 333, 334, 1500, 2000};
+        BatchMetrics merged = new BatchMetrics(PASS_THRESHOLDS);
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            BatchMetrics chunk = new BatchMetrics(PASS_THRESHOLDS);
+            rows.subList(bounds[i], bounds[i + 1]).forEach(row -> row.addTo(chunk));
+            merged.merge(chunk);
+        }
+
+        assertEquals(single.toMap(), merged.toMap());
+        assertEquals(single.getCount(), merged.getCount());
+    }
+
+    @Test
+    void testMergedMomentsMatchTwoPassComputation() {
+        List<Row> rows = rows(5000, 11);
+        BatchMetrics merged = new BatchMetrics(PASS_THRESHOLDS);
+        for (int from = 0; from < rows.size(); from += 700) {
+            BatchMetrics chunk = new BatchMetrics(PASS_THRESHOLDS);
+            rows.subList(from, Math.min(rows.size(), from + 700)).forEach(row -> row.addTo(chunk));
+            merged.merge(chunk);
+        }
+
+        double sum = 0;
+        int count = 0;
+        for (Row row : rows) {
+            if (row.score != null) {
+                sum += row.score.doubleValue();
+                count++;
+            }
+        }
+        double mean = sum / count;
+        double squares = 0;
+        for (Row row : rows) {
+            if (row.score != null) {
+                squares += Math.pow(row.score.doubleValue() - mean, 2);
+            }
+        }
+
+        Map<String, Object> map = merged.toMap();
+        assertEquals((long) count, map.get("count"));
+        assertEquals(mean, (Double) map.get("mean"), 1e-4);
+        assertEquals(Math.sqrt(squares / count), (Double) map.get("stddev"), 1e-4);
+    }
+
+    @Test
+    void testStateRoundTripContinuesMerging() throws Exception {
+        List<Row> rows = rows(1200, 3);
+        BatchMetrics single = new BatchMetrics(PASS_THRESHOLDS);
+        rows.forEach(row -> row.addTo(single));
+
+        BatchMetrics first = new BatchMetrics(PASS_THRESHOLDS);
+        rows.subList(0, 500).forEach(row -> row.addTo(first));
+        ObjectMapper objectMapper = new ObjectMapper();
+        String json = objectMapper.writeValueAsString(first.toState());
+        BatchMetrics restored = BatchMetrics.fromState(objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {}));
+
+        BatchMetrics rest = new BatchMetrics(PASS_THRESHOLDS);
+        rows.subList(500, rows.size()).forEach(row -> row.addTo(rest));
+        restored.merge(rest);
+
+        assertEquals(single.toMap(), restored.toMap());
+        assertTrue(restored.isCompatibleWith(single));
+        assertFalse(restored.isCompatibleWith(new BatchMetrics(new double[]{6.0})));
+    }
+
+    @Test
+    void testMalformedStateIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> BatchMetrics.fromState(Map.of("passThresholds", List.of(6.0))));
+    }
+
+    /**
+     * 两位小数的评分，约 5% 未评分，部分评测带关键点状态
+     */
+    private static List<Row> rows(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Row> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            BigDecimal score = random.nextInt(20) == 0 ? null : BigDecimal.valueOf(random.nextInt(1001), 2);
+            Map<String, Integer> keyPoints = random.nextBoolean()
+                    ? Map.of("MATCHED", random.nextInt(4), "MISSED", random.nextInt(3))
+                    : Map.of();
+            rows.add(new Row(score, CATEGORIES[random.nextInt(CATEGORIES.length)],
+                    DIFFICULTIES[random.nextInt(DIFFICULTIES.length)], keyPoints));
+        }
+        return rows;
+    }
+
+    private static final class Row {
+        final BigDecimal score;
+        final String category;
+        final String difficulty;
+        final Map<String, Integer> keyPoints;
+
+        Row(BigDecimal score, String category, String difficulty, Map<String, Integer> keyPoints) {
+            this.score = score;
+            this.category = category;
+            this.difficulty = difficulty;
+            this.keyPoints = keyPoints;
+        }
+
+        void addTo(BatchMetrics metrics) {
+            metrics.add(score, category, difficulty);
+            metrics.addKeyPoints(keyPoints);
+        }
+    }
+}
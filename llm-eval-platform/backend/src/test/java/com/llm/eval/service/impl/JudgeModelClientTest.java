@@ -0,0 +1,154 @@
+package com.llm.eval.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.llm.eval.service.impl.StubModelServer.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 裁判模型客户端测试：对本地桩服务验证重试退避、超时与按模型的并发上限
+ */
+class JudgeModelClientTest {
+
+    private StubModelServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    void testRetriesServerErrorsWithExponentialBackoff() throws Exception {
+        server = new StubModelServer((requestNo, body) -> requestNo <= 2
+                ? Response.status(503, "{\"error\": \"overloaded\"}")
+                : Response.ok("{\"score\": 8, \"reason\": \"基本正确\"}", 120));
+        JudgeModelClient client = new JudgeModelClient(StubModelServer.newClient(3, 50), new ObjectMapper());
+
+        long start = System.nanoTime();
+        JudgeModelClient.JudgeResult result = client.judge(server.model(1, "judge", null), request("回答"))
+                .get(10, TimeUnit.SECONDS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(new BigDecimal("8.00"), result.getScore());
+        assertEquals("基本正确", result.getReason());
+        assertEquals(3, result.getAttempts());
+        assertEquals(3, server.requestCount());
+        // 退避从 50ms 开始翻倍，抖动后两次等待分别不少于 25ms 和 50ms
+        assertTrue(elapsedMs >= 75, "两次重试之间应有退避等待，实际耗时 " + elapsedMs + "ms");
+    }
+
+    @Test
+    void testRateLimitHonoursRetryAfter() throws Exception {
+        server = new StubModelServer((requestNo, body) -> requestNo == 1
+                ? Response.status(429, "{\"error\": \"rate limited\"}").header("Retry-After", "1")
+                : Response.ok("{\"score\": 6}", null));
+        JudgeModelClient client = new JudgeModelClient(StubModelServer.newClient(3, 10), new ObjectMapper());
+
+        long start = System.nanoTime();
+        JudgeModelClient.JudgeResult result = client.judge(server.model(1, "judge", null), request("回答"))
+                .get(10, TimeUnit.SECONDS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(new BigDecimal("6.00"), result.getScore());
+        assertEquals(2, result.getAttempts());
+        assertTrue(elapsedMs >= 950, "应按 Retry-After 等待约 1 秒，实际耗时 " + elapsedMs + "ms");
+    }
+
+    @Test
+    void testClientErrorIsNotRetried() throws Exception {
+        server = new StubModelServer((requestNo, body) -> Response.status(400, "{\"error\": \"bad request\"}"));
+        JudgeModelClient client = new JudgeModelClient(StubModelServer.newClient(3, 10), new ObjectMapper());
+
+        ModelApiClient.ModelCallException error = callError(
+                client.judge(server.model(1, "judge", null), request("回答")));
+
+        assertEquals(1, error.getAttempts());
+        assertTrue(error.getMessage().startsWith("HTTP 400"));
+        assertEquals(1, server.requestCount());
+    }
+
+    @Test
+    void testUnparseableScoreIsRetried() throws Exception {
+        server = new StubModelServer((requestNo, body) -> requestNo == 1
+                ? Response.ok("无法给出评分", null)
+                : Response.ok("评分：7.5 分", null));
+        JudgeModelClient client = new JudgeModelClient(StubModelServer.newClient(3, 10), new ObjectMapper());
+
+        JudgeModelClient.JudgeResult result = client.judge(server.model(1, "judge", null), request("回答"))
+                .get(10, TimeUnit.SECONDS);
+
+        assertEquals(new BigDecimal("7.50"), result.getScore());
+        assertEquals(2, result.getAttempts());
+    }
+
+    @Test
+    void testTimeoutIsRetriedThenFails() throws Exception {
+        server = new StubModelServer((requestNo, body) -> Response.ok("{\"score\": 9}", null).delay(3000));
+        JudgeModelClient client = new JudgeModelClient(StubModelServer.newClient(2, 10), new ObjectMapper());
+
+        long start = System.nanoTime();
+        ModelApiClient.ModelCallException error = callError(
+                client.judge(server.model(1, "judge", "\"timeout_seconds\": 1"), request("回答")));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(2, error.getAttempts());
+        assertTrue(error.getMessage().contains("HttpTimeoutException"), error.getMessage());
+        assertEquals(2, server.requestCount());
+        assertTrue(elapsedMs < 3000, "超时应在 timeout_seconds 后结束请求，实际耗时 " + elapsedMs + "ms");
+    }
+
+    @Test
+    void testConcurrencyIsCappedPerModel() throws Exception {
+        Map<String, AtomicInteger> active = Map.of("judge-a", new AtomicInteger(), "judge-b", new AtomicInteger());
+        Map<String, AtomicInteger> peak = Map.of("judge-a", new AtomicInteger(), "judge-b", new AtomicInteger());
+        server = new StubModelServer((requestNo, body) -> {
+            String model = body.contains("\"model\":\"judge-a\"") ? "judge-a" : "judge-b";
+            peak.get(model).accumulateAndGet(active.get(model).incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(100);
+            } finally {
+                active.get(model).decrementAndGet();
+            }
+            return Response.ok("{\"score\": 7}", null);
+        });
+        JudgeModelClient client = new JudgeModelClient(StubModelServer.newClient(1, 10), new ObjectMapper());
+
+        List<CompletableFuture<JudgeModelClient.JudgeResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(client.judge(server.model(1, "judge-a", "\"max_concurrency\": 2"), request("回答" + i)));
+            futures.add(client.judge(server.model(2, "judge-b", "\"max_concurrency\": 2"), request("回答" + i)));
+        }
+        for (CompletableFuture<JudgeModelClient.JudgeResult> future : futures) {
+            assertEquals(new BigDecimal("7.00"), future.get(10, TimeUnit.SECONDS).getScore());
+        }
+
+        assertEquals(2, peak.get("judge-a").get());
+        assertEquals(2, peak.get("judge-b").get());
+        // 两个模型的并发上限互不占用
+        assertTrue(server.maxConcurrentRequests() > 2);
+        assertEquals(16, server.requestCount());
+    }
+
+    private static JudgeModelClient.JudgeRequest request(String answer) {
+        return new JudgeModelClient.JudgeRequest("什么是事务？", "事务是一组原子执行的操作", List.of("原子性"), answer);
+    }
+
+    private static ModelApiClient.ModelCallException callError(CompletableFuture<?> future) {
+        ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof ModelApiClient.ModelCallException, String.valueOf(error.getCause()));
+        return (ModelApiClient.ModelCallException) error.getCause();
+    }
+}
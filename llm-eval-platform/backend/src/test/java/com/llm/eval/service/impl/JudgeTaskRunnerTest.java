@@ -0,0 +1,175 @@
+package com.llm.eval.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.llm.eval.model.Evaluation;
+import com.llm.eval.model.EvaluationBatch;
+import com.llm.eval.model.StandardAnswer;
+import com.llm.eval.service.impl.StubModelServer.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 裁判任务执行器测试：任务状态与评测记录按批在同一事务中回写
+ */
+class JudgeTaskRunnerTest {
+
+    private static final int BATCH_ID = 3;
+    private static final String UPDATE_RESULT_PREFIX = "UPDATE judge_tasks SET status = ?";
+
+    private StubModelServer server;
+    private RecordingJdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    void testResultsAreWrittenBackInOneBatchedTransaction() throws Exception {
+        server = new StubModelServer((requestNo, body) -> body.contains("无效回答")
+                ? Response.status(400, "{\"error\": \"bad request\"}")
+                : Response.ok("{\"score\": 8, \"reason\": \"正确\"}", null));
+        JudgeTaskRunner runner = newRunner(5);
+        EvaluationBatch batch = judgeBatch(null);
+        pendingTasks("回答1", "回答2", "无效回答", "回答4", "回答5");
+
+        List<List<Evaluation>> writes = new ArrayList<>();
+        List<Integer> writeTransactions = new ArrayList<>();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        runner.run(batch, 101, 105, standardAnswers(), evaluations -> {
+            writes.add(evaluations);
+            writeTransactions.add(jdbcTemplate.currentTransactionId());
+        }, (completedCount, failedCount) -> {
+            completed.addAndGet(completedCount);
+            failed.addAndGet(failedCount);
+        });
+
+        // 区间内中断、失败或评测结果缺失的任务先重新排队
+        RecordingJdbcTemplate.Statement reset = jdbcTemplate.statements("UPDATE judge_tasks jt SET").get(0);
+        assertEquals(List.of(BATCH_ID, 101, 105), new ArrayList<>(reset.rows.get(0).values()));
+
+        List<RecordingJdbcTemplate.Statement> results = jdbcTemplate.statements(UPDATE_RESULT_PREFIX);
+        assertEquals(1, results.size());
+        assertEquals(5, results.get(0).rows.size());
+        assertNotNull(results.get(0).transactionId);
+
+        assertEquals(1, writes.size());
+        assertEquals(4, writes.get(0).size());
+        assertEquals(results.get(0).transactionId, writeTransactions.get(0));
+        for (Evaluation evaluation : writes.get(0)) {
+            assertEquals(new BigDecimal("8.00"), evaluation.getScore());
+            assertEquals("正确", evaluation.getComments());
+            assertEquals(BATCH_ID, evaluation.getBatch().getBatchId());
+            assertEquals(batch.getJudgeModel(), evaluation.getJudgeModel());
+            assertEquals(7, evaluation.getStandardAnswer().getStandardAnswerId());
+        }
+
+        Map<Integer, Map<Integer, Object>> rowsByTask = new LinkedHashMap<>();
+        for (Map<Integer, Object> row : results.get(0).rows) {
+            rowsByTask.put((Integer) row.get(5), row);
+        }
+        Map<Integer, Object> failedRow = rowsByTask.get(13);
+        assertEquals("failed", failedRow.get(1));
+        assertNull(failedRow.get(2));
+        assertEquals(1, failedRow.get(4));
+        assertEquals("completed", rowsByTask.get(11).get(1));
+        assertEquals(new BigDecimal("8.00"), rowsByTask.get(11).get(2));
+
+        assertEquals(4, completed.get());
+        assertEquals(1, failed.get());
+    }
+
+    @Test
+    void testWriteBackIsSplitByWriteBatchSize() throws Exception {
+        server = new StubModelServer((requestNo, body) ->
+                Response.ok("{\"score\": 5}", null).delay(30));
+        JudgeTaskRunner runner = newRunner(2);
+        // 同时只有一个在途请求，结果逐个返回
+        EvaluationBatch batch = judgeBatch("\"max_concurrency\": 1");
+        pendingTasks("回答1", "回答2", "回答3", "回答4", "回答5");
+
+        List<Integer> writeTransactions = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger written = new AtomicInteger();
+        runner.run(batch, 101, 105, standardAnswers(), evaluations -> {
+            written.addAndGet(evaluations.size());
+            writeTransactions.add(jdbcTemplate.currentTransactionId());
+        }, (completedCount, failedCount) -> { });
+
+        List<RecordingJdbcTemplate.Statement> results = jdbcTemplate.statements(UPDATE_RESULT_PREFIX);
+        assertTrue(results.size() >= 2, "结果应分多批回写，实际 " + results.size() + " 批");
+        assertEquals(5, results.stream().mapToInt(statement -> statement.rows.size()).sum());
+        assertEquals(5, written.get());
+        // 每批评测记录与任务状态在同一事务中提交
+        assertEquals(results.stream().map(statement -> statement.transactionId).toList(), writeTransactions);
+    }
+
+    private JudgeTaskRunner newRunner(int writeBatchSize) {
+        jdbcTemplate = new RecordingJdbcTemplate();
+        NamedParameterJdbcTemplate namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        JudgeModelClient judgeModelClient = new JudgeModelClient(StubModelServer.newClient(1, 10), new ObjectMapper());
+        EvaluationCache evaluationCache = new EvaluationCache(jdbcTemplate, namedParameterJdbcTemplate, false, 10);
+        JudgeTaskRunner runner = new JudgeTaskRunner(judgeModelClient, evaluationCache, jdbcTemplate,
+                namedParameterJdbcTemplate, jdbcTemplate.transactionManager());
+        ReflectionTestUtils.setField(runner, "maxInFlight", 100);
+        ReflectionTestUtils.setField(runner, "claimSize", 100);
+        ReflectionTestUtils.setField(runner, "writeBatchSize", writeBatchSize);
+        // 只按批量大小和运行结束回写
+        ReflectionTestUtils.setField(runner, "flushIntervalMs", 60_000L);
+        return runner;
+    }
+
+    private EvaluationBatch judgeBatch(String judgeConfig) {
+        EvaluationBatch batch = new EvaluationBatch();
+        batch.setBatchId(BATCH_ID);
+        batch.setEvaluationMethod(EvaluationBatch.EvaluationMethod.JUDGE_MODEL);
+        batch.setJudgeModel(server.model(9, "judge", judgeConfig));
+        return batch;
+    }
+
+    /**
+     * 待处理任务的任务ID从 11 开始，回答ID从 101 开始
+     */
+    private void pendingTasks(String... contents) {
+        List<Map<String, Object>> tasks = new ArrayList<>();
+        for (int i = 0; i < contents.length; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("task_id", 11 + i);
+            row.put("llm_answer_id", 101 + i);
+            row.put("standard_answer_id", 7);
+            row.put("content", contents[i]);
+            row.put("question", "什么是事务？");
+            row.put("answer", "事务是一组原子执行的操作");
+            tasks.add(row);
+        }
+        jdbcTemplate.onQuery((sql, args) -> {
+            if (!sql.startsWith("SELECT jt.task_id")) {
+                return List.of();
+            }
+            int afterTaskId = (Integer) args[3];
+            int limit = (Integer) args[4];
+            return tasks.stream().filter(row -> (Integer) row.get("task_id") > afterTaskId).limit(limit).toList();
+        });
+    }
+
+    private static Map<Integer, StandardAnswer> standardAnswers() {
+        StandardAnswer standardAnswer = new StandardAnswer();
+        standardAnswer.setStandardAnswerId(7);
+        standardAnswer.setAnswer("事务是一组原子执行的操作");
+        return Map.of(1, standardAnswer);
+    }
+}
@@ -0,0 +1,192 @@
+package com.llm.eval.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.llm.eval.dto.EvaluationKeyPointDTO;
+import com.llm.eval.model.AnswerKeyPoint;
+import com.llm.eval.model.AnswerKeyPoint.PointType;
+import com.llm.eval.model.EvaluationKeyPoint.KeyPointStatus;
+import com.llm.eval.model.StandardAnswer;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 关键点评分器测试：分词归一化、匹配阈值、加分与扣分项权重以及无关键点时的召回率评分
+ */
+class KeyPointScorerTest {
+
+    // 五个互不相同的英文词元，便于按覆盖率构造回答
+    private static final String FIVE_WORDS = "alpha beta gamma delta epsilon";
+
+    private final KeyPointScorer scorer = new KeyPointScorer(new ObjectMapper());
+
+    @Test
+    void testCjkTextIsSplitIntoBigrams() {
+        // "数据库事务" 的二元组为 数据/据库/库事/事务，"事务数据库" 命中其中 3 个
+        StandardAnswer answer = standardAnswer(1, null, keyPoint(1, "数据库事务", PointType.required, "1"));
+
+        KeyPointScorer.ScoreResult result = scorer.score(answer, "事务数据库");
+
+        EvaluationKeyPointDTO point = result.getKeyPoints().get(0);
+        assertEquals(KeyPointStatus.PARTIAL, point.getStatus());
+        assertEquals(new BigDecimal("0.75"), point.getScore());
+        assertEquals(new BigDecimal("7.50"), result.getScore());
+    }
+
+    @Test
+    void testCjkStopCharactersAreIgnored() {
+        // 单字 "的" 以及 "是的" 这样两字都是停用字的二元组不参与匹配
+        StandardAnswer answer = standardAnswer(1, null, keyPoint(1, "原子性，的，是的", PointType.required, "1"));
+
+        KeyPointScorer.ScoreResult result = scorer.score(answer, "原子性");
+
+        assertEquals(KeyPointStatus.MATCHED, result.getKeyPoints().get(0).getStatus());
+    }
+
+    @Test
+    void testFullWidthAndCaseAreNormalized() {
+        StandardAnswer answer = standardAnswer(1, null, keyPoint(1, "SQL JOIN 2PL", PointType.required, "1"));
+
+        KeyPointScorer.ScoreResult result = scorer.score(answer, "使用ｓｑｌ　Ｊｏｉｎ和２ＰＬ");
+
+        assertEquals(KeyPointStatus.MATCHED, result.getKeyPoints().get(0).getStatus());
+        assertEquals(new BigDecimal("10.00"), result.getScore());
+    }
+
+    @Test
+    void testEnglishStopWordsAreIgnored() {
+        StandardAnswer answer = standardAnswer(1, null, keyPoint(1, "the isolation of the transaction",
+                PointType.required, "1"));
+
+        KeyPointScorer.ScoreResult result = scorer.score(answer, "Transaction ISOLATION");
+
+        assertEquals(KeyPointStatus.MATCHED, result.getKeyPoints().get(0).getStatus());
+    }
+
+    @Test
+    void testMatchThresholds() {
+        StandardAnswer answer = standardAnswer(1, null, keyPoint(1, FIVE_WORDS, PointType.required, "1"));
+
+        // 覆盖率 4/5 = 0.8 恰好达到 MATCHED，得满分
+        assertPoint(scorer.score(answer, "alpha beta gamma delta"), KeyPointStatus.MATCHED, "1.00", "10.00");
+        // 覆盖率 3/5 = 0.6 为 PARTIAL，按覆盖率得分
+        assertPoint(scorer.score(answer, "alpha beta gamma"), KeyPointStatus.PARTIAL, "0.60", "6.00");
+        // 覆盖率 2/5 = 0.4 恰好达到 PARTIAL
+        assertPoint(scorer.score(answer, "alpha beta"), KeyPointStatus.PARTIAL, "0.40", "4.00");
+        // 覆盖率 1/5 = 0.2 为 MISSED
+        assertPoint(scorer.score(answer, "alpha"), KeyPointStatus.MISSED, "0.00", "0.00");
+        assertPoint(scorer.score(answer, null), KeyPointStatus.MISSED, "0.00", "0.00");
+    }
+
+    @Test
+    void testExampleTextCountsTowardsCoverage() {
+        AnswerKeyPoint point = keyPoint(1, FIVE_WORDS, PointType.required, "1");
+        point.setExampleText("write ahead log");
+        StandardAnswer answer = standardAnswer(1, null, point);
+
+        KeyPointScorer.ScoreResult result = scorer.score(answer, "use a write ahead log");
+
+        assertEquals(KeyPointStatus.MATCHED, result.getKeyPoints().get(0).getStatus());
+    }
+
+    @Test
+    void testBonusAndPenaltyWeighting() {
+        StandardAnswer answer = standardAnswer(1, null,
+                keyPoint(1, "alpha beta", PointType.required, "3"),
+                keyPoint(2, "gamma delta", PointType.required, "1"),
+                keyPoint(3, "epsilon zeta", PointType.bonus, "1"),
+                keyPoint(4, "omega sigma", PointType.penalty, "2"));
+
+        // (必答 3 + 加分 1 - 扣分 2) / 必答总权重 4 = 0.5
+        KeyPointScorer.ScoreResult result = scorer.score(answer, "alpha beta epsilon zeta omega sigma");
+
+        assertEquals(new BigDecimal("5.00"), result.getScore());
+        List<EvaluationKeyPointDTO> points = result.getKeyPoints();
+        assertEquals(new BigDecimal("3.00"), points.get(0).getScore());
+        assertEquals(KeyPointStatus.MISSED, points.get(1).getStatus());
+        assertEquals(new BigDecimal("0.00"), points.get(1).getScore());
+        assertEquals(new BigDecimal("1.00"), points.get(2).getScore());
+        assertEquals(KeyPointStatus.MATCHED, points.get(3).getStatus());
+        assertEquals(new BigDecimal("-2.00"), points.get(3).getScore());
+
+        // 加分项可以弥补缺失的必答项：(3 + 1) / 4 = 1
+        assertEquals(new BigDecimal("10.00"), scorer.score(answer, "alpha beta epsilon zeta").getScore());
+        // 扣分超过得分时截断为 0
+        assertEquals(new BigDecimal("0.00"), scorer.score(answer, "omega sigma").getScore());
+    }
+
+    @Test
+    void testBonusOnlyAndPenaltyOnlyBaselines() {
+        StandardAnswer bonusOnly = standardAnswer(1, null,
+                keyPoint(1, "alpha beta", PointType.bonus, "1"),
+                keyPoint(2, "gamma delta", PointType.bonus, "3"));
+        // 没有必答项时以加分项总权重为基准：3 / 4
+        assertEquals(new BigDecimal("7.50"), scorer.score(bonusOnly, "gamma delta").getScore());
+
+        StandardAnswer penaltyOnly = standardAnswer(2, null,
+                keyPoint(3, "alpha beta", PointType.penalty, "1"),
+                keyPoint(4, "gamma delta", PointType.penalty, "1"));
+        // 只有扣分项时从满分扣除：1 - 1 / 2
+        assertEquals(new BigDecimal("5.00"), scorer.score(penaltyOnly, "alpha beta").getScore());
+        assertEquals(new BigDecimal("10.00"), scorer.score(penaltyOnly, "其他内容").getScore());
+    }
+
+    @Test
+    void testFallsBackToRecallOfStandardAnswerText() {
+        StandardAnswer answer = standardAnswer(1, FIVE_WORDS);
+
+        // 召回率 0.6 及以上为满分，其余按 召回率 / 0.6 换算
+        assertEquals(new BigDecimal("10.00"), scorer.score(answer, "alpha beta gamma").getScore());
+        assertEquals(new BigDecimal("6.67"), scorer.score(answer, "alpha beta").getScore());
+        assertEquals(new BigDecimal("3.33"), scorer.score(answer, "epsilon").getScore());
+        assertEquals(new BigDecimal("0.00"), scorer.score(answer, "").getScore());
+        assertTrue(scorer.score(answer, "alpha").getKeyPoints().isEmpty());
+    }
+
+    @Test
+    void testBlankKeyPointsFallBackToRecall() {
+        StandardAnswer answer = standardAnswer(1, FIVE_WORDS, keyPoint(1, "  ，。", PointType.required, "1"));
+
+        assertEquals(new BigDecimal("6.67"), scorer.score(answer, "alpha beta").getScore());
+    }
+
+    @Test
+    void testEditedKeyPointInvalidatesCompiledCache() {
+        AnswerKeyPoint point = keyPoint(1, "alpha beta", PointType.required, "1");
+        StandardAnswer answer = standardAnswer(1, null, point);
+        assertEquals(new BigDecimal("10.00"), scorer.score(answer, "alpha beta").getScore());
+
+        point.setPointText("gamma delta");
+
+        assertEquals(new BigDecimal("0.00"), scorer.score(answer, "alpha beta").getScore());
+        assertEquals(new BigDecimal("10.00"), scorer.score(answer, "gamma delta").getScore());
+    }
+
+    private static void assertPoint(KeyPointScorer.ScoreResult result, KeyPointStatus status,
+                                    String pointScore, String totalScore) {
+        assertEquals(status, result.getKeyPoints().get(0).getStatus());
+        assertEquals(new BigDecimal(pointScore), result.getKeyPoints().get(0).getScore());
+        assertEquals(new BigDecimal(totalScore), result.getScore());
+    }
+
+    private static StandardAnswer standardAnswer(int id, String text, AnswerKeyPoint... keyPoints) {
+        StandardAnswer answer = new StandardAnswer();
+        answer.setStandardAnswerId(id);
+        answer.setAnswer(text);
+        answer.setKeyPoints(new ArrayList<>(List.of(keyPoints)));
+        return answer;
+    }
+
+    private static AnswerKeyPoint keyPoint(int id, String text, PointType type, String weight) {
+        AnswerKeyPoint point = new AnswerKeyPoint();
+        point.setKeyPointId(id);
+        point.setPointText(text);
+        point.setPointType(type);
+        point.setPointWeight(new BigDecimal(weight));
+        return point;
+    }
+}
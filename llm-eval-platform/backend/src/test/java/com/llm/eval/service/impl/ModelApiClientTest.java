@@ -0,0 +1,161 @@
+package com.llm.eval.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.llm.eval.service.impl.StubModelServer.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 模型接口客户端测试：对本地桩服务验证流式解析、耗时与用量记录、参数合并和取消
+ */
+class ModelApiClientTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private StubModelServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    void testStreamingDeltasAreConcatenated() throws Exception {
+        server = new StubModelServer((requestNo, body) -> Response.stream(
+                StubModelServer.chunk("事务", null),
+                StubModelServer.chunk("具有", null),
+                StubModelServer.chunk("原子性", null),
+                StubModelServer.chunk(null, 42)));
+        ModelApiClient client = StubModelServer.newClient(1, 10);
+
+        ModelApiClient.Completion completion = client.chat(server.model(1, "gen", null),
+                new ModelApiClient.ChatRequest().message("user", "什么是事务？").stream(true), c -> c)
+                .get(10, TimeUnit.SECONDS);
+
+        assertEquals("事务具有原子性", completion.getContent());
+        assertEquals(42, completion.getTokensUsed());
+        assertEquals(1, completion.getAttempts());
+
+        JsonNode request = MAPPER.readTree(server.requestBodies().get(0));
+        assertTrue(request.path("stream").asBoolean());
+        assertTrue(request.path("stream_options").path("include_usage").asBoolean());
+    }
+
+    @Test
+    void testStreamingErrorResponseIsRetried() throws Exception {
+        server = new StubModelServer((requestNo, body) -> requestNo == 1
+                ? Response.status(503, "{\"error\": \"overloaded\"}")
+                : Response.stream(StubModelServer.chunk("好", 3)));
+        ModelApiClient client = StubModelServer.newClient(2, 10);
+
+        ModelApiClient.Completion completion = client.chat(server.model(1, "gen", null),
+                new ModelApiClient.ChatRequest().message("user", "问题").stream(true), c -> c)
+                .get(10, TimeUnit.SECONDS);
+
+        assertEquals("好", completion.getContent());
+        assertEquals(3, completion.getTokensUsed());
+        assertEquals(2, completion.getAttempts());
+    }
+
+    @Test
+    void testLatencyAndTokensAreRecorded() throws Exception {
+        server = new StubModelServer((requestNo, body) -> Response.ok("回答", 57).delay(150));
+        ModelApiClient client = StubModelServer.newClient(1, 10);
+
+        ModelApiClient.Completion completion = client.chat(server.model(1, "gen", null),
+                new ModelApiClient.ChatRequest().message("user", "问题"), c -> c)
+                .get(10, TimeUnit.SECONDS);
+
+        assertEquals("回答", completion.getContent());
+        assertEquals(57, completion.getTokensUsed());
+        assertTrue(completion.getLatencyMs() >= 150, "耗时应包含服务端处理时间，实际 " + completion.getLatencyMs() + "ms");
+    }
+
+    @Test
+    void testMissingUsageLeavesTokensNull() throws Exception {
+        server = new StubModelServer((requestNo, body) -> Response.ok("回答", null));
+        ModelApiClient client = StubModelServer.newClient(1, 10);
+
+        ModelApiClient.Completion completion = client.chat(server.model(1, "gen", null),
+                new ModelApiClient.ChatRequest().message("user", "问题"), c -> c)
+                .get(10, TimeUnit.SECONDS);
+
+        assertNull(completion.getTokensUsed());
+    }
+
+    @Test
+    void testApiConfigParametersOverrideDefaults() throws Exception {
+        server = new StubModelServer((requestNo, body) -> Response.ok("回答", null));
+        ModelApiClient client = StubModelServer.newClient(1, 10);
+        String extraConfig = "\"model\": \"qwen-7b\", \"parameters\": {\"temperature\": 0.2, \"top_p\": 0.9}";
+
+        client.chat(server.model(1, "gen", extraConfig),
+                new ModelApiClient.ChatRequest().message("user", "问题")
+                        .defaultParameter("temperature", 0.0)
+                        .defaultParameter("max_tokens", 64), c -> c)
+                .get(10, TimeUnit.SECONDS);
+
+        JsonNode request = MAPPER.readTree(server.requestBodies().get(0));
+        assertEquals("qwen-7b", request.path("model").asText());
+        assertEquals(0.2, request.path("temperature").asDouble());
+        assertEquals(0.9, request.path("top_p").asDouble());
+        assertEquals(64, request.path("max_tokens").asInt());
+        assertFalse(request.has("stream"));
+
+        Map<String, Object> parameters = client.effectiveParameters(server.model(1, "gen", extraConfig),
+                Map.of("temperature", 1.0));
+        assertEquals(0.2, parameters.get("temperature"));
+        assertEquals(0.9, parameters.get("top_p"));
+    }
+
+    @Test
+    void testCancelAbortsQueuedAndInFlightRequests() throws Exception {
+        server = new StubModelServer((requestNo, body) -> requestNo == 1
+                ? Response.ok("回答", null).delay(5000)
+                : Response.ok("新回答", null));
+        ModelApiClient client = StubModelServer.newClient(1, 10);
+        String extraConfig = "\"max_concurrency\": 1";
+
+        CompletableFuture<ModelApiClient.Completion> running = client.chat(server.model(1, "gen", extraConfig),
+                new ModelApiClient.ChatRequest().message("user", "问题1"), c -> c);
+        CompletableFuture<ModelApiClient.Completion> queued = client.chat(server.model(1, "gen", extraConfig),
+                new ModelApiClient.ChatRequest().message("user", "问题2"), c -> c);
+        waitForRequests(1);
+
+        long start = System.nanoTime();
+        queued.cancel(true);
+        running.cancel(true);
+
+        // 取消后并发许可立即释放，新的请求不必等待被取消的请求结束
+        ModelApiClient.Completion next = client.chat(server.model(1, "gen", extraConfig),
+                new ModelApiClient.ChatRequest().message("user", "问题3"), c -> c)
+                .get(5, TimeUnit.SECONDS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals("新回答", next.getContent());
+        assertTrue(elapsedMs < 4000, "新请求应在取消后立即发送，实际耗时 " + elapsedMs + "ms");
+        assertThrows(CancellationException.class, () -> running.get(1, TimeUnit.SECONDS));
+        assertThrows(CancellationException.class, () -> queued.get(1, TimeUnit.SECONDS));
+        // 排队中被取消的请求没有发出
+        assertEquals(2, server.requestCount());
+        assertFalse(server.requestBodies().stream().anyMatch(body -> body.contains("问题2")));
+    }
+
+    private void waitForRequests(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (server.requestCount() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, server.requestCount());
+    }
+}
@@ -0,0 +1,136 @@
+package com.llm.eval.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 客观题评分器测试：选项识别、回答归一化与按数据集版本加载的答案表
+ */
+class ObjectiveScorerTest {
+
+    private static final int ABCD = 0b1111;
+    private static final int A = 1;
+    private static final int B = 1 << 1;
+    private static final int C = 1 << 2;
+    private static final int D = 1 << 3;
+
+    @Test
+    void testChoiceAfterAnswerMarker() {
+        assertEquals(B, ObjectiveScorer.parseChoices("答案：B", ABCD));
+        assertEquals(C, ObjectiveScorer.parseChoices("经过分析，我选C。", ABCD));
+        assertEquals(D, ObjectiveScorer.parseChoices("正确选项是【D】", ABCD));
+        // 提示词之后接受单个小写字母
+        assertEquals(B, ObjectiveScorer.parseChoices("The answer is (b).", ABCD));
+        assertEquals(A, ObjectiveScorer.parseChoices("Answers: a", ABCD));
+    }
+
+    @Test
+    void testMultipleChoiceSeparators() {
+        assertEquals(A | C, ObjectiveScorer.parseChoices("AC", ABCD));
+        assertEquals(A | C, ObjectiveScorer.parseChoices("答案：A、C", ABCD));
+        assertEquals(B | D, ObjectiveScorer.parseChoices("答案是 B and D", ABCD));
+        assertEquals(A | B | D, ObjectiveScorer.parseChoices("A, B; D", ABCD));
+    }
+
+    @Test
+    void testFullWidthChoicesAreNormalized() {
+        assertEquals(B, ObjectiveScorer.parseChoices("答案：Ｂ", ABCD));
+        assertEquals(A | C, ObjectiveScorer.parseChoices("ＡＣ", ABCD));
+        assertEquals(D, ObjectiveScorer.parseChoices("选（Ｄ）", ABCD));
+    }
+
+    @Test
+    void testUnrecognizedChoices() {
+        // 回答开头的英文句子不是选项
+        assertEquals(0, ObjectiveScorer.parseChoices("A capital city is required.", ABCD));
+        assertEquals(0, ObjectiveScorer.parseChoices("I think so.", ABCD));
+        // 超出合法选项范围的字母、重复字母和没有提示词的小写字母都不识别
+        assertEquals(0, ObjectiveScorer.parseChoices("答案：E", ABCD));
+        assertEquals(0, ObjectiveScorer.parseChoices("AA", ABCD));
+        assertEquals(0, ObjectiveScorer.parseChoices("b", ABCD));
+        assertEquals(0, ObjectiveScorer.parseChoices("无法确定", ABCD));
+    }
+
+    @Test
+    void testFactNormalization() {
+        assertEquals("helloworld", ObjectiveScorer.normalizeFact("Ｈｅｌｌｏ,  World！"));
+        assertEquals("3nf第三范式", ObjectiveScorer.normalizeFact(" 3NF（第三范式）。"));
+        assertEquals("", ObjectiveScorer.normalizeFact("，。！ "));
+    }
+
+    @Test
+    void testScoresAgainstLoadedAnswerKey() {
+        ObjectiveScorer scorer = new ObjectiveScorer(jdbcTemplate(
+                option(1, "single_choice", "A", null, false),
+                option(1, "single_choice", "B", null, true),
+                option(1, "single_choice", "C", null, false),
+                option(2, "multiple_choice", "A", null, true),
+                option(2, "multiple_choice", "B", null, false),
+                option(2, "multiple_choice", "C", null, true),
+                option(2, "multiple_choice", "D", null, true),
+                option(3, "simple_fact", null, "B+ Tree", true),
+                option(3, "simple_fact", null, "B+树", true),
+                option(4, "simple_fact", null, "5", true),
+                // 选项代码不是单个字母或没有正确选项的题目不进入答案表
+                option(5, "single_choice", "A1", null, true),
+                option(6, "single_choice", "A", null, false)));
+        ObjectiveScorer.AnswerKey key = scorer.load(9);
+
+        assertEquals(4, key.size());
+        assertFalse(key.contains(5));
+        assertFalse(key.contains(6));
+        assertNull(scorer.score(key, 5, "A1"));
+        assertNull(scorer.score(key, 99, "A"));
+
+        assertScore("10.00", scorer.score(key, 1, "答案：B"));
+        assertScore("0.00", scorer.score(key, 1, "答案：BC"));
+        assertScore("0.00", scorer.score(key, 1, "A"));
+        ObjectiveScorer.Result unrecognized = scorer.score(key, 1, null);
+        assertScore("0.00", unrecognized);
+        assertTrue(unrecognized.getComment().contains("未识别出所选选项"));
+
+        // 多选题：完全一致满分，漏选按比例，选错 0 分
+        assertScore("10.00", scorer.score(key, 2, "ACD"));
+        assertScore("6.67", scorer.score(key, 2, "答案：A、C"));
+        assertScore("0.00", scorer.score(key, 2, "ABC"));
+
+        // 简单事实题：归一化后相同或包含正确答案
+        assertScore("10.00", scorer.score(key, 3, "ｂ＋ tree"));
+        assertScore("10.00", scorer.score(key, 3, "MySQL 的索引使用 B+树。"));
+        assertScore("0.00", scorer.score(key, 3, "哈希表"));
+        // 单字符答案必须完全一致
+        assertScore("10.00", scorer.score(key, 4, "５。"));
+        assertScore("0.00", scorer.score(key, 4, "15"));
+
+        assertSame(key, scorer.keyFor(9));
+    }
+
+    private static void assertScore(String expected, ObjectiveScorer.Result result) {
+        assertEquals(new BigDecimal(expected), result.getScore());
+    }
+
+    @SafeVarargs
+    private static RecordingJdbcTemplate jdbcTemplate(Map<String, Object>... options) {
+        List<Map<String, Object>> rows = new ArrayList<>(List.of(options));
+        RecordingJdbcTemplate jdbcTemplate = new RecordingJdbcTemplate();
+        jdbcTemplate.onQuery((sql, args) -> rows);
+        return jdbcTemplate;
+    }
+
+    private static Map<String, Object> option(int questionId, String type, String code, String text, boolean correct) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("standard_question_id", questionId);
+        row.put("question_type", type);
+        row.put("option_code", code);
+        row.put("option_text", text);
+        row.put("is_correct", correct);
+        return row;
+    }
+}
@@ -0,0 +1,226 @@
+package com.llm.eval.service.impl;
+
+import com.llm.eval.dto.ModelRatingDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 两两比较排行榜测试：在手工可算的小规模胜负数据上验证 Bradley-Terry 拟合、Elo 换算与 bootstrap 置信区间
+ */
+class PairwiseRatingEngineTest {
+
+    private static final double EPSILON = 1e-6;
+
+    @Test
+    void testTwoModelFitMatchesClosedForm() {
+        // A 胜 B 3 次、负 1 次；加上一场虚拟平局后按半场计 A 得 7、B 得 3，
+        // 两个模型时 MLE 为 p_A / p_B = 7 / 3，几何平均归一后 p_A = sqrt(7/3)
+        long[] wins = {0, 3, 1, 0};
+        long[] ties = {0, 0, 0, 0};
+
+        double[] p = PairwiseRatingEngine.fitStrengths(2, wins, ties, new double[]{1, 1});
+
+        assertEquals(Math.sqrt(7.0 / 3), p[0], EPSILON);
+        assertEquals(Math.sqrt(3.0 / 7), p[1], EPSILON);
+    }
+
+    @Test
+    void testFitDoesNotDependOnWarmStart() {
+        long[] wins = {0, 3, 1, 0};
+        long[] ties = {0, 0, 0, 0};
+
+        double[] cold = PairwiseRatingEngine.fitStrengths(2, wins, ties, new double[]{1, 1});
+        double[] warm = PairwiseRatingEngine.fitStrengths(2, wins, ties, new double[]{50, 0.01});
+
+        assertEquals(cold[0], warm[0], EPSILON);
+        assertEquals(cold[1], warm[1], EPSILON);
+    }
+
+    @Test
+    void testCyclicResultsGiveEqualStrengths() {
+        // A 胜 B、B 胜 C、C 胜 A，对称的结果下三者强度相同
+        long[] wins = {
+                0, 1, 0,
+                0, 0, 1,
+                1, 0, 0};
+        long[] ties = new long[9];
+
+        double[] p = PairwiseRatingEngine.fitStrengths(3, wins, ties, new double[]{2, 1, 0.5});
+
+        for (double strength : p) {
+            assertEquals(1.0, strength, EPSILON);
+        }
+    }
+
+    @Test
+    void testModelWithoutComparisonsHasZeroStrength() {
+        long[] wins = {
+                0, 2, 0,
+                1, 0, 0,
+                0, 0, 0};
+        long[] ties = new long[9];
+
+        double[] p = PairwiseRatingEngine.fitStrengths(3, wins, ties, new double[]{1, 1, 1});
+
+        // A 半场得分 4 + 1、B 得分 2 + 1，p_A / p_B = 5 / 3
+        assertEquals(5.0 / 3, p[0] / p[1], EPSILON);
+        assertEquals(1.0, p[0] * p[1], EPSILON);
+        assertEquals(0.0, p[2]);
+    }
+
+    @Test
+    void testLeaderboardFromScoresAndComparisons() {
+        RecordingJdbcTemplate jdbcTemplate = new RecordingJdbcTemplate();
+        List<Map<String, Object>> evaluations = new ArrayList<>();
+        // 问题1、2 上模型10得分更高，问题3 上模型20更高，问题4 平局
+        evaluations.add(evaluation(1, 1, 10, "8.0"));
+        evaluations.add(evaluation(2, 1, 20, "6.0"));
+        evaluations.add(evaluation(3, 2, 10, "7.0"));
+        evaluations.add(evaluation(4, 2, 20, "5.0"));
+        evaluations.add(evaluation(5, 3, 10, "4.0"));
+        evaluations.add(evaluation(6, 3, 20, "9.0"));
+        evaluations.add(evaluation(7, 4, 10, "5.0"));
+        evaluations.add(evaluation(8, 4, 20, "5.0"));
+        List<Map<String, Object>> comparisons = new ArrayList<>();
+        serve(jdbcTemplate, evaluations, comparisons);
+        PairwiseRatingEngine engine = newEngine(jdbcTemplate);
+
+        List<ModelRatingDTO> ratings = engine.getLeaderboard(false, 0);
+
+        // 模型10 胜2负1平1：半场得分 4 + 1 + 1 = 6，模型20 为 2 + 1 + 1 = 4，强度比 3 : 2
+        assertEquals(2, ratings.size());
+        ModelRatingDTO first = ratings.get(0);
+        ModelRatingDTO second = ratings.get(1);
+        assertEquals(10, first.getModelId());
+        assertEquals(1, first.getRank());
+        assertEquals("模型A v1", first.getModelName());
+        assertEquals(round(1000 + 200 * Math.log10(1.5)), first.getEloRating());
+        assertEquals(round(1000 - 200 * Math.log10(1.5)), second.getEloRating());
+        assertEquals(2L, first.getWins());
+        assertEquals(1L, first.getLosses());
+        assertEquals(1L, first.getTies());
+        assertEquals(4L, first.getComparisons());
+        assertEquals(0.625, first.getWinRate());
+        assertNull(first.getEloLower());
+
+        // 覆盖问题3 上模型10的评分并新增一次显式比较：撤销原先的负场，改记一胜；显式比较模型20胜
+        evaluations.add(evaluation(9, 3, 10, "9.5"));
+        comparisons.add(Map.of("comparison_id", 1, "model1_id", 10, "model2_id", 20, "winner", "answer2"));
+
+        ratings = engine.getLeaderboard(false, 0);
+
+        // 模型10 胜3负1平1：半场得分 6 + 1 + 1 = 8，模型20 为 2 + 1 + 1 = 4，强度比 2 : 1
+        first = ratings.get(0);
+        assertEquals(3L, first.getWins());
+        assertEquals(1L, first.getLosses());
+        assertEquals(1L, first.getTies());
+        assertEquals(round(1000 + 200 * Math.log10(2)), first.getEloRating());
+        assertEquals(round(1000 - 200 * Math.log10(2)), ratings.get(1).getEloRating());
+    }
+
+    @Test
+    void testBootstrapIntervalIsDegenerateForTiesOnly() {
+        RecordingJdbcTemplate jdbcTemplate = new RecordingJdbcTemplate();
+        List<Map<String, Object>> evaluations = new ArrayList<>();
+        for (int q = 1; q <= 5; q++) {
+            evaluations.add(evaluation(2 * q - 1, q, 10, "6.0"));
+            evaluations.add(evaluation(2 * q, q, 20, "6.0"));
+        }
+        serve(jdbcTemplate, evaluations, List.of());
+
+        List<ModelRatingDTO> ratings = newEngine(jdbcTemplate).getLeaderboard(false, 200);
+
+        // 只有平局时任何重抽样的拟合结果都是两者强度相同
+        for (ModelRatingDTO rating : ratings) {
+            assertEquals(1000.0, rating.getEloRating());
+            assertEquals(1000.0, rating.getEloLower());
+            assertEquals(1000.0, rating.getEloUpper());
+        }
+    }
+
+    @Test
+    void testBootstrapIntervalIsDeterministicAndShrinksWithData() {
+        List<ModelRatingDTO> small = leaderboardWithRecord(3, 1, 400);
+        List<ModelRatingDTO> repeated = leaderboardWithRecord(3, 1, 400);
+        List<ModelRatingDTO> large = leaderboardWithRecord(30, 10, 400);
+
+        for (int i = 0; i < small.size(); i++) {
+            ModelRatingDTO rating = small.get(i);
+            assertTrue(rating.getEloLower() <= rating.getEloRating() && rating.getEloRating() <= rating.getEloUpper(),
+                    "点估计应在置信区间内: " + rating);
+            assertTrue(rating.getEloLower() < rating.getEloUpper());
+            // 种子由状态版本决定，相同数据的结果可复现
+            assertEquals(rating.getEloLower(), repeated.get(i).getEloLower());
+            assertEquals(rating.getEloUpper(), repeated.get(i).getEloUpper());
+
+            double smallWidth = rating.getEloUpper() - rating.getEloLower();
+            double largeWidth = large.get(i).getEloUpper() - large.get(i).getEloLower();
+            assertTrue(largeWidth < smallWidth / 2, "比较次数增加十倍后区间应明显收窄: " + largeWidth + " / " + smallWidth);
+        }
+    }
+
+    private static List<ModelRatingDTO> leaderboardWithRecord(int wins, int losses, int rounds) {
+        List<Map<String, Object>> comparisons = new ArrayList<>();
+        int id = 0;
+        for (int k = 0; k < wins; k++) {
+            comparisons.add(Map.of("comparison_id", ++id, "model1_id", 10, "model2_id", 20, "winner", "answer1"));
+        }
+        for (int k = 0; k < losses; k++) {
+            comparisons.add(Map.of("comparison_id", ++id, "model1_id", 10, "model2_id", 20, "winner", "answer2"));
+        }
+        RecordingJdbcTemplate jdbcTemplate = new RecordingJdbcTemplate();
+        serve(jdbcTemplate, List.of(), comparisons);
+        return newEngine(jdbcTemplate).getLeaderboard(false, rounds);
+    }
+
+    private static PairwiseRatingEngine newEngine(RecordingJdbcTemplate jdbcTemplate) {
+        PairwiseRatingEngine engine = new PairwiseRatingEngine(jdbcTemplate);
+        // 分页小于数据量，覆盖多次扫描
+        ReflectionTestUtils.setField(engine, "scanSize", 3);
+        ReflectionTestUtils.setField(engine, "rebuildIntervalSeconds", 600L);
+        ReflectionTestUtils.setField(engine, "maxBootstrapRounds", 1000);
+        return engine;
+    }
+
+    private static void serve(RecordingJdbcTemplate jdbcTemplate, List<Map<String, Object>> evaluations,
+                              List<Map<String, Object>> comparisons) {
+        jdbcTemplate.onQuery((sql, args) -> {
+            if (sql.startsWith("SELECT model_id, name, version")) {
+                return List.of(model(10, "模型A", "v1"), model(20, "模型B", null));
+            }
+            List<Map<String, Object>> source = sql.startsWith("SELECT e.evaluation_id") ? evaluations : comparisons;
+            String idColumn = source == evaluations ? "evaluation_id" : "comparison_id";
+            int afterId = (Integer) args[0];
+            int limit = (Integer) args[1];
+            return source.stream().filter(row -> (Integer) row.get(idColumn) > afterId).limit(limit).toList();
+        });
+    }
+
+    private static Map<String, Object> evaluation(int evaluationId, int questionId, int modelId, String score) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("evaluation_id", evaluationId);
+        row.put("standard_question_id", questionId);
+        row.put("model_id", modelId);
+        row.put("score", score);
+        return row;
+    }
+
+    private static Map<String, Object> model(int modelId, String name, String version) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("model_id", modelId);
+        row.put("name", name);
+        row.put("version", version);
+        return row;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10000) / 10000.0;
+    }
+}
@@ -0,0 +1,243 @@
+package com.llm.eval.service.impl;
+
+import com.llm.eval.event.QuestionContentChangedEvent;
+import com.llm.eval.event.QuestionContentChangedEvent.Corpus;
+import com.llm.eval.util.ContentFingerprint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 相似问题索引测试：近重复问题的召回率、阈值过滤、增量更新与启动构建
+ */
+class QuestionSimilarityIndexTest {
+
+    private static final String ALPHABET = "数据库事务索引查询优化并发控制日志恢复锁表结构范式关系模型存储引擎缓存分区复制主从一致性隔离级别";
+
+    private RecordingJdbcTemplate jdbcTemplate;
+    private ThreadPoolTaskExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testExactVariantIsFoundWithFullSimilarity() {
+        QuestionSimilarityIndex index = newIndex();
+        index.onQuestionContentChanged(QuestionContentChangedEvent.saved(Corpus.STANDARD_QUESTION, Map.of(
+                1, "What is a database transaction?",
+                2, "Explain the difference between clustered and non-clustered indexes.")));
+
+        List<QuestionSimilarityIndex.Match> matches = index.findSimilar(Corpus.STANDARD_QUESTION,
+                "  WHAT is a database   transaction ", 0.9, 10);
+
+        assertEquals(1, matches.size());
+        assertEquals(1, matches.get(0).getQuestionId());
+        assertEquals(1.0, matches.get(0).getSimilarity());
+        assertTrue(matches.get(0).isExact());
+        // 两类问题分别索引
+        assertTrue(index.findSimilar(Corpus.RAW_QUESTION, "What is a database transaction?", 0.5, 10).isEmpty());
+    }
+
+    @Test
+    void testNearDuplicateRecallAndThreshold() {
+        SplittableRandom random = new SplittableRandom(42);
+        Map<Integer, String> corpus = new LinkedHashMap<>();
+        Map<Integer, String> edited = new LinkedHashMap<>();
+        for (int id = 1; id <= 300; id++) {
+            String text = randomText(random, 40);
+            corpus.put(id, text);
+            edited.put(id, replaceOneChar(random, text));
+        }
+        QuestionSimilarityIndex index = newIndex();
+        index.onQuestionContentChanged(QuestionContentChangedEvent.saved(Corpus.STANDARD_QUESTION, corpus));
+        assertEquals(300, index.size(Corpus.STANDARD_QUESTION));
+
+        int found = 0;
+        int falsePositives = 0;
+        double maxEstimateError = 0;
+        for (Map.Entry<Integer, String> entry : edited.entrySet()) {
+            double threshold = 0.5;
+            List<QuestionSimilarityIndex.Match> matches = index.findSimilar(Corpus.STANDARD_QUESTION,
+                    entry.getValue(), threshold, 5);
+            for (QuestionSimilarityIndex.Match match : matches) {
+                assertTrue(match.getSimilarity() >= threshold);
+                assertFalse(match.isExact());
+                if (match.getQuestionId() == entry.getKey()) {
+                    found++;
+                    double jaccard = jaccard(corpus.get(entry.getKey()), entry.getValue());
+                    maxEstimateError = Math.max(maxEstimateError, Math.abs(match.getSimilarity() - jaccard));
+                } else {
+                    falsePositives++;
+                }
+            }
+        }
+
+        // 改动一个字后 3-gram Jaccard 约为 0.85，按 LSH 参数几乎都应成为候选
+        assertTrue(found >= 285, "近重复问题召回 " + found + "/300");
+        // 随机生成的其他问题相似度远低于 0.5
+        assertEquals(0, falsePositives);
+        // 64 个哈希值的估计误差约为 0.05，留出四倍余量
+        assertTrue(maxEstimateError < 0.2, "相似度估计误差 " + maxEstimateError);
+    }
+
+    @Test
+    void testThresholdFiltersLowSimilarity() {
+        QuestionSimilarityIndex index = newIndex();
+        String base = "数据库事务的隔离级别有哪些，分别能避免哪些并发问题";
+        index.onQuestionContentChanged(QuestionContentChangedEvent.saved(Corpus.STANDARD_QUESTION, Map.of(
+                1, base,
+                2, "数据库事务的隔离级别有哪些，分别能避免哪些并发异常现象")));
+
+        List<QuestionSimilarityIndex.Match> loose = index.findSimilar(Corpus.STANDARD_QUESTION, base, 0.3, 10);
+        List<QuestionSimilarityIndex.Match> strict = index.findSimilar(Corpus.STANDARD_QUESTION, base, 1.0, 10);
+
+        assertEquals(2, loose.size());
+        // 按相似度降序
+        assertEquals(1, loose.get(0).getQuestionId());
+        assertTrue(loose.get(0).getSimilarity() > loose.get(1).getSimilarity());
+        assertEquals(1, strict.size());
+        assertEquals(1, strict.get(0).getQuestionId());
+        assertEquals(1, index.findSimilar(Corpus.STANDARD_QUESTION, base, 0.3, 1).size());
+    }
+
+    @Test
+    void testIncrementalUpdatesAndSelfExclusion() {
+        QuestionSimilarityIndex index = newIndex();
+        String text = "解释数据库范式中第三范式与BCNF的区别";
+        index.onQuestionContentChanged(QuestionContentChangedEvent.saved(Corpus.RAW_QUESTION, Map.of(7, text, 8, text)));
+
+        // 按已有问题查找时排除自身
+        List<QuestionSimilarityIndex.Match> matches = index.findSimilar(Corpus.RAW_QUESTION, 7, null, 0.9, 10);
+        assertEquals(1, matches.size());
+        assertEquals(8, matches.get(0).getQuestionId());
+
+        index.onQuestionContentChanged(QuestionContentChangedEvent.saved(Corpus.RAW_QUESTION, 8, "完全不同的另一个问题内容"));
+        assertTrue(index.findSimilar(Corpus.RAW_QUESTION, 7, null, 0.9, 10).isEmpty());
+
+        index.onQuestionContentChanged(QuestionContentChangedEvent.deleted(Corpus.RAW_QUESTION, 7));
+        assertEquals(1, index.size(Corpus.RAW_QUESTION));
+        assertTrue(index.findSimilar(Corpus.RAW_QUESTION, text, 0.9, 10).isEmpty());
+        // 只有标点的文本没有可比较的内容
+        assertTrue(index.findSimilar(Corpus.RAW_QUESTION, "？！", 0.1, 10).isEmpty());
+    }
+
+    @Test
+    void testLargeIdsAndRemovalKeepRemainingQuestions() {
+        QuestionSimilarityIndex index = newIndex();
+        int large = Integer.MAX_VALUE - 1;
+        index.onQuestionContentChanged(QuestionContentChangedEvent.saved(Corpus.RAW_QUESTION, Map.of(
+                40_000_000, "什么是数据库的主从复制",
+                large, "解释存储引擎的缓存机制",
+                5, "关系模型中的范式有哪些")));
+        assertEquals(3, index.size(Corpus.RAW_QUESTION));
+
+        // 移除最早写入的问题后，其余问题仍能按原ID查到
+        index.onQuestionContentChanged(QuestionContentChangedEvent.deleted(Corpus.RAW_QUESTION, 40_000_000));
+        assertEquals(2, index.size(Corpus.RAW_QUESTION));
+        assertTrue(index.findSimilar(Corpus.RAW_QUESTION, "什么是数据库的主从复制", 0.9, 10).isEmpty());
+        List<QuestionSimilarityIndex.Match> matches = index.findSimilar(Corpus.RAW_QUESTION, "解释存储引擎的缓存机制", 0.9, 10);
+        assertEquals(1, matches.size());
+        assertEquals(large, matches.get(0).getQuestionId());
+        assertEquals(5, index.findSimilar(Corpus.RAW_QUESTION, "关系模型中的范式有哪些", 0.9, 10).get(0).getQuestionId());
+    }
+
+    @Test
+    void testStartupBuildPagesThroughQuestions() throws Exception {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int id = 1; id <= 10; id++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("standard_question_id", id);
+            row.put("question", "第" + id + "题：简述数据库日志恢复的过程与检查点的作用");
+            rows.add(row);
+        }
+        QuestionSimilarityIndex index = newIndex();
+        jdbcTemplate.onQuery((sql, args) -> {
+            if (!sql.startsWith("SELECT standard_question_id")) {
+                return List.of();
+            }
+            int afterId = (Integer) args[0];
+            int limit = (Integer) args[1];
+            return rows.stream().filter(row -> (Integer) row.get("standard_question_id") > afterId).limit(limit).toList();
+        });
+
+        index.startBuild();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!(index.isReady(Corpus.STANDARD_QUESTION) && index.isReady(Corpus.RAW_QUESTION))
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertTrue(index.isReady(Corpus.STANDARD_QUESTION));
+        assertEquals(10, index.size(Corpus.STANDARD_QUESTION));
+        assertEquals(0, index.size(Corpus.RAW_QUESTION));
+        List<QuestionSimilarityIndex.Match> matches = index.findSimilar(Corpus.STANDARD_QUESTION,
+                "第3题：简述数据库日志恢复的过程与检查点的作用", 0.9, 10);
+        assertEquals(3, matches.get(0).getQuestionId());
+        assertTrue(matches.get(0).isExact());
+    }
+
+    private QuestionSimilarityIndex newIndex() {
+        jdbcTemplate = new RecordingJdbcTemplate();
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.initialize();
+        QuestionSimilarityIndex index = new QuestionSimilarityIndex(jdbcTemplate, executor);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "buildBatchSize", 3);
+        ReflectionTestUtils.setField(index, "defaultThreshold", 0.9);
+        return index;
+    }
+
+    private static String randomText(SplittableRandom random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+
+    private static String replaceOneChar(SplittableRandom random, String text) {
+        int position = 3 + random.nextInt(text.length() - 6);
+        char replacement;
+        do {
+            replacement = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+        } while (replacement == text.charAt(position));
+        return text.substring(0, position) + replacement + text.substring(position + 1);
+    }
+
+    /**
+     * 归一化文本字符 3-gram 集合的 Jaccard 相似度
+     */
+    private static double jaccard(String a, String b) {
+        Set<String> first = shingles(ContentFingerprint.normalize(a));
+        Set<String> second = shingles(ContentFingerprint.normalize(b));
+        Set<String> union = new HashSet<>(first);
+        union.addAll(second);
+        first.retainAll(second);
+        return (double) first.size() / union.size();
+    }
+
+    private static Set<String> shingles(String text) {
+        Set<String> shingles = new HashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            shingles.add(text.substring(i, i + 3));
+        }
+        return shingles;
+    }
+}
@@ -0,0 +1,225 @@
+package com.llm.eval.service.impl;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * 不连接数据库的 JdbcTemplate：查询结果由测试按 SQL 提供，更新和批量写入连同所在事务一起记录
+ */
+class RecordingJdbcTemplate extends JdbcTemplate {
+
+    private final List<Statement> statements = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger transactionCounter = new AtomicInteger();
+    private final ThreadLocal<Integer> currentTransaction = new ThreadLocal<>();
+    private volatile BiFunction<String, Object[], List<Map<String, Object>>> rows = (sql, args) -> List.of();
+    private volatile ToIntBiFunction<String, Object[]> updateCounts = (sql, args) -> 1;
+
+    /**
+     * 按 SQL 和参数返回查询结果行
+     */
+    void onQuery(BiFunction<String, Object[], List<Map<String, Object>>> rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * 按 SQL 和参数返回更新影响的行数，默认每条更新影响一行
+     */
+    void onUpdate(ToIntBiFunction<String, Object[]> updateCounts) {
+        this.updateCounts = updateCounts;
+    }
+
+    /**
+     * 记录每个事务编号的事务管理器，提交和回滚都只结束记录
+     */
+    PlatformTransactionManager transactionManager() {
+        return new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                currentTransaction.set(transactionCounter.incrementAndGet());
+                return new SimpleTransactionStatus();
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+                currentTransaction.remove();
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+                currentTransaction.remove();
+            }
+        };
+    }
+
+    /**
+     * 当前线程所在的事务编号，不在事务中时为 null
+     */
+    Integer currentTransactionId() {
+        return currentTransaction.get();
+    }
+
+    @Override
+    public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+        List<T> result = new ArrayList<>();
+        List<Map<String, Object>> found = rows.apply(sql, args);
+        for (int i = 0; i < found.size(); i++) {
+            try {
+                result.add(rowMapper.mapRow(resultSet(found.get(i)), i));
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void query(String sql, RowCallbackHandler rch, Object... args) {
+        for (Map<String, Object> row : rows.apply(sql, args)) {
+            try {
+                rch.processRow(resultSet(row));
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @Override
+    public void query(String sql, RowCallbackHandler rch) {
+        query(sql, rch, new Object[0]);
+    }
+
+    @Override
+    public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+        List<Map<String, Object>> found = rows.apply(sql, args);
+        return found.isEmpty() ? null : requiredType.cast(found.get(0).values().iterator().next());
+    }
+
+    @Override
+    public int update(String sql, Object... args) {
+        statements.add(new Statement(sql, List.of(toParams(args)), currentTransaction.get()));
+        return updateCounts.applyAsInt(sql, args);
+    }
+
+    @Override
+    public int update(PreparedStatementCreator psc) {
+        // NamedParameterJdbcTemplate 的更新经此执行，参数不记录
+        String sql = psc instanceof SqlProvider ? ((SqlProvider) psc).getSql() : psc.toString();
+        statements.add(new Statement(sql, List.of(), currentTransaction.get()));
+        return 1;
+    }
+
+    @Override
+    public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                   ParameterizedPreparedStatementSetter<T> pss) {
+        List<Map<Integer, Object>> batchRows = new ArrayList<>();
+        for (T item : batchArgs) {
+            Map<Integer, Object> params = new TreeMap<>();
+            try {
+                pss.setValues(preparedStatement(params), item);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            batchRows.add(params);
+        }
+        statements.add(new Statement(sql, batchRows, currentTransaction.get()));
+        int[] counts = new int[batchRows.size()];
+        Arrays.fill(counts, 1);
+        return new int[][]{counts};
+    }
+
+    /**
+     * 以 sqlPrefix 开头的语句，按执行顺序
+     */
+    List<Statement> statements(String sqlPrefix) {
+        synchronized (statements) {
+            return statements.stream().filter(statement -> statement.sql.startsWith(sqlPrefix)).toList();
+        }
+    }
+
+    private static Map<Integer, Object> toParams(Object[] args) {
+        Map<Integer, Object> params = new TreeMap<>();
+        for (int i = 0; args != null && i < args.length; i++) {
+            params.put(i + 1, args[i]);
+        }
+        return params;
+    }
+
+    private static ResultSet resultSet(Map<String, Object> row) {
+        return (ResultSet) Proxy.newProxyInstance(RecordingJdbcTemplate.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                    Object value = args != null && args.length == 1 && args[0] instanceof String
+                            ? row.get(args[0]) : null;
+                    switch (method.getName()) {
+                        case "getInt":
+                            return value != null ? ((Number) value).intValue() : 0;
+                        case "getLong":
+                            return value != null ? ((Number) value).longValue() : 0L;
+                        case "getBoolean":
+                            return Boolean.TRUE.equals(value);
+                        case "getBigDecimal":
+                            return value != null ? new BigDecimal(value.toString()) : null;
+                        case "getString":
+                            return value != null ? value.toString() : null;
+                        case "getObject":
+                            return value;
+                        case "wasNull":
+                            return false;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static PreparedStatement preparedStatement(Map<Integer, Object> params) {
+        return (PreparedStatement) Proxy.newProxyInstance(RecordingJdbcTemplate.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("setNull")) {
+                        params.put((Integer) args[0], null);
+                    } else if (method.getName().startsWith("set") && args != null && args.length >= 2) {
+                        params.put((Integer) args[0], args[1]);
+                    } else {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * 一次更新或批量写入；transactionId 为 null 表示不在事务中执行
+     */
+    static final class Statement {
+        final String sql;
+        final List<Map<Integer, Object>> rows;
+        final Integer transactionId;
+
+        Statement(String sql, List<Map<Integer, Object>> rows, Integer transactionId) {
+            this.sql = sql;
+            this.rows = rows;
+            this.transactionId = transactionId;
+        }
+    }
+}
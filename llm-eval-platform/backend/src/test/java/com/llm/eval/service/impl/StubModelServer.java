@@ -0,0 +1,200 @@
+package com.llm.eval.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.llm.eval.model.LlmModel;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 测试用的 OpenAI 兼容 /chat/completions 服务，按请求序号和请求体返回预设响应，
+ * 并记录请求数和同时处理中的最大请求数
+ */
+final class StubModelServer implements AutoCloseable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @FunctionalInterface
+    interface Responder {
+        Response respond(int requestNo, String body) throws Exception;
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private final List<String> bodies = Collections.synchronizedList(new ArrayList<>());
+
+    StubModelServer(Responder responder) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/v1/chat/completions", exchange -> handle(exchange, responder));
+        server.start();
+    }
+
+    private void handle(HttpExchange exchange, Responder responder) throws IOException {
+        int current = active.incrementAndGet();
+        maxActive.accumulateAndGet(current, Math::max);
+        try {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            bodies.add(body);
+            Response response = responder.respond(requests.incrementAndGet(), body);
+            if (response.delayMs > 0) {
+                Thread.sleep(response.delayMs);
+            }
+            byte[] bytes = response.body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", response.contentType);
+            response.headers.forEach((name, value) -> exchange.getResponseHeaders().set(name, value));
+            exchange.sendResponseHeaders(response.status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // 客户端超时或取消后连接已关闭
+        } finally {
+            active.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    String endpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1";
+    }
+
+    /**
+     * 指向本服务的模型，extraConfig 为追加到 apiConfig 的 JSON 字段（如 "max_concurrency": 2）
+     */
+    LlmModel model(int modelId, String name, String extraConfig) {
+        LlmModel model = new LlmModel();
+        model.setModelId(modelId);
+        model.setName(name);
+        model.setApiConfig("{\"endpoint\": \"" + endpoint() + "\""
+                + (extraConfig != null && !extraConfig.isBlank() ? ", " + extraConfig : "") + "}");
+        return model;
+    }
+
+    int requestCount() {
+        return requests.get();
+    }
+
+    int maxConcurrentRequests() {
+        return maxActive.get();
+    }
+
+    List<String> requestBodies() {
+        synchronized (bodies) {
+            return new ArrayList<>(bodies);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * 创建模型调用客户端，退避上限固定为 2 秒
+     *
+     * @param maxAttempts 最多调用次数（含首次）
+     * @param backoffInitialMs 首次重试的退避时长
+     */
+    static ModelApiClient newClient(int maxAttempts, long backoffInitialMs) {
+        ModelApiClient client = new ModelApiClient(MAPPER, 5);
+        ReflectionTestUtils.setField(client, "defaultMaxConcurrency", 16);
+        ReflectionTestUtils.setField(client, "defaultTimeoutSeconds", 10);
+        ReflectionTestUtils.setField(client, "maxAttempts", maxAttempts);
+        ReflectionTestUtils.setField(client, "backoffInitialMs", backoffInitialMs);
+        ReflectionTestUtils.setField(client, "backoffMaxMs", 2000L);
+        return client;
+    }
+
+    /**
+     * 非流式的对话补全响应
+     */
+    static String completion(String content, Integer totalTokens) {
+        ObjectNode root = MAPPER.createObjectNode();
+        root.putArray("choices").addObject().putObject("message").put("role", "assistant").put("content", content);
+        if (totalTokens != null) {
+            root.putObject("usage").put("total_tokens", totalTokens);
+        }
+        return root.toString();
+    }
+
+    /**
+     * 流式响应的一个数据块；delta 为 null 时只携带用量
+     */
+    static String chunk(String delta, Integer totalTokens) {
+        ObjectNode root = MAPPER.createObjectNode();
+        if (delta != null) {
+            root.putArray("choices").addObject().putObject("delta").put("content", delta);
+        } else {
+            root.putArray("choices");
+        }
+        if (totalTokens != null) {
+            root.putObject("usage").put("total_tokens", totalTokens);
+        }
+        return root.toString();
+    }
+
+    static final class Response {
+        final int status;
+        final String body;
+        final String contentType;
+        final Map<String, String> headers = new LinkedHashMap<>();
+        long delayMs;
+
+        private Response(int status, String body, String contentType) {
+            this.status = status;
+            this.body = body;
+            this.contentType = contentType;
+        }
+
+        static Response ok(String content, Integer totalTokens) {
+            return new Response(200, completion(content, totalTokens), "application/json");
+        }
+
+        /**
+         * SSE 格式的流式响应，以 data: [DONE] 结束
+         */
+        static Response stream(String... chunks) {
+            StringBuilder body = new StringBuilder();
+            for (String chunk : chunks) {
+                body.append("data: ").append(chunk).append("\n\n");
+            }
+            body.append("data: [DONE]\n\n");
+            return new Response(200, body.toString(), "text/event-stream");
+        }
+
+        static Response status(int status, String body) {
+            return new Response(status, body, "application/json");
+        }
+
+        Response header(String name, String value) {
+            headers.put(name, value);
+            return this;
+        }
+
+        Response delay(long millis) {
+            this.delayMs = millis;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.llm.eval.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 内容指纹测试：仅空白、大小写、全半角或标点不同的文本指纹相同
+ */
+class ContentFingerprintTest {
+
+    @Test
+    void testWhitespaceAndCaseVariantsShareFingerprint() {
+        String fingerprint = ContentFingerprint.of("What is a database transaction?");
+
+        assertEquals(ContentFingerprint.LENGTH, fingerprint.length());
+        assertTrue(fingerprint.matches("[0-9a-f]{32}"));
+        assertEquals(fingerprint, ContentFingerprint.of("  what IS a   database\ttransaction "));
+        assertEquals(fingerprint, ContentFingerprint.of("WHAT IS A DATABASE TRANSACTION"));
+        assertEquals(fingerprint, ContentFingerprint.of("What\r\nis a database transaction!!"));
+        assertEquals(fingerprint, ContentFingerprint.of("Ｗｈａｔ　ｉｓ ａ ｄａｔａｂａｓｅ ｔｒａｎｓａｃｔｉｏｎ？"));
+    }
+
+    @Test
+    void testCjkSpacingAndPunctuationAreIgnored() {
+        String fingerprint = ContentFingerprint.of("什么是数据库事务？");
+
+        assertEquals(fingerprint, ContentFingerprint.of("什么是 数据库 事务"));
+        assertEquals(fingerprint, ContentFingerprint.of("  什么是数据库事务?\n"));
+        assertEquals(fingerprint, ContentFingerprint.of("什么是“数据库事务”"));
+        // 中英混排时英文与汉字之间的空格可有可无
+        assertEquals(ContentFingerprint.of("什么是SQL注入"), ContentFingerprint.of("什么是 SQL 注入？"));
+    }
+
+    @Test
+    void testDifferentWordsHaveDifferentFingerprints() {
+        assertNotEquals(ContentFingerprint.of("什么是数据库事务"), ContentFingerprint.of("什么是数据库索引"));
+        // 英文单词之间的分隔保留，拼接后不同的词不会相同
+        assertNotEquals(ContentFingerprint.of("data base"), ContentFingerprint.of("database"));
+        assertNotEquals(ContentFingerprint.of("1.5"), ContentFingerprint.of("15"));
+    }
+
+    @Test
+    void testNormalizedText() {
+        assertEquals("what is acid", ContentFingerprint.normalize("  What is ACID?? "));
+        assertEquals("什么是sql注入", ContentFingerprint.normalize("什么是 ＳＱＬ 注入？"));
+    }
+
+    @Test
+    void testPunctuationOnlyTextFallsBackToOriginal() {
+        assertNull(ContentFingerprint.of(null));
+        assertEquals("", ContentFingerprint.normalize("？？！"));
+        // 归一化后为空时按原文计算，不同的纯标点文本不会彼此判重
+        assertNotEquals(ContentFingerprint.of("？？"), ContentFingerprint.of("！！"));
+        assertEquals(ContentFingerprint.of("？？"), ContentFingerprint.of(" ？？ "));
+    }
+}